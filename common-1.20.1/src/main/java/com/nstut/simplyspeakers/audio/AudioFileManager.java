@@ -28,6 +28,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -35,8 +36,6 @@ import java.util.UUID;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import javazoom.jl.decoder.Bitstream;
-import javazoom.jl.decoder.Decoder;
 
 public class AudioFileManager {
     private static final String AUDIO_DIR_NAME = "simply_speakers_audios";
@@ -79,26 +78,18 @@ public class AudioFileManager {
             Map<String, AudioFileMetadata> loadedManifest = GSON.fromJson(reader, type);
             if (loadedManifest != null) {
                 manifest.clear();
-                boolean manifestModified = false;
+                List<String> legacyEntries = new ArrayList<>();
                 for (Map.Entry<String, AudioFileMetadata> entry : loadedManifest.entrySet()) {
                     AudioFileMetadata meta = entry.getValue();
-                    if (meta != null && meta.getDurationSeconds() <= 0.0f) {
-                        String extension = FilenameUtils.getExtension(meta.getOriginalFilename());
-                        Path filePath = audioDirPath.resolve(meta.getUuid() + (extension.isEmpty() ? "" : "." + extension));
-                        if (Files.exists(filePath)) {
-                            float duration = AudioDurationCalculator.calculateDurationSeconds(filePath);
-                            if (duration > 0.0f) {
-                                meta = meta.withDuration(duration);
-                                manifestModified = true;
-                            }
-                        }
-                    }
                     if (meta != null) {
                         manifest.put(entry.getKey(), meta);
+                        if (!meta.hasStreamInfo()) {
+                            legacyEntries.add(entry.getKey());
+                        }
                     }
                 }
-                if (manifestModified) {
-                    saveManifest();
+                if (!legacyEntries.isEmpty()) {
+                    audioFileExecutor.execute(() -> backfillStreamInfo(legacyEntries));
                 }
             }
         } catch (Exception e) {
@@ -110,6 +101,46 @@ public class AudioFileManager {
         }
     }
 
+    /**
+     * Reads exact stream info for entries from older manifests, which only carry an estimated
+     * duration. Runs on the file executor so loading the world never waits on scanning them;
+     * until then those tracks use their stored duration.
+     */
+    private void backfillStreamInfo(List<String> audioIds) {
+        boolean manifestModified = false;
+        for (String audioId : audioIds) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            AudioFileMetadata meta = manifest.get(audioId);
+            if (meta == null || meta.hasStreamInfo()) {
+                continue;
+            }
+            String extension = FilenameUtils.getExtension(meta.getOriginalFilename());
+            Path filePath = audioDirPath.resolve(meta.getUuid() + (extension.isEmpty() ? "" : "." + extension));
+            if (!Files.exists(filePath)) {
+                continue;
+            }
+            AudioFileMetadata updated = meta;
+            AudioStreamInfo streamInfo = AudioMetadataExtractor.extract(filePath.toFile());
+            if (streamInfo.isKnown()) {
+                updated = meta.withStreamInfo(streamInfo);
+            } else if (meta.getDurationSeconds() <= 0.0f) {
+                float duration = AudioDurationCalculator.calculateDurationSeconds(filePath);
+                if (duration > 0.0f) {
+                    updated = meta.withDuration(duration);
+                }
+            }
+            // Only if the entry was not deleted or replaced meanwhile.
+            if (updated != meta && manifest.replace(audioId, meta, updated)) {
+                manifestModified = true;
+            }
+        }
+        if (manifestModified) {
+            saveManifest();
+        }
+    }
+
     private synchronized void saveManifest() {
         Path tmpPath = audioDirPath.resolve(MANIFEST_FILE_NAME + ".tmp");
         try {
@@ -141,34 +172,12 @@ public class AudioFileManager {
 
     public boolean validateFile(String filename) {
         if (filename == null) return false;
-        String extension = FilenameUtils.getExtension(filename).toLowerCase();
-        return extension.equals("mp3") || extension.equals("wav");
+        return AudioDecoders.isSupportedExtension(FilenameUtils.getExtension(filename));
     }
 
     public static boolean validateAudioContent(Path filePath, String originalFilename) {
         String extension = FilenameUtils.getExtension(originalFilename).toLowerCase();
-        if (extension.equals("mp3")) {
-            try (InputStream in = Files.newInputStream(filePath)) {
-                Bitstream bitstream = new Bitstream(in);
-                var header = bitstream.readFrame();
-                if (header == null) return false;
-                new Decoder().decodeFrame(header, bitstream);
-                bitstream.closeFrame();
-                return true;
-            } catch (Exception e) {
-                SimplySpeakers.LOGGER.warn("MP3 frame validation failed for {}: {}", filePath, e.getMessage());
-                return false;
-            }
-        }
-        if (!extension.equals("wav")) return false;
-        try (InputStream in = Files.newInputStream(filePath);
-             java.io.BufferedInputStream bin = new java.io.BufferedInputStream(in)) {
-            javax.sound.sampled.AudioFileFormat format = javax.sound.sampled.AudioSystem.getAudioFileFormat(bin);
-            return format != null && format.getFormat() != null && format.getFormat().getSampleRate() > 0;
-        } catch (Exception e) {
-            SimplySpeakers.LOGGER.warn("Audio header validation failed for {}: {}", filePath, e.getMessage());
-            return false;
-        }
+        return AudioDecoders.validate(filePath.toFile(), extension);
     }
 
     public AudioFileMetadata saveFile(InputStream inputStream, String originalFilename, String ownerUUID) throws IOException {
@@ -181,15 +190,24 @@ public class AudioFileManager {
         Path filePath = audioDirPath.resolve(uuid + (extension.isEmpty() ? "" : "." + extension));
 
         Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-        float durationSeconds = AudioDurationCalculator.calculateDurationSeconds(filePath);
-
-        AudioFileMetadata metadata = new AudioFileMetadata(uuid, originalFilename, ownerUUID, durationSeconds);
+        AudioFileMetadata metadata = createMetadata(uuid, originalFilename, ownerUUID, filePath);
         manifest.put(uuid, metadata);
         saveManifest();
 
         return metadata;
     }
 
+    /**
+     * Extracts exact sample counts once, here, so playback never has to estimate them.
+     */
+    private static AudioFileMetadata createMetadata(String uuid, String originalFilename, String ownerUUID, Path filePath) {
+        AudioStreamInfo streamInfo = AudioMetadataExtractor.extract(filePath.toFile());
+        if (streamInfo.isKnown()) {
+            return new AudioFileMetadata(uuid, originalFilename, ownerUUID, streamInfo);
+        }
+        return new AudioFileMetadata(uuid, originalFilename, ownerUUID, AudioDurationCalculator.calculateDurationSeconds(filePath));
+    }
+
     public Path getAudioFilePath(String uuid) {
         AudioFileMetadata metadata = manifest.get(uuid);
         if (metadata == null) {
@@ -235,7 +253,7 @@ public class AudioFileManager {
         }
 
         if (!validateFile(fileName)) {
-            PacketRegistries.CHANNEL.sendToPlayer(player, new RespondUploadAudioPacketS2C(transactionId, false, 0, Component.literal("Invalid file type. Only MP3 and WAV files are supported.")));
+            PacketRegistries.CHANNEL.sendToPlayer(player, new RespondUploadAudioPacketS2C(transactionId, false, 0, Component.literal("Invalid file type. Only MP3, WAV, FLAC and OGG files are supported.")));
             return;
         }
 
@@ -323,10 +341,9 @@ public class AudioFileManager {
             } catch (Exception e) {
                 Files.move(session.tempFilePath, finalPath, StandardCopyOption.REPLACE_EXISTING);
             }
-            float durationSeconds = AudioDurationCalculator.calculateDurationSeconds(finalPath);
-
             UploadSession state = session;
-            AudioFileMetadata metadata = new AudioFileMetadata(uuid, state.fileName, state.ownerUUID, durationSeconds);
+            AudioFileMetadata metadata = createMetadata(uuid, state.fileName, state.ownerUUID, finalPath);
+            float durationSeconds = metadata.getDurationSeconds();
             manifest.put(uuid, metadata);
             saveManifest();
 
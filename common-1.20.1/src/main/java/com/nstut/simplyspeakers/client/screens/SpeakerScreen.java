@@ -19,6 +19,7 @@ import com.nstut.openui.state.Computed;
 import com.nstut.openui.state.Signal;
 import com.nstut.openui.state.Signals;
 import com.nstut.openui.state.Subscription;
+import com.nstut.simplyspeakers.audio.AudioDecoders;
 import com.nstut.simplyspeakers.client.ClientAudioPlayer;
 import com.nstut.simplyspeakers.Config;
 import com.nstut.simplyspeakers.platform.Services;
@@ -290,10 +291,10 @@ public class SpeakerScreen extends SimplySpeakersUiScreen {
     }
 
     private void openUpload() {
-        Services.CLIENT.openFileDialog("mp3,wav", file -> {
+        Services.CLIENT.openFileDialog(String.join(",", AudioDecoders.supportedExtensions()), file -> {
             if (file == null) return;
             String name = file.getName().toLowerCase(Locale.ROOT);
-            if (!name.endsWith(".mp3") && !name.endsWith(".wav")) {
+            if (!AudioDecoders.isSupportedFilename(name)) {
                 setStatusMessage(Component.translatable("gui.simplyspeakers.upload.invalid_type"));
                 Toast.show(uiRuntime().overlays(),
                         Toast.error(Component.translatable("gui.simplyspeakers.upload").getString(),
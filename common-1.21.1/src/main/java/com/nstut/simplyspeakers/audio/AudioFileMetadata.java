@@ -7,6 +7,11 @@ public class AudioFileMetadata {
     private final String originalFilename;
     private final String ownerUUID;
     private final float durationSeconds;
+    private final long totalSampleFrames;
+    private final int sampleRate;
+    private final int channels;
+    private final int encoderDelay;
+    private final int encoderPadding;
 
     public AudioFileMetadata(String uuid, String originalFilename) {
         this(uuid, originalFilename, null, 0.0f);
@@ -17,10 +22,23 @@ public class AudioFileMetadata {
     }
 
     public AudioFileMetadata(String uuid, String originalFilename, String ownerUUID, float durationSeconds) {
+        this(uuid, originalFilename, ownerUUID, durationSeconds, AudioStreamInfo.UNKNOWN);
+    }
+
+    public AudioFileMetadata(String uuid, String originalFilename, String ownerUUID, AudioStreamInfo streamInfo) {
+        this(uuid, originalFilename, ownerUUID, streamInfo.durationSeconds(), streamInfo);
+    }
+
+    private AudioFileMetadata(String uuid, String originalFilename, String ownerUUID, float durationSeconds, AudioStreamInfo streamInfo) {
         this.uuid = uuid;
         this.originalFilename = originalFilename;
         this.ownerUUID = ownerUUID;
         this.durationSeconds = durationSeconds;
+        this.totalSampleFrames = streamInfo.totalSampleFrames();
+        this.sampleRate = streamInfo.sampleRate();
+        this.channels = streamInfo.channels();
+        this.encoderDelay = streamInfo.encoderDelay();
+        this.encoderPadding = streamInfo.encoderPadding();
     }
 
     public String getUuid() {
@@ -39,8 +57,63 @@ public class AudioFileMetadata {
         return durationSeconds;
     }
 
+    public long getTotalSampleFrames() {
+        return totalSampleFrames;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getEncoderDelay() {
+        return encoderDelay;
+    }
+
+    public int getEncoderPadding() {
+        return encoderPadding;
+    }
+
+    public AudioStreamInfo getStreamInfo() {
+        return new AudioStreamInfo(totalSampleFrames, sampleRate, channels, encoderDelay, encoderPadding);
+    }
+
+    public boolean hasStreamInfo() {
+        return totalSampleFrames > 0L && sampleRate > 0;
+    }
+
     public AudioFileMetadata withDuration(float newDurationSeconds) {
-        return new AudioFileMetadata(this.uuid, this.originalFilename, this.ownerUUID, newDurationSeconds);
+        return new AudioFileMetadata(this.uuid, this.originalFilename, this.ownerUUID, newDurationSeconds, getStreamInfo());
+    }
+
+    public AudioFileMetadata withStreamInfo(AudioStreamInfo streamInfo) {
+        return new AudioFileMetadata(this.uuid, this.originalFilename, this.ownerUUID, streamInfo);
+    }
+
+    /**
+     * Whether playback that has been running for {@code elapsedSeconds} has reached the end of
+     * the track, compared in whole sample frames when the exact length is known.
+     */
+    public boolean isFinishedAt(float elapsedSeconds) {
+        if (hasStreamInfo()) {
+            return (long) ((double) elapsedSeconds * sampleRate) >= totalSampleFrames;
+        }
+        return durationSeconds > 0.0f && elapsedSeconds >= durationSeconds;
+    }
+
+    /**
+     * Position within a looping track after {@code elapsedSeconds}, wrapped on the exact
+     * sample frame count when known.
+     */
+    public float loopPositionSeconds(float elapsedSeconds) {
+        if (hasStreamInfo()) {
+            long sampleFrame = (long) ((double) elapsedSeconds * sampleRate);
+            return (float) ((double) (sampleFrame % totalSampleFrames) / sampleRate);
+        }
+        return durationSeconds > 0.0f ? elapsedSeconds % durationSeconds : elapsedSeconds;
     }
 
     public void encode(FriendlyByteBuf buf) {
@@ -51,6 +124,11 @@ public class AudioFileMetadata {
             buf.writeUtf(ownerUUID);
         }
         buf.writeFloat(durationSeconds);
+        buf.writeVarLong(totalSampleFrames);
+        buf.writeVarInt(sampleRate);
+        buf.writeVarInt(channels);
+        buf.writeVarInt(encoderDelay);
+        buf.writeVarInt(encoderPadding);
     }
 
     public static AudioFileMetadata decode(FriendlyByteBuf buf) {
@@ -58,6 +136,10 @@ public class AudioFileMetadata {
         String originalFilename = buf.readUtf();
         String ownerUUID = buf.readBoolean() ? buf.readUtf() : null;
         float durationSeconds = buf.readableBytes() >= 4 ? buf.readFloat() : 0.0f;
-        return new AudioFileMetadata(uuid, originalFilename, ownerUUID, durationSeconds);
+        // Absent from entries written before exact stream info was recorded.
+        AudioStreamInfo streamInfo = buf.readableBytes() > 0
+                ? new AudioStreamInfo(buf.readVarLong(), buf.readVarInt(), buf.readVarInt(), buf.readVarInt(), buf.readVarInt())
+                : AudioStreamInfo.UNKNOWN;
+        return new AudioFileMetadata(uuid, originalFilename, ownerUUID, durationSeconds, streamInfo);
     }
 }
@@ -7,6 +7,7 @@ import com.nstut.simplyspeakers.SpeakerSettings;
 import com.nstut.simplyspeakers.SpeakerState;
 import com.nstut.simplyspeakers.audio.AudioFileMetadata;
 import com.nstut.simplyspeakers.audio.AudioFileManager;
+import com.nstut.simplyspeakers.client.ClientAudioPlayer;
 import com.nstut.simplyspeakers.client.ClientSpeakerRegistry;
 import com.nstut.simplyspeakers.compat.sable.SpeakerSpatialResolver;
 import com.nstut.simplyspeakers.network.PlayAudioPacketS2C;
@@ -83,6 +84,7 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
     public void setMaxVolumeClient(float maxVolume) {
         if (this.level != null && this.level.isClientSide()) {
             this.maxVolume = Math.max(0.0f, Math.min(1.0f, maxVolume));
+            pushClientEmitter();
         }
     }
 
@@ -100,6 +102,7 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
     public void setMaxRangeClient(int maxRange) {
         if (this.level != null && this.level.isClientSide()) {
             this.maxRange = Math.max(1, Math.min(Config.speakerRange, maxRange));
+            pushClientEmitter();
         }
     }
 
@@ -117,6 +120,7 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
     public void setAudioDropoffClient(float audioDropoff) {
         if (this.level != null && this.level.isClientSide()) {
             this.audioDropoff = Math.max(0.0f, Math.min(1.0f, audioDropoff));
+            pushClientEmitter();
         }
     }
 
@@ -193,6 +197,16 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
     @Override
     public void setRemoved() {
         super.setRemoved();
+        if (level != null && level.isClientSide()) {
+            ClientAudioPlayer.removeEmitter(worldPosition);
+        }
+    }
+
+    /** Hands this proxy's current settings to the client's emitter table. */
+    private void pushClientEmitter() {
+        if (level != null && level.isClientSide()) {
+            ClientAudioPlayer.updateEmitter(worldPosition, null, getMaxRange(), getMaxVolume(), getAudioDropoff());
+        }
     }
 
     public void playAudio() {
@@ -283,8 +297,8 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
                 AudioFileManager audioFileManager = SimplySpeakers.getAudioFileManager();
                 if (audioFileManager != null) {
                     AudioFileMetadata meta = audioFileManager.getManifest().get(state.getAudioId());
-                    if (meta != null && meta.getDurationSeconds() > 0.0f && state.isLooping()) {
-                        playbackPositionSeconds = elapsedSeconds % meta.getDurationSeconds();
+                    if (meta != null && state.isLooping()) {
+                        playbackPositionSeconds = meta.loopPositionSeconds(elapsedSeconds);
                     }
                 }
 
@@ -340,6 +354,7 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
         if (level != null && !level.isClientSide()) {
             ensureServerRegistration();
         }
+        pushClientEmitter();
     }
 
     @Override
@@ -9,6 +9,7 @@ import com.nstut.simplyspeakers.SpeakerState;
 import com.nstut.simplyspeakers.audio.AudioFileMetadata;
 import com.nstut.simplyspeakers.audio.AudioFileManager;
 import com.nstut.simplyspeakers.blocks.SpeakerBlock;
+import com.nstut.simplyspeakers.client.ClientAudioPlayer;
 import com.nstut.simplyspeakers.client.ClientSpeakerRegistry;
 import com.nstut.simplyspeakers.compat.sable.SpeakerSpatialResolver;
 import com.nstut.simplyspeakers.network.PlayAudioPacketS2C;
@@ -325,7 +326,7 @@ public class SpeakerBlockEntity extends BlockEntity {
             AudioFileManager audioFileManager = SimplySpeakers.getAudioFileManager();
             if (audioFileManager != null) {
                 AudioFileMetadata meta = audioFileManager.getManifest().get(state.getAudioId());
-                if (meta != null && meta.getDurationSeconds() > 0.0f && elapsedSeconds >= meta.getDurationSeconds()) {
+                if (meta != null && meta.isFinishedAt(elapsedSeconds)) {
                     stopAudio();
                     return;
                 }
@@ -365,8 +366,8 @@ public class SpeakerBlockEntity extends BlockEntity {
                 AudioFileManager audioFileManager = SimplySpeakers.getAudioFileManager();
                 if (audioFileManager != null) {
                     AudioFileMetadata meta = audioFileManager.getManifest().get(state.getAudioId());
-                    if (meta != null && meta.getDurationSeconds() > 0.0f && state.isLooping()) {
-                        playbackPositionSeconds = elapsedSeconds % meta.getDurationSeconds();
+                    if (meta != null && state.isLooping()) {
+                        playbackPositionSeconds = meta.loopPositionSeconds(elapsedSeconds);
                     }
                 }
 
@@ -421,6 +422,16 @@ public class SpeakerBlockEntity extends BlockEntity {
     @Override
     public void setRemoved() {
         super.setRemoved();
+        if (level != null && level.isClientSide()) {
+            ClientAudioPlayer.removeEmitter(worldPosition);
+        }
+    }
+
+    /** Hands this speaker's current settings to the client's emitter table. */
+    private void pushClientEmitter() {
+        if (level != null && level.isClientSide()) {
+            ClientAudioPlayer.updateEmitter(worldPosition, getStateKey(), getMaxRange(), getMaxVolume(), getAudioDropoff());
+        }
     }
 
     @Override
@@ -473,6 +484,7 @@ public class SpeakerBlockEntity extends BlockEntity {
         }
 
         listeningPlayers.clear();
+        pushClientEmitter();
     }
 
     @Override
@@ -572,6 +584,7 @@ public class SpeakerBlockEntity extends BlockEntity {
             if (state != null) {
                 state.setMaxVolume(Math.max(0.0f, Math.min(1.0f, maxVolume)));
             }
+            pushClientEmitter();
         }
     }
 
@@ -581,6 +594,7 @@ public class SpeakerBlockEntity extends BlockEntity {
             if (state != null) {
                 state.setMaxRange(Math.max(1, Math.min(Config.speakerRange, maxRange)));
             }
+            pushClientEmitter();
         }
     }
 
@@ -590,6 +604,7 @@ public class SpeakerBlockEntity extends BlockEntity {
             if (state != null) {
                 state.setAudioDropoff(Math.max(0.0f, Math.min(1.0f, audioDropoff)));
             }
+            pushClientEmitter();
         }
     }
 
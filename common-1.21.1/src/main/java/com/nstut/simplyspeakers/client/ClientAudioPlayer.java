@@ -4,9 +4,10 @@ import com.nstut.simplyspeakers.Config;
 import com.nstut.simplyspeakers.SimplySpeakers;
 import com.nstut.simplyspeakers.audio.AudioFileMetadata;
 import com.nstut.simplyspeakers.audio.AudioGain;
-import com.nstut.simplyspeakers.audio.IncrementalAudioDecoders;
+import com.nstut.simplyspeakers.audio.DirectPcmSource;
+import com.nstut.simplyspeakers.audio.EmitterTable;
+import com.nstut.simplyspeakers.audio.ResamplingPcmStream;
 import com.nstut.simplyspeakers.audio.PlaybackOffset;
-import com.nstut.simplyspeakers.audio.SpatialAudioCalculator;
 import com.nstut.simplyspeakers.audio.UploadProgressLogger;
 import com.nstut.simplyspeakers.client.screens.SpeakerScreen;
 import com.nstut.simplyspeakers.client.compat.sable.ClientSpeakerSpatialResolver;
@@ -20,6 +21,9 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.network.chat.Component;
 import net.minecraft.world.phys.Vec3;
 import org.lwjgl.openal.AL10;
+import org.lwjgl.openal.AL11;
+import org.lwjgl.openal.ALC10;
+import org.lwjgl.system.MemoryUtil;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -31,18 +35,22 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ClientAudioPlayer {
@@ -52,77 +60,878 @@ public class ClientAudioPlayer {
     private static final Map<BlockPos, String> posToNetworkKey = new ConcurrentHashMap<>();
     private static final Map<String, Set<BlockPos>> networkToPositions = new ConcurrentHashMap<>();
     private static final Map<BlockPos, EmitterData> cachedEmitters = new ConcurrentHashMap<>();
+    /** Playing positions whose block entity went away, with when it was last expected back. */
+    private static final Map<BlockPos, Long> missingEmitters = new ConcurrentHashMap<>();
+    /** Each network's emitters as primitive arrays, rebuilt when its positions or settings change. */
+    private static final Map<String, EmitterTable> emitterTables = new ConcurrentHashMap<>();
     private static final Map<UUID, UploadProcess> activeUploads = new ConcurrentHashMap<>();
     private static final Map<UUID, Thread> activeUploadWorkers = new ConcurrentHashMap<>();
     private static final Map<String, DownloadProcess> activeDownloads = new ConcurrentHashMap<>();
     private static final Map<String, List<PlayRequest>> pendingPlays = new ConcurrentHashMap<>();
     private static final Map<String, AudioFileMetadata> audioList = new ConcurrentHashMap<>();
-    private static final int NUM_BUFFERS = 3;
-    private static final int BUFFER_SIZE_SECONDS = 1;
-    private static final int MISSING_BLOCK_ENTITY_GRACE_TICKS = 40;
+    /** Upload staging for refills on the pump and for pre-rolls, which hold a stream's first buffers at once. */
+    private static final DirectBufferPool UPLOAD_BUFFERS = new DirectBufferPool(8);
+    /**
+     * Opens, seeks and decodes the start of new streams, and decodes short clips whole, so the
+     * pump never waits on a decoder.
+     */
+    private static final ExecutorService PRE_ROLL = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "simplyspeakers-pre-roll");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final VoiceBudget VOICE_BUDGET = new VoiceBudget();
+    /**
+     * Sources and stream buffers handed back by stopped networks; leased and returned on the audio
+     * pump thread. Emptied without deleting anything once the sound engine has a new context.
+     */
+    private static final OpenAlNamePool SOURCE_POOL = new OpenAlNamePool(
+            AL10::alGenSources, AL10::alIsSource, AL10::alDeleteSources, ALC10::alcGetCurrentContext, 32);
+    private static final OpenAlNamePool BUFFER_POOL = new OpenAlNamePool(
+            AL10::alGenBuffers, AL10::alIsBuffer, AL10::alDeleteBuffers, ALC10::alcGetCurrentContext, 96);
+    /** Short tracks decoded whole; their buffers are created and deleted on the audio pump thread. */
+    private static final StaticClipCache STATIC_CLIPS = new StaticClipCache(
+            () -> Config.staticClipCacheMegabytes * 1024L * 1024L, AL10::alDeleteBuffers, ALC10::alcGetCurrentContext);
+    /** Scratch position for resolving emitters that follow a render pose, used on the render thread only. */
+    private static final BlockPos.MutableBlockPos RENDER_POSE_SCRATCH = new BlockPos.MutableBlockPos();
+    /** Loudest emitters of the network being placed; spatial pass only. */
+    private static final int[] LOUDEST_ORDER = new int[Config.MAX_EMITTER_SOURCES];
+    private static final float[] LOUDEST_SPOTS = new float[Config.MAX_EMITTER_SOURCES * 4];
+    private static final long MISSING_BLOCK_ENTITY_GRACE_NANOS = 2_000_000_000L;
+    /** How soon a refill retries when the decoder had no audio ready. */
+    private static final long DECODER_RETRY_NANOS = 10_000_000L;
+    private static final OpenAlCalls AL_CALLS = new OpenAlCalls();
+
+    /** The OpenAL calls behind the shared queue and parameter push logic. */
+    private static final class OpenAlCalls implements SharedBufferQueue.QueueCalls, SourceParameterCache.SourceCalls {
+        @Override
+        public int buffersProcessed(int source) {
+            return AL10.alGetSourcei(source, AL10.AL_BUFFERS_PROCESSED);
+        }
+
+        @Override
+        public int unqueue(int source) {
+            return AL10.alSourceUnqueueBuffers(source);
+        }
+
+        @Override
+        public void queue(int source, int buffer) {
+            AL10.alSourceQueueBuffers(source, buffer);
+        }
+
+        @Override
+        public boolean isSource(int source) {
+            return AL10.alIsSource(source);
+        }
+
+        @Override
+        public void position(int source, float x, float y, float z) {
+            AL10.alSource3f(source, AL10.AL_POSITION, x, y, z);
+        }
+
+        @Override
+        public void gain(int source, float gain) {
+            AL10.alSourcef(source, AL10.AL_GAIN, gain);
+        }
+    }
 
     private static class EmitterData {
-        final BlockPos localPosition;
         volatile int maxRange;
         volatile float maxVolume;
         volatile float audioDropoff;
-        int missingBlockEntityTicks;
+        /** State key of a speaker whose settings are shared across its network; null for proxies. */
+        volatile String sharedStateKey;
 
-        EmitterData(BlockPos localPosition, int maxRange, float maxVolume, float audioDropoff) {
-            this.localPosition = localPosition.immutable();
+        EmitterData(int maxRange, float maxVolume, float audioDropoff) {
             this.maxRange = maxRange;
             this.maxVolume = maxVolume;
             this.audioDropoff = audioDropoff;
         }
+
+        void apply(int maxRange, float maxVolume, float audioDropoff) {
+            this.maxRange = Math.min(maxRange, Config.speakerRange);
+            this.maxVolume = maxVolume;
+            this.audioDropoff = audioDropoff;
+        }
     }
 
-    private static class StreamingAudioResource {
+    /**
+     * One network's OpenAL source and the stream feeding it. The shared {@link AudioPump}
+     * refills it just before its oldest queued buffer runs out. A network the voice budget
+     * leaves out is virtual: it has no source or decoder and only its clock keeps running.
+     * Networks that play the same file from the same tick share one decoder: the first is the
+     * leader and queues every buffer it fills on its followers' sources as well. Short tracks
+     * skip streaming and play a cached {@link StaticClipCache} buffer instead.
+     */
+    private static class StreamingAudioResource implements AudioPump.Job {
         final String networkKey;
-        final int sourceID;
-        final int[] bufferIDs;
-        final Thread streamingThread;
+        /** 0 while the network is virtual; only changed on the pump thread. */
+        volatile int sourceID;
+        private int[] bufferIDs = new int[0];
+        final BlockPos origin;
+        final String filePath;
+        /** Length from the track's metadata, or 0 if unknown. */
+        final float trackSeconds;
+        final StreamingLatency latency;
+        final PlaybackClock clock;
+        private final StreamBufferDepth depth;
         final AtomicBoolean stopFlag = new AtomicBoolean(false);
         final AtomicBoolean isLooping = new AtomicBoolean(false);
-
-        StreamingAudioResource(String networkKey, int sourceID, int[] bufferIDs, Thread streamingThread, boolean initialLooping) {
+        /** Whether the voice budget has asked for this network to own a source. */
+        volatile boolean voiced;
+        /** Latest per-frame audibility before game volume, read by the tick-rate voice rebalance. */
+        volatile float audibleGain;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        /** Frame count of each buffer on the source queue, oldest first. */
+        private final ArrayDeque<Integer> queuedFrames;
+        /** Buffers not on the source queue; the profile's depth decides how many are filled. */
+        private final ArrayDeque<Integer> freeBuffers;
+        /** Unwrapped track frame the stream started at, for measuring drift against the clock. */
+        private long anchorFrames;
+        /** Frames of every buffer unqueued since the stream started. */
+        private long playedFrames;
+        private final DriftCorrector driftCorrector = new DriftCorrector();
+        private float pitch = 1.0f;
+        /** Bumped each time the network gets a source, so a pre-roll for an older one is discarded. */
+        private int voiceGeneration;
+        /** Bumped on the pump thread whenever a source is leased, before {@link #sourceID} is set. */
+        volatile int leaseCount;
+        /** OpenAL context the source and buffers were leased in; pump thread only. */
+        private long voiceContext;
+        /** Position and gain last pushed to the source; owned by the spatial pass thread. */
+        final SourceParameterCache sourceParameters = new SourceParameterCache();
+        /**
+         * Further sources playing the same buffers, one for each extra emitter rendered when
+         * {@link Config#emitterSources} is above 1. Replaced whole on the pump thread, before
+         * {@link #sourceID} is set.
+         */
+        volatile int[] emitterSources = new int[0];
+        /** Caches for {@link #emitterSources}, created on first use by the spatial pass thread. */
+        private final SourceParameterCache[] emitterParameters = new SourceParameterCache[Config.MAX_EMITTER_SOURCES - 1];
+        private AudioInputStream pcmAudioStream;
+        private AudioFormat format;
+        private int bufferBytes;
+        /** Only allocated for streams that cannot decode into a direct buffer. */
+        private byte[] copyScratch;
+        private boolean endOfStream;
+        /** Buffer behind each entry of {@link #queuedFrames}, so a new follower can queue the same ones. */
+        private final ArrayDeque<Integer> queuedBufferIDs;
+        /** Stream this network's source plays the buffers of; pump thread only. */
+        private StreamingAudioResource leader;
+        /** Networks whose sources play this stream's buffers; pump thread only. */
+        private final List<StreamingAudioResource> followers = new ArrayList<>();
+        /** Key of the static clip attached to the source, or null while streaming; pump thread only. */
+        private String staticClipId;
+        private int staticClipFrames;
+        private int staticClipRate;
+        /** Whether the source is waiting for its static clip to be decoded; pump thread only. */
+        private boolean decodingStaticClip;
+
+        /**
+         * @param receivedNanos when the play packet arrived; {@code startPositionSeconds} was the
+         *                      server's position at that moment
+         */
+        StreamingAudioResource(String networkKey, BlockPos origin, String filePath, float trackSeconds, float startPositionSeconds, long receivedNanos, boolean initialLooping, StreamingLatency latency) {
             this.networkKey = networkKey;
-            this.sourceID = sourceID;
-            this.bufferIDs = bufferIDs;
-            this.streamingThread = streamingThread;
+            this.origin = origin;
+            this.filePath = filePath;
+            this.trackSeconds = trackSeconds;
+            this.latency = latency;
+            this.clock = new PlaybackClock(startPositionSeconds, receivedNanos);
+            this.clock.setDurationSeconds(trackSeconds);
+            this.depth = new StreamBufferDepth(latency);
+            this.queuedFrames = new ArrayDeque<>(latency.maxBuffers());
+            this.freeBuffers = new ArrayDeque<>(latency.maxBuffers());
+            this.queuedBufferIDs = new ArrayDeque<>(latency.maxBuffers());
             this.isLooping.set(initialLooping);
         }
 
-        void stopAndCleanup() {
-            stopFlag.set(true);
-            if (streamingThread != null && streamingThread.isAlive()) {
-                streamingThread.interrupt();
-                Thread cleanupThread = new Thread(() -> {
+        @Override
+        public long service(long nowNanos) {
+            if (stopFlag.get() || sourceID == 0 || leader != null) {
+                return AudioPump.DONE;
+            }
+            try {
+                if (staticClipId != null) {
+                    return serviceStaticClip(nowNanos);
+                }
+                return refill(nowNanos);
+            } catch (UnsupportedAudioFileException | IOException e) {
+                SimplySpeakers.LOGGER.error("Streaming error for network {} with file {}", networkKey, filePath, e);
+            } catch (Exception e) {
+                SimplySpeakers.LOGGER.error("Critical streaming error for network {}", networkKey, e);
+            }
+            finish();
+            return AudioPump.DONE;
+        }
+
+        /**
+         * Opens the file and skips to {@code positionSeconds}. Touches no pump-only state, so
+         * it also runs on the pre-roll worker.
+         *
+         * @return the positioned stream, or null if the file is missing
+         */
+        private AudioInputStream openPcmAt(float positionSeconds) throws IOException, UnsupportedAudioFileException {
+            File audioFile = new File(filePath);
+            if (!audioFile.exists()) {
+                SimplySpeakers.LOGGER.error("Audio file not found: {} for network {}", filePath, networkKey);
+                return null;
+            }
+
+            // Wraps to the start in place while looping, so the next pass is queued behind the tail.
+            // Resampling sits above the loop so the filter runs straight across the wrap.
+            // Tracks played often enough come from their mapped decoded PCM sidecar instead of a decoder.
+            AudioInputStream pcm = ResamplingPcmStream.toEngineRate(ClientCacheManager.openLoopingPcm(audioFile, isLooping::get));
+            AudioFormat pcmFormat = pcm.getFormat();
+            float frameRate = pcmFormat.getFrameRate();
+            int frameSize = pcmFormat.getFrameSize();
+            if (pcm.getFrameLength() > 0 && frameRate > 0) {
+                clock.setDurationSeconds(pcm.getFrameLength() / frameRate);
+            }
+            if (positionSeconds > 0 && frameRate > 0 && frameSize > 0) {
+                long framesToSkip = PlaybackOffset.frameOffset(
+                        positionSeconds,
+                        isLooping.get(),
+                        pcm.getFrameLength(),
+                        frameRate);
+                long bytesToSkip = framesToSkip * frameSize;
+                if (bytesToSkip > 0) {
+                    skipFully(pcm, bytesToSkip);
+                }
+            }
+            return pcm;
+        }
+
+        /**
+         * Reopens the file from the start for a loop that was enabled after the last pass ended.
+         *
+         * @return false if there is nothing to play
+         */
+        private boolean openStream() throws IOException, UnsupportedAudioFileException {
+            pcmAudioStream = openPcmAt(0);
+            return pcmAudioStream != null && startPlayback(null);
+        }
+
+        /**
+         * Decodes the first buffers on the pre-roll worker, aiming at where the clock says
+         * playback is, and hands them to the pump to upload and start.
+         */
+        private void startPreRoll() {
+            int generation = ++voiceGeneration;
+            int buffers = depth.depth();
+            PRE_ROLL.execute(() -> {
+                AudioInputStream pcm = null;
+                PreRoll preRoll = null;
+                try {
+                    float target = clock.positionSeconds(System.nanoTime());
+                    pcm = openPcmAt(target);
+                    if (pcm != null) {
+                        AudioFormat pcmFormat = pcm.getFormat();
+                        preRoll = PreRoll.decode(pcm, latency.bufferBytes(pcmFormat.getFrameRate(), pcmFormat.getFrameSize()),
+                                buffers, UPLOAD_BUFFERS, target, pcmFormat.getFrameRate(), pcmFormat.getFrameSize());
+                    }
+                } catch (UnsupportedAudioFileException | IOException e) {
+                    SimplySpeakers.LOGGER.error("Streaming error for network {} with file {}", networkKey, filePath, e);
+                }
+                AudioInputStream opened = pcm;
+                PreRoll decoded = preRoll;
+                AudioPump.shared().execute(() -> completePreRoll(generation, opened, decoded));
+            });
+        }
+
+        /** Starts the source with the pre-rolled audio, unless the voice it was for is gone. Pump thread only. */
+        private void completePreRoll(int generation, AudioInputStream pcm, PreRoll preRoll) {
+            try {
+                if (generation != voiceGeneration || sourceID == 0 || stopFlag.get() || leader != null) {
+                    if (pcm != null) {
+                        pcm.close();
+                    }
+                    return;
+                }
+                pcmAudioStream = pcm;
+                if (pcm == null || preRoll == null || !startPlayback(preRoll)) {
+                    finish();
+                    return;
+                }
+                AudioPump.shared().schedule(this);
+            } catch (Exception e) {
+                SimplySpeakers.LOGGER.error("Critical streaming error for network {}", networkKey, e);
+                finish();
+            } finally {
+                if (preRoll != null) {
+                    preRoll.release();
+                }
+            }
+        }
+
+        /**
+         * Queues the pre-rolled audio less whatever the server timeline has already moved past,
+         * decodes the rest of the queue and starts the sources.
+         *
+         * @return false if there is nothing to play
+         */
+        private boolean startPlayback(PreRoll preRoll) throws IOException {
+            format = pcmAudioStream.getFormat();
+            bufferBytes = latency.bufferBytes(format.getFrameRate(), format.getFrameSize());
+            if (!(pcmAudioStream instanceof DirectPcmSource) && copyScratch == null) {
+                copyScratch = new byte[bufferBytes];
+            }
+            endOfStream = false;
+            long startNanos = System.nanoTime();
+            if (preRoll != null) {
+                long framesStillLate = preRoll.trimTo(clock.positionSeconds(startNanos));
+                if (framesStillLate > 0) {
+                    skipFully(pcmAudioStream, framesStillLate * format.getFrameSize());
+                }
+                ByteBuffer chunk;
+                while ((chunk = preRoll.poll()) != null) {
                     try {
-                        streamingThread.join(500);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
+                        if (chunk.hasRemaining() && !freeBuffers.isEmpty()) {
+                            queueBuffer(freeBuffers.peek(), chunk);
+                        }
+                    } finally {
+                        UPLOAD_BUFFERS.release(chunk);
                     }
-                    Minecraft.getInstance().tell(this::cleanupOpenALResources);
-                }, SimplySpeakers.MOD_ID + "-cleanup-" + networkKey);
-                cleanupThread.setDaemon(true);
-                cleanupThread.start();
+                }
+                endOfStream = preRoll.reachedEnd();
+            }
+            topUp();
+            if (queuedFrames.isEmpty() && endOfStream) {
+                return false;
+            }
+            anchorFrames = (long) (clock.positionSeconds(startNanos) * format.getFrameRate());
+            playedFrames = 0;
+            driftCorrector.reset();
+            setPitch(1.0f);
+            AL10.alSourcePlayv(sources());
+            return true;
+        }
+
+        private long refill(long nowNanos) throws IOException, UnsupportedAudioFileException {
+            int queuedBefore = queuedFrames.size();
+            int[] sources = sources();
+            int buffersProcessed = SharedBufferQueue.unqueuePlayed(AL_CALLS, sources, this::bufferPlayed);
+            if (!endOfStream && depth.recordService(queuedBefore, buffersProcessed)) {
+                SimplySpeakers.LOGGER.debug("Stream {} now queues {} buffers ({} underruns)", networkKey, depth.depth(), depth.underruns());
+            }
+            topUp();
+
+            if (queuedFrames.isEmpty() && !endOfStream) {
+                // The decoder had nothing ready; the sources resume once the next refill queues audio.
+                return nowNanos + DECODER_RETRY_NANOS;
+            }
+            if (queuedFrames.isEmpty()) {
+                // Looping streams wrap in place; this only runs if looping was enabled after the last pass ended.
+                if (!isLooping.get()) {
+                    finish();
+                    return AudioPump.DONE;
+                }
+                SimplySpeakers.LOGGER.debug("Audio track finished for {}. Looping enabled, restarting.", networkKey);
+                closeStream();
+                AL10.alSourceStopv(sources);
+                if (!openStream()) {
+                    finish();
+                    return AudioPump.DONE;
+                }
             } else {
-                Minecraft.getInstance().tell(this::cleanupOpenALResources);
+                for (int source : sources) {
+                    if (AL10.alGetSourcei(source, AL10.AL_SOURCE_STATE) != AL10.AL_PLAYING) {
+                        // Underrun: the queue ran dry before this refill, so resume with what is queued now.
+                        AL10.alSourcePlay(source);
+                    }
+                }
+            }
+            if (!correctDrift(nowNanos)) {
+                return AudioPump.DONE;
+            }
+
+            long framesUntilProcessed = queuedFrames.peek() - AL10.alGetSourcei(sourceID, AL11.AL_SAMPLE_OFFSET);
+            return nowNanos + AudioPump.refillDelayNanos(framesUntilProcessed, format.getSampleRate());
+        }
+
+        private void bufferPlayed(int bufferID) {
+            freeBuffers.push(bufferID);
+            playedFrames += queuedFrames.poll();
+            queuedBufferIDs.poll();
+        }
+
+        /**
+         * Compares how far the source has played with where the clock says it should be and
+         * nudges the pitch of every source toward it, so the sound device's clock does not
+         * pull networks apart over long sessions.
+         *
+         * @return false if the drift was too large and the stream was restarted at the clock position
+         */
+        private boolean correctDrift(long nowNanos) {
+            if (AL10.alGetSourcei(sourceID, AL10.AL_SOURCE_STATE) != AL10.AL_PLAYING) {
+                return true;
+            }
+            double driftSeconds = DriftCorrector.driftSeconds(anchorFrames, playedFrames,
+                    AL10.alGetSourcei(sourceID, AL11.AL_SAMPLE_OFFSET), format.getFrameRate(), clock.positionNanos(nowNanos));
+            if (DriftCorrector.needsResync(driftSeconds)) {
+                SimplySpeakers.LOGGER.debug("Stream {} is {}s off its clock; restarting it at the clock position", networkKey, driftSeconds);
+                releaseVoice();
+                acquireVoice();
+                return false;
+            }
+            setPitch(driftCorrector.update(driftSeconds));
+            return true;
+        }
+
+        private void setPitch(float newPitch) {
+            if (newPitch != pitch) {
+                pitch = newPitch;
+                for (int source : sources()) {
+                    AL10.alSourcef(source, AL10.AL_PITCH, newPitch);
+                }
+            }
+        }
+
+        private void topUp() throws IOException {
+            while (!endOfStream && queuedFrames.size() < depth.depth() && !freeBuffers.isEmpty()) {
+                if (!fillAndQueue(freeBuffers.peek())) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * @return false if nothing was queued, either at the end of the stream or because the
+         *         decoder had no audio ready yet
+         */
+        private boolean fillAndQueue(int bufferID) throws IOException {
+            // Decoded straight into pooled direct memory; OpenAL copies it before alBufferData returns.
+            ByteBuffer alBuffer = UPLOAD_BUFFERS.acquire(bufferBytes);
+            int bytesRead;
+            try {
+                bytesRead = DirectPcmSource.read(pcmAudioStream, alBuffer, copyScratch);
+                if (bytesRead <= 0) {
+                    endOfStream = bytesRead < 0;
+                    return false;
+                }
+                alBuffer.flip();
+                queueBuffer(bufferID, alBuffer);
+                return true;
+            } finally {
+                UPLOAD_BUFFERS.release(alBuffer);
+            }
+        }
+
+        /** Uploads {@code pcm} into a free buffer and queues it on every source. */
+        private void queueBuffer(int bufferID, ByteBuffer pcm) {
+            int bytes = pcm.remaining();
+            AL10.alBufferData(bufferID, AL10.AL_FORMAT_MONO16, pcm, (int) format.getSampleRate());
+            freeBuffers.pop();
+            SharedBufferQueue.queue(AL_CALLS, sources(), bufferID);
+            queuedFrames.add(bytes / format.getFrameSize());
+            queuedBufferIDs.add(bufferID);
+        }
+
+        /**
+         * Attaches a static buffer, with a reference taken, and starts it at the clock's
+         * position. Pump thread only.
+         */
+        private void playStaticClip(int bufferID) {
+            staticClipId = filePath;
+            staticClipFrames = AL10.alGetBufferi(bufferID, AL10.AL_SIZE) / 2;
+            staticClipRate = AL10.alGetBufferi(bufferID, AL10.AL_FREQUENCY);
+            clock.setDurationSeconds((float) staticClipFrames / staticClipRate);
+
+            boolean looping = isLooping.get();
+            long offset = PlaybackOffset.frameOffset(clock.positionSeconds(System.nanoTime()), looping, staticClipFrames, staticClipRate);
+            if (offset >= staticClipFrames) {
+                finish();
+                return;
+            }
+            int[] sources = ownSources();
+            for (int clipSource : sources) {
+                AL10.alSourcei(clipSource, AL10.AL_BUFFER, bufferID);
+                AL10.alSourcei(clipSource, AL10.AL_LOOPING, looping ? AL10.AL_TRUE : AL10.AL_FALSE);
+                AL10.alSourcei(clipSource, AL11.AL_SAMPLE_OFFSET, (int) offset);
+            }
+            AL10.alSourcePlayv(sources);
+            AudioPump.shared().schedule(this);
+        }
+
+        /**
+         * Decodes the whole track on the pre-roll worker and hands it to the pump to upload. The
+         * source stays silent meanwhile, and is streamed instead if the decode fails.
+         */
+        private void startStaticClipDecode() {
+            int generation = ++voiceGeneration;
+            decodingStaticClip = true;
+            PRE_ROLL.execute(() -> {
+                ByteBuffer data = null;
+                int sampleRate = 0;
+                try (AudioInputStream pcm = ResamplingPcmStream.toEngineRate(ClientCacheManager.openLoopingPcm(new File(filePath), () -> false))) {
+                    sampleRate = (int) pcm.getFormat().getSampleRate();
+                    data = decodeStaticClip(pcm);
+                } catch (UnsupportedAudioFileException | IOException e) {
+                    SimplySpeakers.LOGGER.error("Failed to decode static clip {} for network {}", filePath, networkKey, e);
+                }
+                ByteBuffer decoded = data;
+                int rate = sampleRate;
+                AudioPump.shared().execute(() -> completeStaticClip(generation, decoded, rate));
+            });
+        }
+
+        /**
+         * Reads {@code pcm} to its end into native memory sized for the clip limit, outside
+         * {@link #UPLOAD_BUFFERS} so clip-sized blocks are not kept pooled.
+         *
+         * @return the flipped samples, to be freed with {@link MemoryUtil#memFree}, or null if
+         *         the track is empty or longer than its metadata claimed
+         */
+        private static ByteBuffer decodeStaticClip(AudioInputStream pcm) throws IOException {
+            AudioFormat clipFormat = pcm.getFormat();
+            // A second of headroom over the limit; filling it means the track is not a short clip.
+            int capacity = (int) Math.ceil((Config.staticClipSeconds + 1) * clipFormat.getFrameRate()) * clipFormat.getFrameSize();
+            ByteBuffer data = MemoryUtil.memAlloc(capacity);
+            try {
+                byte[] scratch = pcm instanceof DirectPcmSource ? null : new byte[Math.min(capacity, 64 * 1024)];
+                int read = 0;
+                while (data.remaining() >= 2 && (read = DirectPcmSource.read(pcm, data, scratch)) >= 0) {
+                    // keep decoding; a read of 0 only means the decoder has nothing ready yet
+                }
+                if (read >= 0 || data.position() == 0) {
+                    MemoryUtil.memFree(data);
+                    return null;
+                }
+                return data.flip();
+            } catch (IOException | RuntimeException e) {
+                MemoryUtil.memFree(data);
+                throw e;
+            }
+        }
+
+        /** Uploads a decoded clip and starts it, unless the voice it was for is gone. Pump thread only. */
+        private void completeStaticClip(int generation, ByteBuffer data, int sampleRate) {
+            try {
+                if (!decodingStaticClip || generation != voiceGeneration || sourceID == 0 || stopFlag.get()) {
+                    return;
+                }
+                decodingStaticClip = false;
+                if (data == null) {
+                    startStream();
+                    return;
+                }
+                int bufferID = AL10.alGenBuffers();
+                AL10.alBufferData(bufferID, AL10.AL_FORMAT_MONO16, data, sampleRate);
+                SimplySpeakers.LOGGER.debug("Decoded static clip {} ({} bytes)", filePath, data.limit());
+                playStaticClip(STATIC_CLIPS.put(filePath, bufferID, data.limit()));
+            } catch (Exception e) {
+                SimplySpeakers.LOGGER.error("Critical streaming error for network {}", networkKey, e);
+                finish();
+            } finally {
+                if (data != null) {
+                    MemoryUtil.memFree(data);
+                }
+            }
+        }
+
+        /**
+         * Keeps a static clip's loop flag current and ends the network once its last pass has
+         * played. A looping clip that has drifted a resync away from its clock, e.g. after the
+         * clock was re-anchored, jumps back onto it; smaller drift is left to the next check,
+         * since a clip has no buffer boundaries to correct pitch against.
+         */
+        private long serviceStaticClip(long nowNanos) {
+            if (AL10.alGetSourcei(sourceID, AL10.AL_SOURCE_STATE) == AL10.AL_STOPPED) {
+                finish();
+                return AudioPump.DONE;
+            }
+            boolean looping = isLooping.get();
+            int[] sources = ownSources();
+            for (int source : sources) {
+                AL10.alSourcei(source, AL10.AL_LOOPING, looping ? AL10.AL_TRUE : AL10.AL_FALSE);
+            }
+            int offset = AL10.alGetSourcei(sourceID, AL11.AL_SAMPLE_OFFSET);
+            if (looping) {
+                long expected = PlaybackOffset.frameOffset(clock.positionSeconds(nowNanos), true, staticClipFrames, staticClipRate);
+                if (DriftCorrector.needsResync(DriftCorrector.loopDriftSeconds(offset, expected, staticClipFrames, staticClipRate))) {
+                    for (int source : sources) {
+                        AL10.alSourcei(source, AL11.AL_SAMPLE_OFFSET, (int) expected);
+                    }
+                    offset = (int) expected;
+                }
+            }
+            long framesLeftInPass = staticClipFrames - offset;
+            return nowNanos + AudioPump.refillDelayNanos(framesLeftInPass, staticClipRate);
+        }
+
+        /** This stream's sources followed by its followers'; the first is always {@link #sourceID}. */
+        private int[] sources() {
+            if (followers.isEmpty()) {
+                return ownSources();
+            }
+            int count = 1 + emitterSources.length;
+            for (StreamingAudioResource follower : followers) {
+                count += 1 + follower.emitterSources.length;
+            }
+            int[] sources = new int[count];
+            int written = copySources(sources, 0);
+            for (StreamingAudioResource follower : followers) {
+                written = follower.copySources(sources, written);
+            }
+            return sources;
+        }
+
+        /** This network's source followed by its emitter sources. */
+        private int[] ownSources() {
+            int[] sources = new int[1 + emitterSources.length];
+            copySources(sources, 0);
+            return sources;
+        }
+
+        private int copySources(int[] into, int at) {
+            int[] extra = emitterSources;
+            into[at] = sourceID;
+            System.arraycopy(extra, 0, into, at + 1, extra.length);
+            return at + 1 + extra.length;
+        }
+
+        /** Cache for emitter source {@code index}. Spatial pass thread only. */
+        SourceParameterCache emitterParameters(int index) {
+            SourceParameterCache pushed = emitterParameters[index];
+            if (pushed == null) {
+                pushed = new SourceParameterCache();
+                emitterParameters[index] = pushed;
+            }
+            return pushed;
+        }
+
+        /**
+         * @return a voiced network decoding the same file from the same tick, or null
+         */
+        private StreamingAudioResource findInSyncStream() {
+            for (StreamingAudioResource candidate : networkResources.values()) {
+                if (candidate != this && candidate.leader == null && candidate.sourceID != 0 && candidate.voiced
+                        && !candidate.stopFlag.get() && candidate.staticClipId == null && !candidate.decodingStaticClip
+                        && candidate.filePath.equals(filePath)
+                        && candidate.isLooping.get() == isLooping.get()
+                        && candidate.clock.inSyncWith(clock, PlaybackClock.SAME_TICK_NANOS)) {
+                    return candidate;
+                }
             }
+            return null;
+        }
+
+        /** Queues this stream's buffers on the follower's sources and starts them at the same sample. */
+        private void addFollower(StreamingAudioResource follower) {
+            int[] sources = follower.ownSources();
+            for (int source : sources) {
+                for (int bufferID : queuedBufferIDs) {
+                    AL10.alSourceQueueBuffers(source, bufferID);
+                }
+                AL10.alSourcef(source, AL10.AL_PITCH, pitch);
+            }
+            if (!queuedBufferIDs.isEmpty()) {
+                int offset = AL10.alGetSourcei(sourceID, AL11.AL_SAMPLE_OFFSET);
+                for (int source : sources) {
+                    AL10.alSourcei(source, AL11.AL_SAMPLE_OFFSET, offset);
+                }
+                if (AL10.alGetSourcei(sourceID, AL10.AL_SOURCE_STATE) == AL10.AL_PLAYING) {
+                    AL10.alSourcePlayv(sources);
+                }
+            }
+            follower.leader = this;
+            followers.add(follower);
+            SimplySpeakers.LOGGER.debug("Network {} shares the decoded stream of network {}", follower.networkKey, networkKey);
+        }
+
+        /**
+         * Detaches this source from the stream it shares. A leader's followers lose their
+         * sources as well and are returned so they can be voiced again once this one is gone.
+         */
+        private List<StreamingAudioResource> leaveSharedStream() {
+            if (leader != null) {
+                leader.followers.remove(this);
+                leader = null;
+                return List.of();
+            }
+            List<StreamingAudioResource> orphans = new ArrayList<>(followers);
+            followers.clear();
+            for (StreamingAudioResource follower : orphans) {
+                follower.leader = null;
+                follower.releaseVoice();
+            }
+            return orphans;
+        }
+
+        /** Splits off followers whose loop setting no longer matches the stream they share. Pump thread only. */
+        private void regroup() {
+            StreamingAudioResource shared = leader != null ? leader : this;
+            for (StreamingAudioResource follower : new ArrayList<>(shared.followers)) {
+                if (follower.isLooping.get() != shared.isLooping.get()) {
+                    follower.releaseVoice();
+                    follower.acquireVoice();
+                }
+            }
+        }
+
+        /** Asks the pump to give this network a source. */
+        void promote() {
+            voiced = true;
+            AudioPump.shared().execute(this::acquireVoice);
+        }
+
+        /** Asks the pump to take this network's source away; its clock keeps running. */
+        void virtualize() {
+            voiced = false;
+            AudioPump pump = AudioPump.shared();
+            pump.cancel(this);
+            pump.execute(this::releaseVoice);
+        }
+
+        /** Creates the source and resumes where the clock says playback has reached. Pump thread only. */
+        private void acquireVoice() {
+            if (stopFlag.get() || released.get() || !voiced || sourceID != 0) {
+                return;
+            }
+            voiceContext = ALC10.alcGetCurrentContext();
+            int source = SOURCE_POOL.lease();
+            prepareSource(source);
+            // Extra sources are only worth it for as many emitters as the network has now.
+            Set<BlockPos> positions = networkToPositions.get(networkKey);
+            int emitterCount = positions != null ? positions.size() : 1;
+            int[] extra = new int[Math.max(0, Math.min(Config.emitterSources, emitterCount) - 1)];
+            for (int i = 0; i < extra.length; i++) {
+                extra[i] = SOURCE_POOL.lease();
+                prepareSource(extra[i]);
+            }
+            emitterSources = extra;
+            // Only now may the spatial pass start pushing to the new sources; prepareSource has reset them.
+            leaseCount++;
+            sourceID = source;
+
+            if (StaticClipCache.isShortClip(trackSeconds, Config.staticClipSeconds)) {
+                int bufferID = STATIC_CLIPS.acquire(filePath);
+                if (bufferID != 0) {
+                    playStaticClip(bufferID);
+                } else {
+                    startStaticClipDecode();
+                }
+                return;
+            }
+            startStream();
+        }
+
+        /** Joins an in-sync stream or starts one of its own on the leased source. Pump thread only. */
+        private void startStream() {
+            StreamingAudioResource shared = findInSyncStream();
+            if (shared != null) {
+                shared.addFollower(this);
+                return;
+            }
+
+            int[] buffers = new int[latency.maxBuffers()];
+            BUFFER_POOL.lease(buffers);
+            bufferIDs = buffers;
+            freeBuffers.clear();
+            for (int bufferID : buffers) {
+                freeBuffers.add(bufferID);
+            }
+            startPreRoll();
+        }
+
+        /** Silences a freshly leased source at the network's origin until the spatial pass places it. */
+        private void prepareSource(int source) {
+            AL10.alSource3f(source, AL10.AL_POSITION, origin.getX() + 0.5f, origin.getY() + 0.5f, origin.getZ() + 0.5f);
+            AL10.alSourcef(source, AL10.AL_ROLLOFF_FACTOR, 0.0f);
+            AL10.alSourcef(source, AL10.AL_GAIN, 0.0f);
+            AL10.alSourcei(source, AL10.AL_SOURCE_RELATIVE, AL10.AL_FALSE);
+        }
+
+        /** Closes the decoder and deletes the source. Pump thread only. */
+        private void releaseVoice() {
+            if (sourceID == 0) {
+                return;
+            }
+            List<StreamingAudioResource> orphans = leaveSharedStream();
+            closeStream();
+            cleanupOpenALResources();
+            sourceID = 0;
+            bufferIDs = new int[0];
+            freeBuffers.clear();
+            endOfStream = false;
+            for (StreamingAudioResource orphan : orphans) {
+                orphan.acquireVoice();
+            }
+        }
+
+        /** Ends playback from the pump thread, e.g. when a non-looping track reaches EOF. */
+        private void finish() {
+            stopFlag.set(true);
+            networkResources.remove(networkKey, this);
+            // Followers play the same track from the same tick, so they end with it.
+            for (StreamingAudioResource follower : new ArrayList<>(followers)) {
+                follower.finish();
+            }
+            release();
+        }
+
+        /**
+         * Stops the stream from any thread. Teardown is queued on the pump, after any refill
+         * already in progress.
+         */
+        void stopAndCleanup() {
+            stopFlag.set(true);
+            AudioPump pump = AudioPump.shared();
+            pump.cancel(this);
+            pump.execute(this::release);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                List<StreamingAudioResource> orphans = leaveSharedStream();
+                closeStream();
+                cleanupOpenALResources();
+                sourceID = 0;
+                for (StreamingAudioResource orphan : orphans) {
+                    orphan.acquireVoice();
+                }
+            }
+        }
+
+        private void closeStream() {
+            if (pcmAudioStream != null) {
+                try {
+                    pcmAudioStream.close();
+                } catch (IOException ignored) {}
+                pcmAudioStream = null;
+            }
+            queuedFrames.clear();
+            queuedBufferIDs.clear();
         }
 
         private void cleanupOpenALResources() {
+            // Names from a context that has since been replaced died with it, and may now name someone else's objects.
+            boolean sameContext = voiceContext == ALC10.alcGetCurrentContext();
             try {
-                if (AL10.alIsSource(sourceID)) {
-                    AL10.alSourceStop(sourceID);
-                    AL10.alSourcei(sourceID, AL10.AL_BUFFER, 0);
-                    AL10.alDeleteSources(sourceID);
-                    AL10.alDeleteBuffers(bufferIDs);
-                    SimplySpeakers.LOGGER.debug("Cleanup completed for source {} (network {})", sourceID, networkKey);
+                if (sourceID != 0 && sameContext && AL10.alIsSource(sourceID)) {
+                    // Stopping and detaching the queue leaves the sources and buffers ready for the next lease.
+                    for (int source : ownSources()) {
+                        AL10.alSourceStop(source);
+                        AL10.alSourcei(source, AL10.AL_BUFFER, 0);
+                        AL10.alSourcei(source, AL10.AL_LOOPING, AL10.AL_FALSE);
+                        AL10.alSourcef(source, AL10.AL_GAIN, 0.0f);
+                        AL10.alSourcef(source, AL10.AL_PITCH, 1.0f);
+                        SOURCE_POOL.giveBack(source);
+                    }
+                    BUFFER_POOL.giveBack(bufferIDs);
+                    SimplySpeakers.LOGGER.debug("Returned source {} (network {}) to the pool", sourceID, networkKey);
                 }
             } catch (Exception e) {
                 SimplySpeakers.LOGGER.error("Error during OpenAL cleanup for source {} (network {})", sourceID, networkKey, e);
             }
+            emitterSources = new int[0];
+            decodingStaticClip = false;
+            if (staticClipId != null) {
+                if (sameContext) {
+                    STATIC_CLIPS.release(staticClipId);
+                }
+                staticClipId = null;
+            }
         }
     }
 
@@ -146,6 +955,8 @@ public class ClientAudioPlayer {
     }
 
     public static void play(BlockPos pos, String speakerId, AudioFileMetadata metadata, float startPositionSeconds, boolean isLooping, int maxRange, float maxVolume, float audioDropoff) {
+        // The server's start offset is anchored here; open, seek and download time is caught up at pre-roll.
+        long receivedNanos = System.nanoTime();
         String networkKey = (speakerId != null && !speakerId.trim().isEmpty())
                 ? "net_" + speakerId.trim()
                 : "pos_" + pos.asLong();
@@ -153,15 +964,17 @@ public class ClientAudioPlayer {
         SimplySpeakers.LOGGER.debug("CLIENT: play called for pos: {}, speakerId: '{}', networkKey: {}, audioId: {}, start: {}s, looping: {}, range: {}, volume: {}, dropoff: {}",
                 pos, speakerId, networkKey, metadata.getUuid(), startPositionSeconds, isLooping, maxRange, maxVolume, audioDropoff);
 
-        cachedEmitters.put(pos, new EmitterData(pos, maxRange, maxVolume, audioDropoff));
+        cachedEmitters.put(pos, new EmitterData(maxRange, maxVolume, audioDropoff));
 
         String oldKey = posToNetworkKey.put(pos, networkKey);
         if (oldKey != null && !oldKey.equals(networkKey)) {
             Set<BlockPos> oldPositions = networkToPositions.get(oldKey);
             if (oldPositions != null) {
                 oldPositions.remove(pos);
+                invalidateEmitters(oldKey);
                 if (oldPositions.isEmpty()) {
                     networkToPositions.remove(oldKey);
+                    emitterTables.remove(oldKey);
                     StreamingAudioResource oldRes = networkResources.remove(oldKey);
                     if (oldRes != null) {
                         oldRes.stopAndCleanup();
@@ -171,9 +984,11 @@ public class ClientAudioPlayer {
         }
 
         networkToPositions.computeIfAbsent(networkKey, k -> ConcurrentHashMap.newKeySet()).add(pos);
+        invalidateEmitters(networkKey);
+        attachEmitter(pos);
 
         StreamingAudioResource existing = networkResources.get(networkKey);
-        if (existing != null && !existing.stopFlag.get() && existing.streamingThread != null && existing.streamingThread.isAlive()) {
+        if (existing != null && !existing.stopFlag.get()) {
             SimplySpeakers.LOGGER.debug("CLIENT: Network {} already actively streaming. Attached pos {} without duplicate stream.", networkKey, pos);
             updateSpeakerVolumes();
             return;
@@ -188,11 +1003,11 @@ public class ClientAudioPlayer {
         if (cachedFile.exists()) {
             ClientCacheManager.recordAccess(cachedFile);
             SimplySpeakers.LOGGER.debug("CLIENT: Cached file found for {}. Playing from file.", metadata.getUuid());
-            playFromFile(networkKey, pos, cachedFile.getAbsolutePath(), startPositionSeconds, isLooping);
+            playFromFile(networkKey, pos, cachedFile.getAbsolutePath(), metadata.getDurationSeconds(), startPositionSeconds, receivedNanos, isLooping);
         } else {
             SimplySpeakers.LOGGER.info("CLIENT: Cached file not found for {}. Requesting from server.", metadata.getUuid());
             pendingPlays.computeIfAbsent(metadata.getUuid(), k -> Collections.synchronizedList(new ArrayList<>()))
-                    .add(new PlayRequest(pos, networkKey, startPositionSeconds, isLooping));
+                    .add(new PlayRequest(pos, networkKey, metadata.getDurationSeconds(), startPositionSeconds, receivedNanos, isLooping));
             requestFileFromServer(metadata.getUuid(), metadata.getOriginalFilename());
         }
     }
@@ -201,6 +1016,7 @@ public class ClientAudioPlayer {
         StreamingAudioResource res = networkResources.get(networkKey);
         if (res != null) {
             res.isLooping.set(looping);
+            AudioPump.shared().execute(res::regroup);
             SimplySpeakers.LOGGER.debug("CLIENT: Updated live loop state for network {} to {}", networkKey, looping);
         }
     }
@@ -213,33 +1029,24 @@ public class ClientAudioPlayer {
         play(pos, null, metadata, startPositionSeconds, isLooping, Config.speakerRange, 1.0f, 1.0f);
     }
 
-    private static void playFromFile(String networkKey, BlockPos pos, String filePath, float startPositionSeconds, boolean isLooping) {
+    private static void playFromFile(String networkKey, BlockPos pos, String filePath, float trackSeconds, float startPositionSeconds, long receivedNanos, boolean isLooping) {
         SimplySpeakers.LOGGER.debug("CLIENT: playFromFile: networkKey={}, pos={}, filePath={}, start={}, isLooping={}",
                 networkKey, pos, filePath, startPositionSeconds, isLooping);
         Minecraft.getInstance().tell(() -> {
             try {
                 StreamingAudioResource existing = networkResources.get(networkKey);
-                if (existing != null && !existing.stopFlag.get() && existing.streamingThread != null && existing.streamingThread.isAlive()) {
+                if (existing != null && !existing.stopFlag.get()) {
                     SimplySpeakers.LOGGER.debug("CLIENT: Stream already active for networkKey={}", networkKey);
                     return;
                 }
 
-                int sourceID = AL10.alGenSources();
-                int[] bufferIDs = new int[NUM_BUFFERS];
-                AL10.alGenBuffers(bufferIDs);
-
-                AL10.alSource3f(sourceID, AL10.AL_POSITION, pos.getX() + 0.5f, pos.getY() + 0.5f, pos.getZ() + 0.5f);
-                AL10.alSourcef(sourceID, AL10.AL_ROLLOFF_FACTOR, 0.0f);
-                AL10.alSourcef(sourceID, AL10.AL_GAIN, 0.0f);
-                AL10.alSourcei(sourceID, AL10.AL_SOURCE_RELATIVE, AL10.AL_FALSE);
-
-                Thread streamingThread = new Thread(() -> streamAudioData(networkKey, sourceID, bufferIDs, filePath, startPositionSeconds, isLooping),
-                        SimplySpeakers.MOD_ID + "-stream-" + networkKey);
-                streamingThread.setDaemon(true);
-
-                StreamingAudioResource resource = new StreamingAudioResource(networkKey, sourceID, bufferIDs, streamingThread, isLooping);
+                ClientCacheManager.recordPlay(new File(filePath));
+                StreamingAudioResource resource = new StreamingAudioResource(networkKey, pos, filePath, trackSeconds, startPositionSeconds, receivedNanos, isLooping, Config.streamingLatency);
+                boolean hasFreeVoice = VoiceBudget.hasFreeVoice(voicedNetworks().size(), voicedNetworkLimit());
                 networkResources.put(networkKey, resource);
-                streamingThread.start();
+                if (hasFreeVoice) {
+                    resource.promote();
+                } // otherwise it starts virtual and competes for a source on the next rebalance
 
                 updateSpeakerVolumes();
             } catch (Exception e) {
@@ -260,221 +1067,22 @@ public class ClientAudioPlayer {
         return n - remaining;
     }
 
-    private static void streamAudioData(String networkKey, int sourceID, int[] bufferIDs, String filePath, float startPositionSeconds, boolean isLooping) {
-        StreamingAudioResource resource = networkResources.get(networkKey);
-        boolean continueStreaming = true;
-
-        while (continueStreaming) {
-            if (resource == null || resource.sourceID != sourceID) {
-                break;
-            }
-
-            AudioInputStream pcmAudioStream = null;
-            boolean initialDataLoaded = false;
-            boolean playbackCompletedSuccessfully = false;
-
-            try {
-                File audioFile = new File(filePath);
-                if (!audioFile.exists()) {
-                    SimplySpeakers.LOGGER.error("Streaming thread ERROR: Audio file not found: {} for network {}", filePath, networkKey);
-                    resource.stopFlag.set(true);
-                    break;
-                }
-
-                pcmAudioStream = IncrementalAudioDecoders.openPcmStream(audioFile);
-                if (pcmAudioStream == null) {
-                    resource.stopFlag.set(true);
-                    break;
-                }
-
-                AudioFormat format = pcmAudioStream.getFormat();
-                if (startPositionSeconds > 0 && continueStreaming) {
-                    float frameRate = format.getFrameRate();
-                    int frameSize = format.getFrameSize();
-
-                    if (frameRate > 0 && frameSize > 0) {
-                        long framesToSkip = PlaybackOffset.frameOffset(
-                                startPositionSeconds,
-                                isLooping,
-                                pcmAudioStream.getFrameLength(),
-                                frameRate);
-                        long bytesToSkip = framesToSkip * frameSize;
-                        if (bytesToSkip > 0) {
-                            skipFully(pcmAudioStream, bytesToSkip);
-                        }
-                    }
-                    startPositionSeconds = 0;
-                }
-
-                boolean playbackAttempted = false;
-                boolean endOfStream = false;
-
-                int alFormat = AL10.AL_FORMAT_MONO16;
-                int bufferSizeBytes = (int) (format.getFrameRate() * format.getFrameSize() * BUFFER_SIZE_SECONDS);
-                byte[] bufferData = new byte[bufferSizeBytes];
-
-                for (int i = 0; i < NUM_BUFFERS; i++) {
-                    if (resource.stopFlag.get() || Thread.currentThread().isInterrupted()) {
-                        continueStreaming = false;
-                        break;
-                    }
-
-                    int bytesRead = pcmAudioStream.read(bufferData, 0, bufferData.length);
-                    if (bytesRead <= 0) {
-                        endOfStream = true;
-                        break;
-                    }
-
-                    ByteBuffer alBuffer = ByteBuffer.allocateDirect(bytesRead).order(ByteOrder.nativeOrder());
-                    alBuffer.put(bufferData, 0, bytesRead).flip();
-
-                    AL10.alBufferData(bufferIDs[i], alFormat, alBuffer, (int) format.getSampleRate());
-                    AL10.alSourceQueueBuffers(sourceID, bufferIDs[i]);
-                    initialDataLoaded = true;
-
-                    if (!playbackAttempted) {
-                        AL10.alSourcePlay(sourceID);
-                        playbackAttempted = true;
-                    }
-                }
-                if (!continueStreaming) break;
-
-                if (!playbackAttempted && initialDataLoaded) {
-                    if (!resource.stopFlag.get() && !Thread.currentThread().isInterrupted()) {
-                        int queued = AL10.alGetSourcei(sourceID, AL10.AL_BUFFERS_QUEUED);
-                        if (queued > 0 && AL10.alGetSourcei(sourceID, AL10.AL_SOURCE_STATE) != AL10.AL_PLAYING) {
-                            AL10.alSourcePlay(sourceID);
-                            playbackAttempted = true;
-                        }
-                    }
-                }
-
-                if (!playbackAttempted) {
-                    boolean currentlyLooping = resource != null ? resource.isLooping.get() : isLooping;
-                    if (!currentlyLooping) resource.stopFlag.set(true);
-                    continueStreaming = currentlyLooping;
-                    break;
-                }
-
-                while (playbackAttempted && !resource.stopFlag.get() && !Thread.currentThread().isInterrupted()) {
-                    int buffersProcessed = AL10.alGetSourcei(sourceID, AL10.AL_BUFFERS_PROCESSED);
-
-                    for (int i = 0; i < buffersProcessed; i++) {
-                        int bufferID = AL10.alSourceUnqueueBuffers(sourceID);
-                        if (!endOfStream) {
-                            int bytesRead = pcmAudioStream.read(bufferData, 0, bufferData.length);
-                            if (bytesRead > 0) {
-                                ByteBuffer alBuffer = ByteBuffer.allocateDirect(bytesRead).order(ByteOrder.nativeOrder());
-                                alBuffer.put(bufferData, 0, bytesRead).flip();
-                                AL10.alBufferData(bufferID, alFormat, alBuffer, (int) format.getSampleRate());
-                                AL10.alSourceQueueBuffers(sourceID, bufferID);
-                            } else {
-                                endOfStream = true;
-                            }
-                        }
-                    }
-                    if (resource.stopFlag.get() || Thread.currentThread().isInterrupted()) {
-                        break;
-                    }
-
-                    int queuedBuffers = AL10.alGetSourcei(sourceID, AL10.AL_BUFFERS_QUEUED);
-                    if (endOfStream) {
-                        SimplySpeakers.LOGGER.debug("Draining queued audio before restart for source {}", sourceID);
-                    }
-                    if (endOfStream && queuedBuffers == 0) {
-                        playbackCompletedSuccessfully = true;
-                        break;
-                    }
-
-                    if (AL10.alGetSourcei(sourceID, AL10.AL_SOURCE_STATE) != AL10.AL_PLAYING && initialDataLoaded) {
-                        if (queuedBuffers > 0) {
-                            AL10.alSourcePlay(sourceID);
-                        }
-                    }
-
-                    try {
-                        Thread.sleep(50);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        resource.stopFlag.set(true);
-                        break;
-                    }
-                }
-
-                if (resource.stopFlag.get() || Thread.currentThread().isInterrupted()) {
-                    continueStreaming = false;
-                } else if (playbackCompletedSuccessfully) {
-                    boolean currentlyLooping = resource != null ? resource.isLooping.get() : isLooping;
-                    if (currentlyLooping) {
-                        SimplySpeakers.LOGGER.debug("Audio track finished for {}. Looping enabled, restarting.", networkKey);
-                        if (AL10.alIsSource(sourceID)) {
-                            AL10.alSourceStop(sourceID);
-                            int queued = AL10.alGetSourcei(sourceID, AL10.AL_BUFFERS_QUEUED);
-                            if (queued > 0) AL10.alSourceUnqueueBuffers(sourceID, new int[queued]);
-                        }
-                        playbackCompletedSuccessfully = false;
-                        initialDataLoaded = false;
-                        // The outer while loop will re-initialize
-                    } else {
-                        resource.stopFlag.set(true);
-                        continueStreaming = false;
-                    }
-                } else {
-                    boolean currentlyLooping = resource != null ? resource.isLooping.get() : isLooping;
-                    if (!currentlyLooping) {
-                        resource.stopFlag.set(true);
-                    }
-                    continueStreaming = currentlyLooping && !resource.stopFlag.get();
-                }
-
-            } catch (UnsupportedAudioFileException | IOException e) {
-                SimplySpeakers.LOGGER.error("Streaming thread error for network {} with file {}", networkKey, filePath, e);
-                if (resource != null) resource.stopFlag.set(true);
-                continueStreaming = false;
-            } catch (Exception e) {
-                SimplySpeakers.LOGGER.error("Critical error in streaming thread for network {}", networkKey, e);
-                if (resource != null) resource.stopFlag.set(true);
-                continueStreaming = false;
-            } finally {
-                if (pcmAudioStream != null) {
-                    try {
-                        pcmAudioStream.close();
-                    } catch (IOException ignored) {}
-                }
-                if (!continueStreaming && resource != null && !resource.stopFlag.get()) {
-                    resource.stopFlag.set(true);
-                }
-            }
-
-            if (resource != null && resource.stopFlag.get()) {
-                continueStreaming = false;
-            }
-            if (Thread.currentThread().isInterrupted()) {
-                continueStreaming = false;
-                if (resource != null) resource.stopFlag.set(true);
-            }
-        }
-
-        // Clean up when thread finishes naturally (e.g. non-looping track reached EOF)
-        if (resource != null) {
-            networkResources.remove(networkKey, resource);
-            resource.stopAndCleanup();
-        }
-    }
-
     public static void stop(BlockPos pos) {
         for (List<PlayRequest> requests : pendingPlays.values()) {
             requests.removeIf(req -> req.pos.equals(pos));
         }
 
         cachedEmitters.remove(pos);
+        missingEmitters.remove(pos);
         String networkKey = posToNetworkKey.remove(pos);
         if (networkKey != null) {
             Set<BlockPos> positions = networkToPositions.get(networkKey);
             if (positions != null) {
                 positions.remove(pos);
+                invalidateEmitters(networkKey);
                 if (positions.isEmpty()) {
                     networkToPositions.remove(networkKey);
+                    emitterTables.remove(networkKey);
                     StreamingAudioResource resource = networkResources.remove(networkKey);
                     if (resource != null) {
                         resource.stopAndCleanup();
@@ -491,16 +1099,29 @@ public class ClientAudioPlayer {
             requests.removeIf(req -> networkKey.equals(req.networkKey));
         }
         Set<BlockPos> positions = networkToPositions.remove(networkKey);
+        emitterTables.remove(networkKey);
         if (positions != null) {
             for (BlockPos pos : positions) {
                 posToNetworkKey.remove(pos, networkKey);
                 cachedEmitters.remove(pos);
+                missingEmitters.remove(pos);
             }
         }
         StreamingAudioResource resource = networkResources.remove(networkKey);
         if (resource != null) resource.stopAndCleanup();
     }
 
+    /**
+     * Re-anchors every network's clock on the server's timeline; called each client tick with
+     * the level's game time.
+     */
+    public static void reanchorClocks(long gameTime) {
+        long now = System.nanoTime();
+        for (StreamingAudioResource resource : networkResources.values()) {
+            resource.clock.reanchor(gameTime, now);
+        }
+    }
+
     public static void stopAll() {
         pendingPlays.clear();
         for (DownloadProcess download : activeDownloads.values()) {
@@ -517,79 +1138,179 @@ public class ClientAudioPlayer {
 
         List<StreamingAudioResource> resourcesToStop = new ArrayList<>(networkResources.values());
         cachedEmitters.clear();
+        missingEmitters.clear();
+        emitterTables.clear();
         posToNetworkKey.clear();
         networkToPositions.clear();
         networkResources.clear();
 
-        if (!resourcesToStop.isEmpty()) {
-            Thread batchCleanupThread = new Thread(() -> {
-                for (StreamingAudioResource resource : resourcesToStop) {
-                    try {
-                        if (resource != null) {
-                            resource.stopAndCleanup();
-                        }
-                    } catch (Exception ignored) {}
+        AudioPump pump = AudioPump.shared();
+        for (StreamingAudioResource resource : resourcesToStop) {
+            resource.stopFlag.set(true);
+            pump.cancel(resource);
+        }
+        // One pump task, after any refill in progress, tears every stream down and deletes the
+        // pooled objects in a single call per kind.
+        pump.execute(() -> {
+            for (StreamingAudioResource resource : resourcesToStop) {
+                resource.release();
+            }
+            STATIC_CLIPS.clear();
+            SOURCE_POOL.clear();
+            BUFFER_POOL.clear();
+        });
+    }
+
+    /**
+     * Takes a speaker's or proxy's settings when its block entity loads or they change, so the
+     * tick never looks block entities up. Speakers linked to one network share their settings,
+     * so a speaker's update also reaches the other speakers with the same {@code sharedStateKey}.
+     * Positions that are not playing are ignored; {@link #play} attaches them.
+     */
+    public static void updateEmitter(BlockPos pos, String sharedStateKey, int maxRange, float maxVolume, float audioDropoff) {
+        missingEmitters.remove(pos);
+        EmitterData data = cachedEmitters.get(pos);
+        if (data == null) {
+            return;
+        }
+        data.sharedStateKey = sharedStateKey;
+        data.apply(maxRange, maxVolume, audioDropoff);
+        String networkKey = posToNetworkKey.get(pos);
+        if (networkKey == null) {
+            return;
+        }
+        invalidateEmitters(networkKey);
+        Set<BlockPos> positions = networkToPositions.get(networkKey);
+        if (sharedStateKey == null || positions == null) {
+            return;
+        }
+        for (BlockPos other : positions) {
+            EmitterData linked = cachedEmitters.get(other);
+            if (linked != null && linked != data && sharedStateKey.equals(linked.sharedStateKey)) {
+                linked.apply(maxRange, maxVolume, audioDropoff);
+            }
+        }
+    }
+
+    /** Starts the grace period for a playing position whose block entity was removed or unloaded. */
+    public static void removeEmitter(BlockPos pos) {
+        if (cachedEmitters.containsKey(pos)) {
+            missingEmitters.put(pos, System.nanoTime());
+        }
+    }
+
+    /**
+     * Reads a newly playing position's settings from its block entity once. Afterwards the block
+     * entity pushes changes itself; if it is missing from a loaded chunk the grace period starts.
+     */
+    private static void attachEmitter(BlockPos pos) {
+        missingEmitters.remove(pos);
+        Minecraft mc = Minecraft.getInstance();
+        if (mc.level == null || !mc.level.hasChunkAt(pos)) {
+            return;
+        }
+        net.minecraft.world.level.block.entity.BlockEntity blockEntity = mc.level.getBlockEntity(pos);
+        if (blockEntity instanceof com.nstut.simplyspeakers.blocks.entities.SpeakerBlockEntity speakerBlockEntity) {
+            updateEmitter(pos, speakerBlockEntity.getStateKey(), speakerBlockEntity.getMaxRange(), speakerBlockEntity.getMaxVolume(), speakerBlockEntity.getAudioDropoff());
+        } else if (blockEntity instanceof com.nstut.simplyspeakers.blocks.entities.ProxySpeakerBlockEntity proxySpeakerBlockEntity) {
+            updateEmitter(pos, null, proxySpeakerBlockEntity.getMaxRange(), proxySpeakerBlockEntity.getMaxVolume(), proxySpeakerBlockEntity.getAudioDropoff());
+        } else {
+            missingEmitters.put(pos, System.nanoTime());
+        }
+    }
+
+    /**
+     * Drops positions whose block entity has been gone from a loaded chunk for longer than the
+     * grace period. An unloaded chunk holds the clock, since its block entities come back with it.
+     */
+    private static void expireMissingEmitters(Minecraft mc) {
+        if (missingEmitters.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Map.Entry<BlockPos, Long> entry : missingEmitters.entrySet()) {
+            BlockPos pos = entry.getKey();
+            if (!mc.level.hasChunkAt(pos)) {
+                entry.setValue(now);
+                continue;
+            }
+            if (now - entry.getValue() < MISSING_BLOCK_ENTITY_GRACE_NANOS) {
+                continue;
+            }
+            missingEmitters.remove(pos);
+            cachedEmitters.remove(pos);
+            String networkKey = posToNetworkKey.remove(pos);
+            Set<BlockPos> positions = networkKey != null ? networkToPositions.get(networkKey) : null;
+            if (positions != null) {
+                positions.remove(pos);
+                invalidateEmitters(networkKey);
+            }
+        }
+    }
+
+    private static void invalidateEmitters(String networkKey) {
+        EmitterTable table = emitterTables.get(networkKey);
+        if (table != null) {
+            table.invalidate();
+        }
+    }
+
+    /**
+     * Returns the network's emitter table, first rebuilding it from the emitter settings if a
+     * position joined, left or changed since the last pass.
+     */
+    private static EmitterTable emitterTable(net.minecraft.client.multiplayer.ClientLevel level, String networkKey, Set<BlockPos> positions) {
+        EmitterTable table = emitterTables.computeIfAbsent(networkKey, key -> new EmitterTable());
+        if (table.isStale()) {
+            table.clear();
+            for (BlockPos pos : positions) {
+                EmitterData data = cachedEmitters.get(pos);
+                if (data != null) {
+                    table.add(pos.asLong(), pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5,
+                            data.maxRange, data.maxVolume, data.audioDropoff, ClientSpeakerSpatialResolver.followsRenderPose(level, pos));
                 }
-            }, SimplySpeakers.MOD_ID + "-batch-cleanup");
-            batchCleanupThread.setDaemon(true);
-            batchCleanupThread.start();
+            }
         }
+        return table;
     }
 
-    /** Refreshes block-entity-backed settings and membership at client tick rate. */
+    /**
+     * Expires emitters whose block entity stayed missing and ends networks left without
+     * positions, at client tick rate. Settings arrive through {@link #updateEmitter}.
+     */
     public static void updateEmitterState() {
         Minecraft mc = Minecraft.getInstance();
         if (mc.player == null || mc.level == null) {
             return;
         }
 
-        for (Map.Entry<String, StreamingAudioResource> entry : new ArrayList<>(networkResources.entrySet())) {
-            String networkKey = entry.getKey();
+        expireMissingEmitters(mc);
+        for (Map.Entry<String, StreamingAudioResource> entry : networkResources.entrySet()) {
             StreamingAudioResource resource = entry.getValue();
-            if (resource == null || resource.stopFlag.get()) continue;
+            if (resource.stopFlag.get()) continue;
 
-            Set<BlockPos> positions = networkToPositions.get(networkKey);
+            Set<BlockPos> positions = networkToPositions.get(entry.getKey());
             if (positions == null || positions.isEmpty()) {
                 resource.stopAndCleanup();
-                networkResources.remove(networkKey);
-                continue;
-            }
-
-            List<BlockPos> deadPositions = new ArrayList<>();
-
-            for (BlockPos speakerPos : positions) {
-                EmitterData data = cachedEmitters.get(speakerPos);
-                if (mc.level.hasChunkAt(speakerPos)) {
-                    net.minecraft.world.level.block.entity.BlockEntity blockEntity = mc.level.getBlockEntity(speakerPos);
-                    if (blockEntity instanceof com.nstut.simplyspeakers.blocks.entities.SpeakerBlockEntity speakerBlockEntity) {
-                        data = cachedEmitters.computeIfAbsent(speakerPos, p ->
-                                new EmitterData(p, speakerBlockEntity.getMaxRange(), speakerBlockEntity.getMaxVolume(), speakerBlockEntity.getAudioDropoff()));
-                        data.maxVolume = speakerBlockEntity.getMaxVolume();
-                        data.maxRange = Math.min(speakerBlockEntity.getMaxRange(), Config.speakerRange);
-                        data.audioDropoff = speakerBlockEntity.getAudioDropoff();
-                        data.missingBlockEntityTicks = 0;
-                    } else if (blockEntity instanceof com.nstut.simplyspeakers.blocks.entities.ProxySpeakerBlockEntity proxySpeakerBlockEntity) {
-                        data = cachedEmitters.computeIfAbsent(speakerPos, p ->
-                                new EmitterData(p, proxySpeakerBlockEntity.getMaxRange(), proxySpeakerBlockEntity.getMaxVolume(), proxySpeakerBlockEntity.getAudioDropoff()));
-                        data.maxVolume = proxySpeakerBlockEntity.getMaxVolume();
-                        data.maxRange = Math.min(proxySpeakerBlockEntity.getMaxRange(), Config.speakerRange);
-                        data.audioDropoff = proxySpeakerBlockEntity.getAudioDropoff();
-                        data.missingBlockEntityTicks = 0;
-                    } else if (data != null && ++data.missingBlockEntityTicks >= MISSING_BLOCK_ENTITY_GRACE_TICKS) {
-                        deadPositions.add(speakerPos);
-                    }
-                }
+                networkResources.remove(entry.getKey(), resource);
             }
+        }
 
-            for (BlockPos dead : deadPositions) {
-                positions.remove(dead);
-                posToNetworkKey.remove(dead);
-                cachedEmitters.remove(dead);
+        emitterTables.keySet().retainAll(networkToPositions.keySet());
+        Map<String, Float> gains = new HashMap<>();
+        for (StreamingAudioResource resource : networkResources.values()) {
+            if (!resource.stopFlag.get()) {
+                gains.put(resource.networkKey, resource.audibleGain);
             }
         }
+        rebalanceVoices(gains);
     }
 
-    /** Updates only render-pose transforms, blend math, and OpenAL state each world frame. */
+    /**
+     * Updates render-pose transforms, blend math and OpenAL state each world frame. Runs over
+     * the networks' emitter tables without allocating, except for resolving emitters that
+     * follow a moving render pose.
+     */
     public static void updateSpatialAudio() {
         Minecraft mc = Minecraft.getInstance();
         if (mc.player == null || mc.level == null || networkResources.isEmpty()) return;
@@ -598,59 +1319,41 @@ public class ClientAudioPlayer {
         float masterVolume = mc.options.getSoundSourceVolume(net.minecraft.sounds.SoundSource.MASTER);
         float recordVolume = mc.options.getSoundSourceVolume(net.minecraft.sounds.SoundSource.RECORDS);
 
-        for (Map.Entry<String, StreamingAudioResource> entry : networkResources.entrySet()) {
-            String networkKey = entry.getKey();
-            StreamingAudioResource resource = entry.getValue();
-            if (resource == null || resource.stopFlag.get()) continue;
+        for (StreamingAudioResource resource : networkResources.values()) {
+            if (resource.stopFlag.get()) continue;
 
-            Set<BlockPos> positions = networkToPositions.get(networkKey);
+            Set<BlockPos> positions = networkToPositions.get(resource.networkKey);
             if (positions == null || positions.isEmpty()) continue;
 
-            double weightedX = 0.0;
-            double weightedY = 0.0;
-            double weightedZ = 0.0;
-            float totalWeight = 0.0f;
-            float maxGain = 0.0f;
-            Vec3 firstResolvedPosition = null;
-
-            for (BlockPos speakerPos : positions) {
-                EmitterData emitter = cachedEmitters.get(speakerPos);
-                if (emitter == null) continue;
-                Vec3 renderPosition = ClientSpeakerSpatialResolver.resolveRender(mc.level, emitter.localPosition);
-                if (renderPosition == null) continue;
-                if (firstResolvedPosition == null) firstResolvedPosition = renderPosition;
-
-                double distance = renderPosition.distanceTo(listenerPosition);
-                float gain = SpatialAudioCalculator.calculateDistanceGain(
-                        distance, emitter.maxRange, emitter.maxVolume, emitter.audioDropoff);
-                if (gain <= 0.0f) continue;
-                weightedX += renderPosition.x * gain;
-                weightedY += renderPosition.y * gain;
-                weightedZ += renderPosition.z * gain;
-                totalWeight += gain;
-                maxGain = Math.max(maxGain, gain);
-            }
-
-            float finalGain = AudioGain.applyGameVolume(maxGain, masterVolume, recordVolume);
-            try {
-                if (AL10.alIsSource(resource.sourceID)) {
-                    if (totalWeight > 0.0f) {
-                        AL10.alSource3f(resource.sourceID, AL10.AL_POSITION,
-                                (float) (weightedX / totalWeight),
-                                (float) (weightedY / totalWeight),
-                                (float) (weightedZ / totalWeight));
-                    } else if (firstResolvedPosition != null) {
-                        AL10.alSource3f(resource.sourceID, AL10.AL_POSITION,
-                                (float) firstResolvedPosition.x,
-                                (float) firstResolvedPosition.y,
-                                (float) firstResolvedPosition.z);
+            EmitterTable emitters = emitterTable(mc.level, resource.networkKey, positions);
+            if (emitters.hasMoving()) {
+                for (int i = 0; i < emitters.size(); i++) {
+                    if (!emitters.isMoving(i)) continue;
+                    Vec3 renderPosition = ClientSpeakerSpatialResolver.resolveRender(mc.level, RENDER_POSE_SCRATCH.set(emitters.key(i)));
+                    if (renderPosition != null) {
+                        emitters.setPosition(i, renderPosition.x, renderPosition.y, renderPosition.z);
+                    } else {
+                        emitters.hide(i);
                     }
-                    AL10.alSourcef(resource.sourceID, AL10.AL_GAIN, finalGain);
                 }
-            } catch (Exception e) {
-                SimplySpeakers.LOGGER.error("Error setting spatial audio for source {}", resource.sourceID, e);
             }
+            boolean resolved = emitters.mix(listenerPosition.x, listenerPosition.y, listenerPosition.z);
+            float maxGain = resolved ? emitters.maxGain() : 0.0f;
+
+            resource.audibleGain = maxGain;
+            int sourceID = resource.sourceID;
+            if (sourceID == 0) continue;
+
+            float finalGain = AudioGain.applyGameVolume(maxGain, masterVolume, recordVolume);
+            int extraSources = resource.emitterSources.length;
+            int spotCount = resolved && extraSources > 0
+                    ? loudestEmitters(emitters, extraSources + 1, masterVolume, recordVolume, LOUDEST_ORDER, LOUDEST_SPOTS)
+                    : 0;
+            pushSources(resource, sourceID, resolved,
+                    (float) emitters.mixX(), (float) emitters.mixY(), (float) emitters.mixZ(),
+                    finalGain, LOUDEST_SPOTS, spotCount);
         }
+        SourceParameterCache.endFrame();
     }
 
     /** Retained for packet handlers that need an immediate full refresh. */
@@ -659,6 +1362,107 @@ public class ClientAudioPlayer {
         updateSpatialAudio();
     }
 
+    /** Networks that fit {@link Config#maxVoices} when each takes {@link Config#emitterSources} sources. */
+    private static int voicedNetworkLimit() {
+        return VoiceBudget.networkLimit(Config.maxVoices, Config.emitterSources);
+    }
+
+    /**
+     * Writes the position and gain after game volume of up to {@code limit} of the loudest
+     * emitters in the last mix into {@code spots}, four floats each.
+     *
+     * @return how many emitters were written
+     */
+    private static int loudestEmitters(EmitterTable emitters, int limit, float masterVolume, float recordVolume, int[] order, float[] spots) {
+        int found = emitters.loudest(order, limit);
+        for (int k = 0; k < found; k++) {
+            int index = order[k];
+            spots[k * 4] = (float) emitters.x(index);
+            spots[k * 4 + 1] = (float) emitters.y(index);
+            spots[k * 4 + 2] = (float) emitters.z(index);
+            spots[k * 4 + 3] = AudioGain.applyGameVolume(emitters.gain(index), masterVolume, recordVolume);
+        }
+        return found;
+    }
+
+    /**
+     * Places a network's sources. A network with emitter sources puts one source on each of
+     * the loudest emitters in {@code spots} and silences the rest; otherwise, or when nothing
+     * is audible, its source plays from the mix.
+     */
+    private static void pushSources(StreamingAudioResource resource, int sourceID, boolean positioned,
+                                    float x, float y, float z, float gain, float[] spots, int spotCount) {
+        int lease = resource.leaseCount;
+        int[] extra = resource.emitterSources;
+        if (extra.length > 0 && spotCount > 0) {
+            pushSource(sourceID, lease, resource.sourceParameters, true, spots[0], spots[1], spots[2], spots[3]);
+        } else {
+            pushSource(sourceID, lease, resource.sourceParameters, positioned, x, y, z, gain);
+        }
+        for (int k = 0; k < extra.length; k++) {
+            SourceParameterCache pushed = resource.emitterParameters(k);
+            if (k + 1 < spotCount) {
+                int at = (k + 1) * 4;
+                pushSource(extra[k], lease, pushed, true, spots[at], spots[at + 1], spots[at + 2], spots[at + 3]);
+            } else {
+                pushSource(extra[k], lease, pushed, false, 0.0f, 0.0f, 0.0f, 0.0f);
+            }
+        }
+    }
+
+    /** Sets a source's position and gain where they changed audibly since the last push. */
+    private static void pushSource(int sourceID, int lease, SourceParameterCache pushed, boolean positioned,
+                                   float x, float y, float z, float gain) {
+        try {
+            pushed.push(AL_CALLS, sourceID, lease, positioned, x, y, z, gain);
+        } catch (Exception e) {
+            SimplySpeakers.LOGGER.error("Error setting spatial audio for source {}", sourceID, e);
+        }
+    }
+
+    private static Set<String> voicedNetworks() {
+        Set<String> voiced = new HashSet<>();
+        for (Map.Entry<String, StreamingAudioResource> entry : networkResources.entrySet()) {
+            if (entry.getValue().voiced && !entry.getValue().stopFlag.get()) {
+                voiced.add(entry.getKey());
+            }
+        }
+        return voiced;
+    }
+
+    /**
+     * Gives sources to the most audible networks within {@link Config#maxVoices}, virtualizes
+     * the rest, and ends virtual tracks whose clock has run past their end.
+     *
+     * @param gains audibility of each playing network before game volume
+     */
+    private static void rebalanceVoices(Map<String, Float> gains) {
+        long now = System.nanoTime();
+        for (Map.Entry<String, StreamingAudioResource> entry : networkResources.entrySet()) {
+            StreamingAudioResource resource = entry.getValue();
+            if (!resource.voiced && !resource.stopFlag.get() && resource.clock.hasEnded(now, resource.isLooping.get())) {
+                networkResources.remove(entry.getKey(), resource);
+                resource.stopAndCleanup();
+            }
+        }
+
+        VoiceBudget.Plan plan = VOICE_BUDGET.plan(gains, voicedNetworks(), voicedNetworkLimit(), now);
+        for (String networkKey : plan.demote()) {
+            StreamingAudioResource resource = networkResources.get(networkKey);
+            if (resource != null && !resource.stopFlag.get()) {
+                SimplySpeakers.LOGGER.debug("Network {} is now virtual", networkKey);
+                resource.virtualize();
+            }
+        }
+        for (String networkKey : plan.promote()) {
+            StreamingAudioResource resource = networkResources.get(networkKey);
+            if (resource != null && !resource.stopFlag.get()) {
+                SimplySpeakers.LOGGER.debug("Network {} resumes on a real source", networkKey);
+                resource.promote();
+            }
+        }
+    }
+
     public static UUID startUpload(File file) {
         UUID transactionId = UUID.randomUUID();
         SimplySpeakers.LOGGER.debug("Starting upload process for file: {} with transaction ID: {}", file.getName(), transactionId);
@@ -842,7 +1646,7 @@ public class ClientAudioPlayer {
                         String netKey = entry.getKey();
                         PlayRequest req = entry.getValue();
                         boolean liveLooping = ClientSpeakerRegistry.getLooping(netKey, req.isLooping);
-                        playFromFile(netKey, req.pos, cachedFile.getAbsolutePath(), req.startPositionSeconds, liveLooping);
+                        playFromFile(netKey, req.pos, cachedFile.getAbsolutePath(), req.trackSeconds, req.startPositionSeconds, req.receivedNanos, liveLooping);
                     }
                 }
             } catch (IOException e) {
@@ -855,13 +1659,17 @@ public class ClientAudioPlayer {
     private static class PlayRequest {
         final BlockPos pos;
         final String networkKey;
+        final float trackSeconds;
         final float startPositionSeconds;
+        final long receivedNanos;
         final boolean isLooping;
 
-        PlayRequest(BlockPos pos, String networkKey, float startPositionSeconds, boolean isLooping) {
+        PlayRequest(BlockPos pos, String networkKey, float trackSeconds, float startPositionSeconds, long receivedNanos, boolean isLooping) {
             this.pos = pos;
             this.networkKey = networkKey;
+            this.trackSeconds = trackSeconds;
             this.startPositionSeconds = startPositionSeconds;
+            this.receivedNanos = receivedNanos;
             this.isLooping = isLooping;
         }
     }
@@ -26,6 +26,7 @@ public class ClientEvents {
         if (client.player != null && client.level != null) {
             PlayAudioPacketS2C.processPendingPlays();
             finishLiveJoinTest(client);
+            ClientAudioPlayer.reanchorClocks(client.level.getGameTime());
             ClientAudioPlayer.updateEmitterState();
         }
     }
@@ -22,4 +22,9 @@ public final class ClientSpeakerSpatialResolver {
         }
         return SABLE.isInPlotGrid(level, position) ? null : local;
     }
+
+    /** Whether the emitter sits on a sub-level and must be resolved again every frame. */
+    public static boolean followsRenderPose(ClientLevel level, BlockPos position) {
+        return SABLE.isInPlotGrid(level, position) || SABLE.getContaining(level, position) != null;
+    }
 }
@@ -0,0 +1,129 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record-list virtual emitter with {@link Math#pow} falloff against the batch array kernel
+ * with lookup-table falloff, for one network's spatial pass, and the flat kernel against the
+ * {@link EmitterTable} grid for proxies spread along a rail line.
+ * Run with {@code gradlew :common:jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpatialAudioBenchmark {
+
+    /** A single speaker with a few proxies, and a large proxy network. */
+    @Param({"8", "300"})
+    public int emitters;
+
+    private List<SpatialAudioCalculator.SpeakerEmitter> emitterList;
+    private double[] x;
+    private double[] y;
+    private double[] z;
+    private int[] maxRange;
+    private float[] maxVolume;
+    private float[] audioDropoff;
+    private float[] gains;
+    private final SpatialAudioCalculator.VirtualEmitterMix mix = new SpatialAudioCalculator.VirtualEmitterMix();
+    private double[] railX;
+    private double[] railY;
+    private double[] railZ;
+    private final EmitterTable railTable = new EmitterTable();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        emitterList = new ArrayList<>(emitters);
+        x = new double[emitters];
+        y = new double[emitters];
+        z = new double[emitters];
+        maxRange = new int[emitters];
+        maxVolume = new float[emitters];
+        audioDropoff = new float[emitters];
+        gains = new float[emitters];
+        for (int i = 0; i < emitters; i++) {
+            x[i] = random.nextDouble() * 128 - 64;
+            y[i] = 60 + random.nextDouble() * 8;
+            z[i] = random.nextDouble() * 128 - 64;
+            maxRange[i] = 16 + random.nextInt(48);
+            maxVolume[i] = 0.5f + random.nextFloat() * 0.5f;
+            audioDropoff[i] = random.nextFloat();
+            emitterList.add(new SpatialAudioCalculator.SpeakerEmitter(
+                    x[i], y[i], z[i], maxRange[i], maxVolume[i], audioDropoff[i]));
+        }
+
+        railX = new double[emitters];
+        railY = new double[emitters];
+        railZ = new double[emitters];
+        railTable.clear();
+        for (int i = 0; i < emitters; i++) {
+            railX[i] = i * 6.0;
+            railY[i] = 64.0;
+            railZ[i] = 0.0;
+            railTable.add(i, railX[i], railY[i], railZ[i], maxRange[i], maxVolume[i], audioDropoff[i], false);
+        }
+    }
+
+    @Benchmark
+    public SpatialAudioCalculator.VirtualEmitterResult listWithPow() {
+        return SpatialAudioCalculator.calculateVirtualEmitter(3.5, 64.0, -2.5, emitterList);
+    }
+
+    @Benchmark
+    public SpatialAudioCalculator.VirtualEmitterMix batchWithLookup() {
+        SpatialAudioCalculator.calculateVirtualEmitter(3.5, 64.0, -2.5,
+                x, y, z, maxRange, maxVolume, audioDropoff, emitters, gains, mix);
+        return mix;
+    }
+
+    @Benchmark
+    public float[] gainsWithPow() {
+        for (int i = 0; i < emitters; i++) {
+            double dx = x[i] - 3.5;
+            double dy = y[i] - 64.0;
+            double dz = z[i] + 2.5;
+            gains[i] = SpatialAudioCalculator.calculateDistanceGain(
+                    Math.sqrt(dx * dx + dy * dy + dz * dz), maxRange[i], maxVolume[i], audioDropoff[i]);
+        }
+        return gains;
+    }
+
+    @Benchmark
+    public float[] gainsWithLookup() {
+        SpatialAudioCalculator.calculateDistanceGains(3.5, 64.0, -2.5,
+                x, y, z, maxRange, maxVolume, audioDropoff, emitters, gains);
+        return gains;
+    }
+
+    @Benchmark
+    public SpatialAudioCalculator.VirtualEmitterMix railFlat() {
+        SpatialAudioCalculator.calculateVirtualEmitter(emitters * 3.0, 65.0, 2.0,
+                railX, railY, railZ, maxRange, maxVolume, audioDropoff, emitters, gains, mix);
+        return mix;
+    }
+
+    @Benchmark
+    public EmitterTable railGrid() {
+        railTable.mix(emitters * 3.0, 65.0, 2.0);
+        return railTable;
+    }
+}
@@ -1,5 +1,7 @@
 package com.nstut.simplyspeakers;
 
+import com.nstut.simplyspeakers.client.StreamingLatency;
+
 /**
  * Configuration for Simply Speakers.
  */
@@ -50,6 +52,82 @@ public class Config {
      */
     public static long clientCacheLimitBytes = 500L * 1024L * 1024L; // 500MB
 
+    /**
+     * Sample rate every client stream is resampled to before it reaches OpenAL, so all
+     * streaming buffers share one size. 0, the default, plays each file at its own rate.
+     */
+    public static int engineSampleRate = 0;
+
+    /**
+     * The lowest engine sample rate that can be set (other than 0 to disable resampling).
+     */
+    public static final int MIN_ENGINE_SAMPLE_RATE = 8000;
+
+    /**
+     * The highest engine sample rate that can be set.
+     */
+    public static final int MAX_ENGINE_SAMPLE_RATE = 192000;
+
+    /**
+     * Client-side budget in megabytes for decoded PCM copies of frequently played tracks,
+     * kept next to the audio cache. 0 disables the tier.
+     */
+    public static int decodedPcmCacheMegabytes = 0;
+
+    /**
+     * The largest decoded PCM cache budget that can be set.
+     */
+    public static final int MAX_DECODED_PCM_CACHE_MEGABYTES = 16384;
+
+    /**
+     * Buffer size and queue depth of client streams. Read when a stream starts.
+     */
+    public static volatile StreamingLatency streamingLatency = StreamingLatency.DEFAULT;
+
+    /**
+     * Most speaker networks that own a real OpenAL source at once; quieter ones keep time
+     * without decoding until they are among the loudest again. 0 removes the limit.
+     */
+    public static int maxVoices = 24;
+
+    /**
+     * The largest voice budget that can be set.
+     */
+    public static final int MAX_VOICES = 255;
+
+    /**
+     * OpenAL sources each voiced network plays through. 1 places one source on the blend of
+     * the network's emitters; more place one on each of that many loudest emitters, all fed
+     * from the network's single decoder, and share {@link #maxVoices} out by sources.
+     */
+    public static int emitterSources = 1;
+
+    /**
+     * The most sources one network can play through.
+     */
+    public static final int MAX_EMITTER_SOURCES = 8;
+
+    /**
+     * Tracks at most this many seconds long are decoded once into a single OpenAL buffer and
+     * played without streaming. 0 streams every track.
+     */
+    public static int staticClipSeconds = 10;
+
+    /**
+     * The longest track that can be played from a static buffer.
+     */
+    public static final int MAX_STATIC_CLIP_SECONDS = 60;
+
+    /**
+     * Client-side budget in megabytes for decoded static clips kept in OpenAL buffers.
+     */
+    public static int staticClipCacheMegabytes = 32;
+
+    /**
+     * The largest static clip budget that can be set.
+     */
+    public static final int MAX_STATIC_CLIP_CACHE_MEGABYTES = 1024;
+
     // Local configuration cache for client restoration after disconnecting from a server
     private static int localSpeakerRange = 64;
     private static boolean localDisableUpload = false;
@@ -92,6 +170,55 @@ public class Config {
         maxUploadSize = localMaxUploadSize;
     }
 
+    /**
+     * Sets the client engine sample rate, clamping to the supported range; 0 disables resampling.
+     */
+    public static void setEngineSampleRate(int rate) {
+        engineSampleRate = rate <= 0 ? 0 : Math.max(MIN_ENGINE_SAMPLE_RATE, Math.min(MAX_ENGINE_SAMPLE_RATE, rate));
+    }
+
+    /**
+     * Sets the decoded PCM cache budget, clamping to the supported range; 0 disables it.
+     */
+    public static void setDecodedPcmCacheMegabytes(int megabytes) {
+        decodedPcmCacheMegabytes = Math.max(0, Math.min(MAX_DECODED_PCM_CACHE_MEGABYTES, megabytes));
+    }
+
+    /**
+     * Sets the client streaming latency profile; null selects {@link StreamingLatency#DEFAULT}.
+     */
+    public static void setStreamingLatency(StreamingLatency latency) {
+        streamingLatency = latency != null ? latency : StreamingLatency.DEFAULT;
+    }
+
+    /**
+     * Sets the client voice budget, clamping to the supported range; 0 removes the limit.
+     */
+    public static void setMaxVoices(int voices) {
+        maxVoices = Math.max(0, Math.min(MAX_VOICES, voices));
+    }
+
+    /**
+     * Sets the sources per voiced network, clamping to the supported range.
+     */
+    public static void setEmitterSources(int sources) {
+        emitterSources = Math.max(1, Math.min(MAX_EMITTER_SOURCES, sources));
+    }
+
+    /**
+     * Sets the longest track played from a static buffer, clamping to the supported range; 0 disables static clips.
+     */
+    public static void setStaticClipSeconds(int seconds) {
+        staticClipSeconds = Math.max(0, Math.min(MAX_STATIC_CLIP_SECONDS, seconds));
+    }
+
+    /**
+     * Sets the static clip memory budget, clamping to the supported range.
+     */
+    public static void setStaticClipCacheMegabytes(int megabytes) {
+        staticClipCacheMegabytes = Math.max(0, Math.min(MAX_STATIC_CLIP_CACHE_MEGABYTES, megabytes));
+    }
+
     public static boolean isRemoteServerActive() {
         return isRemoteServerActive;
     }
@@ -0,0 +1,38 @@
+package com.nstut.simplyspeakers.audio;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A container/codec the mod can play. Providers are registered with {@link AudioDecoders},
+ * which picks one per file by magic bytes and uses it for upload validation, exact length
+ * extraction and client playback.
+ */
+public interface AudioDecoderProvider {
+
+    /**
+     * @return lower-case file extensions (without the dot) this provider accepts for upload
+     */
+    List<String> extensions();
+
+    /**
+     * @param header the first bytes of the file, at most {@link AudioDecoders#PROBE_BYTES}
+     * @param length number of valid bytes in {@code header}
+     * @return whether the bytes look like this provider's format
+     */
+    boolean probe(byte[] header, int length);
+
+    /**
+     * Opens an incremental 16-bit little-endian mono PCM stream. Streams that can reposition
+     * themselves cheaply implement {@link SeekablePcmStream}.
+     */
+    AudioInputStream openMonoPcm(File file) throws IOException, UnsupportedAudioFileException;
+
+    /**
+     * Reads the exact stream length and format without decoding audio.
+     */
+    AudioStreamInfo readStreamInfo(File file) throws IOException, UnsupportedAudioFileException;
+}
@@ -0,0 +1,141 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of {@link AudioDecoderProvider}s. Files are matched by magic bytes first and by
+ * extension only when no provider recognises the content, so a mislabelled upload still
+ * decodes with the right codec.
+ */
+public final class AudioDecoders {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("simplyspeakers");
+
+    /** Bytes read from the start of a file for {@link AudioDecoderProvider#probe}. */
+    public static final int PROBE_BYTES = 64;
+
+    // MP3 probes last: a bare frame sync is the weakest signature.
+    private static final List<AudioDecoderProvider> PROVIDERS = new CopyOnWriteArrayList<>(List.of(
+            new WavDecoderProvider(),
+            new FlacDecoderProvider(),
+            new VorbisDecoderProvider(),
+            new Mp3DecoderProvider()
+    ));
+
+    private AudioDecoders() {
+    }
+
+    /**
+     * Registers an additional provider, probed before the built-in ones.
+     */
+    public static void register(AudioDecoderProvider provider) {
+        PROVIDERS.add(0, provider);
+    }
+
+    public static List<String> supportedExtensions() {
+        List<String> extensions = new ArrayList<>();
+        for (AudioDecoderProvider provider : PROVIDERS) {
+            for (String extension : provider.extensions()) {
+                if (!extensions.contains(extension)) {
+                    extensions.add(extension);
+                }
+            }
+        }
+        return extensions;
+    }
+
+    public static boolean isSupportedExtension(String extension) {
+        return extension != null && providerForExtension(extension.toLowerCase(Locale.ROOT)) != null;
+    }
+
+    public static boolean isSupportedFilename(String filename) {
+        if (filename == null) {
+            return false;
+        }
+        int dot = filename.lastIndexOf('.');
+        return dot >= 0 && isSupportedExtension(filename.substring(dot + 1));
+    }
+
+    /**
+     * @return the provider for the file's content, falling back to its extension; null if unsupported
+     */
+    public static AudioDecoderProvider forFile(File file) {
+        byte[] header = new byte[PROBE_BYTES];
+        int length = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            length = in.readNBytes(header, 0, header.length);
+        } catch (IOException e) {
+            LOGGER.debug("Could not probe audio file {}: {}", file.getName(), e.getMessage());
+        }
+        for (AudioDecoderProvider provider : PROVIDERS) {
+            if (provider.probe(header, length)) {
+                return provider;
+            }
+        }
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? providerForExtension(name.substring(dot + 1).toLowerCase(Locale.ROOT)) : null;
+    }
+
+    public static AudioInputStream openMonoPcm(File file) throws IOException, UnsupportedAudioFileException {
+        AudioDecoderProvider provider = forFile(file);
+        if (provider == null) {
+            throw new UnsupportedAudioFileException("No audio decoder for " + file.getName());
+        }
+        return provider.openMonoPcm(file);
+    }
+
+    /**
+     * @return exact stream info, or {@link AudioStreamInfo#UNKNOWN} if the file cannot be parsed
+     */
+    public static AudioStreamInfo readStreamInfo(File file) {
+        AudioDecoderProvider provider = forFile(file);
+        if (provider == null) {
+            return AudioStreamInfo.UNKNOWN;
+        }
+        try {
+            return provider.readStreamInfo(file);
+        } catch (Exception e) {
+            LOGGER.debug("Could not read audio stream info for {}: {}", file.getName(), e.getMessage());
+            return AudioStreamInfo.UNKNOWN;
+        }
+    }
+
+    /**
+     * Checks that the content matches a provider accepting {@code extension} and that its
+     * first block of audio decodes.
+     */
+    public static boolean validate(File file, String extension) {
+        AudioDecoderProvider provider = forFile(file);
+        if (provider == null || extension == null || !provider.extensions().contains(extension.toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        try (AudioInputStream stream = provider.openMonoPcm(file)) {
+            return stream.getFormat().getSampleRate() > 0 && stream.read(new byte[4096]) > 0;
+        } catch (Exception | LinkageError e) {
+            LOGGER.warn("Audio content validation failed for {}: {}", file.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static AudioDecoderProvider providerForExtension(String extension) {
+        for (AudioDecoderProvider provider : PROVIDERS) {
+            if (provider.extensions().contains(extension)) {
+                return provider;
+            }
+        }
+        return null;
+    }
+}
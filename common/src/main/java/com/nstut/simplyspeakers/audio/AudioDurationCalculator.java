@@ -5,10 +5,6 @@ import org.slf4j.LoggerFactory;
 import javazoom.jl.decoder.Bitstream;
 import javazoom.jl.decoder.Header;
 
-import javax.sound.sampled.AudioFileFormat;
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -23,7 +19,7 @@ public final class AudioDurationCalculator {
     }
 
     /**
-     * Calculates duration in seconds for an MP3 or WAV file.
+     * Calculates duration in seconds for any format with an {@link AudioDecoderProvider}.
      * Returns 0.0f if duration cannot be determined.
      */
     public static float calculateDurationSeconds(File file) {
@@ -31,42 +27,32 @@ public final class AudioDurationCalculator {
             return 0.0f;
         }
 
-        String name = file.getName().toLowerCase();
-        if (name.endsWith(".wav")) {
-            return calculateWavDuration(file);
-        } else if (name.endsWith(".mp3")) {
+        if (file.getName().toLowerCase().endsWith(".mp3")) {
             return calculateMp3Duration(file);
         }
-        return 0.0f;
+        return AudioDecoders.readStreamInfo(file).durationSeconds();
     }
 
     public static float calculateDurationSeconds(Path path) {
         return path == null ? 0.0f : calculateDurationSeconds(path.toFile());
     }
 
+    /**
+     * Exact WAV duration from the {@code data} chunk size.
+     */
     public static float calculateWavDuration(File file) {
-        try {
-            AudioFileFormat format = AudioSystem.getAudioFileFormat(file);
-            AudioFormat audioFormat = format.getFormat();
-            long frameLength = format.getFrameLength();
-            float frameRate = audioFormat.getFrameRate();
-            if (frameLength > 0 && frameRate > 0) {
-                return (float) frameLength / frameRate;
-            }
-            // Fallback: file length based
-            if (audioFormat.getFrameSize() > 0 && frameRate > 0) {
-                long audioBytes = file.length() - 44; // approximate WAV header
-                if (audioBytes > 0) {
-                    return (float) audioBytes / (audioFormat.getFrameSize() * frameRate);
-                }
-            }
-        } catch (Exception e) {
-            LOGGER.debug("Could not determine WAV duration for {}: {}", file.getName(), e.getMessage());
-        }
-        return 0.0f;
+        return AudioDecoders.readStreamInfo(file).durationSeconds();
     }
 
+    /**
+     * Exact MP3 duration from the Xing/Info/VBRI header or a frame count; falls back
+     * to JLayer's bitrate-based estimate only when neither can be read.
+     */
     public static float calculateMp3Duration(File file) {
+        AudioStreamInfo info = AudioMetadataExtractor.extract(file);
+        if (info.isKnown()) {
+            return info.durationSeconds();
+        }
         try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
             Bitstream bitstream = new Bitstream(in);
             Header firstHeader = bitstream.readFrame();
@@ -0,0 +1,158 @@
+package com.nstut.simplyspeakers.audio;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Single-pass, decode-free extraction of exact stream lengths. MP3 files use the
+ * Xing/Info (with LAME extension) or VBRI header of the first frame when present
+ * and fall back to counting frame headers. Other formats are answered by their
+ * {@link AudioDecoderProvider}.
+ */
+public final class AudioMetadataExtractor {
+
+    private static final int XING_FLAG_FRAMES = 0x1;
+    private static final int XING_FLAG_BYTES = 0x2;
+    private static final int XING_FLAG_TOC = 0x4;
+    private static final int XING_FLAG_QUALITY = 0x8;
+
+    private AudioMetadataExtractor() {
+    }
+
+    /**
+     * @return exact stream info, or {@link AudioStreamInfo#UNKNOWN} if the file cannot be parsed
+     */
+    public static AudioStreamInfo extract(File file) {
+        if (file == null || !file.isFile() || !file.canRead()) {
+            return AudioStreamInfo.UNKNOWN;
+        }
+        return AudioDecoders.readStreamInfo(file);
+    }
+
+    static AudioStreamInfo extractMp3(File file) throws IOException {
+        return parseMp3(file, true);
+    }
+
+    /**
+     * Reads only the first MP3 frame. Without a frame count in the Xing/VBRI tag the
+     * returned info is not {@link AudioStreamInfo#isKnown() known}, but still reports the
+     * sample rate, encoder delay and padding, and whether the info frame is present.
+     */
+    static AudioStreamInfo readMp3Tag(File file) throws IOException {
+        return parseMp3(file, false);
+    }
+
+    private static AudioStreamInfo parseMp3(File file, boolean countFrames) throws IOException {
+        byte[] frame;
+        int header;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            skipId3v2(in);
+            header = syncToFirstHeader(in);
+            if (header == 0) {
+                throw new IOException("No MPEG audio frames found");
+            }
+            int frameLength = Mp3SeekTable.frameLength(header);
+            frame = new byte[frameLength];
+            frame[0] = (byte) (header >>> 24);
+            frame[1] = (byte) (header >>> 16);
+            frame[2] = (byte) (header >>> 8);
+            frame[3] = (byte) header;
+            in.readNBytes(frame, 4, frameLength - 4);
+        }
+
+        int sampleRate = Mp3SeekTable.sampleRate(header);
+        int samplesPerFrame = Mp3SeekTable.samplesPerFrame(header);
+        boolean mono = ((header >>> 6) & 3) == 3;
+        boolean mpeg1 = ((header >>> 19) & 3) == 3;
+        int channels = mono ? 1 : 2;
+
+        long audioFrames = -1;
+        int delay = 0;
+        int padding = 0;
+        boolean infoFrame = false;
+
+        int xingOffset = 4 + (mpeg1 ? (mono ? 17 : 32) : (mono ? 9 : 17));
+        if (matches(frame, xingOffset, "Xing") || matches(frame, xingOffset, "Info")) {
+            infoFrame = true;
+            int flags = readInt(frame, xingOffset + 4);
+            int position = xingOffset + 8;
+            if ((flags & XING_FLAG_FRAMES) != 0) {
+                audioFrames = readInt(frame, position) & 0xFFFFFFFFL;
+                position += 4;
+            }
+            if ((flags & XING_FLAG_BYTES) != 0) position += 4;
+            if ((flags & XING_FLAG_TOC) != 0) position += 100;
+            if ((flags & XING_FLAG_QUALITY) != 0) position += 4;
+            // LAME extension: 9-byte encoder string, then delay/padding as two 12-bit fields at +21
+            if (position + 24 <= frame.length && (matches(frame, position, "LAME") || matches(frame, position, "Lavc")
+                    || matches(frame, position, "Lavf"))) {
+                int packed = ((frame[position + 21] & 0xFF) << 16) | ((frame[position + 22] & 0xFF) << 8)
+                        | (frame[position + 23] & 0xFF);
+                delay = packed >>> 12;
+                padding = packed & 0xFFF;
+            }
+        } else if (matches(frame, 36, "VBRI")) {
+            infoFrame = true;
+            delay = ((frame[42] & 0xFF) << 8) | (frame[43] & 0xFF);
+            audioFrames = readInt(frame, 50) & 0xFFFFFFFFL;
+        }
+
+        if (audioFrames <= 0 && countFrames) {
+            // No frame count in the tag: count headers. The info frame itself carries no audio.
+            audioFrames = Mp3SeekTable.build(file).getFrameCount() - (infoFrame ? 1 : 0);
+        }
+
+        long totalSamples = Math.max(0L, audioFrames * samplesPerFrame - delay - padding);
+        return new AudioStreamInfo(totalSamples, sampleRate, channels, delay, padding, infoFrame);
+    }
+
+    private static int syncToFirstHeader(InputStream in) throws IOException {
+        int header = 0;
+        int buffered = 0;
+        int b;
+        while ((b = in.read()) >= 0) {
+            header = (header << 8) | b;
+            if (++buffered >= 4 && Mp3SeekTable.frameLength(header) > 4) {
+                return header;
+            }
+        }
+        return 0;
+    }
+
+    private static void skipId3v2(InputStream in) throws IOException {
+        in.mark(10);
+        byte[] tag = in.readNBytes(10);
+        if (tag.length < 10 || tag[0] != 'I' || tag[1] != 'D' || tag[2] != '3') {
+            in.reset();
+            return;
+        }
+        long size = ((tag[6] & 0x7F) << 21) | ((tag[7] & 0x7F) << 14) | ((tag[8] & 0x7F) << 7) | (tag[9] & 0x7F);
+        if ((tag[5] & 0x10) != 0) {
+            size += 10;
+        }
+        in.skipNBytes(size);
+    }
+
+    private static boolean matches(byte[] data, int offset, String tag) {
+        if (offset < 0 || offset + tag.length() > data.length) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            if (data[offset + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        if (offset + 4 > data.length) {
+            return 0;
+        }
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,36 @@
+package com.nstut.simplyspeakers.audio;
+
+/**
+ * Exact stream properties recorded once per file at upload time.
+ *
+ * @param totalSampleFrames audible sample frames (per channel), after removing encoder delay and padding
+ * @param sampleRate        sample rate in Hz
+ * @param channels          channel count of the encoded stream
+ * @param encoderDelay      leading samples added by the encoder (LAME/VBRI tag), 0 if unknown
+ * @param encoderPadding    trailing samples added by the encoder, 0 if unknown
+ * @param hasInfoFrame      whether the first MP3 frame is a silent Xing/Info/VBRI tag frame,
+ *                          which {@code totalSampleFrames} does not count
+ */
+public record AudioStreamInfo(
+        long totalSampleFrames,
+        int sampleRate,
+        int channels,
+        int encoderDelay,
+        int encoderPadding,
+        boolean hasInfoFrame
+) {
+    public static final AudioStreamInfo UNKNOWN = new AudioStreamInfo(0L, 0, 0, 0, 0);
+
+    /** Stream without an MP3 info frame. */
+    public AudioStreamInfo(long totalSampleFrames, int sampleRate, int channels, int encoderDelay, int encoderPadding) {
+        this(totalSampleFrames, sampleRate, channels, encoderDelay, encoderPadding, false);
+    }
+
+    public boolean isKnown() {
+        return totalSampleFrames > 0L && sampleRate > 0;
+    }
+
+    public float durationSeconds() {
+        return isKnown() ? (float) ((double) totalSampleFrames / sampleRate) : 0.0f;
+    }
+}
@@ -0,0 +1,219 @@
+package com.nstut.simplyspeakers.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fully decoded copy of one pass of a track as 16-bit mono little-endian PCM, stored next
+ * to the cached file. MP3 lead-in and padding are already trimmed, so playback from the
+ * memory-mapped sidecar needs no decoder, seeking is a position change, and samples are
+ * copied straight from the mapping into OpenAL upload buffers.
+ */
+public final class DecodedPcmSidecar {
+
+    public static final String SIDECAR_SUFFIX = ".pcm";
+    private static final int SIDECAR_MAGIC = 0x53535031; // "SSP1"
+    /** Magic, sample rate, source length and frame count. */
+    static final int HEADER_BYTES = 24;
+    private static final int COPY_CHUNK = 64 * 1024;
+
+    private DecodedPcmSidecar() {}
+
+    public static File sidecarFor(File audioFile) {
+        return new File(audioFile.getParentFile(), audioFile.getName() + SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Maps the sidecar for {@code audioFile}.
+     *
+     * @return a seekable mono stream, or null when there is no sidecar or it was written for
+     *         a different version of the file
+     */
+    public static AudioInputStream open(File audioFile) throws IOException {
+        File sidecar = sidecarFor(audioFile);
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(sidecar.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // keep reading
+            }
+            if (header.hasRemaining() || header.getInt(0) != SIDECAR_MAGIC || header.getLong(8) != audioFile.length()) {
+                return null;
+            }
+            int sampleRate = header.getInt(4);
+            long frames = header.getLong(16);
+            if (sampleRate <= 0 || frames < 0 || HEADER_BYTES + frames * 2 != channel.size()) {
+                return null;
+            }
+            // The mapping stays valid after the channel is closed.
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, frames * 2);
+            return new MappedPcmStream(data, sampleRate, frames);
+        }
+    }
+
+    /**
+     * Decodes one pass of {@code audioFile} into its sidecar, replacing any existing one.
+     *
+     * @return size of the sidecar in bytes
+     * @throws IOException if decoding fails or the track is too long to map
+     */
+    public static long write(File audioFile) throws IOException, UnsupportedAudioFileException {
+        File sidecar = sidecarFor(audioFile);
+        Path temp = new File(sidecar.getParentFile(), sidecar.getName() + ".tmp").toPath();
+        try (AudioInputStream pcm = LoopingPcmStream.open(audioFile, () -> false);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(SIDECAR_MAGIC)
+                    .putInt(Math.round(pcm.getFormat().getSampleRate()))
+                    .putLong(audioFile.length())
+                    .putLong(0)
+                    .flip();
+            writeFully(out, header, 0);
+
+            byte[] chunk = new byte[COPY_CHUNK];
+            ByteBuffer wrapped = ByteBuffer.wrap(chunk);
+            long dataBytes = 0;
+            int read;
+            while ((read = pcm.read(chunk, 0, chunk.length)) >= 0) {
+                read -= read % 2;
+                if (read == 0) {
+                    continue;
+                }
+                if (dataBytes + read > Integer.MAX_VALUE) {
+                    throw new IOException("Decoded audio too long to cache: " + audioFile.getName());
+                }
+                wrapped.clear().limit(read);
+                writeFully(out, wrapped, HEADER_BYTES + dataBytes);
+                dataBytes += read;
+            }
+            header.clear();
+            header.putLong(16, dataBytes / 2);
+            header.position(16).limit(HEADER_BYTES);
+            writeFully(out, header, 16);
+        } catch (IOException | UnsupportedAudioFileException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, sidecar.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return sidecar.length();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    /**
+     * Reads 16-bit mono samples straight out of the mapping.
+     */
+    private static final class MappedPcmStream extends AudioInputStream implements SeekablePcmStream, DirectPcmSource {
+        private final long totalFrames;
+        private MappedByteBuffer data;
+        private long framePosition = 0;
+
+        MappedPcmStream(MappedByteBuffer data, int sampleRate, long totalFrames) {
+            super(new InputStream() {
+                @Override
+                public int read() {
+                    return -1;
+                }
+            }, new AudioFormat(sampleRate, 16, 1, true, false), totalFrames);
+            this.data = data;
+            this.totalFrames = totalFrames;
+        }
+
+        @Override
+        public boolean seekToSampleFrame(long sampleFrame) {
+            framePosition = Math.max(0, Math.min(sampleFrame, totalFrames));
+            return sampleFrame < totalFrames;
+        }
+
+        @Override
+        public void rewind() {
+            framePosition = 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            throw new IOException("cannot read a single byte if frame size > 1");
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (b == null) throw new NullPointerException();
+            if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+            if (data == null) throw new IOException("Stream closed");
+            if (len == 0) return 0;
+
+            int frames = (int) Math.min(len / 2, totalFrames - framePosition);
+            if (frames <= 0) {
+                return -1;
+            }
+            data.get((int) (framePosition * 2), b, off, frames * 2);
+            framePosition += frames;
+            return frames * 2;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (data == null) throw new IOException("Stream closed");
+            int frames = (int) Math.min(dst.remaining() / 2, totalFrames - framePosition);
+            if (frames <= 0) {
+                return dst.remaining() < 2 && framePosition < totalFrames ? 0 : -1;
+            }
+            int index = (int) (framePosition * 2);
+            if (dst.order() == ByteOrder.LITTLE_ENDIAN) {
+                dst.put(dst.position(), data, index, frames * 2);
+                dst.position(dst.position() + frames * 2);
+            } else {
+                ByteBuffer samples = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < frames; i++) {
+                    dst.putShort(samples.getShort(index + i * 2));
+                }
+            }
+            framePosition += frames;
+            return frames * 2;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) return 0;
+            long frames = Math.min(n / 2, totalFrames - framePosition);
+            framePosition += frames;
+            return frames * 2;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, (totalFrames - framePosition) * 2);
+        }
+
+        @Override
+        public void close() {
+            // Unmapped by the GC; dropping the reference is all that can be done portably.
+            data = null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.nstut.simplyspeakers.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 16-bit mono PCM stream that can decode straight into a {@link ByteBuffer}, so a direct
+ * buffer handed to OpenAL is filled without staging the samples in a heap array first.
+ */
+public interface DirectPcmSource {
+
+    /**
+     * Reads up to {@code dst.remaining()} bytes of whole samples into {@code dst} at its
+     * position, in {@code dst}'s byte order, and advances the position.
+     *
+     * @return bytes written, 0 if none are available yet, or -1 at end of stream
+     */
+    int read(ByteBuffer dst) throws IOException;
+
+    /**
+     * Reads from {@code in} into {@code dst}, copying through {@code scratch} only when the
+     * stream cannot write into the buffer itself.
+     */
+    static int read(InputStream in, ByteBuffer dst, byte[] scratch) throws IOException {
+        if (in instanceof DirectPcmSource direct) {
+            return direct.read(dst);
+        }
+        if (dst.hasArray() && dst.order() == ByteOrder.LITTLE_ENDIAN) {
+            int read = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining() & ~1);
+            if (read > 0) {
+                dst.position(dst.position() + read);
+            }
+            return read;
+        }
+        int read = in.read(scratch, 0, Math.min(scratch.length, dst.remaining()) & ~1);
+        if (read > 0) {
+            putLittleEndian(dst, scratch, 0, read);
+        }
+        return read;
+    }
+
+    /**
+     * Copies little-endian 16-bit samples into {@code dst}, swapping them if it uses the
+     * other byte order.
+     */
+    static void putLittleEndian(ByteBuffer dst, byte[] src, int offset, int length) {
+        if (dst.order() == ByteOrder.LITTLE_ENDIAN) {
+            dst.put(src, offset, length);
+            return;
+        }
+        for (int i = offset, end = offset + length - 1; i < end; i += 2) {
+            dst.putShort((short) ((src[i] & 0xFF) | (src[i + 1] << 8)));
+        }
+    }
+}
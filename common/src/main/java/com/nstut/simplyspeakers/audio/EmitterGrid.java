@@ -0,0 +1,103 @@
+package com.nstut.simplyspeakers.audio;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the fixed emitters of an {@link EmitterTable}. Cells are as wide as the
+ * largest emitter range, so every emitter that can reach the listener lies in the listener's
+ * cell or one of its 26 neighbours. Built once per table rebuild; queries allocate nothing.
+ */
+final class EmitterGrid {
+
+    private long[] cellKeys = new long[0];
+    /** Members of cell {@code c} are {@code members[cellStarts[c]]} up to {@code cellStarts[c + 1]}. */
+    private int[] cellStarts = new int[1];
+    private int[] members = new int[0];
+    private int cellCount = 0;
+    private double cellSize = 1.0;
+
+    /**
+     * Indexes every emitter that is not moving and can be heard at all.
+     */
+    void build(double[] x, double[] y, double[] z, int[] maxRange, float[] maxVolume, boolean[] moving, int size) {
+        int[] indexed = new int[size];
+        int count = 0;
+        int largestRange = 1;
+        for (int i = 0; i < size; i++) {
+            if (moving[i] || maxRange[i] <= 0 || maxVolume[i] <= 0.0f || Double.isNaN(x[i])) {
+                continue;
+            }
+            indexed[count++] = i;
+            largestRange = Math.max(largestRange, maxRange[i]);
+        }
+        cellSize = largestRange;
+
+        long[] keys = new long[count];
+        for (int k = 0; k < count; k++) {
+            int i = indexed[k];
+            keys[k] = cellKey(cell(x[i]), cell(y[i]), cell(z[i]));
+        }
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        cellCount = 0;
+        for (int k = 0; k < count; k++) {
+            if (cellCount == 0 || sorted[k] != sorted[cellCount - 1]) {
+                sorted[cellCount++] = sorted[k];
+            }
+        }
+        cellKeys = sorted;
+
+        int[] cells = new int[count];
+        cellStarts = new int[cellCount + 1];
+        for (int k = 0; k < count; k++) {
+            cells[k] = Arrays.binarySearch(cellKeys, 0, cellCount, keys[k]);
+            cellStarts[cells[k] + 1]++;
+        }
+        for (int c = 0; c < cellCount; c++) {
+            cellStarts[c + 1] += cellStarts[c];
+        }
+        int[] fill = Arrays.copyOf(cellStarts, cellCount);
+        members = new int[count];
+        for (int k = 0; k < count; k++) {
+            members[fill[cells[k]]++] = indexed[k];
+        }
+    }
+
+    /**
+     * Writes the indices of the indexed emitters in the listener's cell and its neighbours.
+     *
+     * @param out    receives the indices, from {@code offset}; must have room for every indexed emitter
+     * @return {@code offset} plus the number of indices written
+     */
+    int query(double listenerX, double listenerY, double listenerZ, int[] out, int offset) {
+        if (cellCount == 0) {
+            return offset;
+        }
+        long cx = cell(listenerX);
+        long cy = cell(listenerY);
+        long cz = cell(listenerZ);
+        int written = offset;
+        for (long dx = -1; dx <= 1; dx++) {
+            for (long dy = -1; dy <= 1; dy++) {
+                for (long dz = -1; dz <= 1; dz++) {
+                    int c = Arrays.binarySearch(cellKeys, 0, cellCount, cellKey(cx + dx, cy + dy, cz + dz));
+                    if (c < 0) continue;
+                    int start = cellStarts[c];
+                    int length = cellStarts[c + 1] - start;
+                    System.arraycopy(members, start, out, written, length);
+                    written += length;
+                }
+            }
+        }
+        return written;
+    }
+
+    private long cell(double coordinate) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    /** Packs like a block position; cells that collide only cost extra distance tests. */
+    private static long cellKey(long cx, long cy, long cz) {
+        return ((cx & 0x3FFFFFFL) << 38) | ((cz & 0x3FFFFFFL) << 12) | (cy & 0xFFFL);
+    }
+}
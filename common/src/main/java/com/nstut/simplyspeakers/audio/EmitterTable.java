@@ -0,0 +1,236 @@
+package com.nstut.simplyspeakers.audio;
+
+import java.util.Arrays;
+
+/**
+ * One speaker network's emitters laid out as parallel primitive arrays, so the per-frame mix
+ * walks contiguous memory and allocates nothing. The table is rebuilt only when the network's
+ * positions or settings change; between rebuilds only positions that follow a moving render
+ * pose are rewritten. Networks of {@value #GRID_MIN_EMITTERS} or more emitters also get an
+ * {@link EmitterGrid} over their fixed emitters, so a mix only visits the ones near the
+ * listener. Confined to the client thread.
+ */
+public final class EmitterTable {
+
+    private static final int INITIAL_CAPACITY = 4;
+    /** Below this size a flat pass over every emitter is cheaper than a grid query. */
+    static final int GRID_MIN_EMITTERS = 64;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] z = new double[INITIAL_CAPACITY];
+    private int[] maxRange = new int[INITIAL_CAPACITY];
+    private float[] maxVolume = new float[INITIAL_CAPACITY];
+    private float[] audioDropoff = new float[INITIAL_CAPACITY];
+    private boolean[] moving = new boolean[INITIAL_CAPACITY];
+    private float[] gains = new float[INITIAL_CAPACITY];
+    private int size = 0;
+    private int movingCount = 0;
+    private int[] movingIndices = new int[INITIAL_CAPACITY];
+    private volatile boolean stale = true;
+
+    private final EmitterGrid grid = new EmitterGrid();
+    private boolean gridStale = true;
+    /** Emitters visited by the last grid mix; only their gains are current. */
+    private int[] visited = new int[INITIAL_CAPACITY];
+    private int visitedCount = 0;
+
+    private final SpatialAudioCalculator.VirtualEmitterMix mix = new SpatialAudioCalculator.VirtualEmitterMix();
+
+    /** Marks the table for a rebuild before its next use; safe to call from any thread. */
+    public void invalidate() {
+        stale = true;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    /** Empties the table for a rebuild and clears the stale mark. Keeps the arrays. */
+    public void clear() {
+        size = 0;
+        movingCount = 0;
+        gridStale = true;
+        stale = false;
+    }
+
+    /**
+     * Appends an emitter.
+     *
+     * @param key    caller's identity for the emitter, e.g. a packed block position
+     * @param moving whether the position follows a render pose and is rewritten each frame
+     * @return the emitter's index
+     */
+    public int add(long key, double x, double y, double z, int maxRange, float maxVolume, float audioDropoff, boolean moving) {
+        if (size == keys.length) {
+            grow();
+        }
+        int index = size++;
+        keys[index] = key;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.z[index] = z;
+        this.maxRange[index] = maxRange;
+        this.maxVolume[index] = maxVolume;
+        this.audioDropoff[index] = audioDropoff;
+        this.moving[index] = moving;
+        if (moving) {
+            movingIndices[movingCount++] = index;
+        }
+        gridStale = true;
+        return index;
+    }
+
+    /** Rewrites a moving emitter's position for this frame. Fixed emitters keep the position they were added with. */
+    public void setPosition(int index, double x, double y, double z) {
+        this.x[index] = x;
+        this.y[index] = y;
+        this.z[index] = z;
+    }
+
+    /** Leaves a moving emitter out of mixes until its position is set again, e.g. while its pose is unknown. */
+    public void hide(int index) {
+        x[index] = Double.NaN;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean hasMoving() {
+        return movingCount > 0;
+    }
+
+    public boolean isMoving(int index) {
+        return moving[index];
+    }
+
+    public long key(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Computes the gain-weighted virtual emitter for a listener with the batch
+     * {@link SpatialAudioCalculator} kernel, and keeps the result in this table for
+     * {@link #mixX()} and the other accessors. When no emitter is audible the mix sits on the
+     * first visible emitter with zero gain.
+     *
+     * @return false when every emitter is hidden, leaving the previous mix untouched
+     */
+    public boolean mix(double listenerX, double listenerY, double listenerZ) {
+        if (size < GRID_MIN_EMITTERS) {
+            return SpatialAudioCalculator.calculateVirtualEmitter(listenerX, listenerY, listenerZ,
+                    x, y, z, maxRange, maxVolume, audioDropoff, size, gains, mix);
+        }
+        if (gridStale) {
+            grid.build(x, y, z, maxRange, maxVolume, moving, size);
+            Arrays.fill(gains, 0, size, 0.0f);
+            visitedCount = 0;
+            gridStale = false;
+        }
+        for (int k = 0; k < visitedCount; k++) {
+            gains[visited[k]] = 0.0f;
+        }
+        visitedCount = grid.query(listenerX, listenerY, listenerZ, visited, 0);
+        System.arraycopy(movingIndices, 0, visited, visitedCount, movingCount);
+        visitedCount += movingCount;
+
+        boolean resolved = SpatialAudioCalculator.calculateVirtualEmitter(listenerX, listenerY, listenerZ,
+                x, y, z, maxRange, maxVolume, audioDropoff, visited, visitedCount, gains, mix);
+        if (resolved && mix.totalWeight() > 0.0f) {
+            return true;
+        }
+        // Nothing audible nearby: sit on the first visible emitter, as the flat pass does
+        for (int i = 0; i < size; i++) {
+            if (!Double.isNaN(x[i])) {
+                mix.silentAt(x[i], y[i], z[i]);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Emitters whose gain the last {@link #mix} computed; every one when no grid is used. */
+    int visitedLastMix() {
+        return size < GRID_MIN_EMITTERS ? size : visitedCount;
+    }
+
+    /** Gain of an emitter in the last {@link #mix}, before game volume. */
+    public float gain(int index) {
+        return gains[index];
+    }
+
+    public double x(int index) {
+        return x[index];
+    }
+
+    public double y(int index) {
+        return y[index];
+    }
+
+    public double z(int index) {
+        return z[index];
+    }
+
+    /**
+     * Writes the indices of up to {@code limit} emitters the last {@link #mix} found audible,
+     * loudest first.
+     *
+     * @return how many indices were written
+     */
+    public int loudest(int[] out, int limit) {
+        boolean gridded = size >= GRID_MIN_EMITTERS;
+        int candidates = gridded ? visitedCount : size;
+        int found = 0;
+        for (int k = 0; k < candidates; k++) {
+            int index = gridded ? visited[k] : k;
+            float gain = gains[index];
+            if (!(gain > 0.0f) || (found == limit && gain <= gains[out[found - 1]])) {
+                continue;
+            }
+            int slot = found < limit ? found++ : found - 1;
+            while (slot > 0 && gains[out[slot - 1]] < gain) {
+                out[slot] = out[slot - 1];
+                slot--;
+            }
+            out[slot] = index;
+        }
+        return found;
+    }
+
+    public double mixX() {
+        return mix.x();
+    }
+
+    public double mixY() {
+        return mix.y();
+    }
+
+    public double mixZ() {
+        return mix.z();
+    }
+
+    public float maxGain() {
+        return mix.maxGain();
+    }
+
+    public float totalWeight() {
+        return mix.totalWeight();
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        maxRange = Arrays.copyOf(maxRange, capacity);
+        maxVolume = Arrays.copyOf(maxVolume, capacity);
+        audioDropoff = Arrays.copyOf(audioDropoff, capacity);
+        moving = Arrays.copyOf(moving, capacity);
+        gains = Arrays.copyOf(gains, capacity);
+        movingIndices = Arrays.copyOf(movingIndices, capacity);
+        visited = Arrays.copyOf(visited, capacity);
+    }
+}
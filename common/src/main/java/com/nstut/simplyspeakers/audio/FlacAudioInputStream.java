@@ -0,0 +1,536 @@
+package com.nstut.simplyspeakers.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Incremental pure-Java FLAC decoder producing 16-bit mono PCM one frame at a time.
+ * Seeks use the file's SEEKTABLE when present and decode forward from the nearest
+ * point; the exact length comes from STREAMINFO.
+ */
+public final class FlacAudioInputStream extends AudioInputStream implements SeekablePcmStream {
+
+    private static final int METADATA_STREAMINFO = 0;
+    private static final int METADATA_SEEKTABLE = 3;
+    private static final int[] SAMPLE_SIZES = {0, 8, 12, 0, 16, 20, 24, 32};
+
+    /**
+     * STREAMINFO plus seek points, parsed from the metadata blocks before the first frame.
+     */
+    static final class StreamHeader {
+        int maxBlockSize;
+        int sampleRate;
+        int channels;
+        int bitsPerSample;
+        long totalSamples;
+        long audioOffset;
+        long[] seekSamples = new long[0];
+        long[] seekOffsets = new long[0];
+    }
+
+    private final File file;
+    private final FileInputStream fileChannelInput;
+    private final StreamHeader header;
+    private InputStream in;
+
+    // Bit reader state
+    private long bitBuffer;
+    private int bitCount;
+
+    private final int[][] channelSamples;
+    private final long[] lpcScratch = new long[32];
+    private byte[] frameBuffer;
+    private int frameBufferLength = 0;
+    private int frameBufferPos = 0;
+    private long frameFirstSample = 0;
+    private int frameBitsPerSample;
+    private int frameChannels = 1;
+    private final byte[] singleByte = new byte[1];
+    private boolean eof = false;
+
+    public FlacAudioInputStream(File file) throws IOException {
+        super(new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+        }, new AudioFormat(44100, 16, 1, true, false), AudioSystem.NOT_SPECIFIED);
+        this.file = file;
+        this.header = readHeader(file);
+        this.format = new AudioFormat(header.sampleRate, 16, 1, true, false);
+        this.frameLength = header.totalSamples > 0 ? header.totalSamples : AudioSystem.NOT_SPECIFIED;
+        this.channelSamples = new int[header.channels][Math.max(16, header.maxBlockSize)];
+        this.frameBuffer = new byte[Math.max(16, header.maxBlockSize) * 2];
+        this.fileChannelInput = new FileInputStream(file);
+        reopenAt(header.audioOffset);
+    }
+
+    /**
+     * Parses the {@code fLaC} marker and metadata blocks.
+     */
+    static StreamHeader readHeader(File file) throws IOException {
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (data.readInt() != 0x664C6143) { // "fLaC"
+                throw new IOException("Not a FLAC stream: " + file.getName());
+            }
+            StreamHeader header = new StreamHeader();
+            long position = 4;
+            boolean last = false;
+            boolean sawStreamInfo = false;
+            while (!last) {
+                int blockHeader = data.readInt();
+                last = (blockHeader & 0x80000000) != 0;
+                int type = (blockHeader >>> 24) & 0x7F;
+                int length = blockHeader & 0xFFFFFF;
+                position += 4 + length;
+                if (type == METADATA_STREAMINFO) {
+                    data.readUnsignedShort(); // min block size
+                    header.maxBlockSize = data.readUnsignedShort();
+                    data.skipNBytes(6); // min/max frame size
+                    long packed = data.readLong();
+                    header.sampleRate = (int) (packed >>> 44);
+                    header.channels = (int) ((packed >>> 41) & 0x7) + 1;
+                    header.bitsPerSample = (int) ((packed >>> 36) & 0x1F) + 1;
+                    header.totalSamples = packed & 0xFFFFFFFFFL;
+                    data.skipNBytes(length - 18);
+                    sawStreamInfo = true;
+                } else if (type == METADATA_SEEKTABLE) {
+                    int points = length / 18;
+                    long[] samples = new long[points];
+                    long[] offsets = new long[points];
+                    int count = 0;
+                    for (int i = 0; i < points; i++) {
+                        long sample = data.readLong();
+                        long offset = data.readLong();
+                        data.readUnsignedShort();
+                        if (sample != -1L) { // placeholder points
+                            samples[count] = sample;
+                            offsets[count] = offset;
+                            count++;
+                        }
+                    }
+                    data.skipNBytes(length - points * 18L);
+                    header.seekSamples = Arrays.copyOf(samples, count);
+                    header.seekOffsets = Arrays.copyOf(offsets, count);
+                } else {
+                    data.skipNBytes(length);
+                }
+            }
+            if (!sawStreamInfo || header.sampleRate <= 0 || header.channels <= 0) {
+                throw new IOException("FLAC stream has no valid STREAMINFO: " + file.getName());
+            }
+            header.audioOffset = position;
+            return header;
+        } catch (EOFException e) {
+            throw new IOException("Truncated FLAC metadata: " + file.getName(), e);
+        }
+    }
+
+    static AudioStreamInfo readStreamInfo(File file) throws IOException {
+        StreamHeader header = readHeader(file);
+        return new AudioStreamInfo(header.totalSamples, header.sampleRate, header.channels, 0, 0);
+    }
+
+    @Override
+    public boolean seekToSampleFrame(long sampleFrame) throws IOException {
+        if (header.totalSamples > 0 && sampleFrame >= header.totalSamples) {
+            frameBufferLength = 0;
+            frameBufferPos = 0;
+            eof = true;
+            return false;
+        }
+
+        long current = frameFirstSample + frameBufferPos / 2;
+        int point = -1;
+        for (int i = 0; i < header.seekSamples.length && header.seekSamples[i] <= sampleFrame; i++) {
+            point = i;
+        }
+        boolean forwardFromHere = !eof && sampleFrame >= current
+                && (point < 0 || header.seekSamples[point] <= current);
+        if (!forwardFromHere) {
+            long pointSample = point >= 0 ? header.seekSamples[point] : 0L;
+            long pointOffset = point >= 0 ? header.seekOffsets[point] : 0L;
+            reopenAt(header.audioOffset + pointOffset);
+            frameFirstSample = pointSample;
+            frameBufferLength = 0;
+            frameBufferPos = 0;
+            eof = false;
+        }
+
+        while (true) {
+            long frameEnd = frameFirstSample + frameBufferLength / 2;
+            if (frameBufferLength > 0 && sampleFrame < frameEnd) {
+                frameBufferPos = (int) (Math.max(0, sampleFrame - frameFirstSample) * 2);
+                return true;
+            }
+            if (!decodeNextFrame()) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        reopenAt(header.audioOffset);
+        frameFirstSample = 0;
+        frameBufferLength = 0;
+        frameBufferPos = 0;
+        eof = false;
+    }
+
+    private void reopenAt(long byteOffset) throws IOException {
+        fileChannelInput.getChannel().position(byteOffset);
+        this.in = new BufferedInputStream(fileChannelInput, 64 * 1024);
+        this.bitBuffer = 0;
+        this.bitCount = 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int r = read(singleByte, 0, 1);
+        return r > 0 ? (singleByte[0] & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (b == null) throw new NullPointerException();
+        if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+        if (len == 0) return 0;
+
+        int bytesCopied = 0;
+        while (bytesCopied < len) {
+            if (frameBufferPos < frameBufferLength) {
+                int toCopy = Math.min(frameBufferLength - frameBufferPos, len - bytesCopied);
+                System.arraycopy(frameBuffer, frameBufferPos, b, off + bytesCopied, toCopy);
+                frameBufferPos += toCopy;
+                bytesCopied += toCopy;
+            } else if (eof || !decodeNextFrame()) {
+                break;
+            }
+        }
+        return (bytesCopied > 0 || !eof) ? bytesCopied : -1;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        long current = frameFirstSample + frameBufferPos / 2;
+        long target = current + n / 2;
+        if (!seekToSampleFrame(target)) {
+            long end = header.totalSamples > 0 ? header.totalSamples : current;
+            return Math.max(0, end - current) * 2;
+        }
+        return n - (n & 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannelInput.close();
+    }
+
+    /**
+     * Decodes the next frame into {@link #frameBuffer}.
+     *
+     * @return false at end of stream
+     */
+    private boolean decodeNextFrame() throws IOException {
+        long nextFirstSample = frameFirstSample + frameBufferLength / 2;
+        try {
+            int blockSize = readFrame();
+            if (blockSize <= 0) {
+                eof = true;
+                frameBufferLength = 0;
+                frameBufferPos = 0;
+                return false;
+            }
+            frameFirstSample = nextFirstSample;
+            packMono(blockSize);
+            return true;
+        } catch (EOFException e) {
+            eof = true;
+            frameBufferLength = 0;
+            frameBufferPos = 0;
+            return false;
+        }
+    }
+
+    /**
+     * @return the frame's block size, or 0 if no further frame sync was found
+     */
+    private int readFrame() throws IOException {
+        // Frame sync: 14 set bits then a reserved 0; resynchronise byte-wise on damage.
+        bitCount -= bitCount & 7;
+        int sync = (int) readBits(8) << 8 | (int) readBits(8);
+        while ((sync & 0xFFFE) != 0xFFF8) {
+            int next = readByteOrEof();
+            if (next < 0) {
+                return 0;
+            }
+            sync = ((sync << 8) | next) & 0xFFFF;
+        }
+
+        int blockSizeCode = (int) readBits(4);
+        int sampleRateCode = (int) readBits(4);
+        int channelAssignment = (int) readBits(4);
+        int sampleSizeCode = (int) readBits(3);
+        readBits(1);
+        readUtf8Number();
+
+        int blockSize;
+        if (blockSizeCode == 1) {
+            blockSize = 192;
+        } else if (blockSizeCode >= 2 && blockSizeCode <= 5) {
+            blockSize = 576 << (blockSizeCode - 2);
+        } else if (blockSizeCode == 6) {
+            blockSize = (int) readBits(8) + 1;
+        } else if (blockSizeCode == 7) {
+            blockSize = (int) readBits(16) + 1;
+        } else if (blockSizeCode >= 8) {
+            blockSize = 256 << (blockSizeCode - 8);
+        } else {
+            throw new IOException("Reserved FLAC block size in " + file.getName());
+        }
+        if (sampleRateCode == 12) {
+            readBits(8);
+        } else if (sampleRateCode == 13 || sampleRateCode == 14) {
+            readBits(16);
+        }
+        readBits(8); // CRC-8
+
+        int bitsPerSample = sampleSizeCode == 0 ? header.bitsPerSample : SAMPLE_SIZES[sampleSizeCode];
+        int channels = channelAssignment < 8 ? channelAssignment + 1 : 2;
+        if (channels > channelSamples.length || blockSize > channelSamples[0].length || bitsPerSample == 0) {
+            throw new IOException("FLAC frame does not match STREAMINFO in " + file.getName());
+        }
+        frameBitsPerSample = bitsPerSample;
+
+        for (int ch = 0; ch < channels; ch++) {
+            int subframeBits = bitsPerSample;
+            if ((channelAssignment == 8 && ch == 1) || (channelAssignment == 9 && ch == 0)
+                    || (channelAssignment == 10 && ch == 1)) {
+                subframeBits++; // side channel
+            }
+            readSubframe(channelSamples[ch], blockSize, subframeBits);
+        }
+
+        int[] left = channelSamples[0];
+        int[] right = channels > 1 ? channelSamples[1] : null;
+        if (channelAssignment == 8) {
+            for (int i = 0; i < blockSize; i++) right[i] = left[i] - right[i];
+        } else if (channelAssignment == 9) {
+            for (int i = 0; i < blockSize; i++) left[i] += right[i];
+        } else if (channelAssignment == 10) {
+            for (int i = 0; i < blockSize; i++) {
+                int side = right[i];
+                int mid = (left[i] << 1) | (side & 1);
+                left[i] = (mid + side) >> 1;
+                right[i] = (mid - side) >> 1;
+            }
+        }
+
+        bitCount -= bitCount & 7;
+        readBits(16); // CRC-16
+        frameChannels = channels;
+        return blockSize;
+    }
+
+    private void packMono(int blockSize) {
+        if (frameBuffer.length < blockSize * 2) {
+            frameBuffer = new byte[blockSize * 2];
+        }
+        int channels = frameChannels;
+        int shift = frameBitsPerSample - 16;
+        int pos = 0;
+        for (int i = 0; i < blockSize; i++) {
+            long sum = 0;
+            for (int ch = 0; ch < channels; ch++) {
+                sum += channelSamples[ch][i];
+            }
+            long sample = sum / channels;
+            sample = shift >= 0 ? sample >> shift : sample << -shift;
+            frameBuffer[pos++] = (byte) sample;
+            frameBuffer[pos++] = (byte) (sample >> 8);
+        }
+        frameBufferLength = pos;
+        frameBufferPos = 0;
+    }
+
+    private void readSubframe(int[] out, int blockSize, int bitsPerSample) throws IOException {
+        readBits(1); // zero padding
+        int type = (int) readBits(6);
+        int wasted = 0;
+        if (readBits(1) == 1) {
+            wasted = 1;
+            while (readBits(1) == 0) {
+                wasted++;
+            }
+            bitsPerSample -= wasted;
+        }
+
+        if (type == 0) {
+            Arrays.fill(out, 0, blockSize, (int) readSigned(bitsPerSample));
+        } else if (type == 1) {
+            for (int i = 0; i < blockSize; i++) {
+                out[i] = (int) readSigned(bitsPerSample);
+            }
+        } else if (type >= 8 && type <= 12) {
+            int order = type - 8;
+            for (int i = 0; i < order; i++) {
+                out[i] = (int) readSigned(bitsPerSample);
+            }
+            readResidual(out, blockSize, order);
+            restoreFixed(out, blockSize, order);
+        } else if (type >= 32) {
+            int order = (type & 31) + 1;
+            for (int i = 0; i < order; i++) {
+                out[i] = (int) readSigned(bitsPerSample);
+            }
+            int precision = (int) readBits(4) + 1;
+            if (precision == 16) {
+                throw new IOException("Invalid FLAC LPC precision in " + file.getName());
+            }
+            int shift = (int) readSigned(5);
+            for (int i = 0; i < order; i++) {
+                lpcScratch[i] = readSigned(precision);
+            }
+            readResidual(out, blockSize, order);
+            for (int i = order; i < blockSize; i++) {
+                long prediction = 0;
+                for (int j = 0; j < order; j++) {
+                    prediction += lpcScratch[j] * out[i - 1 - j];
+                }
+                out[i] += (int) (prediction >> shift);
+            }
+        } else {
+            throw new IOException("Reserved FLAC subframe type " + type + " in " + file.getName());
+        }
+
+        if (wasted > 0) {
+            for (int i = 0; i < blockSize; i++) {
+                out[i] <<= wasted;
+            }
+        }
+    }
+
+    private static void restoreFixed(int[] s, int blockSize, int order) {
+        switch (order) {
+            case 1 -> {
+                for (int i = 1; i < blockSize; i++) s[i] += s[i - 1];
+            }
+            case 2 -> {
+                for (int i = 2; i < blockSize; i++) s[i] += 2 * s[i - 1] - s[i - 2];
+            }
+            case 3 -> {
+                for (int i = 3; i < blockSize; i++) s[i] += 3 * s[i - 1] - 3 * s[i - 2] + s[i - 3];
+            }
+            case 4 -> {
+                for (int i = 4; i < blockSize; i++) s[i] += 4 * s[i - 1] - 6 * s[i - 2] + 4 * s[i - 3] - s[i - 4];
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Reads Rice-coded residuals into {@code out[order..blockSize)}.
+     */
+    private void readResidual(int[] out, int blockSize, int order) throws IOException {
+        int method = (int) readBits(2);
+        if (method > 1) {
+            throw new IOException("Reserved FLAC residual coding in " + file.getName());
+        }
+        int paramBits = method == 0 ? 4 : 5;
+        int escape = method == 0 ? 15 : 31;
+        int partitionOrder = (int) readBits(4);
+        int partitions = 1 << partitionOrder;
+        int partitionSize = blockSize >> partitionOrder;
+
+        int index = order;
+        for (int p = 0; p < partitions; p++) {
+            int count = p == 0 ? partitionSize - order : partitionSize;
+            int parameter = (int) readBits(paramBits);
+            if (parameter == escape) {
+                int rawBits = (int) readBits(5);
+                for (int i = 0; i < count; i++) {
+                    out[index++] = rawBits == 0 ? 0 : (int) readSigned(rawBits);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    long quotient = readUnary();
+                    long value = (quotient << parameter) | readBits(parameter);
+                    out[index++] = (int) ((value >>> 1) ^ -(value & 1));
+                }
+            }
+        }
+    }
+
+    private void readUtf8Number() throws IOException {
+        int first = (int) readBits(8);
+        int extra = 0;
+        for (int mask = 0x80; (first & mask) != 0 && mask > 1; mask >>= 1) {
+            extra++;
+        }
+        for (int i = 1; i < extra; i++) {
+            readBits(8);
+        }
+    }
+
+    private long readUnary() throws IOException {
+        long zeros = 0;
+        while (true) {
+            if (bitCount == 0) {
+                bitBuffer = nextByte();
+                bitCount = 8;
+            }
+            int bits = (int) (bitBuffer & ((1L << bitCount) - 1));
+            if (bits == 0) {
+                zeros += bitCount;
+                bitCount = 0;
+                continue;
+            }
+            int leading = Integer.numberOfLeadingZeros(bits) - (32 - bitCount);
+            zeros += leading;
+            bitCount -= leading + 1;
+            return zeros;
+        }
+    }
+
+    private long readBits(int n) throws IOException {
+        if (n == 0) {
+            return 0;
+        }
+        while (bitCount < n) {
+            bitBuffer = (bitBuffer << 8) | nextByte();
+            bitCount += 8;
+        }
+        bitCount -= n;
+        return (bitBuffer >>> bitCount) & ((1L << n) - 1);
+    }
+
+    private long readSigned(int n) throws IOException {
+        long value = readBits(n);
+        return (value << (64 - n)) >> (64 - n);
+    }
+
+    private int nextByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private int readByteOrEof() throws IOException {
+        bitCount = 0;
+        return in.read();
+    }
+}
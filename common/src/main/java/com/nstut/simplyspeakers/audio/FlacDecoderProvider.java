@@ -0,0 +1,32 @@
+package com.nstut.simplyspeakers.audio;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Native FLAC through the built-in {@link FlacAudioInputStream}.
+ */
+public final class FlacDecoderProvider implements AudioDecoderProvider {
+
+    @Override
+    public List<String> extensions() {
+        return List.of("flac");
+    }
+
+    @Override
+    public boolean probe(byte[] header, int length) {
+        return length >= 4 && header[0] == 'f' && header[1] == 'L' && header[2] == 'a' && header[3] == 'C';
+    }
+
+    @Override
+    public AudioInputStream openMonoPcm(File file) throws IOException {
+        return new FlacAudioInputStream(file);
+    }
+
+    @Override
+    public AudioStreamInfo readStreamInfo(File file) throws IOException {
+        return FlacAudioInputStream.readStreamInfo(file);
+    }
+}
@@ -16,10 +16,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * On-demand incremental audio decoders for streaming MP3 and WAV files without
- * accumulating hundreds of megabytes of decoded PCM into RAM.
+ * accumulating hundreds of megabytes of decoded PCM into RAM. The codec for a file
+ * is chosen by {@link AudioDecoders}.
  */
 public final class IncrementalAudioDecoders {
 
@@ -27,82 +30,39 @@ public final class IncrementalAudioDecoders {
     }
 
     public static AudioInputStream createMonoPcmStream(File audioFile) throws UnsupportedAudioFileException, IOException {
-        String name = audioFile.getName().toLowerCase();
-        if (name.endsWith(".mp3")) {
-            return new IncrementalMp3AudioInputStream(audioFile);
-        } else {
-            AudioInputStream initialStream = AudioSystem.getAudioInputStream(audioFile);
-            return createIncrementalMonoWavStream(initialStream);
-        }
+        return AudioDecoders.openMonoPcm(audioFile);
     }
 
     public static AudioInputStream openPcmStream(File audioFile) throws UnsupportedAudioFileException, IOException {
         return createMonoPcmStream(audioFile);
     }
 
-    private static AudioInputStream createIncrementalMonoWavStream(AudioInputStream sourceStream) throws UnsupportedAudioFileException, IOException {
-        AudioFormat srcFormat = sourceStream.getFormat();
-        float sampleRate = srcFormat.getSampleRate();
-        int channels = srcFormat.getChannels();
-
-        if (channels == 1 && srcFormat.getSampleSizeInBits() == 16
-                && srcFormat.getEncoding() == AudioFormat.Encoding.PCM_SIGNED
-                && !srcFormat.isBigEndian()) {
-            return sourceStream;
-        }
-
-        AudioInputStream pcmStream = sourceStream;
-        if (srcFormat.getEncoding() != AudioFormat.Encoding.PCM_SIGNED
-                || srcFormat.getSampleSizeInBits() != 16
-                || srcFormat.isBigEndian()) {
-            AudioFormat targetPcmFormat = new AudioFormat(
-                    AudioFormat.Encoding.PCM_SIGNED,
-                    sampleRate,
-                    16,
-                    channels,
-                    channels * 2,
-                    sampleRate,
-                    false
-            );
-            if (AudioSystem.isConversionSupported(targetPcmFormat, srcFormat)) {
-                pcmStream = AudioSystem.getAudioInputStream(targetPcmFormat, sourceStream);
-            } else {
-                try {
-                    sourceStream.close();
-                } catch (IOException ignored) {}
-                throw new UnsupportedAudioFileException("Conversion to PCM_SIGNED 16-bit Little Endian not supported for format: " + srcFormat);
-            }
-        }
-
-        AudioFormat monoFormat = new AudioFormat(
-                AudioFormat.Encoding.PCM_SIGNED,
-                sampleRate,
-                16,
-                1,
-                2,
-                sampleRate,
-                false
-        );
-
-        if (channels == 1) {
-            return pcmStream;
-        }
-
-        long frameLength = sourceStream.getFrameLength();
-        InputStream downmixStream = new IncrementalDownmixInputStream(pcmStream, channels);
-        return new AudioInputStream(downmixStream, monoFormat, frameLength);
-    }
-
     /**
-     * Incremental MP3 decoder stream that decodes frames on-demand.
+     * Incremental MP3 decoder stream that decodes frames on-demand. Long forward
+     * skips jump straight to the target frame through an {@link Mp3SeekTable}
+     * instead of decoding everything in between. Decoded frames are downmixed and
+     * packed into a per-stream scratch buffer, so steady-state reads do not allocate.
      */
-    public static class IncrementalMp3AudioInputStream extends AudioInputStream {
-        private final InputStream fileInputStream;
-        private final Bitstream bitstream;
-        private final Decoder decoder;
+    public static class IncrementalMp3AudioInputStream extends AudioInputStream implements SeekablePcmStream, DirectPcmSource {
+        /** Frames decoded and discarded before a seek target to refill the Layer III bit reservoir. */
+        private static final int SEEK_WARMUP_FRAMES = 2;
+
+        private final File file;
+        private final FileInputStream fileChannelInput;
+        private InputStream fileInputStream;
+        private Bitstream bitstream;
+        private Decoder decoder;
         private final int channels;
-        private byte[] frameBuffer = new byte[0];
+        private Mp3SeekTable seekTable;
+        private boolean seekTableUnavailable = false;
+        /** Mono LE bytes of the current frame; sized for the largest MPEG frame (1152 samples). */
+        private byte[] frameBuffer = new byte[1152 * 2];
+        private int frameBufferLength = 0;
         private int frameBufferPos = 0;
+        private final byte[] singleByte = new byte[1];
+        private byte[] skipBuffer;
+        private long frameIndex = 0;
+        private int samplesPerFrame;
         private boolean eof = false;
 
         public IncrementalMp3AudioInputStream(File file) throws IOException {
@@ -113,7 +73,9 @@ public final class IncrementalAudioDecoders {
                 }
             }, new AudioFormat(44100, 16, 1, true, false), AudioSystem.NOT_SPECIFIED);
 
-            this.fileInputStream = new BufferedInputStream(new FileInputStream(file));
+            this.file = file;
+            this.fileChannelInput = new FileInputStream(file);
+            this.fileInputStream = new BufferedInputStream(fileChannelInput);
             this.bitstream = new Bitstream(fileInputStream);
             this.decoder = new Decoder();
 
@@ -128,6 +90,7 @@ public final class IncrementalAudioDecoders {
                 SampleBuffer output = (SampleBuffer) decoder.decodeFrame(firstHeader, bitstream);
                 decodeSampleBufferToFrameBuffer(output);
                 bitstream.closeFrame();
+                this.samplesPerFrame = Math.max(1, frameBufferLength / 2);
 
                 this.format = new AudioFormat(sampleRate, 16, 1, true, false);
             } catch (BitstreamException | DecoderException e) {
@@ -139,22 +102,127 @@ public final class IncrementalAudioDecoders {
         }
 
         private void decodeSampleBufferToFrameBuffer(SampleBuffer output) {
+            // The decoder overwrites its sample buffer on the next frame, so it doubles as downmix scratch.
             short[] pcmShorts = output.getBuffer();
-            int samplesRead = output.getBufferLength();
+            int monoSamples = output.getBufferLength();
             if (channels == 2) {
-                short[] monoShorts = PcmAudioDownmixer.downmixStereoToMono(pcmShorts, samplesRead);
-                this.frameBuffer = PcmAudioDownmixer.shortsToBytesLE(monoShorts, monoShorts.length);
-            } else {
-                this.frameBuffer = PcmAudioDownmixer.shortsToBytesLE(pcmShorts, samplesRead);
+                monoSamples = PcmAudioDownmixer.downmixStereoToMono(pcmShorts, monoSamples, pcmShorts);
+            }
+            if (frameBuffer.length < monoSamples * 2) {
+                frameBuffer = new byte[monoSamples * 2];
             }
+            this.frameBufferLength = PcmAudioDownmixer.shortsToBytesLE(pcmShorts, monoSamples, frameBuffer, 0);
             this.frameBufferPos = 0;
         }
 
+        /**
+         * Positions the stream at the given mono sample frame. Uses the seek table
+         * to reopen the bitstream a few frames before the target; falls back to
+         * decode-and-discard when no table can be built.
+         *
+         * @return false if the target lies past the end of the stream
+         */
+        @Override
+        public boolean seekToSampleFrame(long sampleFrame) throws IOException {
+            Mp3SeekTable table = seekTable();
+            if (table == null) {
+                long current = frameIndex * samplesPerFrame + frameBufferPos / 2;
+                long toSkip = (sampleFrame - current) * 2;
+                if (toSkip < 0) {
+                    throw new IOException("Backward seek requires an MP3 seek table: " + file.getName());
+                }
+                return skipByDecoding(toSkip) == toSkip;
+            }
+
+            int targetFrame = table.frameIndexForSample(sampleFrame);
+            if (targetFrame >= table.getFrameCount()) {
+                frameBufferLength = 0;
+                frameBufferPos = 0;
+                frameIndex = table.getFrameCount();
+                eof = true;
+                return false;
+            }
+
+            int warmupStart = Math.max(0, targetFrame - SEEK_WARMUP_FRAMES);
+            reopenAt(table.getFrameOffset(warmupStart));
+            // Fresh synthesis/reservoir state; the warm-up frames rebuild it.
+            this.decoder = new Decoder();
+            try {
+                for (int frame = warmupStart; frame <= targetFrame; frame++) {
+                    Header header = bitstream.readFrame();
+                    if (header == null) {
+                        eof = true;
+                        frameBufferLength = 0;
+                        frameBufferPos = 0;
+                        return false;
+                    }
+                    SampleBuffer output = (SampleBuffer) decoder.decodeFrame(header, bitstream);
+                    bitstream.closeFrame();
+                    if (frame == targetFrame) {
+                        decodeSampleBufferToFrameBuffer(output);
+                    }
+                }
+            } catch (BitstreamException | DecoderException e) {
+                throw new IOException("Failed to seek MP3 stream: " + file.getName(), e);
+            }
+
+            frameIndex = targetFrame;
+            long withinFrame = sampleFrame - (long) targetFrame * table.getSamplesPerFrame();
+            frameBufferPos = (int) Math.min(frameBufferLength, Math.max(0, withinFrame) * 2);
+            eof = false;
+            return true;
+        }
+
+        /**
+         * Exact decoded length in sample frames, taken from the frame index so looping
+         * offsets can wrap without decoding the file. Unknown if the index cannot be built.
+         */
+        @Override
+        public long getFrameLength() {
+            Mp3SeekTable table = seekTable();
+            return table != null ? (long) table.getFrameCount() * table.getSamplesPerFrame() : AudioSystem.NOT_SPECIFIED;
+        }
+
+        private Mp3SeekTable seekTable() {
+            if (seekTable == null && !seekTableUnavailable) {
+                try {
+                    seekTable = Mp3SeekTable.loadOrBuild(file);
+                    samplesPerFrame = seekTable.getSamplesPerFrame();
+                } catch (IOException e) {
+                    seekTableUnavailable = true;
+                }
+            }
+            return seekTable;
+        }
+
+        /**
+         * Restarts decoding from the first frame on the same file handle, without the
+         * header parsing and seek-table work of reopening the file.
+         */
+        @Override
+        public void rewind() throws IOException {
+            reopenAt(0L);
+            // JLayer binds its Layer III decoder to the bitstream it first decoded from.
+            this.decoder = new Decoder();
+            frameIndex = -1;
+            frameBufferLength = 0;
+            frameBufferPos = 0;
+            eof = false;
+            // Like the constructor, hold frame 0 so frameIndex always names the buffered frame.
+            decodeNextFrame();
+        }
+
+        private void reopenAt(long byteOffset) throws IOException {
+            // Not closing the bitstream: that would close the shared file handle.
+            fileChannelInput.getChannel().position(byteOffset);
+            this.fileInputStream = new BufferedInputStream(fileChannelInput);
+            this.bitstream = new Bitstream(fileInputStream);
+        }
+
         @Override
         public int read() throws IOException {
-            byte[] single = new byte[1];
-            int r = read(single, 0, 1);
-            return r > 0 ? (single[0] & 0xFF) : -1;
+            int r = read(singleByte, 0, 1);
+            return r > 0 ? (singleByte[0] & 0xFF) : -1;
         }
 
         @Override
@@ -162,40 +230,75 @@ public final class IncrementalAudioDecoders {
             if (b == null) throw new NullPointerException();
             if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
             if (len == 0) return 0;
+            return read(ByteBuffer.wrap(b, off, len).order(ByteOrder.LITTLE_ENDIAN));
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int len = dst.remaining();
+            if (len == 0) return 0;
 
             int bytesCopied = 0;
             while (bytesCopied < len) {
-                if (frameBufferPos < frameBuffer.length) {
-                    int available = frameBuffer.length - frameBufferPos;
+                if (frameBufferPos < frameBufferLength) {
+                    int available = frameBufferLength - frameBufferPos;
                     int toCopy = Math.min(available, len - bytesCopied);
-                    System.arraycopy(frameBuffer, frameBufferPos, b, off + bytesCopied, toCopy);
+                    if (dst.order() != ByteOrder.LITTLE_ENDIAN) {
+                        // Byte-swapped copies move whole samples only.
+                        toCopy &= ~1;
+                        if (toCopy == 0) break;
+                    }
+                    DirectPcmSource.putLittleEndian(dst, frameBuffer, frameBufferPos, toCopy);
                     frameBufferPos += toCopy;
                     bytesCopied += toCopy;
-                } else {
-                    if (eof) break;
-                    try {
-                        Header frame = bitstream.readFrame();
-                        if (frame == null) {
-                            eof = true;
-                            break;
-                        }
-                        SampleBuffer output = (SampleBuffer) decoder.decodeFrame(frame, bitstream);
-                        decodeSampleBufferToFrameBuffer(output);
-                        bitstream.closeFrame();
-                    } catch (BitstreamException | DecoderException e) {
-                        eof = true;
-                        break;
-                    }
+                } else if (eof || !decodeNextFrame()) {
+                    break;
                 }
             }
 
             return (bytesCopied > 0 || !eof) ? bytesCopied : -1;
         }
 
+        /** @return false once the stream has ended or a frame fails to decode */
+        private boolean decodeNextFrame() {
+            try {
+                Header frame = bitstream.readFrame();
+                if (frame == null) {
+                    eof = true;
+                    return false;
+                }
+                SampleBuffer output = (SampleBuffer) decoder.decodeFrame(frame, bitstream);
+                decodeSampleBufferToFrameBuffer(output);
+                bitstream.closeFrame();
+                frameIndex++;
+                return true;
+            } catch (BitstreamException | DecoderException e) {
+                eof = true;
+                return false;
+            }
+        }
+
         @Override
         public long skip(long n) throws IOException {
             if (n <= 0) return 0;
-            byte[] skipBuffer = new byte[(int) Math.min(n, 4096)];
+            long remainingInFrame = frameBufferLength - frameBufferPos;
+            // Anything within the next frame or two is cheaper to decode through.
+            if (n > remainingInFrame + (long) samplesPerFrame * 2 * (SEEK_WARMUP_FRAMES + 1) && seekTable() != null) {
+                long current = frameIndex * samplesPerFrame + frameBufferPos / 2;
+                long target = current + n / 2;
+                if (!seekToSampleFrame(target)) {
+                    long end = (long) seekTable.getFrameCount() * samplesPerFrame;
+                    return Math.max(0, end - current) * 2;
+                }
+                return n - (n & 1);
+            }
+            return skipByDecoding(n);
+        }
+
+        private long skipByDecoding(long n) throws IOException {
+            if (skipBuffer == null) {
+                skipBuffer = new byte[4096];
+            }
             long totalSkipped = 0;
             while (totalSkipped < n) {
                 int read = read(skipBuffer, 0, (int) Math.min(skipBuffer.length, n - totalSkipped));
@@ -219,23 +322,28 @@ public final class IncrementalAudioDecoders {
 
     /**
      * Incremental stream downmixer that converts multi-channel 16-bit PCM into mono on-the-fly.
+     * Partial frames returned by the source are carried over to the next read.
      */
     public static class IncrementalDownmixInputStream extends InputStream {
         private final AudioInputStream source;
         private final int channels;
+        private final int bytesPerFrame;
         private final byte[] inputBuffer;
+        private final byte[] singleByte = new byte[1];
+        private int inputLength = 0;
+        private boolean sourceEof = false;
 
         public IncrementalDownmixInputStream(AudioInputStream source, int channels) {
             this.source = source;
             this.channels = channels;
-            this.inputBuffer = new byte[channels * 2 * 1024]; // 1024 frames buffer
+            this.bytesPerFrame = channels * 2;
+            this.inputBuffer = new byte[bytesPerFrame * 1024]; // 1024 frames buffer
         }
 
         @Override
         public int read() throws IOException {
-            byte[] single = new byte[1];
-            int r = read(single, 0, 1);
-            return r > 0 ? (single[0] & 0xFF) : -1;
+            int r = read(singleByte, 0, 1);
+            return r > 0 ? (singleByte[0] & 0xFF) : -1;
         }
 
         @Override
@@ -245,36 +353,32 @@ public final class IncrementalAudioDecoders {
             if (len == 0) return 0;
 
             // Make sure we read in multiples of 2 bytes (1 16-bit mono sample)
-            int monoSamplesRequested = len / 2;
-            if (monoSamplesRequested == 0) monoSamplesRequested = 1;
-
-            int bytesPerFrame = channels * 2;
-            int framesToRead = Math.min(monoSamplesRequested, inputBuffer.length / bytesPerFrame);
-            int bytesToReadFromSource = framesToRead * bytesPerFrame;
-
-            int bytesRead = source.read(inputBuffer, 0, bytesToReadFromSource);
-            if (bytesRead <= 0) {
-                return -1;
+            int monoSamplesRequested = Math.max(1, len / 2);
+            int bytesWanted = Math.min(monoSamplesRequested, inputBuffer.length / bytesPerFrame) * bytesPerFrame;
+
+            while (inputLength < bytesPerFrame || (inputLength < bytesWanted && !sourceEof && source.available() > 0)) {
+                if (sourceEof) break;
+                int bytesRead = source.read(inputBuffer, inputLength, bytesWanted - inputLength);
+                if (bytesRead < 0) {
+                    sourceEof = true;
+                } else if (bytesRead == 0) {
+                    break;
+                } else {
+                    inputLength += bytesRead;
+                }
             }
 
-            int framesRead = bytesRead / bytesPerFrame;
-            int outOffset = off;
-            int bytesWritten = 0;
-
-            for (int i = 0; i < framesRead; i++) {
-                if (bytesWritten + 2 > len) break;
-                int sum = 0;
-                for (int ch = 0; ch < channels; ch++) {
-                    int sampleIdx = i * bytesPerFrame + ch * 2;
-                    short sample = (short) ((inputBuffer[sampleIdx] & 0xFF) | (inputBuffer[sampleIdx + 1] << 8));
-                    sum += sample;
-                }
-                short monoSample = (short) (sum / channels);
-                b[outOffset++] = (byte) (monoSample & 0xFF);
-                b[outOffset++] = (byte) ((monoSample >> 8) & 0xFF);
-                bytesWritten += 2;
+            int framesAvailable = Math.min(inputLength / bytesPerFrame, monoSamplesRequested);
+            if (framesAvailable == 0 || len < 2) {
+                return sourceEof && inputLength < bytesPerFrame ? -1 : 0;
             }
 
+            int consumed = framesAvailable * bytesPerFrame;
+            int bytesWritten = PcmAudioDownmixer.downmixInterleavedBytesToMonoBytes(inputBuffer, consumed, channels, b, off);
+            inputLength -= consumed;
+            if (inputLength > 0) {
+                System.arraycopy(inputBuffer, consumed, inputBuffer, 0, inputLength);
+            }
             return bytesWritten;
         }
 
@@ -0,0 +1,230 @@
+package com.nstut.simplyspeakers.audio;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Mono PCM stream that wraps around to the start of the track while looping is
+ * enabled, so the first samples of the next pass land in the same read as the
+ * tail of the current one and the OpenAL source never runs dry. The silent
+ * info frame of an MP3, the decoder delay and any encoder delay and padding
+ * recorded in a LAME tag are trimmed so loops are gapless.
+ */
+public final class LoopingPcmStream extends AudioInputStream implements DirectPcmSource {
+    /** Fixed synthesis delay of standard MPEG Layer III decoders, added to the LAME encoder delay. */
+    static final int MP3_DECODER_DELAY = 529;
+    private static final int COPY_CHUNK = 16 * 1024;
+
+    private final File file;
+    private final BooleanSupplier looping;
+    private final int frameSize;
+    /** Bytes to discard at the start of every pass (info frame plus encoder/decoder delay). */
+    private final long leadInBytes;
+    /** Audible bytes per pass, or -1 to play until the decoder reports end of stream. */
+    private final long passLengthBytes;
+    private AudioInputStream source;
+    private long passPosition = 0;
+    private boolean leadInPending;
+    private final byte[] singleByte = new byte[1];
+    /** Staging for sources that cannot write into a direct buffer themselves. */
+    private byte[] copyScratch;
+
+    LoopingPcmStream(File file, AudioInputStream source, BooleanSupplier looping, long leadInFrames, long passFrames) {
+        super(new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+        }, source.getFormat(), passFrames > 0 ? passFrames : source.getFrameLength());
+        this.file = file;
+        this.source = source;
+        this.looping = looping;
+        this.frameSize = Math.max(1, source.getFormat().getFrameSize());
+        this.leadInBytes = leadInFrames * frameSize;
+        this.passLengthBytes = passFrames > 0 ? passFrames * frameSize : -1;
+        this.leadInPending = leadInBytes > 0;
+    }
+
+    /**
+     * Opens the file as a mono PCM stream that restarts in place whenever it reaches
+     * the end while {@code looping} reports true.
+     */
+    public static LoopingPcmStream open(File file, BooleanSupplier looping) throws UnsupportedAudioFileException, IOException {
+        AudioInputStream source = IncrementalAudioDecoders.openPcmStream(file);
+        long leadInFrames = 0;
+        long passFrames = 0;
+        if (file.getName().toLowerCase().endsWith(".mp3")) {
+            AudioStreamInfo tag = readMp3Tag(file);
+            if (tag.hasInfoFrame() && tag.sampleRate() == Math.round(source.getFormat().getSampleRate())) {
+                // JLayer outputs the silent info frame and the encoder/decoder delay untrimmed.
+                // The pass is as long as the server's timeline even without a LAME tag to trim to.
+                int samplesPerFrame = tag.sampleRate() >= 32000 ? 1152 : 576;
+                leadInFrames = samplesPerFrame + tag.encoderDelay() + MP3_DECODER_DELAY;
+                if (tag.isKnown()) {
+                    passFrames = tag.totalSampleFrames();
+                } else if (source.getFrameLength() > 0) {
+                    // No frame count in the tag: the decoder's seek table (kept in the .seek sidecar) has it.
+                    passFrames = Math.max(0L, source.getFrameLength() - samplesPerFrame
+                            - tag.encoderDelay() - tag.encoderPadding());
+                }
+            }
+        }
+        return new LoopingPcmStream(file, source, looping, leadInFrames, passFrames);
+    }
+
+    /** Only the first frame is read, so opening never scans the whole file for its frame count. */
+    private static AudioStreamInfo readMp3Tag(File file) {
+        try {
+            return AudioMetadataExtractor.readMp3Tag(file);
+        } catch (IOException e) {
+            return AudioStreamInfo.UNKNOWN;
+        }
+    }
+
+    /**
+     * Loops an already trimmed seekable source, such as a {@link DecodedPcmSidecar}, by
+     * rewinding it in place.
+     */
+    public static LoopingPcmStream wrap(AudioInputStream source, BooleanSupplier looping) {
+        if (!(source instanceof SeekablePcmStream)) {
+            throw new IllegalArgumentException("Source must be seekable to loop in place");
+        }
+        return new LoopingPcmStream(null, source, looping, 0, source.getFrameLength());
+    }
+
+    @Override
+    public int read() throws IOException {
+        int r = read(singleByte, 0, 1);
+        return r > 0 ? (singleByte[0] & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (b == null) throw new NullPointerException();
+        if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+        if (len == 0) return 0;
+        return read(ByteBuffer.wrap(b, off, len).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int len = dst.remaining() - dst.remaining() % frameSize;
+        if (len == 0) return 0;
+
+        int limit = dst.limit();
+        int start = dst.position();
+        int total = 0;
+        boolean passProducedAudio = passPosition > 0;
+        boolean starved = false;
+        try {
+            while (total < len) {
+                skipLeadIn();
+                long remainingInPass = passLengthBytes >= 0 ? passLengthBytes - passPosition : Long.MAX_VALUE;
+                int bytesRead = -1;
+                if (remainingInPass > 0) {
+                    dst.limit(start + total + (int) Math.min(len - total, remainingInPass));
+                    bytesRead = readSource(dst);
+                }
+                if (bytesRead > 0) {
+                    total += bytesRead;
+                    passPosition += bytesRead;
+                    passProducedAudio = true;
+                    continue;
+                }
+                if (bytesRead == 0) {
+                    starved = true;
+                    break;
+                }
+                // End of this pass: wrap only if looping is on and the pass was not empty.
+                if (!passProducedAudio || !looping.getAsBoolean()) {
+                    break;
+                }
+                rewind();
+                passProducedAudio = false;
+            }
+        } finally {
+            dst.limit(limit);
+        }
+        if (total > 0) {
+            return total;
+        }
+        return starved ? 0 : -1;
+    }
+
+    private int readSource(ByteBuffer dst) throws IOException {
+        if (copyScratch == null && !(source instanceof DirectPcmSource)
+                && !(dst.hasArray() && dst.order() == ByteOrder.LITTLE_ENDIAN)) {
+            copyScratch = new byte[COPY_CHUNK];
+        }
+        return DirectPcmSource.read(source, dst, copyScratch);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        skipLeadIn();
+        long limit = passLengthBytes >= 0 ? Math.min(n, passLengthBytes - passPosition) : n;
+        long skipped = skipFully(source, limit - limit % frameSize);
+        passPosition += skipped;
+        return skipped;
+    }
+
+    /**
+     * @return audible sample frames per pass, so join offsets wrap on the trimmed length
+     */
+    @Override
+    public long getFrameLength() {
+        return passLengthBytes >= 0 ? passLengthBytes / frameSize : source.getFrameLength();
+    }
+
+    @Override
+    public int available() throws IOException {
+        return source.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private void rewind() throws IOException {
+        if (source instanceof SeekablePcmStream seekable) {
+            seekable.rewind();
+        } else {
+            // No in-place rewind for this decoder: reopen, but still behind the queued tail.
+            source.close();
+            try {
+                source = IncrementalAudioDecoders.openPcmStream(file);
+            } catch (UnsupportedAudioFileException e) {
+                throw new IOException("Failed to reopen looping stream: " + file.getName(), e);
+            }
+        }
+        passPosition = 0;
+        leadInPending = leadInBytes > 0;
+    }
+
+    private void skipLeadIn() throws IOException {
+        if (leadInPending) {
+            leadInPending = false;
+            skipFully(source, leadInBytes);
+        }
+    }
+
+    private static long skipFully(InputStream in, long n) throws IOException {
+        long remaining = n;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                break;
+            }
+            remaining -= skipped;
+        }
+        return n - remaining;
+    }
+}
@@ -0,0 +1,39 @@
+package com.nstut.simplyspeakers.audio;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * MPEG audio through JLayer, seeking via {@link Mp3SeekTable}.
+ */
+public final class Mp3DecoderProvider implements AudioDecoderProvider {
+
+    @Override
+    public List<String> extensions() {
+        return List.of("mp3");
+    }
+
+    @Override
+    public boolean probe(byte[] header, int length) {
+        if (length >= 3 && header[0] == 'I' && header[1] == 'D' && header[2] == '3') {
+            return true;
+        }
+        if (length < 4) {
+            return false;
+        }
+        int word = ((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+        return Mp3SeekTable.frameLength(word) > 4;
+    }
+
+    @Override
+    public AudioInputStream openMonoPcm(File file) throws IOException {
+        return new IncrementalAudioDecoders.IncrementalMp3AudioInputStream(file);
+    }
+
+    @Override
+    public AudioStreamInfo readStreamInfo(File file) throws IOException {
+        return AudioMetadataExtractor.extractMp3(file);
+    }
+}
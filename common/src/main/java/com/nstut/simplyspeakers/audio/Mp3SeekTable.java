@@ -0,0 +1,315 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Frame-number to byte-offset index for an MP3 file, built by walking frame
+ * headers only (no decoding) and persisted as a small sidecar next to the file.
+ * Lets the incremental decoder jump straight to a frame instead of decoding
+ * everything before it.
+ */
+public final class Mp3SeekTable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("simplyspeakers");
+
+    public static final String SIDECAR_SUFFIX = ".seek";
+    private static final int SIDECAR_MAGIC = 0x53534B31; // "SSK1"
+
+    private static final int[] SAMPLE_RATES_MPEG1 = {44100, 48000, 32000};
+    private static final int[][] BITRATES_MPEG1 = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320}
+    };
+    private static final int[][] BITRATES_MPEG2 = {
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}
+    };
+
+    private final long sourceLength;
+    private final int sampleRate;
+    private final int channels;
+    private final int samplesPerFrame;
+    private final long[] frameOffsets;
+
+    private Mp3SeekTable(long sourceLength, int sampleRate, int channels, int samplesPerFrame, long[] frameOffsets) {
+        this.sourceLength = sourceLength;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.samplesPerFrame = samplesPerFrame;
+        this.frameOffsets = frameOffsets;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getSamplesPerFrame() {
+        return samplesPerFrame;
+    }
+
+    public int getFrameCount() {
+        return frameOffsets.length;
+    }
+
+    /**
+     * @return byte offset of the frame header for {@code frameIndex}
+     */
+    public long getFrameOffset(int frameIndex) {
+        return frameOffsets[frameIndex];
+    }
+
+    /**
+     * @return index of the frame containing the given sample frame (per channel)
+     */
+    public int frameIndexForSample(long sampleFrame) {
+        if (sampleFrame <= 0) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, sampleFrame / samplesPerFrame);
+    }
+
+    public static File sidecarFor(File audioFile) {
+        return new File(audioFile.getParentFile(), audioFile.getName() + SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Loads the sidecar seek table for the file, scanning the file and writing a
+     * new sidecar when none exists or the existing one is stale.
+     */
+    public static Mp3SeekTable loadOrBuild(File mp3File) throws IOException {
+        File sidecar = sidecarFor(mp3File);
+        if (sidecar.isFile()) {
+            try {
+                Mp3SeekTable cached = read(sidecar);
+                if (cached.sourceLength == mp3File.length()) {
+                    return cached;
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Discarding unreadable MP3 seek table {}: {}", sidecar.getName(), e.getMessage());
+            }
+        }
+
+        Mp3SeekTable table = build(mp3File);
+        try {
+            table.write(sidecar);
+        } catch (IOException e) {
+            LOGGER.debug("Could not persist MP3 seek table for {}: {}", mp3File.getName(), e.getMessage());
+        }
+        return table;
+    }
+
+    /**
+     * Walks the MPEG frame headers of an MP3 file and records where every frame starts.
+     */
+    public static Mp3SeekTable build(File mp3File) throws IOException {
+        long length = mp3File.length();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(mp3File), 64 * 1024)) {
+            long position = skipId3v2(in);
+
+            long[] offsets = new long[1024];
+            int count = 0;
+            int lockedHeader = 0;
+            int sampleRate = 0;
+            int channels = 0;
+            int samplesPerFrame = 0;
+
+            int header = 0;
+            int buffered = 0;
+            int b;
+            while ((b = in.read()) >= 0) {
+                header = (header << 8) | b;
+                position++;
+                if (++buffered < 4) {
+                    continue;
+                }
+
+                int frameLength = frameLength(header);
+                if (frameLength <= 4 || (count > 0 && (header & 0xFFFE0C00) != lockedHeader)) {
+                    continue;
+                }
+
+                long frameStart = position - 4;
+                long skipped = skipFully(in, frameLength - 4L);
+                position += skipped;
+                if (skipped < frameLength - 4L) {
+                    break; // truncated trailing frame
+                }
+
+                if (count == 0) {
+                    // Version, layer and sample rate must stay constant for the rest of the stream.
+                    lockedHeader = header & 0xFFFE0C00;
+                    sampleRate = sampleRate(header);
+                    channels = ((header >>> 6) & 3) == 3 ? 1 : 2;
+                    samplesPerFrame = samplesPerFrame(header);
+                }
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                offsets[count++] = frameStart;
+                header = 0;
+                buffered = 0;
+            }
+
+            if (count == 0) {
+                throw new IOException("No MPEG audio frames found in " + mp3File.getName());
+            }
+            return new Mp3SeekTable(length, sampleRate, channels, samplesPerFrame, Arrays.copyOf(offsets, count));
+        }
+    }
+
+    static Mp3SeekTable read(File sidecar) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)))) {
+            if (in.readInt() != SIDECAR_MAGIC) {
+                throw new IOException("Not a seek table");
+            }
+            long sourceLength = in.readLong();
+            int sampleRate = in.readInt();
+            int channels = in.readInt();
+            int samplesPerFrame = in.readInt();
+            int frameCount = in.readInt();
+            if (frameCount <= 0 || samplesPerFrame <= 0 || sampleRate <= 0) {
+                throw new IOException("Corrupt seek table header");
+            }
+            long[] offsets = new long[frameCount];
+            long offset = in.readLong();
+            offsets[0] = offset;
+            for (int i = 1; i < frameCount; i++) {
+                offset += in.readInt() & 0xFFFFFFFFL;
+                offsets[i] = offset;
+            }
+            return new Mp3SeekTable(sourceLength, sampleRate, channels, samplesPerFrame, offsets);
+        } catch (EOFException e) {
+            throw new IOException("Truncated seek table", e);
+        }
+    }
+
+    void write(File sidecar) throws IOException {
+        Path target = sidecar.toPath();
+        Path tmpPath = Files.createTempFile(target.getParent(), sidecar.getName(), ".tmp");
+        try {
+            try (OutputStream fileOut = Files.newOutputStream(tmpPath);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                out.writeInt(SIDECAR_MAGIC);
+                out.writeLong(sourceLength);
+                out.writeInt(sampleRate);
+                out.writeInt(channels);
+                out.writeInt(samplesPerFrame);
+                out.writeInt(frameOffsets.length);
+                out.writeLong(frameOffsets[0]);
+                for (int i = 1; i < frameOffsets.length; i++) {
+                    out.writeInt((int) (frameOffsets[i] - frameOffsets[i - 1]));
+                }
+            }
+            try {
+                Files.move(tmpPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.move(tmpPath, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+
+    /**
+     * @return the encoded frame length in bytes, or 0 if {@code header} is not a valid MPEG audio frame header
+     */
+    static int frameLength(int header) {
+        if ((header & 0xFFE00000) != 0xFFE00000) {
+            return 0;
+        }
+        int version = (header >>> 19) & 3;
+        int layer = (header >>> 17) & 3;
+        int bitrateIndex = (header >>> 12) & 0xF;
+        int sampleRateIndex = (header >>> 10) & 3;
+        if (version == 1 || layer == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return 0;
+        }
+        int padding = (header >>> 9) & 1;
+        int layerRow = 3 - layer; // 0 = Layer I, 1 = Layer II, 2 = Layer III
+        boolean mpeg1 = version == 3;
+        int bitrate = (mpeg1 ? BITRATES_MPEG1 : BITRATES_MPEG2)[layerRow][bitrateIndex] * 1000;
+        int sampleRate = sampleRate(header);
+
+        if (layerRow == 0) {
+            return (12 * bitrate / sampleRate + padding) * 4;
+        }
+        int coefficient = (layerRow == 2 && !mpeg1) ? 72 : 144;
+        return coefficient * bitrate / sampleRate + padding;
+    }
+
+    static int sampleRate(int header) {
+        int version = (header >>> 19) & 3;
+        int rate = SAMPLE_RATES_MPEG1[(header >>> 10) & 3];
+        if (version == 2) {
+            return rate / 2;
+        }
+        if (version == 0) {
+            return rate / 4;
+        }
+        return rate;
+    }
+
+    static int samplesPerFrame(int header) {
+        int version = (header >>> 19) & 3;
+        int layer = (header >>> 17) & 3;
+        if (layer == 3) {
+            return 384;
+        }
+        if (layer == 1 && version != 3) {
+            return 576;
+        }
+        return 1152;
+    }
+
+    private static long skipId3v2(InputStream in) throws IOException {
+        in.mark(10);
+        byte[] tag = new byte[10];
+        int read = in.readNBytes(tag, 0, tag.length);
+        if (read < 10 || tag[0] != 'I' || tag[1] != 'D' || tag[2] != '3') {
+            in.reset();
+            return 0;
+        }
+        long size = ((tag[6] & 0x7F) << 21) | ((tag[7] & 0x7F) << 14) | ((tag[8] & 0x7F) << 7) | (tag[9] & 0x7F);
+        if ((tag[5] & 0x10) != 0) {
+            size += 10; // footer present
+        }
+        return 10 + skipFully(in, size);
+    }
+
+    private static long skipFully(InputStream in, long n) throws IOException {
+        long remaining = n;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    break;
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+        return n - remaining;
+    }
+}
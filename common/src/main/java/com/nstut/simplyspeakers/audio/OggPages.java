@@ -0,0 +1,113 @@
+package com.nstut.simplyspeakers.audio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Ogg page header walking over a {@link FileChannel} with positional reads, used to
+ * find a Vorbis stream's exact length and page boundaries without decoding.
+ */
+final class OggPages {
+
+    static final int CAPTURE_PATTERN = 0x5367674F; // "OggS" little-endian
+    private static final int HEADER_BYTES = 27;
+    private static final int MAX_PAGE_BYTES = HEADER_BYTES + 255 + 255 * 255;
+    private static final long NO_GRANULE = -1L;
+
+    /** Byte offsets and granule positions of every page in a logical stream. */
+    record Index(long[] offsets, long[] granules) {
+    }
+
+    private OggPages() {
+    }
+
+    /**
+     * Reads the page header at {@code offset}.
+     *
+     * @param out receives {serial, granule, total page length}; untouched when false is returned
+     * @return false if there is no valid page at {@code offset}
+     */
+    static boolean readPage(FileChannel channel, long offset, ByteBuffer scratch, long[] out) throws IOException {
+        scratch.clear().limit(HEADER_BYTES);
+        if (readFully(channel, scratch, offset) < HEADER_BYTES) {
+            return false;
+        }
+        scratch.order(ByteOrder.LITTLE_ENDIAN);
+        if (scratch.getInt(0) != CAPTURE_PATTERN || scratch.get(4) != 0) {
+            return false;
+        }
+        long granule = scratch.getLong(6);
+        int serial = scratch.getInt(14);
+        int segments = scratch.get(26) & 0xFF;
+        scratch.clear().limit(segments);
+        if (readFully(channel, scratch, offset + HEADER_BYTES) < segments) {
+            return false;
+        }
+        int bodyLength = 0;
+        for (int i = 0; i < segments; i++) {
+            bodyLength += scratch.get(i) & 0xFF;
+        }
+        out[0] = serial;
+        out[1] = granule;
+        out[2] = HEADER_BYTES + segments + bodyLength;
+        return true;
+    }
+
+    /**
+     * @return granule position of the last page of {@code serial}, i.e. the exact sample count
+     */
+    static long lastGranule(FileChannel channel, int serial) throws IOException {
+        long size = channel.size();
+        long start = Math.max(0, size - 2L * MAX_PAGE_BYTES);
+        ByteBuffer tail = ByteBuffer.allocate((int) (size - start)).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, tail, start);
+        tail.flip();
+        for (int i = tail.limit() - HEADER_BYTES; i >= 0; i--) {
+            if (tail.getInt(i) == CAPTURE_PATTERN && tail.get(i + 4) == 0
+                    && tail.getInt(i + 14) == serial && tail.getLong(i + 6) != NO_GRANULE) {
+                return tail.getLong(i + 6);
+            }
+        }
+        return NO_GRANULE;
+    }
+
+    /**
+     * Walks every page header of {@code serial} from {@code startOffset} to the end of the file.
+     */
+    static Index index(FileChannel channel, long startOffset, int serial) throws IOException {
+        ByteBuffer scratch = ByteBuffer.allocate(255);
+        long[] page = new long[3];
+        long[] offsets = new long[256];
+        long[] granules = new long[256];
+        int count = 0;
+        long offset = startOffset;
+        while (readPage(channel, offset, scratch, page)) {
+            if ((int) page[0] == serial) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                    granules = Arrays.copyOf(granules, count * 2);
+                }
+                offsets[count] = offset;
+                granules[count] = page[1];
+                count++;
+            }
+            offset += page[2];
+        }
+        return new Index(Arrays.copyOf(offsets, count), Arrays.copyOf(granules, count));
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
@@ -1,10 +1,7 @@
 package com.nstut.simplyspeakers.audio;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.UnsupportedAudioFileException;
@@ -12,6 +9,7 @@ import javax.sound.sampled.UnsupportedAudioFileException;
 /**
  * Utility for converting and downmixing multi-channel (e.g. stereo) PCM audio
  * to mono 16-bit signed PCM format required for OpenAL 3D spatialization.
+ * The loops themselves run in the {@link PcmKernel} returned by {@link PcmKernels}.
  */
 public final class PcmAudioDownmixer {
 
@@ -28,16 +26,30 @@ public final class PcmAudioDownmixer {
         if (interleavedStereo == null || sampleCount <= 0) {
             return new short[0];
         }
-        int frameCount = sampleCount / 2;
-        short[] mono = new short[frameCount];
-        for (int i = 0; i < frameCount; i++) {
-            int left = interleavedStereo[i * 2];
-            int right = interleavedStereo[i * 2 + 1];
-            mono[i] = (short) ((left + right) / 2);
-        }
+        short[] mono = new short[sampleCount / 2];
+        PcmKernels.get().downmix(interleavedStereo, mono.length, 2, mono);
         return mono;
     }
 
+    /**
+     * Downmixes interleaved stereo 16-bit samples into a caller-owned array without allocating.
+     * {@code dest} may be the source array itself, since mono sample {@code i} only overwrites
+     * stereo indices that have already been read.
+     *
+     * @param interleavedStereo array containing interleaved L, R, L, R shorts
+     * @param sampleCount       total number of shorts to process (must be even)
+     * @param dest              destination array with room for sampleCount / 2 shorts
+     * @return number of mono samples written
+     */
+    public static int downmixStereoToMono(short[] interleavedStereo, int sampleCount, short[] dest) {
+        if (interleavedStereo == null || sampleCount <= 0) {
+            return 0;
+        }
+        int frameCount = sampleCount / 2;
+        PcmKernels.get().downmix(interleavedStereo, frameCount, 2, dest);
+        return frameCount;
+    }
+
     /**
      * Converts an array of 16-bit shorts to little-endian bytes.
      *
@@ -50,10 +62,50 @@ public final class PcmAudioDownmixer {
             return new byte[0];
         }
         byte[] bytes = new byte[count * 2];
-        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().put(shorts, 0, count);
+        PcmKernels.get().packLE(shorts, 0, bytes, 0, count);
         return bytes;
     }
 
+    /**
+     * Converts 16-bit shorts to little-endian bytes in a caller-owned array without allocating.
+     *
+     * @param shorts     array of shorts
+     * @param count      number of shorts to convert
+     * @param dest       destination array with room for count * 2 bytes after destOffset
+     * @param destOffset first byte to write in dest
+     * @return number of bytes written
+     */
+    public static int shortsToBytesLE(short[] shorts, int count, byte[] dest, int destOffset) {
+        if (shorts == null || count <= 0) {
+            return 0;
+        }
+        PcmKernels.get().packLE(shorts, 0, dest, destOffset, count);
+        return count * 2;
+    }
+
+    /**
+     * Writes 16-bit shorts as little-endian bytes at the buffer's position, e.g. straight into
+     * a direct buffer bound for OpenAL. The position is advanced past the written bytes.
+     *
+     * @param shorts array of shorts
+     * @param count  number of shorts to convert
+     * @param dest   destination buffer with at least count * 2 bytes remaining
+     * @return number of bytes written
+     */
+    public static int shortsToBytesLE(short[] shorts, int count, ByteBuffer dest) {
+        if (shorts == null || count <= 0) {
+            return 0;
+        }
+        int position = dest.position();
+        for (int i = 0; i < count; i++) {
+            short sample = shorts[i];
+            dest.put(position++, (byte) sample);
+            dest.put(position++, (byte) (sample >> 8));
+        }
+        dest.position(position);
+        return count * 2;
+    }
+
     /**
      * Downmixes interleaved stereo 16-bit little-endian PCM bytes directly to mono 16-bit little-endian PCM bytes.
      *
@@ -65,24 +117,57 @@ public final class PcmAudioDownmixer {
         if (stereoBytes == null || length <= 0) {
             return new byte[0];
         }
-        int validLength = length - (length % 4);
-        int monoLength = validLength / 2;
-        byte[] monoBytes = new byte[monoLength];
-
-        int out = 0;
-        for (int i = 0; i < validLength; i += 4) {
-            short left = (short) ((stereoBytes[i] & 0xFF) | (stereoBytes[i + 1] << 8));
-            short right = (short) ((stereoBytes[i + 2] & 0xFF) | (stereoBytes[i + 3] << 8));
-            short mono = (short) ((left + right) / 2);
-
-            monoBytes[out++] = (byte) (mono & 0xFF);
-            monoBytes[out++] = (byte) ((mono >> 8) & 0xFF);
-        }
+        byte[] monoBytes = new byte[(length - (length % 4)) / 2];
+        downmixStereoBytesToMonoBytes(stereoBytes, length, monoBytes, 0);
         return monoBytes;
     }
 
+    /**
+     * Downmixes interleaved stereo 16-bit little-endian PCM bytes into a caller-owned array.
+     * Trailing bytes that do not form a whole frame are ignored.
+     *
+     * @param stereoBytes raw stereo byte buffer (4 bytes per frame)
+     * @param length      number of bytes to process
+     * @param dest        destination array with room for length / 2 bytes after destOffset
+     * @param destOffset  first byte to write in dest
+     * @return number of mono bytes written
+     */
+    public static int downmixStereoBytesToMonoBytes(byte[] stereoBytes, int length, byte[] dest, int destOffset) {
+        if (stereoBytes == null || length <= 0) {
+            return 0;
+        }
+        int frameCount = length / 4;
+        PcmKernels.get().downmixLE(stereoBytes, 0, frameCount, 2, dest, destOffset);
+        return frameCount * 2;
+    }
+
+    /**
+     * Downmixes interleaved N-channel 16-bit little-endian PCM bytes into a caller-owned array
+     * by averaging all channels (e.g. 5.1 surround). Trailing partial frames are ignored.
+     *
+     * @param interleavedBytes raw interleaved byte buffer (channels * 2 bytes per frame)
+     * @param length           number of bytes to process
+     * @param channels         number of interleaved channels
+     * @param dest             destination array with room for one mono sample per frame after destOffset
+     * @param destOffset       first byte to write in dest
+     * @return number of mono bytes written
+     */
+    public static int downmixInterleavedBytesToMonoBytes(byte[] interleavedBytes, int length, int channels, byte[] dest, int destOffset) {
+        if (channels == 2) {
+            return downmixStereoBytesToMonoBytes(interleavedBytes, length, dest, destOffset);
+        }
+        if (interleavedBytes == null || length <= 0 || channels <= 0) {
+            return 0;
+        }
+        int frameCount = length / (channels * 2);
+        PcmKernels.get().downmixLE(interleavedBytes, 0, frameCount, channels, dest, destOffset);
+        return frameCount * 2;
+    }
+
     /**
      * Converts any input AudioInputStream into a 16-bit signed, little-endian, mono AudioInputStream.
+     * The conversion is streamed: samples are converted and downmixed as the returned stream is read,
+     * so memory use stays constant regardless of the length of the source.
      *
      * @param sourceStream the source audio input stream
      * @return a mono AudioInputStream with sample rate preserved
@@ -123,40 +208,8 @@ public final class PcmAudioDownmixer {
             }
         }
 
-        byte[] rawBytes;
-        try (AudioInputStream toConsume = pcmStream;
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            byte[] buffer = new byte[4096];
-            int read;
-            while ((read = toConsume.read(buffer)) != -1) {
-                out.write(buffer, 0, read);
-            }
-            rawBytes = out.toByteArray();
-        }
-
-        byte[] monoBytes;
-        if (channels == 2) {
-            monoBytes = downmixStereoBytesToMonoBytes(rawBytes, rawBytes.length);
-        } else if (channels == 1) {
-            monoBytes = rawBytes;
-        } else {
-            // Downmix multi-channel (e.g. 5.1 surround) by averaging all channels
-            int bytesPerFrame = Math.max(2, channels * 2);
-            int frameCount = rawBytes.length / bytesPerFrame;
-            monoBytes = new byte[frameCount * 2];
-            for (int i = 0; i < frameCount; i++) {
-                int sum = 0;
-                for (int ch = 0; ch < channels; ch++) {
-                    int offset = i * bytesPerFrame + ch * 2;
-                    if (offset + 1 < rawBytes.length) {
-                        short sample = (short) ((rawBytes[offset] & 0xFF) | (rawBytes[offset + 1] << 8));
-                        sum += sample;
-                    }
-                }
-                short monoSample = (short) (sum / channels);
-                monoBytes[i * 2] = (byte) (monoSample & 0xFF);
-                monoBytes[i * 2 + 1] = (byte) ((monoSample >> 8) & 0xFF);
-            }
+        if (channels == 1) {
+            return pcmStream;
         }
 
         AudioFormat monoFormat = new AudioFormat(
@@ -170,9 +223,9 @@ public final class PcmAudioDownmixer {
         );
 
         return new AudioInputStream(
-                new ByteArrayInputStream(monoBytes),
+                new IncrementalAudioDecoders.IncrementalDownmixInputStream(pcmStream, channels),
                 monoFormat,
-                monoBytes.length / monoFormat.getFrameSize()
+                sourceStream.getFrameLength()
         );
     }
 }
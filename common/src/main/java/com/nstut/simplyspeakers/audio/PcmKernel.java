@@ -0,0 +1,26 @@
+package com.nstut.simplyspeakers.audio;
+
+/**
+ * Hot inner loops of the PCM pipeline. All samples are signed 16-bit; byte arrays hold them
+ * little-endian. {@link PcmKernels#get()} returns the shared implementation.
+ */
+public interface PcmKernel {
+
+    /**
+     * Writes {@code count} samples from {@code src} to {@code dest} as little-endian bytes.
+     */
+    void packLE(short[] src, int srcOffset, byte[] dest, int destOffset, int count);
+
+    /**
+     * Averages each frame of {@code channels} interleaved samples into one mono sample,
+     * truncating toward zero. {@code dest} may be {@code src}: mono sample {@code i} only
+     * overwrites samples that have already been read.
+     */
+    void downmix(short[] src, int frames, int channels, short[] dest);
+
+    /**
+     * Little-endian byte variant of {@link #downmix(short[], int, int, short[])}. {@code dest}
+     * must not overlap the source range.
+     */
+    void downmixLE(byte[] src, int srcOffset, int frames, int channels, byte[] dest, int destOffset);
+}
@@ -0,0 +1,15 @@
+package com.nstut.simplyspeakers.audio;
+
+/**
+ * Holds the {@link PcmKernel} shared by every decoder and downmixer.
+ */
+public final class PcmKernels {
+
+    private static final PcmKernel ACTIVE = new ScalarPcmKernel();
+
+    private PcmKernels() {}
+
+    public static PcmKernel get() {
+        return ACTIVE;
+    }
+}
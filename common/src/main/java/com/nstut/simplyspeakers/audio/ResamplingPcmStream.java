@@ -0,0 +1,344 @@
+package com.nstut.simplyspeakers.audio;
+
+import com.nstut.simplyspeakers.Config;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming 16-bit mono sample-rate converter using a windowed-sinc polyphase filter.
+ * The filter bank holds {@value #PHASES} phases with linear interpolation between
+ * them, so any rate pair costs the same table size and a bounded number of taps per
+ * output sample. Output positions advance by an exact rational step, so long tracks
+ * do not drift against the source.
+ */
+public final class ResamplingPcmStream extends AudioInputStream implements SeekablePcmStream, DirectPcmSource {
+
+    static final int PHASES = 256;
+    /** Zero crossings of the sinc on each side when upsampling; stretched when downsampling. */
+    private static final int ZERO_CROSSINGS = 16;
+    private static final int MAX_HALF_TAPS = 64;
+    private static final double KAISER_BETA = 8.0;
+    /** Cutoff as a fraction of the lower Nyquist frequency. */
+    private static final double PASSBAND = 0.95;
+    private static final int INPUT_CHUNK = 4096;
+
+    private static final Map<Long, FilterBank> FILTER_BANKS = new ConcurrentHashMap<>();
+
+    /**
+     * Immutable coefficient table shared by every stream with the same rate pair.
+     */
+    static final class FilterBank {
+        final int halfTaps;
+        final int taps;
+        /** (PHASES + 1) rows of {@link #taps} coefficients, each row summing to 1. */
+        final float[] table;
+
+        FilterBank(int inputRate, int outputRate) {
+            double ratio = Math.min(1.0, (double) outputRate / inputRate);
+            this.halfTaps = Math.min(MAX_HALF_TAPS, (int) Math.ceil(ZERO_CROSSINGS / ratio));
+            this.taps = halfTaps * 2;
+            this.table = new float[(PHASES + 1) * taps];
+            double cutoff = ratio * PASSBAND; // twice the cutoff frequency, relative to the input rate
+            double besselBeta = besselI0(KAISER_BETA);
+            for (int phase = 0; phase <= PHASES; phase++) {
+                double fraction = (double) phase / PHASES;
+                double sum = 0;
+                for (int j = 0; j < taps; j++) {
+                    double t = fraction + halfTaps - 1 - j;
+                    double x = t / halfTaps;
+                    double window = Math.abs(x) >= 1.0 ? 0.0 : besselI0(KAISER_BETA * Math.sqrt(1 - x * x)) / besselBeta;
+                    double value = cutoff * sinc(cutoff * t) * window;
+                    table[phase * taps + j] = (float) value;
+                    sum += value;
+                }
+                for (int j = 0; j < taps; j++) {
+                    table[phase * taps + j] /= (float) sum;
+                }
+            }
+        }
+
+        private static double sinc(double x) {
+            return x == 0 ? 1.0 : Math.sin(Math.PI * x) / (Math.PI * x);
+        }
+
+        private static double besselI0(double x) {
+            double sum = 1.0;
+            double term = 1.0;
+            for (int k = 1; k < 32; k++) {
+                term *= (x / (2 * k)) * (x / (2 * k));
+                sum += term;
+            }
+            return sum;
+        }
+    }
+
+    private final AudioInputStream source;
+    private final int inputRate;
+    private final int outputRate;
+    private final FilterBank bank;
+
+    /** Input samples, {@code window[0]} being absolute input index {@link #windowStart}. */
+    private final float[] window;
+    private int windowLength;
+    private long windowStart;
+    /** Next absolute input index the source will return. */
+    private long sourcePosition = 0;
+    /** Absolute input length once the source has ended, else {@link Long#MAX_VALUE}. */
+    private long sourceEnd = Long.MAX_VALUE;
+
+    /** Integer part of the current input position. */
+    private long inputIndex;
+    /** Fractional part of the current input position, in units of 1 / outputRate. */
+    private long inputFraction;
+    private long outputPosition;
+
+    private final byte[] readScratch = new byte[INPUT_CHUNK * 2];
+
+    public ResamplingPcmStream(AudioInputStream source, int outputRate) {
+        super(new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+        }, new AudioFormat(outputRate, 16, 1, true, false), outputLength(source, outputRate));
+        this.source = source;
+        this.inputRate = Math.round(source.getFormat().getSampleRate());
+        this.outputRate = outputRate;
+        this.bank = FILTER_BANKS.computeIfAbsent(((long) inputRate << 32) | outputRate,
+                key -> new FilterBank(inputRate, outputRate));
+        this.window = new float[INPUT_CHUNK + bank.taps];
+        resetWindow(0, 0);
+    }
+
+    /**
+     * Wraps a 16-bit mono stream so it plays at {@link Config#engineSampleRate}, or returns it
+     * unchanged when resampling is disabled or the rates already match.
+     */
+    public static AudioInputStream toEngineRate(AudioInputStream source) {
+        int engineRate = Config.engineSampleRate;
+        if (engineRate <= 0 || Math.round(source.getFormat().getSampleRate()) == engineRate) {
+            return source;
+        }
+        return new ResamplingPcmStream(source, engineRate);
+    }
+
+    private static long outputLength(AudioInputStream source, int outputRate) {
+        long inputFrames = source.getFrameLength();
+        int inputRate = Math.round(source.getFormat().getSampleRate());
+        if (inputFrames <= 0 || inputRate <= 0) {
+            return AudioSystem.NOT_SPECIFIED;
+        }
+        return (inputFrames * outputRate + inputRate - 1) / inputRate;
+    }
+
+    @Override
+    public int read() throws IOException {
+        throw new IOException("cannot read a single byte if frame size > 1");
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (b == null) throw new NullPointerException();
+        if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+        if (len == 0) return 0;
+        return read(ByteBuffer.wrap(b, off, len).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int frames = dst.remaining() / 2;
+        if (frames == 0) return 0;
+
+        int produced = 0;
+        float[] table = bank.table;
+        int taps = bank.taps;
+        while (produced < frames) {
+            long first = inputIndex - bank.halfTaps + 1;
+            if (!fillTo(first + taps)) {
+                break;
+            }
+            int base = (int) (first - windowStart);
+            long scaled = inputFraction * PHASES;
+            int phase = (int) (scaled / outputRate);
+            float blend = (float) (scaled - (long) phase * outputRate) / outputRate;
+            int row0 = phase * taps;
+            int row1 = row0 + taps;
+            float acc0 = 0f;
+            float acc1 = 0f;
+            for (int j = 0; j < taps; j++) {
+                float x = window[base + j];
+                acc0 += x * table[row0 + j];
+                acc1 += x * table[row1 + j];
+            }
+            int sample = Math.round(acc0 + (acc1 - acc0) * blend);
+            if (sample > Short.MAX_VALUE) sample = Short.MAX_VALUE;
+            else if (sample < Short.MIN_VALUE) sample = Short.MIN_VALUE;
+            dst.putShort((short) sample);
+            produced++;
+            advance(1);
+        }
+        outputPosition += produced;
+        if (produced > 0) {
+            return produced * 2;
+        }
+        // A source with nothing to give yet is not at its end.
+        return inputIndex < sourceEnd ? 0 : -1;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        long frames = n / 2;
+        if (frameLength > 0) {
+            frames = Math.min(frames, Math.max(0, frameLength - outputPosition));
+        }
+        seekToSampleFrame(outputPosition + frames);
+        return frames * 2;
+    }
+
+    /**
+     * Moves to {@code sampleFrame} (in output samples). History that is already buffered is
+     * reused; otherwise the source is repositioned and the filter primes from there.
+     * Sources that are not {@link SeekablePcmStream}s can only move forward.
+     */
+    @Override
+    public boolean seekToSampleFrame(long sampleFrame) throws IOException {
+        long product = sampleFrame * inputRate;
+        long index = product / outputRate;
+        long fraction = product - index * outputRate;
+        long first = index - bank.halfTaps + 1;
+        if (first >= windowStart && first <= windowStart + windowLength) {
+            inputIndex = index;
+            inputFraction = fraction;
+            compact();
+        } else if (source instanceof SeekablePcmStream seekable) {
+            long start = Math.max(0, first);
+            seekable.seekToSampleFrame(start);
+            sourcePosition = start;
+            sourceEnd = Long.MAX_VALUE;
+            resetWindow(index, fraction);
+        } else if (first > windowStart + windowLength) {
+            long skipped = skipFully(source, (first - sourcePosition) * 2) / 2;
+            sourcePosition += skipped;
+            if (sourcePosition < first) {
+                sourceEnd = sourcePosition;
+            }
+            resetWindow(index, fraction);
+        } else {
+            throw new IOException("Cannot seek backwards in a non-seekable source");
+        }
+        outputPosition = sampleFrame;
+        fillTo(index + 1);
+        return inputIndex < sourceEnd;
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        if (!(source instanceof SeekablePcmStream seekable)) {
+            throw new IOException("Source stream cannot rewind");
+        }
+        seekable.rewind();
+        sourcePosition = 0;
+        sourceEnd = Long.MAX_VALUE;
+        resetWindow(0, 0);
+        outputPosition = 0;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, (long) source.available() * outputRate / Math.max(1, inputRate));
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Restarts the history at {@code index}: samples before the source position are zero,
+     * so the first outputs see silence rather than stale input.
+     */
+    private void resetWindow(long index, long fraction) {
+        inputIndex = index;
+        inputFraction = fraction;
+        windowStart = index - bank.halfTaps + 1;
+        windowLength = (int) Math.max(0, Math.min(window.length, sourcePosition - windowStart));
+        Arrays.fill(window, 0, windowLength, 0f);
+    }
+
+    private void advance(int outputFrames) {
+        inputFraction += (long) outputFrames * inputRate;
+        if (inputFraction >= outputRate) {
+            inputIndex += inputFraction / outputRate;
+            inputFraction %= outputRate;
+        }
+    }
+
+    /**
+     * Ensures input indices below {@code end} are in the window, zero-padding past the end of
+     * the source so the tail of the filter drains.
+     *
+     * @return false if no samples at or beyond the current position remain, or the source had
+     *         none to give yet
+     */
+    private boolean fillTo(long end) throws IOException {
+        while (windowStart + windowLength < end) {
+            compact();
+            int free = window.length - windowLength;
+            if (sourcePosition >= sourceEnd) {
+                int pad = (int) Math.min(free, end - windowStart - windowLength);
+                Arrays.fill(window, windowLength, windowLength + pad, 0f);
+                windowLength += pad;
+                continue;
+            }
+            int bytes = source.read(readScratch, 0, Math.min(readScratch.length, free * 2));
+            if (bytes < 0) {
+                sourceEnd = sourcePosition;
+                continue;
+            }
+            int samples = bytes / 2;
+            for (int i = 0; i < samples; i++) {
+                window[windowLength++] = (short) ((readScratch[i * 2] & 0xFF) | (readScratch[i * 2 + 1] << 8));
+            }
+            sourcePosition += samples;
+            if (bytes == 0) {
+                return false;
+            }
+        }
+        return inputIndex < sourceEnd;
+    }
+
+    /**
+     * Drops samples the filter no longer needs from the front of the window.
+     */
+    private void compact() {
+        long keepFrom = inputIndex - bank.halfTaps + 1;
+        int drop = (int) Math.max(0, Math.min(windowLength, keepFrom - windowStart));
+        if (drop > 0) {
+            System.arraycopy(window, drop, window, 0, windowLength - drop);
+            windowLength -= drop;
+            windowStart += drop;
+        }
+    }
+
+    private static long skipFully(InputStream in, long n) throws IOException {
+        long remaining = n;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                break;
+            }
+            remaining -= skipped;
+        }
+        return n - remaining;
+    }
+}
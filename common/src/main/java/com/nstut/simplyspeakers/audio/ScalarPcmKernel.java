@@ -0,0 +1,51 @@
+package com.nstut.simplyspeakers.audio;
+
+/**
+ * Plain-Java {@link PcmKernel}, used whenever the Vector API is unavailable.
+ */
+public final class ScalarPcmKernel implements PcmKernel {
+
+    @Override
+    public void packLE(short[] src, int srcOffset, byte[] dest, int destOffset, int count) {
+        int out = destOffset;
+        for (int i = 0; i < count; i++) {
+            short sample = src[srcOffset + i];
+            dest[out++] = (byte) sample;
+            dest[out++] = (byte) (sample >> 8);
+        }
+    }
+
+    @Override
+    public void downmix(short[] src, int frames, int channels, short[] dest) {
+        if (channels == 2) {
+            for (int i = 0; i < frames; i++) {
+                dest[i] = (short) ((src[i * 2] + src[i * 2 + 1]) / 2);
+            }
+            return;
+        }
+        int in = 0;
+        for (int i = 0; i < frames; i++) {
+            int sum = 0;
+            for (int ch = 0; ch < channels; ch++) {
+                sum += src[in++];
+            }
+            dest[i] = (short) (sum / channels);
+        }
+    }
+
+    @Override
+    public void downmixLE(byte[] src, int srcOffset, int frames, int channels, byte[] dest, int destOffset) {
+        int in = srcOffset;
+        int out = destOffset;
+        for (int i = 0; i < frames; i++) {
+            int sum = 0;
+            for (int ch = 0; ch < channels; ch++) {
+                sum += (short) ((src[in] & 0xFF) | (src[in + 1] << 8));
+                in += 2;
+            }
+            short mono = (short) (sum / channels);
+            dest[out++] = (byte) mono;
+            dest[out++] = (byte) (mono >> 8);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.nstut.simplyspeakers.audio;
+
+import java.io.IOException;
+
+/**
+ * Decoded PCM stream that can reposition itself without decoding everything in between.
+ */
+public interface SeekablePcmStream {
+
+    /**
+     * Positions the stream at the given mono sample frame.
+     *
+     * @return false if the target lies past the end of the stream
+     */
+    boolean seekToSampleFrame(long sampleFrame) throws IOException;
+
+    /**
+     * Restarts decoding from the first sample on the already open file.
+     */
+    void rewind() throws IOException;
+}
@@ -18,6 +18,53 @@ public class SpatialAudioCalculator {
             float totalWeight
     ) {}
 
+    /**
+     * Mutable result of the batch {@link #calculateVirtualEmitter(double, double, double, double[], double[],
+     * double[], int[], float[], float[], int, float[], VirtualEmitterMix)} pass, owned and reused by the caller.
+     */
+    public static final class VirtualEmitterMix {
+        private double x;
+        private double y;
+        private double z;
+        private float maxGain;
+        private float totalWeight;
+
+        public double x() {
+            return x;
+        }
+
+        public double y() {
+            return y;
+        }
+
+        public double z() {
+            return z;
+        }
+
+        public float maxGain() {
+            return maxGain;
+        }
+
+        public float totalWeight() {
+            return totalWeight;
+        }
+
+        /** Places a mix with nothing audible on the given emitter. */
+        void silentAt(double x, double y, double z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            maxGain = 0.0f;
+            totalWeight = 0.0f;
+        }
+    }
+
+    /** Dropoff steps with a precomputed falloff curve; values between two curves are interpolated. */
+    static final int FALLOFF_CURVES = 64;
+    /** Samples per curve over the remaining fraction of the range. */
+    static final int FALLOFF_SAMPLES = 256;
+    private static final float[] FALLOFF = buildFalloffCurves();
+
     /**
      * Calculates the individual speaker gain based on distance, range, volume, and dropoff factor.
      *
@@ -42,6 +89,157 @@ public class SpatialAudioCalculator {
         return Math.max(0.0f, Math.min(maxVolume, gain));
     }
 
+    /**
+     * Falloff factor {@code remaining^(audioDropoff * 2)} from the lookup tables, interpolated
+     * between samples and between the two nearest dropoff curves. Within one sample of the
+     * range limit, where the curves for small dropoffs are steepest, it is computed exactly.
+     *
+     * @param remaining    {@code 1 - distance / maxRange}, in (0, 1]
+     * @param audioDropoff dropoff factor, in (0, 1]
+     */
+    static float lookupFalloff(double remaining, float audioDropoff) {
+        double samplePosition = remaining * FALLOFF_SAMPLES;
+        if (samplePosition < 1.0) {
+            return (float) Math.pow(remaining, audioDropoff * 2.0);
+        }
+        int sample = Math.min((int) samplePosition, FALLOFF_SAMPLES - 1);
+        float sampleFraction = (float) (samplePosition - sample);
+        float curvePosition = Math.min(audioDropoff, 1.0f) * FALLOFF_CURVES;
+        int curve = Math.min((int) curvePosition, FALLOFF_CURVES - 1);
+        float curveFraction = curvePosition - curve;
+
+        int lower = curve * (FALLOFF_SAMPLES + 1) + sample;
+        int upper = lower + FALLOFF_SAMPLES + 1;
+        float lowerValue = FALLOFF[lower] + (FALLOFF[lower + 1] - FALLOFF[lower]) * sampleFraction;
+        float upperValue = FALLOFF[upper] + (FALLOFF[upper + 1] - FALLOFF[upper]) * sampleFraction;
+        return lowerValue + (upperValue - lowerValue) * curveFraction;
+    }
+
+    /**
+     * Batch form of {@link #calculateDistanceGain} over parallel emitter arrays, using the
+     * falloff lookup tables instead of {@link Math#pow}. An emitter whose x is NaN is hidden and
+     * gets no gain.
+     *
+     * @param count number of emitters to read from the arrays
+     * @param gains receives each emitter's gain, indexed like the inputs
+     */
+    public static void calculateDistanceGains(
+            double listenerX, double listenerY, double listenerZ,
+            double[] x, double[] y, double[] z,
+            int[] maxRange, float[] maxVolume, float[] audioDropoff,
+            int count, float[] gains
+    ) {
+        for (int i = 0; i < count; i++) {
+            gains[i] = lookupGain(listenerX, listenerY, listenerZ, x[i], y[i], z[i], maxRange[i], maxVolume[i], audioDropoff[i]);
+        }
+    }
+
+    private static float lookupGain(
+            double listenerX, double listenerY, double listenerZ,
+            double x, double y, double z,
+            int range, float volume, float dropoff
+    ) {
+        double dx = x - listenerX;
+        double dy = y - listenerY;
+        double dz = z - listenerZ;
+        double distSq = dx * dx + dy * dy + dz * dz;
+        // NaN distances fail this test too
+        if (range <= 0 || volume <= 0.0f || !(distSq < (double) range * range)) {
+            return 0.0f;
+        }
+        if (dropoff <= 0.0f) {
+            return volume;
+        }
+        float gain = volume * lookupFalloff(1.0 - Math.sqrt(distSq) / range, dropoff);
+        return Math.max(0.0f, Math.min(volume, gain));
+    }
+
+    /**
+     * Batch form of {@link #calculateVirtualEmitter(double, double, double, List)}: weights the
+     * emitter positions by {@link #calculateDistanceGains} and writes the result into
+     * {@code out} without allocating. When nothing is audible the result sits on the first
+     * visible emitter with zero gain.
+     *
+     * @param gains scratch for per-emitter gains, at least {@code count} long; holds them afterwards
+     * @return false when every emitter is hidden, leaving {@code out} untouched
+     */
+    public static boolean calculateVirtualEmitter(
+            double listenerX, double listenerY, double listenerZ,
+            double[] x, double[] y, double[] z,
+            int[] maxRange, float[] maxVolume, float[] audioDropoff,
+            int count, float[] gains, VirtualEmitterMix out
+    ) {
+        return mixEmitters(listenerX, listenerY, listenerZ, x, y, z, maxRange, maxVolume, audioDropoff, null, count, gains, out);
+    }
+
+    /**
+     * Form of the batch virtual emitter pass that only visits the emitters listed in
+     * {@code indices}, e.g. the ones a spatial index found near the listener. Gains of unlisted
+     * emitters are left as they are. When no listed emitter is audible the result sits on the
+     * first visible listed one with zero gain.
+     *
+     * @param indices emitter indices to visit, {@code count} of them
+     * @return false when every listed emitter is hidden, leaving {@code out} untouched
+     */
+    public static boolean calculateVirtualEmitter(
+            double listenerX, double listenerY, double listenerZ,
+            double[] x, double[] y, double[] z,
+            int[] maxRange, float[] maxVolume, float[] audioDropoff,
+            int[] indices, int count, float[] gains, VirtualEmitterMix out
+    ) {
+        return mixEmitters(listenerX, listenerY, listenerZ, x, y, z, maxRange, maxVolume, audioDropoff, indices, count, gains, out);
+    }
+
+    /** Body of both batch passes; a null {@code indices} visits the first {@code count} emitters. */
+    private static boolean mixEmitters(
+            double listenerX, double listenerY, double listenerZ,
+            double[] x, double[] y, double[] z,
+            int[] maxRange, float[] maxVolume, float[] audioDropoff,
+            int[] indices, int count, float[] gains, VirtualEmitterMix out
+    ) {
+        double weightedX = 0.0;
+        double weightedY = 0.0;
+        double weightedZ = 0.0;
+        float totalWeight = 0.0f;
+        float maxGain = 0.0f;
+        int first = -1;
+        for (int k = 0; k < count; k++) {
+            int i = indices != null ? indices[k] : k;
+            if (Double.isNaN(x[i])) {
+                gains[i] = 0.0f;
+                continue;
+            }
+            if (first < 0) {
+                first = i;
+            }
+            float gain = lookupGain(listenerX, listenerY, listenerZ, x[i], y[i], z[i], maxRange[i], maxVolume[i], audioDropoff[i]);
+            gains[i] = gain;
+            if (gain > 0.0f) {
+                weightedX += x[i] * gain;
+                weightedY += y[i] * gain;
+                weightedZ += z[i] * gain;
+                totalWeight += gain;
+                if (gain > maxGain) {
+                    maxGain = gain;
+                }
+            }
+        }
+
+        if (first < 0) {
+            return false;
+        }
+        if (totalWeight > 0.0f) {
+            out.x = weightedX / totalWeight;
+            out.y = weightedY / totalWeight;
+            out.z = weightedZ / totalWeight;
+            out.maxGain = maxGain;
+            out.totalWeight = totalWeight;
+        } else {
+            out.silentAt(x[first], y[first], z[first]);
+        }
+        return true;
+    }
+
     /**
      * Computes the weighted virtual emitter position and maximum dominant gain for a collection of overlapping speakers.
      *
@@ -101,4 +299,15 @@ public class SpatialAudioCalculator {
             return new VirtualEmitterResult(first.x(), first.y(), first.z(), 0.0f, 0.0f);
         }
     }
+
+    private static float[] buildFalloffCurves() {
+        float[] curves = new float[(FALLOFF_CURVES + 1) * (FALLOFF_SAMPLES + 1)];
+        for (int curve = 0; curve <= FALLOFF_CURVES; curve++) {
+            double exponent = 2.0 * curve / FALLOFF_CURVES;
+            for (int sample = 0; sample <= FALLOFF_SAMPLES; sample++) {
+                curves[curve * (FALLOFF_SAMPLES + 1) + sample] = (float) Math.pow((double) sample / FALLOFF_SAMPLES, exponent);
+            }
+        }
+        return curves;
+    }
 }
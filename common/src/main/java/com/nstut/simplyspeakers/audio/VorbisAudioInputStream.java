@@ -0,0 +1,327 @@
+package com.nstut.simplyspeakers.audio;
+
+import com.jcraft.jogg.Packet;
+import com.jcraft.jogg.Page;
+import com.jcraft.jogg.StreamState;
+import com.jcraft.jogg.SyncState;
+import com.jcraft.jorbis.Block;
+import com.jcraft.jorbis.Comment;
+import com.jcraft.jorbis.DspState;
+import com.jcraft.jorbis.Info;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * Incremental Ogg Vorbis decoder (JOrbis) producing 16-bit mono PCM. The exact length is
+ * the granule position of the last page; seeks jump to the last page ending at or before
+ * the target, using a page index built from headers only, and decode forward from there.
+ */
+public final class VorbisAudioInputStream extends AudioInputStream implements SeekablePcmStream {
+
+    private static final int READ_CHUNK = 8192;
+    private static final int FRAME_BUFFER_SAMPLES = 4096;
+
+    private final FileInputStream fileInput;
+    private final FileChannel channel;
+    private final SyncState syncState = new SyncState();
+    private final StreamState streamState = new StreamState();
+    private final Page page = new Page();
+    private final Packet packet = new Packet();
+    private final Info info = new Info();
+    private final Comment comment = new Comment();
+    private DspState dspState;
+    private Block block;
+    private final float[][][] pcmRef = new float[1][][];
+    private int[] pcmIndex;
+
+    private final int serial;
+    private final long audioStartOffset;
+    private final long totalSamples;
+    private OggPages.Index pageIndex;
+
+    private final byte[] frameBuffer = new byte[FRAME_BUFFER_SAMPLES * 2];
+    private int frameBufferLength = 0;
+    private int frameBufferPos = 0;
+    /** Sample position of the first byte of {@link #frameBuffer}. */
+    private long frameFirstSample = 0;
+    /** Samples decoded so far; -1 while resynchronising after a seek. */
+    private long decodedSamples = 0;
+    private long lastPageGranule = -1;
+    private boolean packetsPending = false;
+    private final byte[] singleByte = new byte[1];
+    private boolean eof = false;
+
+    public VorbisAudioInputStream(File file) throws IOException {
+        super(new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+        }, new AudioFormat(44100, 16, 1, true, false), AudioSystem.NOT_SPECIFIED);
+        this.fileInput = new FileInputStream(file);
+        this.channel = fileInput.getChannel();
+
+        long lastGranule;
+        try {
+            syncState.init();
+            info.init();
+            comment.init();
+            int headerPackets = 0;
+            int serialNumber = 0;
+            while (headerPackets < 3) {
+                if (syncState.pageout(page) != 1) {
+                    if (!feed()) {
+                        throw new IOException("Truncated Vorbis headers in " + file.getName());
+                    }
+                    continue;
+                }
+                if (headerPackets == 0) {
+                    serialNumber = page.serialno();
+                    streamState.init(serialNumber);
+                }
+                streamState.pagein(page);
+                while (headerPackets < 3 && streamState.packetout(packet) == 1) {
+                    if (info.synthesis_headerin(comment, packet) < 0) {
+                        throw new IOException("Not a Vorbis stream: " + file.getName());
+                    }
+                    headerPackets++;
+                }
+            }
+            this.serial = serialNumber;
+            // Audio always starts on a fresh page after the three header packets.
+            this.audioStartOffset = channel.position() - (syncState.getBufferOffset() - syncState.getDataOffset());
+            lastGranule = OggPages.lastGranule(channel, serial);
+        } catch (IOException e) {
+            fileInput.close();
+            throw e;
+        }
+
+        this.totalSamples = Math.max(0L, lastGranule);
+        this.format = new AudioFormat(info.rate, 16, 1, true, false);
+        this.frameLength = totalSamples > 0 ? totalSamples : AudioSystem.NOT_SPECIFIED;
+        this.pcmIndex = new int[info.channels];
+        startDecoder();
+    }
+
+    private void startDecoder() {
+        dspState = new DspState();
+        dspState.synthesis_init(info);
+        block = new Block(dspState);
+        packetsPending = false;
+    }
+
+    /**
+     * Moves the next chunk of the file into the Ogg sync buffer.
+     *
+     * @return false at end of file
+     */
+    private boolean feed() throws IOException {
+        int index = syncState.buffer(READ_CHUNK);
+        int read = fileInput.read(syncState.data, index, READ_CHUNK);
+        if (read <= 0) {
+            return false;
+        }
+        syncState.wrote(read);
+        return true;
+    }
+
+    @Override
+    public boolean seekToSampleFrame(long sampleFrame) throws IOException {
+        if (totalSamples > 0 && sampleFrame >= totalSamples) {
+            frameBufferLength = 0;
+            frameBufferPos = 0;
+            eof = true;
+            return false;
+        }
+        if (pageIndex == null) {
+            pageIndex = OggPages.index(channel, audioStartOffset, serial);
+        }
+        // Last page whose granule is at or before the target; decoding it only primes the decoder.
+        int pageNumber = -1;
+        long[] granules = pageIndex.granules();
+        for (int i = 0; i < granules.length; i++) {
+            if (granules[i] >= 0 && granules[i] <= sampleFrame) {
+                pageNumber = i;
+            } else if (granules[i] > sampleFrame) {
+                break;
+            }
+        }
+        if (pageNumber < 0) {
+            rewind();
+        } else {
+            restartAt(pageIndex.offsets()[pageNumber], -1);
+        }
+
+        while (true) {
+            long frameEnd = frameFirstSample + frameBufferLength / 2;
+            if (frameBufferLength > 0 && sampleFrame < frameEnd && sampleFrame >= frameFirstSample) {
+                frameBufferPos = (int) ((sampleFrame - frameFirstSample) * 2);
+                return true;
+            }
+            if (!decodeNextBlock()) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        restartAt(audioStartOffset, 0);
+    }
+
+    private void restartAt(long offset, long startSample) throws IOException {
+        channel.position(offset);
+        syncState.reset();
+        streamState.reset();
+        startDecoder();
+        decodedSamples = startSample;
+        lastPageGranule = -1;
+        frameFirstSample = Math.max(0, startSample);
+        frameBufferLength = 0;
+        frameBufferPos = 0;
+        eof = false;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int r = read(singleByte, 0, 1);
+        return r > 0 ? (singleByte[0] & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (b == null) throw new NullPointerException();
+        if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+        if (len == 0) return 0;
+
+        int bytesCopied = 0;
+        while (bytesCopied < len) {
+            if (frameBufferPos < frameBufferLength) {
+                int toCopy = Math.min(frameBufferLength - frameBufferPos, len - bytesCopied);
+                System.arraycopy(frameBuffer, frameBufferPos, b, off + bytesCopied, toCopy);
+                frameBufferPos += toCopy;
+                bytesCopied += toCopy;
+            } else if (eof || !decodeNextBlock()) {
+                break;
+            }
+        }
+        return (bytesCopied > 0 || !eof) ? bytesCopied : -1;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        long remainingInBlock = frameBufferLength - frameBufferPos;
+        if (n <= remainingInBlock) {
+            frameBufferPos += (int) (n - (n & 1));
+            return n - (n & 1);
+        }
+        long current = frameFirstSample + frameBufferPos / 2;
+        long target = current + n / 2;
+        if (!seekToSampleFrame(target)) {
+            long end = totalSamples > 0 ? totalSamples : current;
+            return Math.max(0, end - current) * 2;
+        }
+        return n - (n & 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileInput.close();
+    }
+
+    /**
+     * Decodes until at least one sample is available and packs it into {@link #frameBuffer}.
+     *
+     * @return false at end of stream
+     */
+    private boolean decodeNextBlock() throws IOException {
+        while (true) {
+            int samples = dspState.synthesis_pcmout(pcmRef, pcmIndex);
+            if (samples > 0) {
+                int count = Math.min(samples, FRAME_BUFFER_SAMPLES);
+                if (decodedSamples < 0) {
+                    // Still priming after a seek: position is unknown until a page boundary.
+                    dspState.synthesis_read(count);
+                    continue;
+                }
+                if (totalSamples > 0) {
+                    count = (int) Math.min(count, totalSamples - decodedSamples);
+                    if (count <= 0) {
+                        return endOfStream();
+                    }
+                }
+                packMono(pcmRef[0], count);
+                dspState.synthesis_read(count);
+                frameFirstSample = decodedSamples;
+                decodedSamples += count;
+                return true;
+            }
+
+            if (packetsPending) {
+                int packetResult = streamState.packetout(packet);
+                if (packetResult == 1 && block.synthesis(packet) == 0) {
+                    dspState.synthesis_blockin(block);
+                }
+                if (packetResult != 0) {
+                    // -1 marks the hole left by starting mid-stream; the next packet is intact.
+                    continue;
+                }
+                packetsPending = false;
+            }
+
+            // Every packet of the previous page is decoded and drained: its granule is exact.
+            if (lastPageGranule >= 0) {
+                if (decodedSamples < 0) {
+                    decodedSamples = lastPageGranule;
+                    frameFirstSample = decodedSamples;
+                }
+                lastPageGranule = -1;
+            }
+
+            int result = syncState.pageout(page);
+            if (result == 1) {
+                if (page.serialno() == serial) {
+                    streamState.pagein(page);
+                    lastPageGranule = page.granulepos();
+                    packetsPending = true;
+                }
+            } else if (result == 0 && !feed()) {
+                return endOfStream();
+            }
+        }
+    }
+
+    private boolean endOfStream() {
+        eof = true;
+        frameBufferLength = 0;
+        frameBufferPos = 0;
+        return false;
+    }
+
+    private void packMono(float[][] pcm, int count) {
+        int channels = info.channels;
+        float scale = 32767.0f / channels;
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            float sum = 0.0f;
+            for (int ch = 0; ch < channels; ch++) {
+                sum += pcm[ch][pcmIndex[ch] + i];
+            }
+            int sample = Math.round(sum * scale);
+            if (sample > Short.MAX_VALUE) sample = Short.MAX_VALUE;
+            else if (sample < Short.MIN_VALUE) sample = Short.MIN_VALUE;
+            frameBuffer[pos++] = (byte) sample;
+            frameBuffer[pos++] = (byte) (sample >> 8);
+        }
+        frameBufferLength = pos;
+        frameBufferPos = 0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.nstut.simplyspeakers.audio;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Ogg Vorbis through JOrbis. Stream info comes from the identification header and the
+ * last page's granule position, so it needs no decoding.
+ */
+public final class VorbisDecoderProvider implements AudioDecoderProvider {
+
+    /** Offset of the identification packet in a first page with a single lacing value. */
+    private static final int FIRST_PACKET_OFFSET = 28;
+
+    @Override
+    public List<String> extensions() {
+        return List.of("ogg", "oga");
+    }
+
+    @Override
+    public boolean probe(byte[] header, int length) {
+        return length >= FIRST_PACKET_OFFSET + 7 && header[0] == 'O' && header[1] == 'g' && header[2] == 'g'
+                && header[3] == 'S' && header[FIRST_PACKET_OFFSET] == 0x01
+                && header[FIRST_PACKET_OFFSET + 1] == 'v' && header[FIRST_PACKET_OFFSET + 2] == 'o'
+                && header[FIRST_PACKET_OFFSET + 3] == 'r' && header[FIRST_PACKET_OFFSET + 4] == 'b'
+                && header[FIRST_PACKET_OFFSET + 5] == 'i' && header[FIRST_PACKET_OFFSET + 6] == 's';
+    }
+
+    @Override
+    public AudioInputStream openMonoPcm(File file) throws IOException {
+        return new VorbisAudioInputStream(file);
+    }
+
+    @Override
+    public AudioStreamInfo readStreamInfo(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(FIRST_PACKET_OFFSET + 16).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // fill
+            }
+            if (header.hasRemaining() || !probe(header.array(), header.capacity())) {
+                throw new IOException("Not an Ogg Vorbis file: " + file.getName());
+            }
+            int serial = header.getInt(14);
+            int channels = header.get(FIRST_PACKET_OFFSET + 11) & 0xFF;
+            int sampleRate = header.getInt(FIRST_PACKET_OFFSET + 12);
+            long samples = OggPages.lastGranule(channel, serial);
+            if (channels == 0 || sampleRate <= 0 || samples < 0) {
+                throw new IOException("Malformed Vorbis stream: " + file.getName());
+            }
+            return new AudioStreamInfo(samples, sampleRate, channels, 0, 0);
+        }
+    }
+}
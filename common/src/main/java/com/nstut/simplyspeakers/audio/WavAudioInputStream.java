@@ -0,0 +1,291 @@
+package com.nstut.simplyspeakers.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Direct RIFF/WAVE reader producing 16-bit mono PCM. Integer PCM of 8 to 32 bits and
+ * 32/64-bit float are converted and downmixed in one pass. Samples are read with
+ * positional {@link FileChannel} reads, so seeking is a constant-time position change.
+ */
+public final class WavAudioInputStream extends AudioInputStream implements SeekablePcmStream, DirectPcmSource {
+
+    private static final int FORMAT_PCM = 0x0001;
+    private static final int FORMAT_IEEE_FLOAT = 0x0003;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+    /** Source bytes converted per channel read. */
+    private static final int READ_CHUNK = 64 * 1024;
+
+    /**
+     * Layout of the {@code fmt } and {@code data} chunks.
+     */
+    static final class WavHeader {
+        int formatTag;
+        int channels;
+        int sampleRate;
+        int blockAlign;
+        int bitsPerSample;
+        long dataOffset;
+        long totalFrames;
+
+        boolean isFloat() {
+            return formatTag == FORMAT_IEEE_FLOAT;
+        }
+
+        int bytesPerSample() {
+            return blockAlign / channels;
+        }
+    }
+
+    private final FileChannel channel;
+    private final WavHeader header;
+    private final ByteBuffer readBuffer;
+    /** Downmixed 16-bit samples bound for a destination the kernel cannot write to directly. */
+    private byte[] monoScratch;
+    private long framePosition = 0;
+
+    public WavAudioInputStream(File file) throws IOException, UnsupportedAudioFileException {
+        super(new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+        }, new AudioFormat(44100, 16, 1, true, false), AudioSystem.NOT_SPECIFIED);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            this.header = readHeader(channel, file.getName());
+        } catch (IOException | UnsupportedAudioFileException e) {
+            channel.close();
+            throw e;
+        }
+        this.format = new AudioFormat(header.sampleRate, 16, 1, true, false);
+        this.frameLength = header.totalFrames;
+        this.readBuffer = ByteBuffer.allocate(Math.max(header.blockAlign, READ_CHUNK - READ_CHUNK % header.blockAlign))
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Walks the RIFF chunks up to {@code data}, validating the {@code fmt } chunk on the way.
+     *
+     * @throws UnsupportedAudioFileException for compressed or otherwise unsupported encodings
+     */
+    static WavHeader readHeader(FileChannel channel, String name) throws IOException, UnsupportedAudioFileException {
+        ByteBuffer chunk = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+        if (readAt(channel, chunk, 0, 12) < 12 || chunk.getInt(0) != fourCc("RIFF") || chunk.getInt(8) != fourCc("WAVE")) {
+            throw new UnsupportedAudioFileException("Not a RIFF/WAVE file: " + name);
+        }
+
+        WavHeader header = null;
+        long offset = 12;
+        long fileSize = channel.size();
+        while (offset + 8 <= fileSize) {
+            readAt(channel, chunk, offset, 8);
+            int id = chunk.getInt(0);
+            long size = chunk.getInt(4) & 0xFFFFFFFFL;
+            long body = offset + 8;
+            if (id == fourCc("fmt ")) {
+                if (size < 16 || readAt(channel, chunk, body, (int) Math.min(size, chunk.capacity())) < 16) {
+                    throw new IOException("Truncated fmt chunk in " + name);
+                }
+                header = new WavHeader();
+                header.formatTag = chunk.getShort(0) & 0xFFFF;
+                header.channels = chunk.getShort(2) & 0xFFFF;
+                header.sampleRate = chunk.getInt(4);
+                header.blockAlign = chunk.getShort(12) & 0xFFFF;
+                header.bitsPerSample = chunk.getShort(14) & 0xFFFF;
+                if (header.formatTag == FORMAT_EXTENSIBLE && size >= 26) {
+                    header.formatTag = chunk.getShort(24) & 0xFFFF; // first two bytes of the subformat GUID
+                }
+                validate(header, name);
+            } else if (id == fourCc("data")) {
+                if (header == null) {
+                    throw new IOException("data chunk before fmt chunk in " + name);
+                }
+                header.dataOffset = body;
+                long available = fileSize - body;
+                // Streamed writers leave the size at 0 or 0xFFFFFFFF; trust the file length then.
+                long dataSize = size == 0 || size > available ? available : size;
+                header.totalFrames = dataSize / header.blockAlign;
+                return header;
+            }
+            offset = body + size + (size & 1);
+        }
+        throw new IOException("No data chunk in " + name);
+    }
+
+    private static void validate(WavHeader header, String name) throws UnsupportedAudioFileException {
+        if (header.channels <= 0 || header.sampleRate <= 0 || header.blockAlign < header.channels
+                || header.blockAlign % header.channels != 0) {
+            throw new UnsupportedAudioFileException("Malformed WAV format in " + name);
+        }
+        int bytesPerSample = header.bytesPerSample();
+        boolean supported = header.formatTag == FORMAT_PCM
+                ? bytesPerSample >= 1 && bytesPerSample <= 4
+                : header.formatTag == FORMAT_IEEE_FLOAT && (bytesPerSample == 4 || bytesPerSample == 8);
+        if (!supported) {
+            throw new UnsupportedAudioFileException("Unsupported WAV encoding 0x" + Integer.toHexString(header.formatTag)
+                    + " (" + header.bitsPerSample + "-bit) in " + name);
+        }
+    }
+
+    static AudioStreamInfo readStreamInfo(File file) throws IOException, UnsupportedAudioFileException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WavHeader header = readHeader(channel, file.getName());
+            return new AudioStreamInfo(header.totalFrames, header.sampleRate, header.channels, 0, 0);
+        }
+    }
+
+    @Override
+    public boolean seekToSampleFrame(long sampleFrame) {
+        framePosition = Math.max(0, Math.min(sampleFrame, header.totalFrames));
+        return sampleFrame < header.totalFrames;
+    }
+
+    @Override
+    public void rewind() {
+        framePosition = 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        throw new IOException("cannot read a single byte if frame size > 1");
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (b == null) throw new NullPointerException();
+        if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+        if (len == 0) return 0;
+        return read(ByteBuffer.wrap(b, off, len).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int len = dst.remaining();
+        if (len == 0) return 0;
+
+        long remainingFrames = header.totalFrames - framePosition;
+        if (remainingFrames <= 0) {
+            return -1;
+        }
+        int frames = (int) Math.min(Math.min(len / 2, remainingFrames), readBuffer.capacity() / header.blockAlign);
+        if (frames == 0) {
+            return 0;
+        }
+        int bytes = frames * header.blockAlign;
+        int read = readAt(channel, readBuffer, header.dataOffset + framePosition * header.blockAlign, bytes);
+        frames = read / header.blockAlign;
+        if (frames == 0) {
+            framePosition = header.totalFrames; // file shorter than its header claims
+            return -1;
+        }
+        convertToMono(readBuffer, frames, dst);
+        framePosition += frames;
+        return frames * 2;
+    }
+
+    @Override
+    public long skip(long n) {
+        if (n <= 0) return 0;
+        long frames = Math.min(n / 2, header.totalFrames - framePosition);
+        framePosition += frames;
+        return frames * 2;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, (header.totalFrames - framePosition) * 2);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Converts {@code frames} interleaved source frames to 16-bit mono in {@code dest}'s byte order.
+     */
+    private void convertToMono(ByteBuffer source, int frames, ByteBuffer dest) {
+        if (header.bytesPerSample() == 2 && !header.isFloat() && dest.order() == ByteOrder.LITTLE_ENDIAN) {
+            downmix16(source, frames, dest);
+            return;
+        }
+        int channels = header.channels;
+        int bytesPerSample = header.bytesPerSample();
+        boolean isFloat = header.isFloat();
+        int position = 0;
+        for (int i = 0; i < frames; i++) {
+            int sum = 0;
+            for (int ch = 0; ch < channels; ch++) {
+                sum += isFloat ? floatSample(source, position, bytesPerSample) : intSample(source, position, bytesPerSample);
+                position += bytesPerSample;
+            }
+            int mono = channels == 1 ? sum : sum / channels;
+            dest.putShort((short) mono);
+        }
+    }
+
+    /**
+     * 16-bit integer samples, by far the most common WAV layout, are averaged by the
+     * {@link PcmKernel}; a direct destination gets the result in one bulk copy.
+     */
+    private void downmix16(ByteBuffer source, int frames, ByteBuffer dest) {
+        int bytes = frames * 2;
+        int position = dest.position();
+        if (dest.hasArray()) {
+            PcmKernels.get().downmixLE(source.array(), source.arrayOffset(), frames, header.channels,
+                    dest.array(), dest.arrayOffset() + position);
+            dest.position(position + bytes);
+            return;
+        }
+        if (monoScratch == null) {
+            monoScratch = new byte[readBuffer.capacity() / header.blockAlign * 2];
+        }
+        PcmKernels.get().downmixLE(source.array(), source.arrayOffset(), frames, header.channels, monoScratch, 0);
+        dest.put(monoScratch, 0, bytes);
+    }
+
+    /**
+     * @return the sample scaled to the signed 16-bit range
+     */
+    private static int intSample(ByteBuffer source, int position, int bytesPerSample) {
+        return switch (bytesPerSample) {
+            case 1 -> ((source.get(position) & 0xFF) - 128) << 8; // 8-bit WAV is unsigned
+            case 2 -> source.getShort(position);
+            case 3 -> source.get(position + 2) << 8 | (source.get(position + 1) & 0xFF);
+            default -> source.getShort(position + 2);
+        };
+    }
+
+    private static int floatSample(ByteBuffer source, int position, int bytesPerSample) {
+        double value = bytesPerSample == 8 ? source.getDouble(position) : source.getFloat(position);
+        long scaled = Math.round(value * Short.MAX_VALUE);
+        return (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scaled));
+    }
+
+    private static int readAt(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static int fourCc(String id) {
+        return id.charAt(0) | id.charAt(1) << 8 | id.charAt(2) << 16 | id.charAt(3) << 24;
+    }
+}
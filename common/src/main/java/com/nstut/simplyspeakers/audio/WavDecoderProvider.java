@@ -0,0 +1,50 @@
+package com.nstut.simplyspeakers.audio;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * RIFF/WAVE through the direct {@link WavAudioInputStream}. Compressed encodings it does
+ * not handle (e.g. A-law, mu-law) still go through {@link AudioSystem}.
+ */
+public final class WavDecoderProvider implements AudioDecoderProvider {
+
+    @Override
+    public List<String> extensions() {
+        return List.of("wav");
+    }
+
+    @Override
+    public boolean probe(byte[] header, int length) {
+        return length >= 12
+                && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'A' && header[10] == 'V' && header[11] == 'E';
+    }
+
+    @Override
+    public AudioInputStream openMonoPcm(File file) throws IOException, UnsupportedAudioFileException {
+        try {
+            return new WavAudioInputStream(file);
+        } catch (UnsupportedAudioFileException e) {
+            return PcmAudioDownmixer.ensureMono16BitPcmStream(AudioSystem.getAudioInputStream(file));
+        }
+    }
+
+    @Override
+    public AudioStreamInfo readStreamInfo(File file) throws IOException, UnsupportedAudioFileException {
+        try {
+            return WavAudioInputStream.readStreamInfo(file);
+        } catch (UnsupportedAudioFileException e) {
+            AudioFileFormat fileFormat = AudioSystem.getAudioFileFormat(file);
+            AudioFormat format = fileFormat.getFormat();
+            return new AudioStreamInfo(Math.max(0L, fileFormat.getFrameLength()), Math.round(format.getSampleRate()),
+                    format.getChannels(), 0, 0);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.nstut.simplyspeakers.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One daemon thread that services every client stream. Each {@link Job} returns the time it
+ * next needs attention, normally when its oldest queued buffer finishes playing, and sleeps
+ * until then instead of polling. One-shot work such as teardown is queued with
+ * {@link #execute} and runs on the same thread, so it never overlaps a refill of the stream
+ * it releases.
+ */
+public final class AudioPump {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("simplyspeakers");
+
+    /** Returned by {@link Job#service} once the job needs no further calls. */
+    public static final long DONE = Long.MIN_VALUE;
+    /** Shortest wait between services, so a nearly drained source does not spin. */
+    static final long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    /** Longest wait, which bounds how late a stalled or restarted source is noticed. */
+    static final long MAX_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    /** Head start taken before a buffer is due so it is refilled before the source reaches it. */
+    static final long REFILL_MARGIN_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private static volatile AudioPump shared;
+
+    /**
+     * Periodic work run on the pump thread.
+     */
+    public interface Job {
+        /**
+         * @param nowNanos current {@link System#nanoTime()}
+         * @return the {@link System#nanoTime()} to run again at, or {@link #DONE}
+         */
+        long service(long nowNanos) throws Exception;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final Job job;
+        final long sequence;
+        long deadline;
+
+        Entry(Job job, long sequence, long deadline) {
+            this.job = job;
+            this.sequence = sequence;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byDeadline = Long.compare(deadline - other.deadline, 0);
+            return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final String threadName;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wake = lock.newCondition();
+    private final PriorityQueue<Entry> jobs = new PriorityQueue<>();
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private long nextSequence = 0;
+    private Job running;
+    private boolean runningCancelled;
+    private Thread thread;
+
+    AudioPump(String threadName) {
+        this.threadName = threadName;
+    }
+
+    public static AudioPump shared() {
+        AudioPump pump = shared;
+        if (pump == null) {
+            synchronized (AudioPump.class) {
+                pump = shared;
+                if (pump == null) {
+                    pump = new AudioPump("simplyspeakers-audio-pump");
+                    shared = pump;
+                }
+            }
+        }
+        return pump;
+    }
+
+    /**
+     * Adds a job to run as soon as the pump is free.
+     */
+    public void schedule(Job job) {
+        lock.lock();
+        try {
+            jobs.add(new Entry(job, nextSequence++, System.nanoTime()));
+            startIfNeeded();
+            wake.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a job so it is not serviced again. A call already in progress finishes first.
+     */
+    public void cancel(Job job) {
+        lock.lock();
+        try {
+            jobs.removeIf(entry -> entry.job == job);
+            if (running == job) {
+                runningCancelled = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues one-shot work ahead of any job that is due.
+     */
+    public void execute(Runnable task) {
+        lock.lock();
+        try {
+            tasks.add(task);
+            startIfNeeded();
+            wake.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int jobCount() {
+        lock.lock();
+        try {
+            return jobs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Time to wait before servicing a source whose oldest queued buffer still has
+     * {@code framesUntilProcessed} frames to play at {@code sampleRate}.
+     */
+    public static long refillDelayNanos(long framesUntilProcessed, float sampleRate) {
+        if (sampleRate <= 0 || framesUntilProcessed <= 0) {
+            return MIN_DELAY_NANOS;
+        }
+        long playNanos = (long) (framesUntilProcessed * 1_000_000_000.0 / sampleRate);
+        return Math.max(MIN_DELAY_NANOS, Math.min(MAX_DELAY_NANOS, playNanos - REFILL_MARGIN_NANOS));
+    }
+
+    private void startIfNeeded() {
+        if (thread == null) {
+            thread = new Thread(this::run, threadName);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY - 1);
+            thread.start();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Runnable task = null;
+            Entry due = null;
+            lock.lock();
+            try {
+                while (task == null && due == null) {
+                    task = tasks.poll();
+                    if (task != null) {
+                        break;
+                    }
+                    Entry head = jobs.peek();
+                    if (head == null) {
+                        wake.awaitUninterruptibly();
+                        continue;
+                    }
+                    long wait = head.deadline - System.nanoTime();
+                    if (wait <= 0) {
+                        due = jobs.poll();
+                        running = due.job;
+                        runningCancelled = false;
+                    } else {
+                        wake.awaitNanos(wait);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Daemon thread; nothing to hand the interrupt to.
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            if (task != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    LOGGER.error("Audio pump task failed", e);
+                }
+                continue;
+            }
+
+            long next;
+            try {
+                next = due.job.service(System.nanoTime());
+            } catch (Exception e) {
+                LOGGER.error("Audio pump job failed and was removed", e);
+                next = DONE;
+            }
+            lock.lock();
+            try {
+                if (next != DONE && !runningCancelled) {
+                    due.deadline = next;
+                    jobs.add(due);
+                }
+                running = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,22 +1,49 @@
 package com.nstut.simplyspeakers.client;
 
+import com.nstut.simplyspeakers.Config;
+import com.nstut.simplyspeakers.audio.AudioDecoders;
+import com.nstut.simplyspeakers.audio.AudioStreamInfo;
+import com.nstut.simplyspeakers.audio.DecodedPcmSidecar;
+import com.nstut.simplyspeakers.audio.LoopingPcmStream;
+import com.nstut.simplyspeakers.audio.Mp3SeekTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.attribute.FileTime;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
 
 /**
  * Manages the client-side audio cache directory with LRU (Least Recently Used) eviction.
+ * Tracks played often enough also get a decoded PCM sidecar, which has its own LRU budget
+ * ({@link Config#decodedPcmCacheMegabytes}).
  */
 public final class ClientCacheManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("simplyspeakers");
     private static final long DEFAULT_MAX_CACHE_BYTES = 500L * 1024L * 1024L; // 500 MB
+    /** Plays of a track in one session before its decoded PCM sidecar is built. */
+    static final int DECODE_AFTER_PLAYS = 2;
+
+    private static final Map<String, Integer> playCounts = new ConcurrentHashMap<>();
+    private static final Set<String> pendingDecodes = ConcurrentHashMap.newKeySet();
+    private static final ExecutorService decodeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "simplyspeakers-pcm-cache");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
 
     private ClientCacheManager() {
     }
@@ -38,8 +65,79 @@ public final class ClientCacheManager {
     }
 
     public static void enforceBudget(File cacheDir) {
-        long limit = com.nstut.simplyspeakers.Config.clientCacheLimitBytes;
+        long limit = Config.clientCacheLimitBytes;
         enforceCacheLimit(cacheDir, limit > 0 ? limit : DEFAULT_MAX_CACHE_BYTES);
+        enforceDecodedPcmLimit(cacheDir, decodedPcmBudgetBytes());
+    }
+
+    /**
+     * Counts one play of a cached track. Once a track has been played {@value #DECODE_AFTER_PLAYS}
+     * times with the decoded tier enabled, a sidecar is built in the background for the next play.
+     * Call once per play request, not per stream open: streams are reopened on resync and when a
+     * network gets its voice back.
+     */
+    public static void recordPlay(File audioFile) {
+        long budget = decodedPcmBudgetBytes();
+        if (budget <= 0 || DecodedPcmSidecar.sidecarFor(audioFile).isFile()) {
+            return;
+        }
+        if (playCounts.merge(audioFile.getName(), 1, Integer::sum) >= DECODE_AFTER_PLAYS) {
+            scheduleDecode(audioFile, budget);
+        }
+    }
+
+    /**
+     * Opens a cached track for streaming. A valid decoded PCM sidecar is played straight from
+     * its mapping; otherwise the file is decoded live.
+     */
+    public static AudioInputStream openLoopingPcm(File audioFile, BooleanSupplier looping) throws IOException, UnsupportedAudioFileException {
+        if (decodedPcmBudgetBytes() > 0) {
+            AudioInputStream decoded = null;
+            try {
+                decoded = DecodedPcmSidecar.open(audioFile);
+            } catch (IOException e) {
+                LOGGER.debug("Ignoring unreadable decoded PCM sidecar for {}: {}", audioFile.getName(), e.getMessage());
+            }
+            if (decoded != null) {
+                touch(DecodedPcmSidecar.sidecarFor(audioFile));
+                return LoopingPcmStream.wrap(decoded, looping);
+            }
+        }
+        return LoopingPcmStream.open(audioFile, looping);
+    }
+
+    static int playCount(File audioFile) {
+        return playCounts.getOrDefault(audioFile.getName(), 0);
+    }
+
+    private static long decodedPcmBudgetBytes() {
+        return Config.decodedPcmCacheMegabytes * 1024L * 1024L;
+    }
+
+    private static void scheduleDecode(File audioFile, long budget) {
+        String name = audioFile.getName();
+        if (!pendingDecodes.add(name)) {
+            return;
+        }
+        decodeExecutor.execute(() -> {
+            try {
+                AudioStreamInfo info = AudioDecoders.readStreamInfo(audioFile);
+                if (info.isKnown() && info.totalSampleFrames() * 2 > budget) {
+                    LOGGER.debug("Not caching decoded PCM for {}: larger than the {} byte budget", name, budget);
+                    playCounts.put(name, Integer.MIN_VALUE);
+                    return;
+                }
+                long size = DecodedPcmSidecar.write(audioFile);
+                LOGGER.debug("Cached decoded PCM for {} ({} bytes)", name, size);
+                enforceDecodedPcmLimit(audioFile.getParentFile(), budget);
+            } catch (Exception e) {
+                // Not retried this session; playback keeps decoding live.
+                playCounts.put(name, Integer.MIN_VALUE);
+                LOGGER.warn("Could not cache decoded PCM for {}: {}", name, e.getMessage());
+            } finally {
+                pendingDecodes.remove(name);
+            }
+        });
     }
 
     /**
@@ -54,14 +152,15 @@ public final class ClientCacheManager {
         }
 
         long budget = maxBytes > 0 ? maxBytes : DEFAULT_MAX_CACHE_BYTES;
-        File[] files = cacheDir.listFiles(f -> f.isFile() && !f.getName().endsWith(".part") && !f.getName().endsWith(".tmp"));
+        File[] files = cacheDir.listFiles(f -> f.isFile() && !f.getName().endsWith(".part") && !f.getName().endsWith(".tmp")
+                && !f.getName().endsWith(Mp3SeekTable.SIDECAR_SUFFIX) && !f.getName().endsWith(DecodedPcmSidecar.SIDECAR_SUFFIX));
         if (files == null || files.length == 0) {
             return;
         }
 
         long totalSize = 0;
         for (File f : files) {
-            totalSize += f.length();
+            totalSize += f.length() + Mp3SeekTable.sidecarFor(f).length();
         }
 
         if (totalSize <= budget) {
@@ -77,14 +176,54 @@ public final class ClientCacheManager {
             if (totalSize <= budget) {
                 break;
             }
-            long len = f.length();
+            File sidecar = Mp3SeekTable.sidecarFor(f);
+            long len = f.length() + sidecar.length();
             if (f.delete()) {
+                sidecar.delete();
+                DecodedPcmSidecar.sidecarFor(f).delete();
                 totalSize -= len;
                 LOGGER.debug("Evicted cached audio: {}", f.getName());
             }
         }
     }
 
+    /**
+     * Enforces the decoded PCM budget using LRU eviction, first dropping sidecars whose audio
+     * file is gone. A budget of 0 removes every sidecar. Sidecars still mapped by a playing
+     * stream cannot be deleted on some platforms and are retried on the next pass.
+     *
+     * @param cacheDir The cache directory
+     * @param maxBytes Maximum allowed total size of decoded PCM sidecars in bytes
+     */
+    public static void enforceDecodedPcmLimit(File cacheDir, long maxBytes) {
+        if (cacheDir == null || !cacheDir.isDirectory()) {
+            return;
+        }
+        File[] sidecars = cacheDir.listFiles(f -> f.isFile() && f.getName().endsWith(DecodedPcmSidecar.SIDECAR_SUFFIX));
+        if (sidecars == null || sidecars.length == 0) {
+            return;
+        }
+
+        long totalSize = 0;
+        for (File sidecar : sidecars) {
+            totalSize += sidecar.length();
+        }
+
+        Arrays.sort(sidecars, Comparator.comparingLong(File::lastModified));
+        for (File sidecar : sidecars) {
+            String audioName = sidecar.getName().substring(0, sidecar.getName().length() - DecodedPcmSidecar.SIDECAR_SUFFIX.length());
+            boolean orphaned = !new File(cacheDir, audioName).isFile();
+            if (!orphaned && totalSize <= Math.max(0, maxBytes)) {
+                continue;
+            }
+            long len = sidecar.length();
+            if (sidecar.delete()) {
+                totalSize -= len;
+                LOGGER.debug("Evicted decoded PCM: {}", sidecar.getName());
+            }
+        }
+    }
+
     /**
      * Cleans up all orphaned .part and .tmp files in the cache directory.
      */
@@ -0,0 +1,70 @@
+package com.nstut.simplyspeakers.client;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Bounded set of reusable native-order direct buffers for OpenAL uploads. {@code alBufferData}
+ * copies the samples before it returns, so a buffer can be released right after the call and
+ * a refill never leaves direct memory behind for the GC to reclaim.
+ */
+public final class DirectBufferPool {
+
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private int allocations = 0;
+
+    public DirectBufferPool(int maxPooled) {
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @return a cleared buffer whose limit is {@code capacity}
+     */
+    public synchronized ByteBuffer acquire(int capacity) {
+        for (Iterator<ByteBuffer> it = free.iterator(); it.hasNext(); ) {
+            ByteBuffer buffer = it.next();
+            if (buffer.capacity() >= capacity) {
+                it.remove();
+                buffer.clear().limit(capacity);
+                return buffer;
+            }
+        }
+        allocations++;
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns a buffer for reuse. When the pool is full the smallest buffer is dropped, so
+     * the pool converges on the size streams actually ask for.
+     */
+    public synchronized void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || maxPooled <= 0) {
+            return;
+        }
+        if (free.size() >= maxPooled) {
+            ByteBuffer smallest = buffer;
+            for (ByteBuffer pooled : free) {
+                if (pooled.capacity() < smallest.capacity()) {
+                    smallest = pooled;
+                }
+            }
+            if (smallest == buffer) {
+                return;
+            }
+            free.remove(smallest);
+        }
+        free.push(buffer);
+    }
+
+    /** Number of buffers allocated because none in the pool was large enough. */
+    public synchronized int allocations() {
+        return allocations;
+    }
+
+    public synchronized int pooled() {
+        return free.size();
+    }
+}
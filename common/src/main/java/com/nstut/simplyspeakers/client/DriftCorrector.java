@@ -0,0 +1,75 @@
+package com.nstut.simplyspeakers.client;
+
+/**
+ * Keeps a stream on its {@link PlaybackClock} rather than on the sound device's own clock,
+ * which runs slightly fast or slow and lets long-running networks drift apart. Small drift is
+ * pulled back by playing a fraction of a percent faster or slower through the source pitch;
+ * drift too large for that is reported so the stream can be restarted at the clock position.
+ */
+public final class DriftCorrector {
+
+    /** Largest pitch change, under nine cents, so the correction is not heard as a change in key. */
+    static final float MAX_PITCH_ADJUSTMENT = 0.005f;
+    /** Drift is closed over about this long while within the pitch limit. */
+    static final double CORRECTION_SECONDS = 20.0;
+    /** Smoothed drift below this is left alone; AL_SAMPLE_OFFSET only moves once per mixer period. */
+    static final double DEADBAND_SECONDS = 0.01;
+    /** Weight of each new measurement in the smoothed drift. */
+    static final double SMOOTHING = 0.25;
+    /** Drift beyond this, e.g. after an underrun, is fixed by restarting rather than by pitch. */
+    public static final double RESYNC_SECONDS = 0.5;
+
+    private double smoothedDrift;
+    private boolean primed;
+
+    /**
+     * @param driftSeconds how far playback is ahead of the clock (negative when behind)
+     * @return the pitch to play at
+     */
+    public float update(double driftSeconds) {
+        smoothedDrift = primed ? smoothedDrift + SMOOTHING * (driftSeconds - smoothedDrift) : driftSeconds;
+        primed = true;
+        if (Math.abs(smoothedDrift) < DEADBAND_SECONDS) {
+            return 1.0f;
+        }
+        double adjustment = -smoothedDrift / CORRECTION_SECONDS;
+        return (float) (1.0 + Math.max(-MAX_PITCH_ADJUSTMENT, Math.min(MAX_PITCH_ADJUSTMENT, adjustment)));
+    }
+
+    /** Forgets past measurements, e.g. after the stream was restarted. */
+    public void reset() {
+        smoothedDrift = 0;
+        primed = false;
+    }
+
+    /**
+     * @param startFrame   track frame the stream started at
+     * @param playedFrames frames of every buffer the source has finished since then
+     * @param sampleOffset the source's position within the buffer it is playing
+     * @param clockNanos   the {@link PlaybackClock} position
+     * @return how far the source is ahead of the clock (negative when behind)
+     */
+    public static double driftSeconds(long startFrame, long playedFrames, int sampleOffset, float frameRate, long clockNanos) {
+        return (startFrame + playedFrames + sampleOffset) / (double) frameRate - clockNanos / 1e9;
+    }
+
+    /**
+     * Drift of a looping source, taken the short way round the loop so playing just past the
+     * loop point is not mistaken for being a whole pass behind.
+     *
+     * @param sampleOffset   the source's position within the loop
+     * @param expectedOffset where the clock says it should be, wrapped into the loop
+     * @return how far the source is ahead (negative when behind)
+     */
+    public static double loopDriftSeconds(long sampleOffset, long expectedOffset, long loopFrames, float frameRate) {
+        long drift = Math.floorMod(sampleOffset - expectedOffset, loopFrames);
+        if (drift > loopFrames / 2) {
+            drift -= loopFrames;
+        }
+        return drift / (double) frameRate;
+    }
+
+    public static boolean needsResync(double driftSeconds) {
+        return Math.abs(driftSeconds) >= RESYNC_SECONDS;
+    }
+}
@@ -0,0 +1,126 @@
+package com.nstut.simplyspeakers.client;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Idle OpenAL object names (sources or buffers) kept for the next play instead of being
+ * deleted, so toggling speakers does not generate and delete objects on every start and stop.
+ * Callers reset an object's state before giving it back.
+ * <p>
+ * Names are only meaningful in the context that created them, and a new context (e.g. after
+ * the sound engine reloaded) numbers its objects from the start again, so a validity check
+ * cannot tell a stale name from a live one. The pool therefore remembers the context it was
+ * filled in and forgets its idle names, without deleting them, once another one is current.
+ * Names deleted behind the pool's back within one context are still dropped when leased.
+ */
+public final class OpenAlNamePool {
+
+    private final IntSupplier generate;
+    private final IntPredicate isValid;
+    private final Consumer<int[]> delete;
+    private final LongSupplier currentContext;
+    private final int maxIdle;
+    private long context;
+    private int[] idle = new int[8];
+    private int idleCount = 0;
+    private long generated = 0;
+    private long reused = 0;
+
+    /**
+     * @param generate creates one new name
+     * @param isValid  whether a pooled name still refers to a live object
+     * @param delete         deletes a batch of names in one call
+     * @param currentContext handle of the context current on the calling thread
+     * @param maxIdle        names kept beyond this are deleted when given back
+     */
+    public OpenAlNamePool(IntSupplier generate, IntPredicate isValid, Consumer<int[]> delete, LongSupplier currentContext, int maxIdle) {
+        this.generate = generate;
+        this.isValid = isValid;
+        this.delete = delete;
+        this.currentContext = currentContext;
+        this.maxIdle = maxIdle;
+        this.context = currentContext.getAsLong();
+    }
+
+    public synchronized int lease() {
+        checkContext();
+        while (idleCount > 0) {
+            int name = idle[--idleCount];
+            if (isValid.test(name)) {
+                reused++;
+                return name;
+            }
+        }
+        generated++;
+        return generate.getAsInt();
+    }
+
+    /** Fills {@code names} with leased names. */
+    public synchronized void lease(int[] names) {
+        for (int i = 0; i < names.length; i++) {
+            names[i] = lease();
+        }
+    }
+
+    /**
+     * Keeps a name leased in the current context for reuse. Names leased in an earlier
+     * context must not be given back.
+     */
+    public synchronized void giveBack(int name) {
+        if (name == 0) {
+            return;
+        }
+        checkContext();
+        if (idleCount >= maxIdle) {
+            delete.accept(new int[] {name});
+            return;
+        }
+        if (idleCount == idle.length) {
+            idle = Arrays.copyOf(idle, Math.min(maxIdle, idle.length * 2));
+        }
+        idle[idleCount++] = name;
+    }
+
+    public synchronized void giveBack(int[] names) {
+        for (int name : names) {
+            giveBack(name);
+        }
+    }
+
+    /** Deletes every idle name in one batch. */
+    public synchronized void clear() {
+        checkContext();
+        if (idleCount > 0) {
+            delete.accept(Arrays.copyOf(idle, idleCount));
+            idleCount = 0;
+        }
+    }
+
+    public synchronized int idle() {
+        checkContext();
+        return idleCount;
+    }
+
+    /** Forgets the idle names of a context that is no longer current; they died with it. */
+    private void checkContext() {
+        long current = currentContext.getAsLong();
+        if (current != context) {
+            context = current;
+            idleCount = 0;
+        }
+    }
+
+    /** Names created because none was idle. */
+    public synchronized long generated() {
+        return generated;
+    }
+
+    /** Leases served from the pool. */
+    public synchronized long reused() {
+        return reused;
+    }
+}
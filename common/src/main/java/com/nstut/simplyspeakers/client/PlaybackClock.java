@@ -0,0 +1,97 @@
+package com.nstut.simplyspeakers.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Playback position of a network, so a voice that gave up its OpenAL source can resume at the
+ * offset it would have reached. It runs on the wall clock between ticks and is re-anchored on
+ * the server's timeline, which only advances with game time, whenever the two disagree.
+ */
+public final class PlaybackClock {
+
+    /** One server tick; networks started within it are treated as started together. */
+    public static final long SAME_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    /** Disagreement with the server timeline up to this is tick and frame jitter, and left alone. */
+    static final long REANCHOR_TOLERANCE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /** {@link System#nanoTime()} at which the track's first sample played, or would have. */
+    private volatile long originNanos;
+    private volatile float durationSeconds = -1f;
+    /** Game time the server timeline was first read at, and the clock position then; tick thread only. */
+    private boolean tickAnchored;
+    private long anchorGameTime;
+    private long anchorPositionNanos;
+
+    public PlaybackClock(float startPositionSeconds, long startNanos) {
+        this.originNanos = startNanos - (long) (Math.max(0f, startPositionSeconds) * NANOS_PER_SECOND);
+    }
+
+    /**
+     * @return nanoseconds into the track at {@code nowNanos}, not wrapped for looping
+     */
+    public long positionNanos(long nowNanos) {
+        return nowNanos - originNanos;
+    }
+
+    /**
+     * @return seconds into the track at {@code nowNanos}, not wrapped for looping
+     */
+    public float positionSeconds(long nowNanos) {
+        return (float) (positionNanos(nowNanos) / NANOS_PER_SECOND);
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the track's first sample played, or
+     *         would have if it had started from the beginning
+     */
+    public long originNanos() {
+        return originNanos;
+    }
+
+    /**
+     * @return whether both clocks place the start of the track within {@code toleranceNanos}
+     */
+    public boolean inSyncWith(PlaybackClock other, long toleranceNanos) {
+        return Math.abs(originNanos() - other.originNanos()) <= toleranceNanos;
+    }
+
+    /**
+     * Moves the clock onto the server's timeline, read from the client's game time, which the
+     * server corrects every second. The first call only notes where that timeline stands; later
+     * calls shift the clock once it is more than {@link #REANCHOR_TOLERANCE_NANOS} off, e.g.
+     * while the server runs behind 20 ticks per second. Client tick thread only.
+     *
+     * @return whether the clock moved
+     */
+    public boolean reanchor(long gameTime, long nowNanos) {
+        long positionNanos = positionNanos(nowNanos);
+        if (!tickAnchored) {
+            tickAnchored = true;
+            anchorGameTime = gameTime;
+            anchorPositionNanos = positionNanos;
+            return false;
+        }
+        long serverPositionNanos = anchorPositionNanos + (gameTime - anchorGameTime) * SAME_TICK_NANOS;
+        long offsetNanos = serverPositionNanos - positionNanos;
+        if (Math.abs(offsetNanos) <= REANCHOR_TOLERANCE_NANOS) {
+            return false;
+        }
+        originNanos -= offsetNanos;
+        return true;
+    }
+
+    /** Records the length of one pass once a stream has reported it. */
+    public void setDurationSeconds(float durationSeconds) {
+        if (durationSeconds > 0) {
+            this.durationSeconds = durationSeconds;
+        }
+    }
+
+    /**
+     * @return true if a non-looping track of known length has played to its end
+     */
+    public boolean hasEnded(long nowNanos, boolean looping) {
+        return !looping && durationSeconds > 0 && positionSeconds(nowNanos) >= durationSeconds;
+    }
+}
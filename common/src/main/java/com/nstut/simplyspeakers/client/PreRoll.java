@@ -0,0 +1,104 @@
+package com.nstut.simplyspeakers.client;
+
+import com.nstut.simplyspeakers.audio.DirectPcmSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * The first buffers of a stream, decoded off the audio pump before any OpenAL call. Opening,
+ * seeking and decoding take time during which the server timeline moves on, so just before
+ * the source starts the audio that would already have played is trimmed from the front.
+ */
+public final class PreRoll {
+
+    private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+    private final DirectBufferPool pool;
+    private final float startSeconds;
+    private final float frameRate;
+    private final int frameSize;
+    private boolean reachedEnd;
+
+    private PreRoll(DirectBufferPool pool, float startSeconds, float frameRate, int frameSize) {
+        this.pool = pool;
+        this.startSeconds = startSeconds;
+        this.frameRate = frameRate;
+        this.frameSize = frameSize;
+    }
+
+    /**
+     * Decodes up to {@code chunkCount} buffers of {@code chunkBytes} each, one read per buffer
+     * as a streaming refill would.
+     *
+     * @param startSeconds track position of the first decoded sample
+     */
+    public static PreRoll decode(InputStream pcm, int chunkBytes, int chunkCount, DirectBufferPool pool,
+                                 float startSeconds, float frameRate, int frameSize) throws IOException {
+        PreRoll preRoll = new PreRoll(pool, startSeconds, frameRate, frameSize);
+        byte[] scratch = pcm instanceof DirectPcmSource ? null : new byte[chunkBytes];
+        try {
+            for (int i = 0; i < chunkCount; i++) {
+                ByteBuffer chunk = pool.acquire(chunkBytes);
+                int read = DirectPcmSource.read(pcm, chunk, scratch);
+                if (read <= 0) {
+                    // Nothing decoded yet is not the end; the pump tops the queue up later.
+                    pool.release(chunk);
+                    preRoll.reachedEnd = read < 0;
+                    break;
+                }
+                chunk.flip();
+                preRoll.chunks.add(chunk);
+            }
+        } catch (IOException | RuntimeException e) {
+            preRoll.release();
+            throw e;
+        }
+        return preRoll;
+    }
+
+    /**
+     * Drops the audio before {@code positionSeconds} from the front.
+     *
+     * @return frames still to skip in the stream when more is late than was decoded
+     */
+    public long trimTo(float positionSeconds) {
+        long lateFrames = (long) ((positionSeconds - startSeconds) * frameRate);
+        if (lateFrames <= 0) {
+            return 0;
+        }
+        long lateBytes = lateFrames * frameSize;
+        while (lateBytes > 0 && !chunks.isEmpty()) {
+            ByteBuffer head = chunks.peek();
+            if (head.remaining() <= lateBytes) {
+                lateBytes -= head.remaining();
+                pool.release(chunks.poll());
+            } else {
+                head.position(head.position() + (int) lateBytes);
+                lateBytes = 0;
+            }
+        }
+        return reachedEnd ? 0 : lateBytes / frameSize;
+    }
+
+    /**
+     * @return the next decoded buffer, which the caller returns to the pool, or null
+     */
+    public ByteBuffer poll() {
+        return chunks.poll();
+    }
+
+    /** Whether the stream ended within the pre-rolled audio. */
+    public boolean reachedEnd() {
+        return reachedEnd;
+    }
+
+    /** Returns any buffers not taken to the pool. */
+    public void release() {
+        ByteBuffer chunk;
+        while ((chunk = chunks.poll()) != null) {
+            pool.release(chunk);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.nstut.simplyspeakers.client;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Queue bookkeeping for several OpenAL sources playing the same buffers, such as a network's
+ * emitter sources and the sources of networks sharing its stream. Every buffer is queued on
+ * every source, and a buffer only comes back for refilling once all of them have played it.
+ */
+public final class SharedBufferQueue {
+
+    /** The OpenAL queue calls, so the bookkeeping runs without a sound device in tests. */
+    public interface QueueCalls {
+        int buffersProcessed(int source);
+
+        /** @return the oldest buffer on the source's queue, now removed */
+        int unqueue(int source);
+
+        void queue(int source, int buffer);
+    }
+
+    private SharedBufferQueue() {
+    }
+
+    /** Appends {@code buffer} to the queue of every source. */
+    public static void queue(QueueCalls al, int[] sources, int buffer) {
+        for (int source : sources) {
+            al.queue(source, buffer);
+        }
+    }
+
+    /**
+     * Unqueues the buffers every source has finished with, oldest first.
+     *
+     * @param sources the sources sharing the queue; the first one's buffers are reported
+     * @param played  receives each buffer that can be refilled
+     * @return the number of buffers unqueued from each source
+     */
+    public static int unqueuePlayed(QueueCalls al, int[] sources, IntConsumer played) {
+        int processed = al.buffersProcessed(sources[0]);
+        for (int k = 1; k < sources.length && processed > 0; k++) {
+            processed = Math.min(processed, al.buffersProcessed(sources[k]));
+        }
+        for (int i = 0; i < processed; i++) {
+            int buffer = al.unqueue(sources[0]);
+            for (int k = 1; k < sources.length; k++) {
+                al.unqueue(sources[k]);
+            }
+            played.accept(buffer);
+        }
+        return processed;
+    }
+}
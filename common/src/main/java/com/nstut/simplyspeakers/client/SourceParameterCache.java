@@ -0,0 +1,133 @@
+package com.nstut.simplyspeakers.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the position and gain last pushed to one network's OpenAL source, so the spatial
+ * pass only calls into OpenAL when a change would be audible. Belongs to the thread that runs
+ * the spatial pass; the shared counters record how many calls the caches saved.
+ */
+public final class SourceParameterCache {
+
+    /** Position moves below this many blocks are not pushed. */
+    static final double POSITION_TOLERANCE = 0.01;
+    /** Relative gain changes below this (about 0.09 dB) are not pushed. */
+    static final float GAIN_TOLERANCE = 0.01f;
+
+    /** The OpenAL calls a push makes, so the push logic runs without a sound device in tests. */
+    public interface SourceCalls {
+        boolean isSource(int source);
+
+        void position(int source, float x, float y, float z);
+
+        void gain(int source, float gain);
+    }
+
+    private static final AtomicLong ISSUED = new AtomicLong();
+    private static final AtomicLong SAVED = new AtomicLong();
+    private static long savedAtFrameStart = 0;
+    private static volatile long savedLastFrame = 0;
+
+    private int voice = -1;
+    private float x = Float.NaN;
+    private float y = Float.NaN;
+    private float z = Float.NaN;
+    private float gain = Float.NaN;
+
+    /**
+     * Forgets the pushed values when the network has been given a different source (or the
+     * same source again) since the last pass, since the source starts from its own defaults.
+     *
+     * @param voice identifies the network's current voice; changes whenever a source is attached
+     */
+    public void bind(int voice) {
+        if (voice != this.voice) {
+            this.voice = voice;
+            x = y = z = gain = Float.NaN;
+        }
+    }
+
+    /**
+     * Moves {@code source} and sets its gain where either changed audibly since the last push
+     * for the same lease. The source is only checked for validity when something is pushed.
+     *
+     * @param lease      {@link #bind} argument for the source's current lease
+     * @param positioned false to leave the position alone, e.g. for a source with nothing to place
+     */
+    public void push(SourceCalls al, int source, int lease, boolean positioned, float x, float y, float z, float gain) {
+        bind(lease);
+        boolean move = positioned && positionChanged(x, y, z);
+        boolean setGain = gainChanged(gain);
+        if (!move && !setGain) {
+            skippedValidation();
+            return;
+        }
+        if (al.isSource(source)) {
+            if (move) {
+                al.position(source, x, y, z);
+            }
+            if (setGain) {
+                al.gain(source, gain);
+            }
+        }
+    }
+
+    /**
+     * @return whether the source must be moved; if so the new position is taken as pushed
+     */
+    public boolean positionChanged(float x, float y, float z) {
+        double dx = x - this.x;
+        double dy = y - this.y;
+        double dz = z - this.z;
+        // NaN after bind() fails the comparison and forces a push
+        if (dx * dx + dy * dy + dz * dz < POSITION_TOLERANCE * POSITION_TOLERANCE) {
+            SAVED.incrementAndGet();
+            return false;
+        }
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        ISSUED.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return whether the gain must be set; if so the new gain is taken as pushed
+     */
+    public boolean gainChanged(float gain) {
+        if (Math.abs(gain - this.gain) <= GAIN_TOLERANCE * Math.max(gain, this.gain)) {
+            SAVED.incrementAndGet();
+            return false;
+        }
+        this.gain = gain;
+        ISSUED.incrementAndGet();
+        return true;
+    }
+
+    /** Counts a source validity check that was skipped because nothing needed pushing. */
+    public static void skippedValidation() {
+        SAVED.incrementAndGet();
+    }
+
+    /** Closes one spatial pass for {@link #savedLastFrame()}. Call from the spatial pass thread. */
+    public static void endFrame() {
+        long saved = SAVED.get();
+        savedLastFrame = saved - savedAtFrameStart;
+        savedAtFrameStart = saved;
+    }
+
+    /** OpenAL calls the last spatial pass left out. */
+    public static long savedLastFrame() {
+        return savedLastFrame;
+    }
+
+    /** OpenAL calls left out since startup. */
+    public static long savedCalls() {
+        return SAVED.get();
+    }
+
+    /** Position and gain updates that were pushed since startup. */
+    public static long issuedCalls() {
+        return ISSUED.get();
+    }
+}
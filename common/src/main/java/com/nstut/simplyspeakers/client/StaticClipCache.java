@@ -0,0 +1,144 @@
+package com.nstut.simplyspeakers.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Short tracks decoded whole into one OpenAL buffer each, keyed by cached file and evicted
+ * least recently used once their PCM exceeds the budget. A clip stays resident while any
+ * source still has it attached, since OpenAL refuses to delete a buffer in use.
+ * <p>
+ * Buffers belong to the context they were created in. When another context becomes current
+ * every clip is forgotten without being deleted, along with the references on it; sources
+ * from the old context must not release their clips afterwards.
+ */
+public final class StaticClipCache {
+
+    private static final class Clip {
+        final int bufferId;
+        final long bytes;
+        int references;
+
+        Clip(int bufferId, long bytes) {
+            this.bufferId = bufferId;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Map<String, Clip> clips = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongSupplier budgetBytes;
+    private final IntConsumer deleteBuffer;
+    private final LongSupplier currentContext;
+    private long context;
+    private long residentBytes = 0;
+
+    /**
+     * @param budgetBytes    current memory budget, read on every trim
+     * @param deleteBuffer   frees an evicted buffer; called on the thread that caused the eviction
+     * @param currentContext handle of the context current on the calling thread
+     */
+    public StaticClipCache(LongSupplier budgetBytes, IntConsumer deleteBuffer, LongSupplier currentContext) {
+        this.budgetBytes = budgetBytes;
+        this.deleteBuffer = deleteBuffer;
+        this.currentContext = currentContext;
+        this.context = currentContext.getAsLong();
+    }
+
+    /**
+     * @return whether a track of {@code durationSeconds} should be played from a static buffer
+     */
+    public static boolean isShortClip(float durationSeconds, int maxClipSeconds) {
+        return maxClipSeconds > 0 && durationSeconds > 0 && durationSeconds <= maxClipSeconds;
+    }
+
+    /**
+     * Takes a reference on a resident clip.
+     *
+     * @return its buffer, or 0 if {@code key} is not resident
+     */
+    public synchronized int acquire(String key) {
+        checkContext();
+        Clip clip = clips.get(key);
+        if (clip == null) {
+            return 0;
+        }
+        clip.references++;
+        return clip.bufferId;
+    }
+
+    /**
+     * Adds a freshly filled buffer and takes a reference on it. If another caller added the
+     * same clip first, the new buffer is deleted and the resident one returned instead.
+     */
+    public synchronized int put(String key, int bufferId, long bytes) {
+        checkContext();
+        Clip resident = clips.get(key);
+        if (resident != null) {
+            deleteBuffer.accept(bufferId);
+            resident.references++;
+            return resident.bufferId;
+        }
+        Clip clip = new Clip(bufferId, bytes);
+        clip.references = 1;
+        clips.put(key, clip);
+        residentBytes += bytes;
+        trim();
+        return bufferId;
+    }
+
+    /**
+     * Drops a reference taken by {@link #acquire} or {@link #put}.
+     */
+    public synchronized void release(String key) {
+        checkContext();
+        Clip clip = clips.get(key);
+        if (clip != null && clip.references > 0) {
+            clip.references--;
+            trim();
+        }
+    }
+
+    /** Deletes every clip no source is using. */
+    public synchronized void clear() {
+        checkContext();
+        evict(0);
+    }
+
+    public synchronized long residentBytes() {
+        checkContext();
+        return residentBytes;
+    }
+
+    public synchronized int size() {
+        checkContext();
+        return clips.size();
+    }
+
+    /** Forgets the clips of a context that is no longer current; their buffers died with it. */
+    private void checkContext() {
+        long current = currentContext.getAsLong();
+        if (current != context) {
+            context = current;
+            clips.clear();
+            residentBytes = 0;
+        }
+    }
+
+    private void trim() {
+        evict(Math.max(0, budgetBytes.getAsLong()));
+    }
+
+    private void evict(long limit) {
+        for (Iterator<Clip> it = clips.values().iterator(); residentBytes > limit && it.hasNext(); ) {
+            Clip clip = it.next();
+            if (clip.references == 0) {
+                it.remove();
+                residentBytes -= clip.bytes;
+                deleteBuffer.accept(clip.bufferId);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.nstut.simplyspeakers.client;
+
+/**
+ * Number of buffers one stream keeps queued. Fixed profiles never change it; the adaptive
+ * profile adds buffers whenever the source has played everything it was given, and gives
+ * one back after a long run of refills that still had audio to spare.
+ */
+public final class StreamBufferDepth {
+
+    /** Buffers added each time the source runs dry. */
+    static final int GROW_ON_UNDERRUN = 2;
+    /** Consecutive early refills before the depth shrinks by one buffer. */
+    static final int SHRINK_AFTER_EARLY_REFILLS = 40;
+
+    private final StreamingLatency profile;
+    private int depth;
+    private int earlyRefills = 0;
+    private int underruns = 0;
+
+    public StreamBufferDepth(StreamingLatency profile) {
+        this.profile = profile;
+        this.depth = profile.isAdaptive() ? Math.min(profile.maxBuffers(), profile.minBuffers() + 1) : profile.minBuffers();
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public int underruns() {
+        return underruns;
+    }
+
+    /**
+     * Records one service of a stream that has not reached the end of its audio.
+     *
+     * @param queuedBefore buffers queued after the previous refill
+     * @param processed    buffers the source finished since then
+     * @return true if the depth changed
+     */
+    public boolean recordService(int queuedBefore, int processed) {
+        if (queuedBefore <= 0) {
+            return false;
+        }
+        if (processed >= queuedBefore) {
+            underruns++;
+            earlyRefills = 0;
+            return resize(depth + GROW_ON_UNDERRUN);
+        }
+        if (queuedBefore - processed >= 2) {
+            if (++earlyRefills >= SHRINK_AFTER_EARLY_REFILLS) {
+                earlyRefills = 0;
+                return resize(depth - 1);
+            }
+        } else {
+            // Down to the buffer that is playing: not early, but not worth growing for either.
+            earlyRefills = 0;
+        }
+        return false;
+    }
+
+    private boolean resize(int requested) {
+        if (!profile.isAdaptive()) {
+            return false;
+        }
+        int clamped = Math.max(profile.minBuffers(), Math.min(profile.maxBuffers(), requested));
+        if (clamped == depth) {
+            return false;
+        }
+        depth = clamped;
+        return true;
+    }
+}
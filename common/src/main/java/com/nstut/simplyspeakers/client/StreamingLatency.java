@@ -0,0 +1,69 @@
+package com.nstut.simplyspeakers.client;
+
+import java.util.Locale;
+
+/**
+ * How much audio each client stream keeps queued on its OpenAL source. Less queued audio
+ * makes seeks and track changes audible sooner; more rides out slow disks and hitches.
+ */
+public enum StreamingLatency {
+    /** About 0.4 s queued in 100 ms buffers. */
+    LOW(100, 4, 4),
+    /** Three one-second buffers. */
+    DEFAULT(1000, 3, 3),
+    /** Six one-second buffers. */
+    RESILIENT(1000, 6, 6),
+    /** 250 ms buffers, between 3 and 12 queued depending on how often the source runs dry. */
+    ADAPTIVE(250, 3, 12);
+
+    private final int bufferMillis;
+    private final int minBuffers;
+    private final int maxBuffers;
+
+    StreamingLatency(int bufferMillis, int minBuffers, int maxBuffers) {
+        this.bufferMillis = bufferMillis;
+        this.minBuffers = minBuffers;
+        this.maxBuffers = maxBuffers;
+    }
+
+    public int bufferMillis() {
+        return bufferMillis;
+    }
+
+    public int minBuffers() {
+        return minBuffers;
+    }
+
+    /** Buffers to generate per source, the most this profile ever queues. */
+    public int maxBuffers() {
+        return maxBuffers;
+    }
+
+    public boolean isAdaptive() {
+        return maxBuffers > minBuffers;
+    }
+
+    /**
+     * @return bytes in one buffer of whole frames at the given stream format
+     */
+    public int bufferBytes(float frameRate, int frameSize) {
+        long frames = Math.max(1, (long) (frameRate * bufferMillis / 1000));
+        return (int) Math.min(Integer.MAX_VALUE - 7, frames * Math.max(1, frameSize));
+    }
+
+    /**
+     * Parses a config value case-insensitively.
+     *
+     * @return the profile, or null if the name is not recognised
+     */
+    public static StreamingLatency parse(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
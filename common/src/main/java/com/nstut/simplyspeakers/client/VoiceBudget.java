@@ -0,0 +1,103 @@
+package com.nstut.simplyspeakers.client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which speaker networks own a real OpenAL source. The most audible networks up to
+ * the budget are voiced; the rest are virtual and only keep their playback clock. A voiced
+ * network is displaced only by one clearly louder, and keeps its source through short
+ * silences, so voices do not flap at the edge of the budget or of a speaker's range.
+ */
+public final class VoiceBudget {
+
+    /** A virtual network must be this much louder than a voiced one to take its source. */
+    static final float HYSTERESIS = 1.5f;
+    /** How long a voiced network may stay inaudible before it gives up its source. */
+    static final long SILENT_GRACE_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    /**
+     * Networks to give a source to and networks to take one from.
+     */
+    public record Plan(List<String> promote, List<String> demote) {
+        public boolean isEmpty() {
+            return promote.isEmpty() && demote.isEmpty();
+        }
+    }
+
+    private final Map<String, Long> silentSince = new HashMap<>();
+
+    /**
+     * @param gains     audibility of every playing network, before game volume
+     * @param voiced    networks that currently own (or have requested) a source
+     * @param maxVoices source budget; 0 or less means only inaudible networks are virtual
+     * @param nowNanos  current {@link System#nanoTime()}
+     */
+    public synchronized Plan plan(Map<String, Float> gains, Set<String> voiced, int maxVoices, long nowNanos) {
+        silentSince.keySet().retainAll(gains.keySet());
+
+        List<String> candidates = new ArrayList<>();
+        Map<String, Float> scores = new HashMap<>();
+        for (Map.Entry<String, Float> entry : gains.entrySet()) {
+            String key = entry.getKey();
+            float gain = entry.getValue() != null ? entry.getValue() : 0f;
+            boolean isVoiced = voiced.contains(key);
+            if (gain > 0f) {
+                silentSince.remove(key);
+            } else if (isVoiced) {
+                long since = silentSince.computeIfAbsent(key, k -> nowNanos);
+                if (nowNanos - since >= SILENT_GRACE_NANOS) {
+                    continue;
+                }
+            } else {
+                continue;
+            }
+            candidates.add(key);
+            scores.put(key, isVoiced ? gain * HYSTERESIS : gain);
+        }
+
+        candidates.sort(Comparator.<String>comparingDouble(scores::get).reversed()
+                .thenComparing(key -> !voiced.contains(key))
+                .thenComparing(Comparator.naturalOrder()));
+        Set<String> wanted = new HashSet<>(maxVoices > 0 && candidates.size() > maxVoices
+                ? candidates.subList(0, maxVoices) : candidates);
+
+        List<String> promote = new ArrayList<>();
+        for (String key : candidates) {
+            if (wanted.contains(key) && !voiced.contains(key)) {
+                promote.add(key);
+            }
+        }
+        List<String> demote = new ArrayList<>();
+        for (String key : gains.keySet()) {
+            if (voiced.contains(key) && !wanted.contains(key)) {
+                demote.add(key);
+            }
+        }
+        return new Plan(promote, demote);
+    }
+
+    /**
+     * @return whether a network starting now can take a source without waiting for a plan
+     */
+    public static boolean hasFreeVoice(int voiced, int maxVoices) {
+        return maxVoices <= 0 || voiced < maxVoices;
+    }
+
+    /**
+     * Networks that fit a source budget when each voiced network plays through
+     * {@code sourcesPerNetwork} sources; at least one, and 0 when the budget is unlimited.
+     */
+    public static int networkLimit(int maxVoices, int sourcesPerNetwork) {
+        if (maxVoices <= 0) {
+            return 0;
+        }
+        return Math.max(1, maxVoices / Math.max(1, sourcesPerNetwork));
+    }
+}
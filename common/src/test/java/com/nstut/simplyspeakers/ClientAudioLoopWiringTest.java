@@ -14,25 +14,13 @@ class ClientAudioLoopWiringTest {
     private static final List<String> VERSION_MODULES =
             List.of("common-1.20.1", "common-1.21.1", "neoforge-26.1.2");
 
-    @Test
-    void everyVersionDrainsQueuedAudioBeforeRestartingLoop() throws IOException {
-        Path root = findProjectRoot();
-        for (String module : VERSION_MODULES) {
-            String code = readPlayer(root, module);
-            assertTrue(code.contains("endOfStream && queuedBuffers == 0"),
-                    module + " must wait for queued audio to finish before restarting");
-            assertTrue(code.contains("Draining queued audio before restart"),
-                    module + " must enter the EOF drain state");
-        }
-    }
-
     @Test
     void everyVersionResetsLoopBeforeQueuingNextCycle() throws IOException {
         Path root = findProjectRoot();
         for (String module : VERSION_MODULES) {
             String code = readPlayer(root, module);
             int loopRestart = code.indexOf("Audio track finished for {}. Looping enabled, restarting.");
-            int nextCycle = code.indexOf("// The outer while loop will re-initialize", loopRestart);
+            int nextCycle = code.indexOf("openStream()", loopRestart);
             String resetBlock = code.substring(loopRestart, nextCycle);
 
             assertFalse(resetBlock.contains("Minecraft.getInstance().tell"),
@@ -42,6 +30,37 @@ class ClientAudioLoopWiringTest {
         }
     }
 
+    /**
+     * Smoke test that each version streams through the shared helpers; their behaviour is
+     * covered by the tests of the helpers themselves.
+     */
+    @Test
+    void everyVersionStreamsThroughTheSharedClientHelpers() throws IOException {
+        Path root = findProjectRoot();
+        List<String> calls = List.of(
+                "AudioPump.shared().schedule(this)",
+                "PRE_ROLL.execute(",
+                "SharedBufferQueue.unqueuePlayed(AL_CALLS",
+                "SharedBufferQueue.queue(AL_CALLS",
+                "DriftCorrector.driftSeconds(",
+                "pushed.push(AL_CALLS",
+                "SOURCE_POOL.lease()",
+                "STATIC_CLIPS.acquire(",
+                "VOICE_BUDGET.plan(");
+        for (String module : VERSION_MODULES) {
+            String code = readPlayer(root, module);
+            for (String call : calls) {
+                assertTrue(code.contains(call), module + " must call " + call);
+            }
+            for (String entity : List.of("SpeakerBlockEntity", "ProxySpeakerBlockEntity")) {
+                String source = Files.readString(root.resolve(module).resolve(
+                        "src/main/java/com/nstut/simplyspeakers/blocks/entities/" + entity + ".java"));
+                assertTrue(source.contains("ClientAudioPlayer.updateEmitter(worldPosition"),
+                        module + " " + entity + " must push its settings to the emitter table");
+            }
+        }
+    }
+
     private static String readPlayer(Path root, String module) throws IOException {
         return Files.readString(root.resolve(module).resolve(
                 "src/main/java/com/nstut/simplyspeakers/client/ClientAudioPlayer.java"));
@@ -0,0 +1,88 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AudioDecodersTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void exposesBuiltInExtensions() {
+        assertTrue(AudioDecoders.supportedExtensions().containsAll(java.util.List.of("mp3", "wav", "flac", "ogg")));
+        assertTrue(AudioDecoders.isSupportedFilename("Song.FLAC"));
+        assertTrue(AudioDecoders.isSupportedFilename("track.ogg"));
+        assertFalse(AudioDecoders.isSupportedFilename("notes.txt"));
+        assertFalse(AudioDecoders.isSupportedFilename("noextension"));
+    }
+
+    @Test
+    void probesContentBeforeExtension() throws Exception {
+        int[][] pcm = FlacAudioInputStreamTest.stereoSignal(1224);
+        File flac = FlacAudioInputStreamTest.writeStereoFlac(tempDir.resolve("mislabelled.mp3"), pcm, false);
+
+        assertInstanceOf(FlacDecoderProvider.class, AudioDecoders.forFile(flac));
+        assertTrue(AudioDecoders.validate(flac, "flac"));
+        assertFalse(AudioDecoders.validate(flac, "mp3"));
+    }
+
+    @Test
+    void fallsBackToExtensionForUnrecognisedContent() throws Exception {
+        Path junk = tempDir.resolve("junk.xyz");
+        Files.write(junk, new byte[]{1, 2, 3, 4});
+        Path mp3Named = tempDir.resolve("empty.mp3");
+        Files.write(mp3Named, new byte[0]);
+
+        assertNull(AudioDecoders.forFile(junk.toFile()));
+        assertInstanceOf(Mp3DecoderProvider.class, AudioDecoders.forFile(mp3Named.toFile()));
+        assertFalse(AudioDecoders.validate(mp3Named.toFile(), "mp3"));
+        assertEquals(AudioStreamInfo.UNKNOWN, AudioDecoders.readStreamInfo(junk.toFile()));
+    }
+
+    @Test
+    void readsVorbisLengthFromLastGranuleWithoutDecoding() throws Exception {
+        int serial = 0x1234;
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        byte[] identification = new byte[30];
+        identification[0] = 0x01;
+        System.arraycopy("vorbis".getBytes(), 0, identification, 1, 6);
+        identification[11] = 2;
+        identification[12] = (byte) 0x80;
+        identification[13] = (byte) 0xBB; // 48000 Hz
+        file.writeBytes(oggPage(serial, 0, 0x02, identification));
+        file.writeBytes(oggPage(serial, 48000, 0x00, new byte[100]));
+        file.writeBytes(oggPage(0x9999, 999999, 0x00, new byte[10])); // other logical stream
+        file.writeBytes(oggPage(serial, 96123, 0x04, new byte[50]));
+        Path ogg = tempDir.resolve("tone.ogg");
+        Files.write(ogg, file.toByteArray());
+
+        assertInstanceOf(VorbisDecoderProvider.class, AudioDecoders.forFile(ogg.toFile()));
+        assertEquals(new AudioStreamInfo(96123, 48000, 2, 0, 0), AudioDecoders.readStreamInfo(ogg.toFile()));
+    }
+
+    private static byte[] oggPage(int serial, long granule, int flags, byte[] body) {
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        page.writeBytes("OggS".getBytes());
+        page.write(0);
+        page.write(flags);
+        for (int i = 0; i < 8; i++) page.write((int) (granule >>> (8 * i)));
+        for (int i = 0; i < 4; i++) page.write(serial >>> (8 * i));
+        for (int i = 0; i < 8; i++) page.write(0); // sequence number and CRC are not checked here
+        page.write(1);
+        page.write(body.length);
+        page.writeBytes(body);
+        return page.toByteArray();
+    }
+}
@@ -0,0 +1,130 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AudioMetadataExtractorTest {
+    private static final byte[] MONO_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, (byte) 0xC0};
+    private static final int FRAME_LENGTH = 417;
+    private static final int XING_OFFSET = 4 + 17;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsFrameCountAndGaplessInfoFromLameTag() throws IOException {
+        byte[] info = new byte[FRAME_LENGTH];
+        System.arraycopy(MONO_HEADER, 0, info, 0, 4);
+        writeAscii(info, XING_OFFSET, "Info");
+        writeInt(info, XING_OFFSET + 4, 0x1);
+        writeInt(info, XING_OFFSET + 8, 1000); // tag claims far more frames than the file holds
+        int lame = XING_OFFSET + 12;
+        writeAscii(info, lame, "LAME3.100");
+        int packed = (576 << 12) | 1234;
+        info[lame + 21] = (byte) (packed >>> 16);
+        info[lame + 22] = (byte) (packed >>> 8);
+        info[lame + 23] = (byte) packed;
+
+        File mp3 = writeMp3(tempDir.resolve("lame.mp3"), info, 5);
+        AudioStreamInfo streamInfo = AudioMetadataExtractor.extract(mp3);
+
+        assertEquals(1000L * 1152 - 576 - 1234, streamInfo.totalSampleFrames());
+        assertEquals(44100, streamInfo.sampleRate());
+        assertEquals(1, streamInfo.channels());
+        assertEquals(576, streamInfo.encoderDelay());
+        assertEquals(1234, streamInfo.encoderPadding());
+    }
+
+    @Test
+    void countsFramesWhenNoInfoHeaderIsPresent() throws IOException {
+        File mp3 = Mp3SeekTableTest.writeSilentMp3(tempDir.resolve("cbr.mp3"), 37, 64);
+
+        AudioStreamInfo streamInfo = AudioMetadataExtractor.extract(mp3);
+
+        assertEquals(37L * 1152, streamInfo.totalSampleFrames());
+        assertFalse(streamInfo.hasInfoFrame());
+        assertEquals(37L * 1152 / 44100.0f, streamInfo.durationSeconds(), 1e-6f);
+        assertEquals(37L * 1152 / 44100.0f, AudioDurationCalculator.calculateMp3Duration(mp3), 1e-6f);
+    }
+
+    @Test
+    void infoFrameWithoutCountIsExcludedFromFrameCount() throws IOException {
+        byte[] info = new byte[FRAME_LENGTH];
+        System.arraycopy(MONO_HEADER, 0, info, 0, 4);
+        writeAscii(info, XING_OFFSET, "Xing");
+
+        File mp3 = writeMp3(tempDir.resolve("xing.mp3"), info, 12);
+        AudioStreamInfo streamInfo = AudioMetadataExtractor.extract(mp3);
+
+        assertEquals(12L * 1152, streamInfo.totalSampleFrames());
+        assertTrue(streamInfo.hasInfoFrame());
+    }
+
+    @Test
+    void readsExactWavFrameCount() throws IOException {
+        AudioFormat format = new AudioFormat(22050f, 16, 2, true, false);
+        int frames = 12345;
+        byte[] pcm = new byte[frames * format.getFrameSize()];
+        File wav = tempDir.resolve("clip.wav").toFile();
+        try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(pcm), format, frames)) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, wav);
+        }
+
+        AudioStreamInfo streamInfo = AudioMetadataExtractor.extract(wav);
+
+        assertEquals(frames, streamInfo.totalSampleFrames());
+        assertEquals(22050, streamInfo.sampleRate());
+        assertEquals(2, streamInfo.channels());
+    }
+
+    @Test
+    void unreadableFilesAreUnknown() throws IOException {
+        Path junk = tempDir.resolve("junk.mp3");
+        Files.write(junk, new byte[512]);
+
+        AudioStreamInfo streamInfo = AudioMetadataExtractor.extract(junk.toFile());
+
+        assertSame(AudioStreamInfo.UNKNOWN, streamInfo);
+        assertFalse(streamInfo.isKnown());
+    }
+
+    private static File writeMp3(Path path, byte[] firstFrame, int audioFrames) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(firstFrame);
+        for (int i = 0; i < audioFrames; i++) {
+            out.write(MONO_HEADER);
+            out.write(new byte[FRAME_LENGTH - MONO_HEADER.length]);
+        }
+        Files.write(path, out.toByteArray());
+        return path.toFile();
+    }
+
+    private static void writeAscii(byte[] target, int offset, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            target[offset + i] = (byte) text.charAt(i);
+        }
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+}
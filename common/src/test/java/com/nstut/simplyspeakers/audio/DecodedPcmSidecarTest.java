@@ -0,0 +1,94 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecodedPcmSidecarTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sidecarMatchesLiveDecodeAndSeeksInPlace() throws Exception {
+        File wav = stereoWav("track.wav", 3000);
+        byte[] live;
+        try (AudioInputStream stream = LoopingPcmStream.open(wav, () -> false)) {
+            live = stream.readAllBytes();
+        }
+
+        long size = DecodedPcmSidecar.write(wav);
+        assertEquals(DecodedPcmSidecar.HEADER_BYTES + live.length, size);
+        assertFalse(new File(tempDir.toFile(), "track.wav.pcm.tmp").exists());
+
+        try (AudioInputStream decoded = DecodedPcmSidecar.open(wav)) {
+            assertEquals(22050f, decoded.getFormat().getSampleRate());
+            assertEquals(3000, decoded.getFrameLength());
+            assertInstanceOf(SeekablePcmStream.class, decoded);
+            assertArrayEquals(live, decoded.readAllBytes());
+
+            ((SeekablePcmStream) decoded).seekToSampleFrame(2500);
+            assertArrayEquals(Arrays.copyOfRange(live, 5000, 6000), decoded.readAllBytes());
+        }
+    }
+
+    @Test
+    void wrappedSidecarLoopsGaplessly() throws Exception {
+        File wav = stereoWav("loop.wav", 100);
+        DecodedPcmSidecar.write(wav);
+        byte[] pass;
+        try (AudioInputStream stream = DecodedPcmSidecar.open(wav)) {
+            pass = stream.readAllBytes();
+        }
+
+        try (LoopingPcmStream looping = LoopingPcmStream.wrap(DecodedPcmSidecar.open(wav), () -> true)) {
+            byte[] out = new byte[pass.length * 2 + 20];
+            int total = 0;
+            while (total < out.length) {
+                total += looping.read(out, total, out.length - total);
+            }
+            assertArrayEquals(pass, Arrays.copyOfRange(out, 0, pass.length));
+            assertArrayEquals(pass, Arrays.copyOfRange(out, pass.length, pass.length * 2));
+            assertArrayEquals(Arrays.copyOfRange(pass, 0, 20), Arrays.copyOfRange(out, pass.length * 2, out.length));
+        }
+    }
+
+    @Test
+    void staleOrMissingSidecarsAreIgnored() throws Exception {
+        File wav = stereoWav("stale.wav", 200);
+        assertNull(DecodedPcmSidecar.open(wav));
+
+        DecodedPcmSidecar.write(wav);
+        stereoWav("stale.wav", 300);
+        assertNull(DecodedPcmSidecar.open(wav));
+
+        File sidecar = DecodedPcmSidecar.sidecarFor(wav);
+        DecodedPcmSidecar.write(wav);
+        Files.write(sidecar.toPath(), Arrays.copyOf(Files.readAllBytes(sidecar.toPath()), (int) sidecar.length() - 2));
+        assertNull(DecodedPcmSidecar.open(wav));
+        assertTrue(sidecar.delete());
+    }
+
+    private File stereoWav(String name, int frames) throws Exception {
+        ByteBuffer data = ByteBuffer.allocate(frames * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames; i++) {
+            data.putShort((short) (i * 37)).putShort((short) (-i * 11));
+        }
+        return WavAudioInputStreamTest.writeWav(tempDir.resolve(name), WavAudioInputStreamTest.fmt(1, 2, 22050, 16),
+                data.array(), false, false);
+    }
+}
@@ -0,0 +1,115 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class DirectPcmSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void wavDecodesIntoDirectBuffersOfEitherByteOrder() throws Exception {
+        File wav = stereoWav("direct.wav", 5000);
+        byte[] expected;
+        try (AudioInputStream stream = LoopingPcmStream.open(wav, () -> false)) {
+            expected = stream.readAllBytes();
+        }
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            try (AudioInputStream stream = LoopingPcmStream.open(wav, () -> false)) {
+                assertArrayEquals(expected, drain(stream, order, 3000), order.toString());
+            }
+        }
+    }
+
+    @Test
+    void resamplerWritesStraightIntoTheBuffer() throws Exception {
+        File wav = stereoWav("resample.wav", 4000);
+        byte[] expected;
+        try (AudioInputStream stream = new ResamplingPcmStream(LoopingPcmStream.open(wav, () -> false), 48000)) {
+            expected = stream.readAllBytes();
+        }
+        try (AudioInputStream stream = new ResamplingPcmStream(LoopingPcmStream.open(wav, () -> false), 48000)) {
+            assertArrayEquals(expected, drain(stream, ByteOrder.nativeOrder(), 4096));
+        }
+    }
+
+    @Test
+    void mp3AndSidecarStreamsDecodeDirectly() throws Exception {
+        File mp3 = LoopingPcmStreamTest.writeLameTaggedMp3(tempDir.resolve("direct.mp3"), 6, 576, 300);
+        byte[] expected;
+        try (AudioInputStream stream = LoopingPcmStream.open(mp3, () -> false)) {
+            expected = stream.readAllBytes();
+        }
+        try (AudioInputStream stream = LoopingPcmStream.open(mp3, () -> false)) {
+            assertArrayEquals(expected, drain(stream, ByteOrder.BIG_ENDIAN, 1001));
+        }
+
+        File wav = stereoWav("sidecar.wav", 3000);
+        DecodedPcmSidecar.write(wav);
+        try (AudioInputStream plain = DecodedPcmSidecar.open(wav);
+             AudioInputStream direct = DecodedPcmSidecar.open(wav)) {
+            assertInstanceOf(DirectPcmSource.class, direct);
+            byte[] bytes = plain.readAllBytes();
+            assertArrayEquals(bytes, drain(direct, ByteOrder.BIG_ENDIAN, 2048));
+        }
+    }
+
+    @Test
+    void plainStreamsAreCopiedThroughScratchAndSwapped() throws IOException {
+        byte[] samples = {0x01, 0x02, 0x03, 0x04, 0x05, 0x06};
+        ByteBuffer dst = ByteBuffer.allocateDirect(8).order(ByteOrder.BIG_ENDIAN);
+
+        int read = DirectPcmSource.read(new ByteArrayInputStream(samples), dst, new byte[4]);
+
+        assertEquals(4, read);
+        assertEquals(0x0201, dst.getShort(0));
+        assertEquals(0x0403, dst.getShort(2));
+    }
+
+    /**
+     * Reads the stream through direct buffers and returns the samples little-endian.
+     */
+    private static byte[] drain(InputStream stream, ByteOrder order, int chunk) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(chunk).order(order);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (true) {
+            buffer.clear();
+            int read = DirectPcmSource.read(stream, buffer, new byte[chunk]);
+            if (read < 0) {
+                return out.toByteArray();
+            }
+            assertEquals(read, buffer.position());
+            buffer.flip().order(order);
+            while (buffer.remaining() >= 2) {
+                short sample = buffer.getShort();
+                out.write(sample);
+                out.write(sample >> 8);
+            }
+        }
+    }
+
+    private File stereoWav(String name, int frames) throws Exception {
+        ByteBuffer data = ByteBuffer.allocate(frames * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames; i++) {
+            data.putShort((short) (i * 53)).putShort((short) (7 - i * 29));
+        }
+        return WavAudioInputStreamTest.writeWav(tempDir.resolve(name), WavAudioInputStreamTest.fmt(1, 2, 44100, 16),
+                data.array(), false, false);
+    }
+}
@@ -0,0 +1,187 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmitterTableTest {
+
+    @Test
+    void mixTracksTheListBasedVirtualEmitter() {
+        Random random = new Random(7);
+        EmitterTable table = new EmitterTable();
+        table.clear();
+        List<SpatialAudioCalculator.SpeakerEmitter> emitters = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            double x = random.nextDouble() * 64;
+            double y = 60 + random.nextDouble() * 8;
+            double z = random.nextDouble() * 64;
+            int range = 8 + random.nextInt(40);
+            float volume = random.nextFloat();
+            float dropoff = random.nextFloat();
+            emitters.add(new SpatialAudioCalculator.SpeakerEmitter(x, y, z, range, volume, dropoff));
+            table.add(i, x, y, z, range, volume, dropoff, false);
+        }
+
+        SpatialAudioCalculator.VirtualEmitterResult expected =
+                SpatialAudioCalculator.calculateVirtualEmitter(20.0, 64.0, 30.0, emitters);
+        assertTrue(table.mix(20.0, 64.0, 30.0));
+
+        assertEquals(expected.x(), table.mixX(), 0.05);
+        assertEquals(expected.y(), table.mixY(), 0.05);
+        assertEquals(expected.z(), table.mixZ(), 0.05);
+        assertEquals(expected.maxGain(), table.maxGain(), 0.005f);
+        assertEquals(expected.totalWeight(), table.totalWeight(), 0.25f);
+    }
+
+    @Test
+    void inaudibleMixSitsOnFirstVisibleEmitter() {
+        EmitterTable table = new EmitterTable();
+        table.clear();
+        table.add(1, 0.0, 64.0, 0.0, 16, 1.0f, 1.0f, true);
+        table.add(2, 100.0, 64.0, 0.0, 16, 1.0f, 1.0f, false);
+        table.hide(0);
+
+        assertTrue(table.mix(500.0, 64.0, 0.0));
+        assertEquals(100.0, table.mixX(), 1e-9);
+        assertEquals(0.0f, table.maxGain());
+    }
+
+    @Test
+    void hiddenEmittersAreLeftOutUntilPlacedAgain() {
+        EmitterTable table = new EmitterTable();
+        table.clear();
+        table.add(1, 0.0, 64.0, 0.0, 16, 1.0f, 0.0f, true);
+        table.hide(0);
+        assertFalse(table.mix(0.0, 64.0, 0.0));
+
+        table.setPosition(0, 4.0, 64.0, 0.0);
+        assertTrue(table.mix(0.0, 64.0, 0.0));
+        assertEquals(4.0, table.mixX(), 1e-9);
+        assertEquals(1.0f, table.maxGain());
+    }
+
+    @Test
+    void gridMixOfARailLineMatchesTheFlatPass() {
+        Random random = new Random(11);
+        EmitterTable table = new EmitterTable();
+        table.clear();
+        int count = 500;
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double[] z = new double[count];
+        int[] range = new int[count];
+        float[] volume = new float[count];
+        float[] dropoff = new float[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = i * 4.0;
+            y[i] = 64.0;
+            z[i] = random.nextDouble() * 2;
+            range[i] = 8 + random.nextInt(24);
+            volume[i] = 0.2f + random.nextFloat() * 0.8f;
+            dropoff[i] = random.nextFloat();
+            table.add(i, x[i], y[i], z[i], range[i], volume[i], dropoff[i], i == 250);
+        }
+        float[] gains = new float[count];
+        SpatialAudioCalculator.VirtualEmitterMix expected = new SpatialAudioCalculator.VirtualEmitterMix();
+
+        for (double listenerX = -100.0; listenerX < 2100.0; listenerX += 37.3) {
+            table.setPosition(table.size() / 2, listenerX + 3.0, 64.0, 0.0);
+            x[250] = listenerX + 3.0;
+            z[250] = 0.0;
+            assertTrue(SpatialAudioCalculator.calculateVirtualEmitter(listenerX, 65.0, 1.0,
+                    x, y, z, range, volume, dropoff, count, gains, expected));
+            assertTrue(table.mix(listenerX, 65.0, 1.0));
+
+            assertEquals(expected.x(), table.mixX(), 1e-3);
+            assertEquals(expected.y(), table.mixY(), 1e-3);
+            assertEquals(expected.z(), table.mixZ(), 1e-3);
+            assertEquals(expected.maxGain(), table.maxGain(), 1e-6f);
+            assertEquals(expected.totalWeight(), table.totalWeight(), 1e-4f);
+            for (int i = 0; i < count; i++) {
+                assertEquals(gains[i], table.gain(i), 1e-6f, "gain " + i + " at " + listenerX);
+            }
+            assertTrue(table.visitedLastMix() < 60, "visited " + table.visitedLastMix());
+        }
+    }
+
+    @Test
+    void gridMixWithNothingNearbySitsOnFirstEmitter() {
+        EmitterTable table = new EmitterTable();
+        table.clear();
+        for (int i = 0; i < EmitterTable.GRID_MIN_EMITTERS; i++) {
+            table.add(i, i * 10.0, 64.0, 0.0, 16, 1.0f, 0.5f, false);
+        }
+
+        assertTrue(table.mix(5000.0, 64.0, 5000.0));
+        assertEquals(0.0, table.mixX(), 1e-9);
+        assertEquals(0.0f, table.maxGain());
+        assertEquals(0, table.visitedLastMix());
+    }
+
+    @Test
+    void loudestListsAudibleEmittersByGain() {
+        EmitterTable table = new EmitterTable();
+        table.clear();
+        table.add(0, 12.0, 64.0, 0.0, 16, 1.0f, 1.0f, false);
+        table.add(1, 2.0, 64.0, 0.0, 16, 1.0f, 1.0f, false);
+        table.add(2, 100.0, 64.0, 0.0, 16, 1.0f, 1.0f, false);
+        table.add(3, -6.0, 64.0, 0.0, 16, 1.0f, 1.0f, false);
+        assertTrue(table.mix(0.0, 64.0, 0.0));
+
+        int[] order = new int[4];
+        assertEquals(3, table.loudest(order, 4));
+        assertEquals(1, order[0]);
+        assertEquals(3, order[1]);
+        assertEquals(0, order[2]);
+
+        assertEquals(2, table.loudest(order, 2));
+        assertEquals(1, order[0]);
+        assertEquals(3, order[1]);
+        assertEquals(2.0, table.x(order[0]), 1e-9);
+    }
+
+    @Test
+    void loudestOnlyListsGridEmittersNearTheListener() {
+        EmitterTable table = new EmitterTable();
+        table.clear();
+        for (int i = 0; i < 200; i++) {
+            table.add(i, i * 8.0, 64.0, 0.0, 16, 1.0f, 0.5f, false);
+        }
+        assertTrue(table.mix(801.0, 64.0, 0.0));
+
+        int[] order = new int[3];
+        assertEquals(3, table.loudest(order, 3));
+        assertEquals(100, order[0]);
+        assertEquals(Set.of(99, 101), Set.of(order[1], order[2]));
+    }
+
+    @Test
+    void rebuildKeepsCapacityAndTracksMovingEmitters() {
+        EmitterTable table = new EmitterTable();
+        assertTrue(table.isStale());
+        table.clear();
+        for (int i = 0; i < 10; i++) {
+            table.add(i, i, 64.0, 0.0, 16, 1.0f, 1.0f, i == 3);
+        }
+        assertFalse(table.isStale());
+        assertEquals(10, table.size());
+        assertTrue(table.hasMoving());
+        assertTrue(table.isMoving(3));
+        assertEquals(7L, table.key(7));
+
+        table.invalidate();
+        assertTrue(table.isStale());
+        table.clear();
+        table.add(42, 0.0, 64.0, 0.0, 16, 1.0f, 1.0f, false);
+        assertEquals(1, table.size());
+        assertFalse(table.hasMoving());
+    }
+}
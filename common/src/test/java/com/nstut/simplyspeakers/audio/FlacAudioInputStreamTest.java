@@ -0,0 +1,389 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlacAudioInputStreamTest {
+    private static final int BLOCK = 256;
+    private static final int TOTAL = BLOCK * 4 + 200;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void decodesEverySubframeTypeAndStereoDecorrelation() throws Exception {
+        int[][] pcm = stereoSignal(TOTAL);
+        File flac = writeStereoFlac(tempDir.resolve("mix.flac"), pcm, false);
+
+        try (FlacAudioInputStream stream = new FlacAudioInputStream(flac)) {
+            assertEquals(44100f, stream.getFormat().getSampleRate());
+            assertEquals(1, stream.getFormat().getChannels());
+            assertEquals(TOTAL, stream.getFrameLength());
+            assertArrayEquals(expectedMono(pcm, 0), stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void seeksThroughSeekTableAndRewinds() throws Exception {
+        int[][] pcm = stereoSignal(TOTAL);
+        File flac = writeStereoFlac(tempDir.resolve("seek.flac"), pcm, true);
+
+        try (FlacAudioInputStream stream = new FlacAudioInputStream(flac)) {
+            assertTrue(stream.seekToSampleFrame(800));
+            assertArrayEquals(expectedMono(pcm, 800), stream.readAllBytes());
+
+            assertTrue(stream.seekToSampleFrame(10));
+            byte[] expected = expectedMono(pcm, 10);
+            assertArrayEquals(expected, stream.readAllBytes());
+
+            stream.rewind();
+            assertArrayEquals(expectedMono(pcm, 0), stream.readAllBytes());
+
+            assertFalse(stream.seekToSampleFrame(TOTAL));
+        }
+    }
+
+    @Test
+    void skipLandsOnTheRequestedSample() throws Exception {
+        int[][] pcm = stereoSignal(TOTAL);
+        File flac = writeStereoFlac(tempDir.resolve("skip.flac"), pcm, false);
+
+        try (FlacAudioInputStream stream = new FlacAudioInputStream(flac)) {
+            stream.readNBytes(100);
+            assertEquals(1000, stream.skip(1000));
+            assertArrayEquals(expectedMono(pcm, 550), stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void scales24BitSamplesTo16Bit() throws Exception {
+        int[] samples = new int[BLOCK];
+        for (int i = 0; i < BLOCK; i++) {
+            samples[i] = (int) (Math.sin(i / 7.0) * 4_000_000);
+        }
+        FlacWriter writer = new FlacWriter(44100, 1, 24, BLOCK, BLOCK);
+        writer.beginFrame(BLOCK, 0);
+        writer.fixedSubframe(samples, BLOCK, 24, 1, 0, 14);
+        writer.endFrame();
+        File flac = writer.write(tempDir.resolve("hires.flac"));
+
+        try (FlacAudioInputStream stream = new FlacAudioInputStream(flac)) {
+            byte[] out = stream.readAllBytes();
+            assertEquals(BLOCK * 2, out.length);
+            for (int i = 0; i < BLOCK; i++) {
+                assertEquals((short) (samples[i] >> 8), (short) ((out[i * 2] & 0xFF) | (out[i * 2 + 1] << 8)));
+            }
+        }
+    }
+
+    @Test
+    void streamInfoComesFromStreamInfoBlock() throws Exception {
+        File flac = writeStereoFlac(tempDir.resolve("info.flac"), stereoSignal(TOTAL), true);
+
+        AudioStreamInfo info = FlacAudioInputStream.readStreamInfo(flac);
+
+        assertEquals(new AudioStreamInfo(TOTAL, 44100, 2, 0, 0), info);
+    }
+
+    static int[][] stereoSignal(int frames) {
+        int[][] pcm = new int[2][frames];
+        for (int i = 0; i < frames; i++) {
+            pcm[0][i] = (int) (Math.sin(i / 9.0) * 12000) & ~3; // low bits clear for wasted-bits frames
+            pcm[1][i] = (int) (Math.cos(i / 13.0) * 9000) & ~3;
+        }
+        return pcm;
+    }
+
+    static byte[] expectedMono(int[][] pcm, int from) {
+        int frames = pcm[0].length - from;
+        byte[] out = new byte[frames * 2];
+        for (int i = 0; i < frames; i++) {
+            long mono = ((long) pcm[0][from + i] + pcm[1][from + i]) / 2;
+            out[i * 2] = (byte) mono;
+            out[i * 2 + 1] = (byte) (mono >> 8);
+        }
+        return out;
+    }
+
+    /**
+     * One frame per channel assignment and subframe type: independent verbatim,
+     * left-side fixed with an escaped partition, mid-side LPC with partitions, right-side
+     * with wasted bits, and a short final independent frame.
+     */
+    static File writeStereoFlac(Path path, int[][] pcm, boolean seekTable) throws IOException {
+        FlacWriter writer = new FlacWriter(44100, 2, 16, BLOCK, pcm[0].length);
+        int[] left = pcm[0];
+        int[] right = pcm[1];
+
+        writer.beginFrame(BLOCK, 1);
+        writer.verbatimSubframe(slice(left, 0, BLOCK), 16);
+        writer.verbatimSubframe(slice(right, 0, BLOCK), 16);
+        writer.endFrame();
+
+        int[] l = slice(left, BLOCK, BLOCK);
+        int[] side = new int[BLOCK];
+        for (int i = 0; i < BLOCK; i++) side[i] = l[i] - right[BLOCK + i];
+        writer.beginFrame(BLOCK, 8);
+        writer.fixedSubframe(l, BLOCK, 16, 2, 0, 10);
+        writer.fixedSubframe(side, BLOCK, 17, 1, 0, FlacWriter.ESCAPE);
+        writer.endFrame();
+
+        int[] mid = new int[BLOCK];
+        side = new int[BLOCK];
+        for (int i = 0; i < BLOCK; i++) {
+            mid[i] = (left[2 * BLOCK + i] + right[2 * BLOCK + i]) >> 1;
+            side[i] = left[2 * BLOCK + i] - right[2 * BLOCK + i];
+        }
+        writer.beginFrame(BLOCK, 10);
+        writer.lpcSubframe(mid, BLOCK, 16, new int[]{1800, -850}, 10, 2);
+        writer.lpcSubframe(side, BLOCK, 17, new int[]{1000}, 10, 0);
+        writer.endFrame();
+
+        side = new int[BLOCK];
+        for (int i = 0; i < BLOCK; i++) side[i] = left[3 * BLOCK + i] - right[3 * BLOCK + i];
+        writer.beginFrame(BLOCK, 9);
+        writer.wastedBitsSubframe(side, BLOCK, 17, 2);
+        writer.wastedBitsSubframe(slice(right, 3 * BLOCK, BLOCK), BLOCK, 16, 2);
+        writer.endFrame();
+
+        int tail = pcm[0].length - 4 * BLOCK;
+        writer.beginFrame(tail, 1);
+        writer.fixedSubframe(slice(left, 4 * BLOCK, tail), tail, 16, 3, 0, 12);
+        writer.fixedSubframe(slice(right, 4 * BLOCK, tail), tail, 16, 0, 0, 13);
+        writer.endFrame();
+
+        if (seekTable) {
+            writer.seekPoint(0, 0);
+            writer.seekPoint(2 * BLOCK, 2);
+            writer.seekPoint(3 * BLOCK, 3);
+        }
+        return writer.write(path);
+    }
+
+    private static int[] slice(int[] source, int from, int length) {
+        int[] out = new int[length];
+        System.arraycopy(source, from, out, 0, length);
+        return out;
+    }
+
+    /**
+     * Minimal FLAC encoder for tests: block-size code 7, sample rate and size from STREAMINFO,
+     * real CRC-8/CRC-16 footers, and an optional SEEKTABLE built from recorded frame offsets.
+     */
+    static final class FlacWriter {
+        static final int ESCAPE = -1;
+
+        private final int sampleRate;
+        private final int channels;
+        private final int bitsPerSample;
+        private final int maxBlockSize;
+        private final long totalSamples;
+        private final ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        private final List<Integer> frameOffsets = new ArrayList<>();
+        private final List<long[]> seekPoints = new ArrayList<>();
+        private BitWriter frame;
+        private int frameNumber = 0;
+
+        FlacWriter(int sampleRate, int channels, int bitsPerSample, int maxBlockSize, long totalSamples) {
+            this.sampleRate = sampleRate;
+            this.channels = channels;
+            this.bitsPerSample = bitsPerSample;
+            this.maxBlockSize = maxBlockSize;
+            this.totalSamples = totalSamples;
+        }
+
+        void beginFrame(int blockSize, int channelAssignment) {
+            frameOffsets.add(frames.size());
+            frame = new BitWriter();
+            frame.bits(0xFFF8, 16);
+            frame.bits(7, 4);
+            frame.bits(0, 4);
+            frame.bits(channelAssignment, 4);
+            frame.bits(0, 3);
+            frame.bits(0, 1);
+            frame.bits(frameNumber++, 8);
+            frame.bits(blockSize - 1, 16);
+            frame.bits(crc8(frame.toByteArray()), 8);
+        }
+
+        void endFrame() {
+            frame.alignToByte();
+            frame.bits(crc16(frame.toByteArray()), 16);
+            frames.writeBytes(frame.toByteArray());
+        }
+
+        void seekPoint(long sample, int frameIndex) {
+            seekPoints.add(new long[]{sample, frameOffsets.get(frameIndex)});
+        }
+
+        void verbatimSubframe(int[] samples, int bits) {
+            frame.bits(1 << 1, 8);
+            for (int sample : samples) frame.bits(sample, bits);
+        }
+
+        void wastedBitsSubframe(int[] samples, int blockSize, int bits, int wasted) {
+            frame.bits(1, 7);
+            frame.bits(1, 1);
+            frame.bits(0, wasted - 1);
+            frame.bits(1, 1);
+            for (int i = 0; i < blockSize; i++) frame.bits(samples[i] >> wasted, bits - wasted);
+        }
+
+        void fixedSubframe(int[] samples, int blockSize, int bits, int order, int partitionOrder, int riceParameter) {
+            frame.bits((8 + order) << 1, 8);
+            for (int i = 0; i < order; i++) frame.bits(samples[i], bits);
+            int[] residual = new int[blockSize];
+            for (int i = order; i < blockSize; i++) {
+                residual[i] = samples[i] - switch (order) {
+                    case 1 -> samples[i - 1];
+                    case 2 -> 2 * samples[i - 1] - samples[i - 2];
+                    case 3 -> 3 * samples[i - 1] - 3 * samples[i - 2] + samples[i - 3];
+                    case 4 -> 4 * samples[i - 1] - 6 * samples[i - 2] + 4 * samples[i - 3] - samples[i - 4];
+                    default -> 0;
+                };
+            }
+            residual(residual, blockSize, order, partitionOrder, riceParameter);
+        }
+
+        void lpcSubframe(int[] samples, int blockSize, int bits, int[] coefficients, int shift, int partitionOrder) {
+            int order = coefficients.length;
+            int precision = 15;
+            frame.bits((32 + order - 1) << 1, 8);
+            for (int i = 0; i < order; i++) frame.bits(samples[i], bits);
+            frame.bits(precision - 1, 4);
+            frame.bits(shift, 5);
+            for (int coefficient : coefficients) frame.bits(coefficient, precision);
+            int[] residual = new int[blockSize];
+            for (int i = order; i < blockSize; i++) {
+                long prediction = 0;
+                for (int j = 0; j < order; j++) prediction += (long) coefficients[j] * samples[i - 1 - j];
+                residual[i] = samples[i] - (int) (prediction >> shift);
+            }
+            residual(residual, blockSize, order, partitionOrder, 11);
+        }
+
+        private void residual(int[] residual, int blockSize, int order, int partitionOrder, int riceParameter) {
+            frame.bits(0, 2);
+            frame.bits(partitionOrder, 4);
+            int partitionSize = blockSize >> partitionOrder;
+            int index = order;
+            for (int p = 0; p < 1 << partitionOrder; p++) {
+                int count = p == 0 ? partitionSize - order : partitionSize;
+                if (riceParameter == ESCAPE) {
+                    frame.bits(15, 4);
+                    frame.bits(20, 5);
+                    for (int i = 0; i < count; i++) frame.bits(residual[index++], 20);
+                    continue;
+                }
+                frame.bits(riceParameter, 4);
+                for (int i = 0; i < count; i++) {
+                    int value = residual[index++];
+                    long folded = ((long) value << 1) ^ (value >> 31);
+                    frame.zeros(folded >>> riceParameter);
+                    frame.bits(1, 1);
+                    frame.bits(folded, riceParameter);
+                }
+            }
+        }
+
+        File write(Path path) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.writeBytes("fLaC".getBytes());
+            BitWriter info = new BitWriter();
+            info.bits((seekPoints.isEmpty() ? 0x80 : 0) << 24 | 34, 32);
+            info.bits(16, 16);
+            info.bits(maxBlockSize, 16);
+            info.bits(0, 24);
+            info.bits(0, 24);
+            info.bits(sampleRate, 20);
+            info.bits(channels - 1, 3);
+            info.bits(bitsPerSample - 1, 5);
+            info.bits(totalSamples >> 32, 4);
+            info.bits(totalSamples, 32);
+            for (int i = 0; i < 16; i++) info.bits(0, 8);
+            out.writeBytes(info.toByteArray());
+            if (!seekPoints.isEmpty()) {
+                BitWriter table = new BitWriter();
+                table.bits((0x80 | 3) << 24 | (seekPoints.size() + 1) * 18, 32);
+                for (long[] point : seekPoints) {
+                    table.bits(point[0] >>> 32, 32);
+                    table.bits(point[0], 32);
+                    table.bits(0, 32);
+                    table.bits(point[1], 32);
+                    table.bits(BLOCK, 16);
+                }
+                table.bits(-1, 32); // placeholder point
+                table.bits(-1, 32);
+                table.bits(0, 32);
+                table.bits(0, 32);
+                table.bits(0, 16);
+                out.writeBytes(table.toByteArray());
+            }
+            out.writeBytes(frames.toByteArray());
+            Files.write(path, out.toByteArray());
+            return path.toFile();
+        }
+
+        private static int crc8(byte[] data) {
+            int crc = 0;
+            for (byte b : data) {
+                crc ^= b & 0xFF;
+                for (int i = 0; i < 8; i++) crc = (crc & 0x80) != 0 ? ((crc << 1) ^ 0x07) & 0xFF : (crc << 1) & 0xFF;
+            }
+            return crc;
+        }
+
+        private static int crc16(byte[] data) {
+            int crc = 0;
+            for (byte b : data) {
+                crc ^= (b & 0xFF) << 8;
+                for (int i = 0; i < 8; i++) crc = (crc & 0x8000) != 0 ? ((crc << 1) ^ 0x8005) & 0xFFFF : (crc << 1) & 0xFFFF;
+            }
+            return crc;
+        }
+    }
+
+    static final class BitWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int current;
+        private int filled;
+
+        void bits(long value, int count) {
+            for (int i = count - 1; i >= 0; i--) bit((int) (value >>> i) & 1);
+        }
+
+        void zeros(long count) {
+            for (long i = 0; i < count; i++) bit(0);
+        }
+
+        void alignToByte() {
+            while (filled != 0) bit(0);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private void bit(int bit) {
+            current = (current << 1) | bit;
+            if (++filled == 8) {
+                out.write(current);
+                current = 0;
+                filled = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoopingPcmStreamTest {
+    private static final byte[] MONO_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, (byte) 0xC0};
+    private static final int FRAME_LENGTH = 417;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void wavLoopContinuesFromFirstSampleInTheSameRead() throws Exception {
+        int frames = 1000;
+        byte[] pcm = new byte[frames * 2];
+        for (int i = 0; i < frames; i++) {
+            pcm[i * 2] = (byte) i;
+            pcm[i * 2 + 1] = (byte) (i >> 8);
+        }
+        File wav = writeWav(tempDir.resolve("ramp.wav"), pcm);
+
+        try (LoopingPcmStream stream = LoopingPcmStream.open(wav, () -> true)) {
+            byte[] read = stream.readNBytes(pcm.length * 2 + 10);
+
+            assertEquals(pcm.length * 2 + 10, read.length);
+            byte[] secondPass = new byte[pcm.length];
+            System.arraycopy(read, pcm.length, secondPass, 0, pcm.length);
+            assertArrayEquals(pcm, secondPass);
+        }
+    }
+
+    @Test
+    void mp3RewindsInPlaceUntilLoopingIsDisabled() throws Exception {
+        File mp3 = Mp3SeekTableTest.writeSilentMp3(tempDir.resolve("loop.mp3"), 10, 0);
+        AtomicBoolean looping = new AtomicBoolean(true);
+        int passBytes = 10 * 1152 * 2;
+
+        try (LoopingPcmStream stream = LoopingPcmStream.open(mp3, looping::get)) {
+            assertEquals(passBytes * 2 + passBytes / 2, stream.readNBytes(passBytes * 2 + passBytes / 2).length);
+
+            looping.set(false);
+            assertEquals(passBytes / 2, stream.readAllBytes().length);
+        }
+    }
+
+    @Test
+    void mp3PassIsTrimmedToTheLameTagLength() throws Exception {
+        int audioFrames = 8;
+        int delay = 576;
+        int padding = 1000;
+        File mp3 = writeLameTaggedMp3(tempDir.resolve("gapless.mp3"), audioFrames, delay, padding);
+        long audible = (long) audioFrames * 1152 - delay - padding;
+
+        try (LoopingPcmStream stream = LoopingPcmStream.open(mp3, () -> false)) {
+            assertEquals(audible, stream.getFrameLength());
+            assertEquals(audible * 2, stream.readAllBytes().length);
+        }
+    }
+
+    @Test
+    void mp3InfoFrameIsTrimmedWithoutALameTag() throws Exception {
+        int audioFrames = 8;
+        File mp3 = writeTaggedMp3(tempDir.resolve("xing.mp3"), audioFrames, null, 0, 0);
+
+        try (LoopingPcmStream stream = LoopingPcmStream.open(mp3, () -> false)) {
+            assertEquals(AudioMetadataExtractor.extract(mp3).totalSampleFrames(), stream.getFrameLength());
+            // The decoder delay is skipped too, so the pass ends that much before the server's count.
+            assertEquals(((long) audioFrames * 1152 - LoopingPcmStream.MP3_DECODER_DELAY) * 2, stream.readAllBytes().length);
+        }
+    }
+
+    @Test
+    void mp3InfoFrameWithoutFrameCountUsesTheSeekTable() throws Exception {
+        int audioFrames = 8;
+        File mp3 = writeTaggedMp3(tempDir.resolve("nocount.mp3"), audioFrames, null, 0, 0);
+        try (RandomAccessFile raf = new RandomAccessFile(mp3, "rw")) {
+            // Clear the Xing frames flag so the tag no longer carries a count.
+            raf.seek(4 + 17 + 7);
+            raf.write(0);
+        }
+
+        try (LoopingPcmStream stream = LoopingPcmStream.open(mp3, () -> false)) {
+            assertEquals((long) audioFrames * 1152, stream.getFrameLength());
+            assertTrue(Mp3SeekTable.sidecarFor(mp3).isFile());
+        }
+    }
+
+    @Test
+    void sourceWithNothingReadyIsNotTheEnd() throws Exception {
+        byte[] pcm = new byte[400];
+        AudioInputStream source = new AudioInputStream(ResamplingPcmStreamTest.stallingOnce(pcm),
+                new AudioFormat(48000, 16, 1, true, false), pcm.length / 2);
+
+        try (LoopingPcmStream stream = new LoopingPcmStream(null, source, () -> false, 0, 0)) {
+            assertEquals(0, stream.read(new byte[100], 0, 100));
+            assertEquals(pcm.length, stream.readAllBytes().length);
+        }
+    }
+
+    private static File writeWav(Path path, byte[] pcm) throws Exception {
+        AudioFormat format = new AudioFormat(8000f, 16, 1, true, false);
+        try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(pcm), format, pcm.length / 2)) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, path.toFile());
+        }
+        return path.toFile();
+    }
+
+    static File writeLameTaggedMp3(Path path, int audioFrames, int delay, int padding) throws Exception {
+        return writeTaggedMp3(path, audioFrames, "LAME3.100", delay, padding);
+    }
+
+    /** @param encoder LAME extension encoder string, or null for a plain Info frame */
+    private static File writeTaggedMp3(Path path, int audioFrames, String encoder, int delay, int padding) throws Exception {
+        byte[] info = new byte[FRAME_LENGTH];
+        System.arraycopy(MONO_HEADER, 0, info, 0, 4);
+        int xing = 4 + 17;
+        byte[] tag = "Info".getBytes();
+        System.arraycopy(tag, 0, info, xing, 4);
+        info[xing + 7] = 0x1;
+        info[xing + 11] = (byte) audioFrames;
+        if (encoder != null) {
+            int lame = xing + 12;
+            System.arraycopy(encoder.getBytes(), 0, info, lame, encoder.length());
+            int packed = (delay << 12) | padding;
+            info[lame + 21] = (byte) (packed >>> 16);
+            info[lame + 22] = (byte) (packed >>> 8);
+            info[lame + 23] = (byte) packed;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(info);
+        for (int i = 0; i < audioFrames; i++) {
+            out.write(MONO_HEADER);
+            out.write(new byte[FRAME_LENGTH - MONO_HEADER.length]);
+        }
+        Files.write(path, out.toByteArray());
+        return path.toFile();
+    }
+}
@@ -0,0 +1,136 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Mp3SeekTableTest {
+    // MPEG-1 Layer III, 128 kbps, 44.1 kHz, no padding, mono: 417-byte frames of 1152 samples.
+    private static final byte[] MONO_HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, (byte) 0xC0};
+    private static final int FRAME_LENGTH = 417;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void indexesEveryFrameAfterId3Tag() throws IOException {
+        File mp3 = writeSilentMp3(tempDir.resolve("tagged.mp3"), 20, 100);
+
+        Mp3SeekTable table = Mp3SeekTable.build(mp3);
+
+        assertEquals(20, table.getFrameCount());
+        assertEquals(44100, table.getSampleRate());
+        assertEquals(1, table.getChannels());
+        assertEquals(1152, table.getSamplesPerFrame());
+        assertEquals(110, table.getFrameOffset(0));
+        assertEquals(110 + 7L * FRAME_LENGTH, table.getFrameOffset(7));
+        assertEquals(3, table.frameIndexForSample(3 * 1152 + 5));
+    }
+
+    @Test
+    void sidecarRoundTripsAndIsRebuiltWhenStale() throws IOException {
+        File mp3 = writeSilentMp3(tempDir.resolve("cached.mp3"), 12, 0);
+
+        Mp3SeekTable built = Mp3SeekTable.loadOrBuild(mp3);
+        File sidecar = Mp3SeekTable.sidecarFor(mp3);
+        assertTrue(sidecar.isFile());
+
+        Mp3SeekTable reloaded = Mp3SeekTable.read(sidecar);
+        assertEquals(built.getFrameCount(), reloaded.getFrameCount());
+        assertEquals(built.getFrameOffset(11), reloaded.getFrameOffset(11));
+
+        writeSilentMp3(mp3.toPath(), 30, 0);
+        assertEquals(30, Mp3SeekTable.loadOrBuild(mp3).getFrameCount());
+    }
+
+    @Test
+    void rejectsFilesWithoutFrames() throws IOException {
+        Path junk = tempDir.resolve("junk.mp3");
+        Files.write(junk, new byte[2048]);
+
+        assertThrows(IOException.class, () -> Mp3SeekTable.build(junk.toFile()));
+    }
+
+    @Test
+    void incrementalStreamSkipJumpsToTargetFrame() throws IOException {
+        File mp3 = writeSilentMp3(tempDir.resolve("long.mp3"), 200, 0);
+        long targetBytes = (150L * 1152 + 10) * 2;
+
+        try (IncrementalAudioDecoders.IncrementalMp3AudioInputStream stream =
+                     new IncrementalAudioDecoders.IncrementalMp3AudioInputStream(mp3)) {
+            assertEquals(targetBytes, stream.skip(targetBytes));
+
+            byte[] remaining = stream.readAllBytes();
+            assertEquals(200L * 1152 * 2 - targetBytes, remaining.length);
+        }
+    }
+
+    @Test
+    void rewoundStreamSkipsAndSeeksLikeAFreshOne() throws IOException {
+        File mp3 = writeSilentMp3(tempDir.resolve("rewind.mp3"), 60, 0);
+        long skipBytes = (40L * 1152 + 10) * 2;
+
+        byte[] expectedAfterSkip;
+        byte[] expectedAfterSeek;
+        try (IncrementalAudioDecoders.IncrementalMp3AudioInputStream fresh =
+                     new IncrementalAudioDecoders.IncrementalMp3AudioInputStream(mp3)) {
+            fresh.readNBytes(100);
+            assertEquals(skipBytes, fresh.skip(skipBytes));
+            expectedAfterSkip = fresh.readAllBytes();
+        }
+        try (IncrementalAudioDecoders.IncrementalMp3AudioInputStream fresh =
+                     new IncrementalAudioDecoders.IncrementalMp3AudioInputStream(mp3)) {
+            assertTrue(fresh.seekToSampleFrame(7L * 1152 + 3));
+            expectedAfterSeek = fresh.readAllBytes();
+        }
+
+        try (IncrementalAudioDecoders.IncrementalMp3AudioInputStream stream =
+                     new IncrementalAudioDecoders.IncrementalMp3AudioInputStream(mp3)) {
+            stream.readNBytes(5000);
+            stream.rewind();
+            stream.readNBytes(100);
+            assertEquals(skipBytes, stream.skip(skipBytes));
+            assertArrayEquals(expectedAfterSkip, stream.readAllBytes());
+
+            stream.rewind();
+            assertTrue(stream.seekToSampleFrame(7L * 1152 + 3));
+            assertArrayEquals(expectedAfterSeek, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void seekPastEndReportsEndOfStream() throws IOException {
+        File mp3 = writeSilentMp3(tempDir.resolve("short.mp3"), 10, 0);
+
+        try (IncrementalAudioDecoders.IncrementalMp3AudioInputStream stream =
+                     new IncrementalAudioDecoders.IncrementalMp3AudioInputStream(mp3)) {
+            assertFalse(stream.seekToSampleFrame(50L * 1152));
+            assertEquals(-1, stream.read(new byte[16], 0, 16));
+        }
+    }
+
+    static File writeSilentMp3(Path path, int frames, int id3PayloadBytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (id3PayloadBytes > 0) {
+            out.write(new byte[]{'I', 'D', '3', 3, 0, 0, 0, 0, 0, (byte) id3PayloadBytes});
+            out.write(new byte[id3PayloadBytes]);
+        }
+        for (int i = 0; i < frames; i++) {
+            out.write(MONO_HEADER);
+            out.write(new byte[FRAME_LENGTH - MONO_HEADER.length]);
+        }
+        Files.write(path, out.toByteArray());
+        return path.toFile();
+    }
+}
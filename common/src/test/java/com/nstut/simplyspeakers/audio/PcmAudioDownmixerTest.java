@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 
@@ -23,6 +24,31 @@ public class PcmAudioDownmixerTest {
         assertEquals(0, mono[3]);
     }
 
+    @Test
+    public void testDownmixStereoToMonoInPlace() {
+        short[] samples = new short[]{ 1000, 3000, -2000, -4000, 100, -100 };
+        int written = PcmAudioDownmixer.downmixStereoToMono(samples, samples.length, samples);
+
+        assertEquals(3, written);
+        assertEquals(2000, samples[0]);
+        assertEquals(-3000, samples[1]);
+        assertEquals(0, samples[2]);
+    }
+
+    @Test
+    public void testShortsToBytesLEIntoCallerBuffers() {
+        short[] samples = new short[]{ 0x1234, -2 };
+        byte[] dest = new byte[6];
+        assertEquals(4, PcmAudioDownmixer.shortsToBytesLE(samples, 2, dest, 2));
+        assertArrayEquals(new byte[]{ 0, 0, 0x34, 0x12, (byte) 0xFE, (byte) 0xFF }, dest);
+
+        java.nio.ByteBuffer direct = java.nio.ByteBuffer.allocateDirect(4);
+        assertEquals(4, PcmAudioDownmixer.shortsToBytesLE(samples, 2, direct));
+        assertEquals(4, direct.position());
+        assertEquals(0x34, direct.get(0));
+        assertEquals((byte) 0xFF, direct.get(3));
+    }
+
     @Test
     public void testDownmixStereoBytesLE() {
         short left = 1000;
@@ -134,6 +160,48 @@ public class PcmAudioDownmixerTest {
         assertEquals(250, monoSample);
     }
 
+    @Test
+    public void testEnsureMono16BitPcmStreamDoesNotMaterializeSource() throws Exception {
+        AudioFormat stereoFormat = new AudioFormat(44100.0f, 16, 2, true, false);
+        long claimedFrames = 1L << 30; // ~4 GB of stereo PCM; draining it would hang or OOM
+        InputStream endless = new InputStream() {
+            private int counter;
+
+            @Override
+            public int read() {
+                return (counter++ & 1) == 0 ? 0x10 : 0x00;
+            }
+        };
+        AudioInputStream stereoStream = new AudioInputStream(endless, stereoFormat, claimedFrames);
+
+        AudioInputStream monoStream = PcmAudioDownmixer.ensureMono16BitPcmStream(stereoStream);
+        assertEquals(claimedFrames, monoStream.getFrameLength());
+
+        byte[] readBuffer = new byte[4096];
+        int bytesRead = monoStream.read(readBuffer);
+        assertTrue(bytesRead > 0);
+        assertEquals(0x10, (readBuffer[0] & 0xFF) | (readBuffer[1] << 8));
+    }
+
+    @Test
+    public void testDownmixStreamKeepsFrameAlignmentAcrossShortReads() throws Exception {
+        AudioFormat quadFormat = new AudioFormat(44100.0f, 16, 4, true, false);
+        byte[] quadData = new byte[8 * 3];
+        for (int frame = 0; frame < 3; frame++) {
+            for (int ch = 0; ch < 4; ch++) {
+                quadData[frame * 8 + ch * 2] = (byte) (10 * (frame + 1));
+            }
+        }
+        AudioInputStream quadStream = new AudioInputStream(
+                new ByteArrayInputStream(quadData), quadFormat, 3);
+
+        IncrementalAudioDecoders.IncrementalDownmixInputStream downmix =
+                new IncrementalAudioDecoders.IncrementalDownmixInputStream(quadStream, 4);
+        byte[] mono = downmix.readAllBytes();
+
+        assertArrayEquals(new byte[]{ 10, 0, 20, 0, 30, 0 }, mono);
+    }
+
     @Test
     public void testUnsupportedAudioFormatThrows() {
         // Custom unsupported encoding
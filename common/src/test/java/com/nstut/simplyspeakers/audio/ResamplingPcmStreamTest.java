@@ -0,0 +1,198 @@
+package com.nstut.simplyspeakers.audio;
+
+import com.nstut.simplyspeakers.Config;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResamplingPcmStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void upsamplesSineWithinFilterTolerance() throws Exception {
+        short[] input = sine(44100, 1000.0, 44100 / 2, 12000);
+        try (ResamplingPcmStream stream = new ResamplingPcmStream(memoryStream(input, 44100), 48000)) {
+            assertEquals(48000f, stream.getFormat().getSampleRate());
+            long expectedFrames = (input.length * 48000L + 44099) / 44100;
+            assertEquals(expectedFrames, stream.getFrameLength());
+
+            short[] output = toShorts(stream.readAllBytes());
+            assertEquals(expectedFrames, output.length);
+            short[] reference = sine(48000, 1000.0, output.length, 12000);
+            double errorSquares = 0;
+            for (int i = 100; i < output.length - 100; i++) {
+                double error = output[i] - reference[i];
+                errorSquares += error * error;
+            }
+            double rmsError = Math.sqrt(errorSquares / (output.length - 200));
+            assertTrue(rmsError < 12, "RMS error " + rmsError);
+        }
+    }
+
+    @Test
+    void preservesDcLevel() throws Exception {
+        short[] input = new short[5000];
+        java.util.Arrays.fill(input, (short) 10000);
+        try (ResamplingPcmStream stream = new ResamplingPcmStream(memoryStream(input, 22050), 48000)) {
+            short[] output = toShorts(stream.readAllBytes());
+            for (int i = 200; i < output.length - 200; i++) {
+                assertEquals(10000, output[i], 1.0, "sample " + i);
+            }
+        }
+    }
+
+    @Test
+    void attenuatesContentAboveTheNewNyquist() throws Exception {
+        short[] input = sine(48000, 18000.0, 48000 / 4, 16000);
+        try (ResamplingPcmStream stream = new ResamplingPcmStream(memoryStream(input, 48000), 22050)) {
+            short[] output = toShorts(stream.readAllBytes());
+            int peak = 0;
+            for (int i = 200; i < output.length - 200; i++) {
+                peak = Math.max(peak, Math.abs(output[i]));
+            }
+            assertTrue(peak < 160, "aliased peak " + peak); // below -40 dB
+        }
+    }
+
+    @Test
+    void seekMatchesContinuousDecodeOnSeekableSources() throws Exception {
+        short[] input = sine(44100, 440.0, 20000, 9000);
+        File wav = writeMonoWav(input, 44100);
+
+        byte[] continuous;
+        try (ResamplingPcmStream stream = new ResamplingPcmStream(new WavAudioInputStream(wav), 48000)) {
+            continuous = stream.readAllBytes();
+        }
+        try (ResamplingPcmStream stream = new ResamplingPcmStream(new WavAudioInputStream(wav), 48000)) {
+            assertTrue(stream.seekToSampleFrame(15_001));
+            byte[] tail = stream.readAllBytes();
+            byte[] expected = java.util.Arrays.copyOfRange(continuous, 15_001 * 2, continuous.length);
+            assertArrayEquals(expected, tail);
+
+            stream.rewind();
+            assertArrayEquals(continuous, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void skipsForwardOnNonSeekableSources() throws Exception {
+        short[] input = sine(44100, 440.0, 20000, 9000);
+        byte[] continuous;
+        try (ResamplingPcmStream stream = new ResamplingPcmStream(memoryStream(input, 44100), 48000)) {
+            continuous = stream.readAllBytes();
+        }
+        try (ResamplingPcmStream stream = new ResamplingPcmStream(memoryStream(input, 44100), 48000)) {
+            stream.readNBytes(200);
+            assertEquals(20_000, stream.skip(20_000));
+            byte[] expected = java.util.Arrays.copyOfRange(continuous, 20_200, continuous.length);
+            assertArrayEquals(expected, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void sourceWithNothingReadyIsNotTheEnd() throws Exception {
+        short[] input = sine(44100, 440.0, 8000, 9000);
+        byte[] continuous;
+        try (ResamplingPcmStream stream = new ResamplingPcmStream(memoryStream(input, 44100), 48000)) {
+            continuous = stream.readAllBytes();
+        }
+        AudioInputStream stalling = new AudioInputStream(stallingOnce(toBytes(input)),
+                new AudioFormat(44100, 16, 1, true, false), input.length);
+        try (ResamplingPcmStream stream = new ResamplingPcmStream(stalling, 48000)) {
+            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int empty = 0;
+            int read;
+            while ((read = stream.read(chunk, 0, chunk.length)) >= 0) {
+                if (read == 0) {
+                    empty++;
+                }
+                out.write(chunk, 0, read);
+            }
+            assertEquals(1, empty);
+            assertArrayEquals(continuous, out.toByteArray());
+        }
+    }
+
+    @Test
+    void engineRateLeavesMatchingOrDisabledStreamsUntouched() {
+        int previous = Config.engineSampleRate;
+        try {
+            AudioInputStream native48k = memoryStream(new short[10], 48000);
+            Config.setEngineSampleRate(48000);
+            assertSame(native48k, ResamplingPcmStream.toEngineRate(native48k));
+            assertTrue(ResamplingPcmStream.toEngineRate(memoryStream(new short[10], 44100)) instanceof ResamplingPcmStream);
+
+            Config.setEngineSampleRate(0);
+            AudioInputStream native44k = memoryStream(new short[10], 44100);
+            assertSame(native44k, ResamplingPcmStream.toEngineRate(native44k));
+
+            Config.setEngineSampleRate(1);
+            assertEquals(Config.MIN_ENGINE_SAMPLE_RATE, Config.engineSampleRate);
+        } finally {
+            Config.engineSampleRate = previous;
+        }
+    }
+
+    private File writeMonoWav(short[] samples, int rate) throws Exception {
+        byte[] fmt = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN)
+                .putShort((short) 1).putShort((short) 1).putInt(rate).putInt(rate * 2)
+                .putShort((short) 2).putShort((short) 16).array();
+        return WavAudioInputStreamTest.writeWav(tempDir.resolve("tone.wav"), fmt, toBytes(samples), false, false);
+    }
+
+    private static AudioInputStream memoryStream(short[] samples, int rate) {
+        return new AudioInputStream(new ByteArrayInputStream(toBytes(samples)),
+                new AudioFormat(rate, 16, 1, true, false), samples.length);
+    }
+
+    /** Returns nothing on the first read, as a decoder still waiting for data would. */
+    static java.io.InputStream stallingOnce(byte[] data) {
+        return new ByteArrayInputStream(data) {
+            private boolean stalled;
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                if (!stalled) {
+                    stalled = true;
+                    return 0;
+                }
+                return super.read(b, off, len);
+            }
+        };
+    }
+
+    private static short[] sine(int rate, double frequency, int length, int amplitude) {
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (short) Math.round(Math.sin(2 * Math.PI * frequency * i / rate) * amplitude);
+        }
+        return samples;
+    }
+
+    private static byte[] toBytes(short[] samples) {
+        ByteBuffer buffer = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (short sample : samples) buffer.putShort(sample);
+        return buffer.array();
+    }
+
+    private static short[] toShorts(byte[] bytes) {
+        short[] samples = new short[bytes.length / 2];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(samples);
+        return samples;
+    }
+}
@@ -0,0 +1,43 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScalarPcmKernelTest {
+
+    private final PcmKernel kernel = new ScalarPcmKernel();
+
+    @Test
+    public void testPackLittleEndian() {
+        byte[] bytes = new byte[]{ 9, 0x34, 0x12, (byte) 0xFE, (byte) 0xFF, 0x00, (byte) 0x80 };
+        short[] samples = new short[]{ 0, 0x1234, -2, Short.MIN_VALUE };
+
+        byte[] packed = new byte[7];
+        packed[0] = 9;
+        kernel.packLE(samples, 1, packed, 1, 3);
+        assertArrayEquals(bytes, packed);
+    }
+
+    @Test
+    public void testDownmixTruncatesTowardZero() {
+        short[] stereo = new short[]{ -3, 0, 3, 0, Short.MIN_VALUE, Short.MIN_VALUE, Short.MAX_VALUE, Short.MAX_VALUE };
+        short[] mono = new short[4];
+        kernel.downmix(stereo, 4, 2, mono);
+
+        assertArrayEquals(new short[]{ -1, 1, Short.MIN_VALUE, Short.MAX_VALUE }, mono);
+    }
+
+    @Test
+    public void testDownmixSurroundBytes() {
+        short[] surround = new short[]{ 600, 600, 600, 600, 600, 600, -7, 0, 0, 0, 0, 0 };
+        byte[] bytes = new byte[surround.length * 2];
+        kernel.packLE(surround, 0, bytes, 0, surround.length);
+        byte[] mono = new byte[4];
+        kernel.downmixLE(bytes, 0, 2, 6, mono, 0);
+
+        byte[] expected = new byte[4];
+        kernel.packLE(new short[]{ 600, -1 }, 0, expected, 0, 2);
+        assertArrayEquals(expected, mono);
+    }
+}
@@ -2,10 +2,14 @@ package com.nstut.simplyspeakers.audio;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SpatialAudioCalculatorTest {
 
@@ -92,4 +96,100 @@ class SpatialAudioCalculatorTest {
         assertEquals(0.0f, SpatialAudioCalculator.calculateDistanceGain(10.0, -1, 1.0f, 1.0f));
         assertEquals(0.0f, SpatialAudioCalculator.calculateDistanceGain(10.0, 32, 0.0f, 1.0f));
     }
+
+    @Test
+    void lookupFalloffStaysWithinHalfAPercentOfPow() {
+        float worst = 0.0f;
+        for (int d = 1; d <= 1000; d++) {
+            float dropoff = d / 1000.0f;
+            for (int r = 1; r <= 2000; r++) {
+                double remaining = r / 2000.0;
+                float exact = (float) Math.pow(remaining, dropoff * 2.0);
+                worst = Math.max(worst, Math.abs(exact - SpatialAudioCalculator.lookupFalloff(remaining, dropoff)));
+            }
+        }
+        assertTrue(worst < 0.005f, "worst falloff error " + worst);
+    }
+
+    @Test
+    void batchGainsMatchScalarGains() {
+        Random random = new Random(11);
+        int count = 500;
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double[] z = new double[count];
+        int[] range = new int[count];
+        float[] volume = new float[count];
+        float[] dropoff = new float[count];
+        float[] gains = new float[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = random.nextDouble() * 96 - 48;
+            y[i] = random.nextDouble() * 16 + 56;
+            z[i] = random.nextDouble() * 96 - 48;
+            range[i] = i % 50 == 0 ? 0 : 1 + random.nextInt(64);
+            volume[i] = i % 40 == 0 ? 0.0f : random.nextFloat();
+            dropoff[i] = i % 7 == 0 ? 0.0f : random.nextFloat();
+        }
+
+        SpatialAudioCalculator.calculateDistanceGains(0.0, 64.0, 0.0, x, y, z, range, volume, dropoff, count, gains);
+
+        for (int i = 0; i < count; i++) {
+            double distance = Math.sqrt(x[i] * x[i] + (y[i] - 64.0) * (y[i] - 64.0) + z[i] * z[i]);
+            float expected = SpatialAudioCalculator.calculateDistanceGain(distance, range[i], volume[i], dropoff[i]);
+            assertEquals(expected, gains[i], 0.005f, "emitter " + i);
+        }
+    }
+
+    @Test
+    void batchVirtualEmitterMatchesListVirtualEmitter() {
+        Random random = new Random(3);
+        int count = 300;
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double[] z = new double[count];
+        int[] range = new int[count];
+        float[] volume = new float[count];
+        float[] dropoff = new float[count];
+        List<SpatialAudioCalculator.SpeakerEmitter> emitters = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            x[i] = random.nextDouble() * 64;
+            y[i] = 64.0;
+            z[i] = random.nextDouble() * 64;
+            range[i] = 8 + random.nextInt(32);
+            volume[i] = 0.2f + random.nextFloat() * 0.8f;
+            dropoff[i] = random.nextFloat();
+            emitters.add(new SpatialAudioCalculator.SpeakerEmitter(x[i], y[i], z[i], range[i], volume[i], dropoff[i]));
+        }
+
+        SpatialAudioCalculator.VirtualEmitterResult expected =
+                SpatialAudioCalculator.calculateVirtualEmitter(32.0, 64.0, 32.0, emitters);
+        SpatialAudioCalculator.VirtualEmitterMix mix = new SpatialAudioCalculator.VirtualEmitterMix();
+        assertTrue(SpatialAudioCalculator.calculateVirtualEmitter(32.0, 64.0, 32.0,
+                x, y, z, range, volume, dropoff, count, new float[count], mix));
+
+        assertEquals(expected.x(), mix.x(), 0.05);
+        assertEquals(expected.y(), mix.y(), 0.05);
+        assertEquals(expected.z(), mix.z(), 0.05);
+        assertEquals(expected.maxGain(), mix.maxGain(), 0.005f);
+        assertEquals(expected.totalWeight(), mix.totalWeight(), 0.005f * count);
+    }
+
+    @Test
+    void batchVirtualEmitterSkipsHiddenEmittersAndFallsBackToFirstVisible() {
+        double[] x = {Double.NaN, 40.0, 80.0};
+        double[] y = {64.0, 64.0, 64.0};
+        double[] z = {0.0, 0.0, 0.0};
+        int[] range = {16, 16, 16};
+        float[] volume = {1.0f, 1.0f, 1.0f};
+        float[] dropoff = {1.0f, 1.0f, 1.0f};
+        float[] gains = new float[3];
+        SpatialAudioCalculator.VirtualEmitterMix mix = new SpatialAudioCalculator.VirtualEmitterMix();
+
+        assertTrue(SpatialAudioCalculator.calculateVirtualEmitter(0.0, 64.0, 0.0, x, y, z, range, volume, dropoff, 3, gains, mix));
+        assertEquals(40.0, mix.x(), 1e-9);
+        assertEquals(0.0f, mix.maxGain());
+        assertEquals(0.0f, gains[0]);
+
+        assertFalse(SpatialAudioCalculator.calculateVirtualEmitter(0.0, 64.0, 0.0, x, y, z, range, volume, dropoff, 1, gains, mix));
+    }
 }
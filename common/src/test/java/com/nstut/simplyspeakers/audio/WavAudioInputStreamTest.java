@@ -0,0 +1,198 @@
+package com.nstut.simplyspeakers.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WavAudioInputStreamTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void downmixes24BitStereoAndSkipsUnknownChunks() throws Exception {
+        int frames = 500;
+        ByteBuffer data = ByteBuffer.allocate(frames * 6).order(ByteOrder.LITTLE_ENDIAN);
+        short[] expected = new short[frames];
+        for (int i = 0; i < frames; i++) {
+            int left = (i * 9001) % 8_000_000 - 4_000_000;
+            int right = -left / 2;
+            put24(data, left);
+            put24(data, right);
+            expected[i] = (short) (((left >> 8) + (right >> 8)) / 2);
+        }
+        File wav = writeWav(tempDir.resolve("stereo24.wav"), fmt(1, 2, 48000, 24), data.array(), true, false);
+
+        try (WavAudioInputStream stream = new WavAudioInputStream(wav)) {
+            assertEquals(48000f, stream.getFormat().getSampleRate());
+            assertEquals(frames, stream.getFrameLength());
+            assertArrayEquals(toBytes(expected), stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void downmixes16BitSurroundIntoHeapAndDirectBuffers() throws Exception {
+        int frames = 3000;
+        ByteBuffer data = ByteBuffer.allocate(frames * 12).order(ByteOrder.LITTLE_ENDIAN);
+        short[] expected = new short[frames];
+        for (int i = 0; i < frames; i++) {
+            int sum = 0;
+            for (int ch = 0; ch < 6; ch++) {
+                short sample = (short) (i * 37 - ch * 5011);
+                data.putShort(sample);
+                sum += sample;
+            }
+            expected[i] = (short) (sum / 6);
+        }
+        File wav = writeWav(tempDir.resolve("surround16.wav"), fmt(1, 6, 48000, 16), data.array(), false, false);
+
+        try (WavAudioInputStream stream = new WavAudioInputStream(wav)) {
+            assertArrayEquals(toBytes(expected), stream.readAllBytes());
+        }
+        try (WavAudioInputStream stream = new WavAudioInputStream(wav)) {
+            ByteBuffer direct = ByteBuffer.allocateDirect(frames * 2).order(ByteOrder.LITTLE_ENDIAN);
+            while (direct.hasRemaining() && stream.read(direct) > 0) {
+                // keep reading
+            }
+            byte[] mono = new byte[frames * 2];
+            direct.flip().get(mono);
+            assertArrayEquals(toBytes(expected), mono);
+        }
+    }
+
+    @Test
+    void convertsUnsigned8BitAnd32BitIntegerSamples() throws Exception {
+        byte[] eightBit = {0, (byte) 128, (byte) 255};
+        try (WavAudioInputStream stream = new WavAudioInputStream(
+                writeWav(tempDir.resolve("u8.wav"), fmt(1, 1, 8000, 8), eightBit, false, false))) {
+            assertArrayEquals(toBytes(new short[]{-32768, 0, 32512}), stream.readAllBytes());
+        }
+
+        ByteBuffer int32 = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(Integer.MIN_VALUE).putInt(0x12345678);
+        try (WavAudioInputStream stream = new WavAudioInputStream(
+                writeWav(tempDir.resolve("s32.wav"), fmt(1, 1, 8000, 32), int32.array(), false, false))) {
+            assertArrayEquals(toBytes(new short[]{Short.MIN_VALUE, 0x1234}), stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void convertsAndClampsFloatSamples() throws Exception {
+        ByteBuffer float32 = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN)
+                .putFloat(0.5f).putFloat(-1.0f).putFloat(2.0f).putFloat(0f);
+        try (WavAudioInputStream stream = new WavAudioInputStream(
+                writeWav(tempDir.resolve("f32.wav"), fmt(3, 1, 44100, 32), float32.array(), false, false))) {
+            assertArrayEquals(toBytes(new short[]{16384, -32767, 32767, 0}), stream.readAllBytes());
+        }
+
+        ByteBuffer float64 = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN)
+                .putDouble(0.25).putDouble(0.75).putDouble(-0.5).putDouble(-0.5);
+        try (WavAudioInputStream stream = new WavAudioInputStream(
+                writeWav(tempDir.resolve("f64.wav"), extensibleFmt(3, 2, 44100, 64), float64.array(), false, false))) {
+            assertArrayEquals(toBytes(new short[]{16383, -16383}), stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void seeksAndSkipsWithoutReadingThrough() throws Exception {
+        short[] ramp = new short[10_000];
+        for (int i = 0; i < ramp.length; i++) ramp[i] = (short) i;
+        File wav = writeWav(tempDir.resolve("ramp.wav"), fmt(1, 1, 44100, 16), toBytes(ramp), false, false);
+
+        try (WavAudioInputStream stream = new WavAudioInputStream(wav)) {
+            assertEquals(2000, stream.skip(2000));
+            byte[] two = stream.readNBytes(4);
+            assertArrayEquals(toBytes(new short[]{1000, 1001}), two);
+
+            assertTrue(stream.seekToSampleFrame(9_998));
+            assertArrayEquals(toBytes(new short[]{9998, 9999}), stream.readAllBytes());
+
+            stream.rewind();
+            assertArrayEquals(toBytes(new short[]{0}), stream.readNBytes(2));
+            assertFalse(stream.seekToSampleFrame(10_000));
+            assertEquals(-1, stream.read(new byte[2]));
+        }
+    }
+
+    @Test
+    void trustsFileLengthForStreamedHeaders() throws Exception {
+        short[] samples = {1, 2, 3, 4};
+        File wav = writeWav(tempDir.resolve("streamed.wav"), fmt(1, 1, 22050, 16), toBytes(samples), false, true);
+
+        assertEquals(new AudioStreamInfo(4, 22050, 1, 0, 0), WavAudioInputStream.readStreamInfo(wav));
+    }
+
+    @Test
+    void providerFallsBackToAudioSystemForCompressedEncodings() throws Exception {
+        byte[] muLaw = {(byte) 0xFF, (byte) 0x7F, (byte) 0x80, (byte) 0x00};
+        File wav = writeWav(tempDir.resolve("ulaw.wav"), fmt(7, 1, 8000, 8), muLaw, false, false);
+
+        try (AudioInputStream stream = new WavDecoderProvider().openMonoPcm(wav)) {
+            assertFalse(stream instanceof WavAudioInputStream);
+            assertEquals(8, stream.readAllBytes().length);
+        }
+        assertInstanceOf(WavAudioInputStream.class, new WavDecoderProvider().openMonoPcm(
+                writeWav(tempDir.resolve("pcm.wav"), fmt(1, 1, 8000, 16), new byte[4], false, false)));
+    }
+
+    static byte[] fmt(int formatTag, int channels, int sampleRate, int bits) {
+        int blockAlign = channels * bits / 8;
+        return ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN)
+                .putShort((short) formatTag).putShort((short) channels).putInt(sampleRate)
+                .putInt(sampleRate * blockAlign).putShort((short) blockAlign).putShort((short) bits).array();
+    }
+
+    private static byte[] extensibleFmt(int subFormat, int channels, int sampleRate, int bits) {
+        byte[] base = fmt(0xFFFE, channels, sampleRate, bits);
+        ByteBuffer buffer = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(base).putShort((short) 22).putShort((short) bits).putInt(0x3).putShort((short) subFormat);
+        buffer.put(new byte[]{0x00, 0x00, 0x00, 0x00, 0x10, 0x00, (byte) 0x80, 0x00, 0x00, (byte) 0xAA, 0x00, 0x38, (byte) 0x9B, 0x71});
+        return buffer.array();
+    }
+
+    static File writeWav(Path path, byte[] fmt, byte[] data, boolean oddChunk, boolean streamedSize) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes("WAVE".getBytes());
+        chunk(body, "fmt ", fmt, fmt.length);
+        if (oddChunk) {
+            chunk(body, "LIST", new byte[]{1, 2, 3}, 3);
+            body.write(0); // pad byte
+        }
+        chunk(body, "data", data, streamedSize ? -1 : data.length);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.writeBytes("RIFF".getBytes());
+        file.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(body.size()).array());
+        file.writeBytes(body.toByteArray());
+        Files.write(path, file.toByteArray());
+        return path.toFile();
+    }
+
+    private static void chunk(ByteArrayOutputStream out, String id, byte[] body, int declaredSize) {
+        out.writeBytes(id.getBytes());
+        out.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(declaredSize).array());
+        out.writeBytes(body);
+    }
+
+    private static void put24(ByteBuffer buffer, int value) {
+        buffer.put((byte) value).put((byte) (value >> 8)).put((byte) (value >> 16));
+    }
+
+    private static byte[] toBytes(short[] samples) {
+        ByteBuffer buffer = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (short sample : samples) buffer.putShort(sample);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,87 @@
+package com.nstut.simplyspeakers.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AudioPumpTest {
+
+    @Test
+    void jobsRunInDeadlineOrderUntilDone() throws InterruptedException {
+        AudioPump pump = new AudioPump("test-pump");
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(2);
+
+        pump.schedule(countdown("slow", 2, TimeUnit.MILLISECONDS.toNanos(200), order, finished));
+        pump.schedule(countdown("fast", 3, TimeUnit.MILLISECONDS.toNanos(5), order, finished));
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("slow", "fast", "fast", "fast", "slow"), order);
+        assertEquals(0, pump.jobCount());
+    }
+
+    @Test
+    void teardownTasksRunBetweenServicesAndCancelStopsAJob() throws InterruptedException {
+        AudioPump pump = new AudioPump("test-pump");
+        AtomicInteger services = new AtomicInteger();
+        CountDownLatch serviced = new CountDownLatch(1);
+        AudioPump.Job job = now -> {
+            services.incrementAndGet();
+            serviced.countDown();
+            return now + TimeUnit.MILLISECONDS.toNanos(10);
+        };
+        pump.schedule(job);
+        assertTrue(serviced.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch tornDown = new CountDownLatch(1);
+        pump.cancel(job);
+        pump.execute(tornDown::countDown);
+        assertTrue(tornDown.await(5, TimeUnit.SECONDS));
+        int afterCancel = services.get();
+
+        Thread.sleep(50);
+        assertEquals(afterCancel, services.get());
+        assertEquals(0, pump.jobCount());
+    }
+
+    @Test
+    void failingJobIsDroppedWithoutStoppingThePump() throws InterruptedException {
+        AudioPump pump = new AudioPump("test-pump");
+        pump.schedule(now -> {
+            throw new IllegalStateException("boom");
+        });
+        CountDownLatch ran = new CountDownLatch(1);
+        pump.execute(ran::countDown);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(0, pump.jobCount());
+    }
+
+    @Test
+    void refillIsDueJustBeforeTheOldestBufferDrains() {
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(80), AudioPump.refillDelayNanos(4800, 48000f));
+        assertEquals(AudioPump.MAX_DELAY_NANOS, AudioPump.refillDelayNanos(48000, 48000f));
+        assertEquals(AudioPump.MIN_DELAY_NANOS, AudioPump.refillDelayNanos(480, 48000f));
+        assertEquals(AudioPump.MIN_DELAY_NANOS, AudioPump.refillDelayNanos(-10, 48000f));
+        assertEquals(AudioPump.MIN_DELAY_NANOS, AudioPump.refillDelayNanos(4800, 0f));
+    }
+
+    private static AudioPump.Job countdown(String name, int runs, long period, List<String> order, CountDownLatch finished) {
+        AtomicInteger remaining = new AtomicInteger(runs);
+        return now -> {
+            order.add(name);
+            if (remaining.decrementAndGet() == 0) {
+                finished.countDown();
+                return AudioPump.DONE;
+            }
+            return now + period;
+        };
+    }
+}
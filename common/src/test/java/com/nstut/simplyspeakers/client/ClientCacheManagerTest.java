@@ -0,0 +1,97 @@
+package com.nstut.simplyspeakers.client;
+
+import com.nstut.simplyspeakers.Config;
+import com.nstut.simplyspeakers.audio.DecodedPcmSidecar;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientCacheManagerTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void decodedPcmEvictsOrphansThenLeastRecentlyUsed() throws IOException {
+        File oldTrack = file("old.mp3", 10, 1_000);
+        File newTrack = file("new.mp3", 10, 2_000);
+        File oldPcm = file(DecodedPcmSidecar.sidecarFor(oldTrack).getName(), 600, 1_000);
+        File newPcm = file(DecodedPcmSidecar.sidecarFor(newTrack).getName(), 600, 2_000);
+        File orphanPcm = file("gone.ogg" + DecodedPcmSidecar.SIDECAR_SUFFIX, 10, 3_000);
+
+        ClientCacheManager.enforceDecodedPcmLimit(cacheDir.toFile(), 1_000);
+
+        assertFalse(orphanPcm.exists());
+        assertFalse(oldPcm.exists());
+        assertTrue(newPcm.exists());
+        assertTrue(oldTrack.exists());
+    }
+
+    @Test
+    void audioBudgetIgnoresDecodedPcmButEvictsItWithItsTrack() throws IOException {
+        File oldTrack = file("old.wav", 600, 1_000);
+        File newTrack = file("new.wav", 600, 2_000);
+        File oldPcm = file(DecodedPcmSidecar.sidecarFor(oldTrack).getName(), 5_000, 3_000);
+        File newPcm = file(DecodedPcmSidecar.sidecarFor(newTrack).getName(), 5_000, 3_000);
+
+        ClientCacheManager.enforceCacheLimit(cacheDir.toFile(), 1_000);
+
+        assertFalse(oldTrack.exists());
+        assertFalse(oldPcm.exists());
+        assertTrue(newTrack.exists());
+        assertTrue(newPcm.exists());
+    }
+
+    @Test
+    void zeroBudgetRemovesEveryDecodedSidecar() throws IOException {
+        File track = file("track.flac", 10, 1_000);
+        File pcm = file(DecodedPcmSidecar.sidecarFor(track).getName(), 10, 1_000);
+
+        ClientCacheManager.enforceDecodedPcmLimit(cacheDir.toFile(), 0);
+
+        assertFalse(pcm.exists());
+        assertTrue(track.exists());
+    }
+
+    @Test
+    void onlyPlayRequestsCountTowardsTheDecodedTier() throws Exception {
+        File track = cacheDir.resolve("reopened.wav").toFile();
+        AudioFormat format = new AudioFormat(22050, 16, 1, true, false);
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(new byte[2000]), format, 1000),
+                AudioFileFormat.Type.WAVE, track);
+        int budget = Config.decodedPcmCacheMegabytes;
+        Config.setDecodedPcmCacheMegabytes(16);
+        try {
+            // resyncs and voice re-acquires reopen the stream without a new play
+            for (int i = 0; i < 3; i++) {
+                ClientCacheManager.openLoopingPcm(track, () -> false).close();
+            }
+            assertEquals(0, ClientCacheManager.playCount(track));
+
+            ClientCacheManager.recordPlay(track);
+            assertEquals(1, ClientCacheManager.playCount(track));
+        } finally {
+            Config.setDecodedPcmCacheMegabytes(budget);
+        }
+    }
+
+    private File file(String name, int size, long lastModified) throws IOException {
+        File file = cacheDir.resolve(name).toFile();
+        Files.write(file.toPath(), new byte[size]);
+        assertTrue(file.setLastModified(lastModified));
+        return file;
+    }
+}
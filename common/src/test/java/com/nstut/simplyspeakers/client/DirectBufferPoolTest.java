@@ -0,0 +1,60 @@
+package com.nstut.simplyspeakers.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectBufferPoolTest {
+
+    @Test
+    void refillsReuseOneDirectBuffer() {
+        DirectBufferPool pool = new DirectBufferPool(2);
+        ByteBuffer first = pool.acquire(96000);
+        assertTrue(first.isDirect());
+        assertEquals(ByteOrder.nativeOrder(), first.order());
+        first.put((byte) 1);
+        pool.release(first);
+
+        for (int i = 0; i < 100; i++) {
+            ByteBuffer buffer = pool.acquire(96000);
+            assertSame(first, buffer);
+            assertEquals(0, buffer.position());
+            assertEquals(96000, buffer.limit());
+            pool.release(buffer);
+        }
+        assertEquals(1, pool.allocations());
+    }
+
+    @Test
+    void smallerRequestsReuseLargerBuffersWithTheRequestedLimit() {
+        DirectBufferPool pool = new DirectBufferPool(2);
+        pool.release(pool.acquire(88200));
+
+        ByteBuffer buffer = pool.acquire(44100);
+
+        assertEquals(88200, buffer.capacity());
+        assertEquals(44100, buffer.limit());
+        assertEquals(1, pool.allocations());
+    }
+
+    @Test
+    void fullPoolKeepsTheLargestBuffers() {
+        DirectBufferPool pool = new DirectBufferPool(2);
+        ByteBuffer small = pool.acquire(100);
+        ByteBuffer medium = pool.acquire(200);
+        ByteBuffer large = pool.acquire(300);
+        pool.release(small);
+        pool.release(medium);
+        pool.release(large);
+
+        assertEquals(2, pool.pooled());
+        assertSame(large, pool.acquire(250));
+        assertSame(medium, pool.acquire(150));
+        assertEquals(0, pool.pooled());
+    }
+}
@@ -0,0 +1,74 @@
+package com.nstut.simplyspeakers.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DriftCorrectorTest {
+
+    @Test
+    void leavesMixerJitterAlone() {
+        DriftCorrector corrector = new DriftCorrector();
+
+        assertEquals(1.0f, corrector.update(0.004));
+        assertEquals(1.0f, corrector.update(-0.006));
+    }
+
+    @Test
+    void slowsDownWhenAheadAndSpeedsUpWhenBehind() {
+        DriftCorrector ahead = new DriftCorrector();
+        assertEquals(1.0f - 0.002f, ahead.update(0.04), 1e-6f);
+
+        DriftCorrector behind = new DriftCorrector();
+        assertEquals(1.0f + 0.002f, behind.update(-0.04), 1e-6f);
+    }
+
+    @Test
+    void limitsThePitchChange() {
+        DriftCorrector corrector = new DriftCorrector();
+
+        assertEquals(1.0f + DriftCorrector.MAX_PITCH_ADJUSTMENT, corrector.update(-0.4), 1e-6f);
+    }
+
+    @Test
+    void smoothsSingleOutliers() {
+        DriftCorrector corrector = new DriftCorrector();
+        corrector.update(0.0);
+
+        assertEquals(1.0f, corrector.update(0.03));
+    }
+
+    @Test
+    void resetDropsTheHistory() {
+        DriftCorrector corrector = new DriftCorrector();
+        corrector.update(0.3);
+        corrector.reset();
+
+        assertEquals(1.0f, corrector.update(0.0));
+    }
+
+    @Test
+    void driftCountsThePositionInsideTheCurrentBuffer() {
+        // started at 1 s, two 0.5 s buffers done and 0.25 s into the third
+        assertEquals(0.0, DriftCorrector.driftSeconds(48000, 48000, 12000, 48000f, 2_250_000_000L), 1e-9);
+        assertEquals(-0.1, DriftCorrector.driftSeconds(48000, 48000, 12000, 48000f, 2_350_000_000L), 1e-9);
+        assertTrue(DriftCorrector.needsResync(DriftCorrector.driftSeconds(0, 96000, 0, 48000f, 1_000_000_000L)));
+    }
+
+    @Test
+    void loopDriftTakesTheShortWayRound() {
+        assertEquals(0.1, DriftCorrector.loopDriftSeconds(4800, 0, 48000, 48000f), 1e-9);
+        assertEquals(-0.1, DriftCorrector.loopDriftSeconds(0, 4800, 48000, 48000f), 1e-9);
+        // just past the loop point while the clock is just before it
+        assertEquals(0.05, DriftCorrector.loopDriftSeconds(1200, 46800, 48000, 48000f), 1e-9);
+    }
+
+    @Test
+    void largeDriftNeedsAResync() {
+        assertTrue(DriftCorrector.needsResync(-0.6));
+        assertTrue(DriftCorrector.needsResync(DriftCorrector.RESYNC_SECONDS));
+        assertFalse(DriftCorrector.needsResync(0.2));
+    }
+}
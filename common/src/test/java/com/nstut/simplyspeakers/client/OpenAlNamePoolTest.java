@@ -0,0 +1,93 @@
+package com.nstut.simplyspeakers.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenAlNamePoolTest {
+
+    private final AtomicInteger nextName = new AtomicInteger(1);
+    private final Set<Integer> invalid = new HashSet<>();
+    private final List<int[]> deleteCalls = new ArrayList<>();
+    private long context = 1;
+
+    private OpenAlNamePool pool(int maxIdle) {
+        return new OpenAlNamePool(nextName::getAndIncrement, name -> !invalid.contains(name), deleteCalls::add, () -> context, maxIdle);
+    }
+
+    @Test
+    void reusesReturnedNamesBeforeGeneratingNewOnes() {
+        OpenAlNamePool pool = pool(4);
+        int first = pool.lease();
+        pool.giveBack(first);
+
+        assertEquals(first, pool.lease());
+        assertEquals(2, pool.lease());
+        assertEquals(2, pool.generated());
+        assertEquals(1, pool.reused());
+    }
+
+    @Test
+    void deletesNamesBeyondTheIdleLimit() {
+        OpenAlNamePool pool = pool(2);
+        int[] names = new int[3];
+        pool.lease(names);
+        pool.giveBack(names);
+
+        assertEquals(2, pool.idle());
+        assertEquals(1, deleteCalls.size());
+        assertArrayEquals(new int[] {3}, deleteCalls.get(0));
+    }
+
+    @Test
+    void skipsNamesInvalidatedWhileIdle() {
+        OpenAlNamePool pool = pool(4);
+        int name = pool.lease();
+        pool.giveBack(name);
+        invalid.add(name);
+
+        assertEquals(2, pool.lease());
+        assertEquals(0, pool.idle());
+    }
+
+    @Test
+    void clearDeletesAllIdleNamesInOneBatch() {
+        OpenAlNamePool pool = pool(16);
+        int[] names = new int[10];
+        pool.lease(names);
+        pool.giveBack(names);
+        pool.giveBack(0);
+
+        pool.clear();
+
+        assertEquals(1, deleteCalls.size());
+        assertEquals(10, deleteCalls.get(0).length);
+        assertEquals(0, pool.idle());
+    }
+
+    @Test
+    void aNewContextForgetsIdleNamesWithoutDeletingThem() {
+        OpenAlNamePool pool = pool(4);
+        int name = pool.lease();
+        pool.giveBack(name);
+
+        // the new context numbers its objects from the start too, so the stale name still looks valid
+        context = 2;
+        nextName.set(1);
+
+        assertEquals(0, pool.idle());
+        assertEquals(1, pool.lease());
+        assertEquals(2, pool.generated());
+        assertEquals(0, pool.reused());
+        pool.clear();
+        assertTrue(deleteCalls.isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package com.nstut.simplyspeakers.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlaybackClockTest {
+
+    @Test
+    void advancesFromTheStartOffset() {
+        PlaybackClock clock = new PlaybackClock(12.5f, 1_000L);
+
+        assertEquals(12.5f, clock.positionSeconds(1_000L), 1e-6f);
+        assertEquals(15.0f, clock.positionSeconds(1_000L + 2_500_000_000L), 1e-4f);
+    }
+
+    @Test
+    void clocksStartedFromTheSameTickAreInSync() {
+        PlaybackClock first = new PlaybackClock(0f, 1_000_000_000L);
+        PlaybackClock joinedLater = new PlaybackClock(3f, 4_010_000_000L);
+        PlaybackClock nextTrack = new PlaybackClock(0f, 1_200_000_000L);
+
+        assertEquals(1_000_000_000L, first.originNanos());
+        assertTrue(first.inSyncWith(joinedLater, PlaybackClock.SAME_TICK_NANOS));
+        assertFalse(first.inSyncWith(nextTrack, PlaybackClock.SAME_TICK_NANOS));
+    }
+
+    @Test
+    void keepsNanosecondPrecisionHoursIn() {
+        long start = 5_000_000_000_000L;
+        PlaybackClock clock = new PlaybackClock(0f, start);
+
+        assertEquals(3 * 3600_000_000_000L + 7, clock.positionNanos(start + 3 * 3600_000_000_000L + 7));
+    }
+
+    @Test
+    void reanchorsOnceTheServerTimelineDrifts() {
+        PlaybackClock clock = new PlaybackClock(2f, 0L);
+        assertFalse(clock.reanchor(1000, 0L));
+
+        // 40 ticks in 2.03 s is within the tolerance
+        assertFalse(clock.reanchor(1040, 2_030_000_000L));
+        assertEquals(4_030_000_000L, clock.positionNanos(2_030_000_000L));
+
+        // the server managed only 30 ticks in 2 s
+        assertTrue(clock.reanchor(1030, 2_000_000_000L));
+        assertEquals(3_500_000_000L, clock.positionNanos(2_000_000_000L));
+        assertEquals(-1_500_000_000L, clock.originNanos());
+    }
+
+    @Test
+    void onlyNonLoopingTracksOfKnownLengthEnd() {
+        PlaybackClock clock = new PlaybackClock(0f, 0L);
+        long later = 10_000_000_000L;
+        assertFalse(clock.hasEnded(later, false));
+
+        clock.setDurationSeconds(5f);
+        assertTrue(clock.hasEnded(later, false));
+        assertFalse(clock.hasEnded(later, true));
+        assertFalse(clock.hasEnded(4_000_000_000L, false));
+    }
+}
@@ -0,0 +1,75 @@
+package com.nstut.simplyspeakers.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PreRollTest {
+
+    private static final float RATE = 1000f;
+
+    @Test
+    void decodesTheRequestedNumberOfBuffers() throws IOException {
+        DirectBufferPool pool = new DirectBufferPool(4);
+        PreRoll preRoll = PreRoll.decode(ramp(1000), 200, 3, pool, 2f, RATE, 2);
+
+        assertFalse(preRoll.reachedEnd());
+        assertEquals(0, firstSample(preRoll.poll()));
+        assertEquals(100, firstSample(preRoll.poll()));
+        assertEquals(200, firstSample(preRoll.poll()));
+        assertNull(preRoll.poll());
+    }
+
+    @Test
+    void trimsTheAudioThatPlayedWhilePreRolling() throws IOException {
+        DirectBufferPool pool = new DirectBufferPool(4);
+        PreRoll preRoll = PreRoll.decode(ramp(1000), 200, 3, pool, 2f, RATE, 2);
+
+        assertEquals(0, preRoll.trimTo(2.15f));
+
+        ByteBuffer first = preRoll.poll();
+        assertEquals(150, firstSample(first));
+        assertEquals(100, first.remaining());
+        assertEquals(1, pool.pooled());
+    }
+
+    @Test
+    void reportsLatenessBeyondTheDecodedAudio() throws IOException {
+        DirectBufferPool pool = new DirectBufferPool(4);
+        PreRoll preRoll = PreRoll.decode(ramp(1000), 200, 2, pool, 0f, RATE, 2);
+
+        assertEquals(50, preRoll.trimTo(0.25f));
+        assertNull(preRoll.poll());
+        assertEquals(2, pool.pooled());
+    }
+
+    @Test
+    void aTrackThatEndedWhilePreRollingHasNothingLeftToSkip() throws IOException {
+        DirectBufferPool pool = new DirectBufferPool(4);
+        PreRoll preRoll = PreRoll.decode(ramp(150), 200, 3, pool, 0f, RATE, 2);
+
+        assertTrue(preRoll.reachedEnd());
+        assertEquals(0, preRoll.trimTo(5f));
+        assertNull(preRoll.poll());
+    }
+
+    private static ByteArrayInputStream ramp(int frames) {
+        ByteBuffer pcm = ByteBuffer.allocate(frames * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frames; i++) {
+            pcm.putShort((short) i);
+        }
+        return new ByteArrayInputStream(pcm.array());
+    }
+
+    private static int firstSample(ByteBuffer chunk) {
+        return chunk.duplicate().order(ByteOrder.nativeOrder()).getShort();
+    }
+}
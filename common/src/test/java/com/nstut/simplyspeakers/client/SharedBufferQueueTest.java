@@ -0,0 +1,167 @@
+package com.nstut.simplyspeakers.client;
+
+import com.nstut.simplyspeakers.audio.LoopingPcmStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SharedBufferQueueTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Sources whose queues play at a set speed; buffers before {@code played} count as processed. */
+    private static final class FakeSources implements SharedBufferQueue.QueueCalls {
+        final Map<Integer, ArrayDeque<Integer>> queues = new HashMap<>();
+        final Map<Integer, Integer> played = new HashMap<>();
+
+        @Override
+        public int buffersProcessed(int source) {
+            return Math.min(played.getOrDefault(source, 0), queue(source).size());
+        }
+
+        @Override
+        public int unqueue(int source) {
+            played.merge(source, -1, Integer::sum);
+            return queue(source).poll();
+        }
+
+        @Override
+        public void queue(int source, int buffer) {
+            queue(source).add(buffer);
+        }
+
+        ArrayDeque<Integer> queue(int source) {
+            return queues.computeIfAbsent(source, k -> new ArrayDeque<>());
+        }
+    }
+
+    @Test
+    void buffersAreQueuedOnEverySource() {
+        FakeSources al = new FakeSources();
+        int[] sources = {1, 2, 3};
+
+        SharedBufferQueue.queue(al, sources, 10);
+        SharedBufferQueue.queue(al, sources, 11);
+
+        for (int source : sources) {
+            assertEquals(List.of(10, 11), new ArrayList<>(al.queue(source)));
+        }
+    }
+
+    @Test
+    void aBufferIsOnlyFreedOnceEverySourceHasPlayedIt() {
+        FakeSources al = new FakeSources();
+        int[] sources = {1, 2};
+        for (int buffer = 10; buffer < 14; buffer++) {
+            SharedBufferQueue.queue(al, sources, buffer);
+        }
+        al.played.put(1, 3);
+        al.played.put(2, 1);
+
+        List<Integer> freed = new ArrayList<>();
+        assertEquals(1, SharedBufferQueue.unqueuePlayed(al, sources, freed::add));
+        assertEquals(List.of(10), freed);
+        assertEquals(3, al.queue(1).size());
+        assertEquals(3, al.queue(2).size());
+
+        al.played.put(2, 2);
+        assertEquals(2, SharedBufferQueue.unqueuePlayed(al, sources, freed::add));
+        assertEquals(List.of(10, 11, 12), freed);
+        assertEquals(List.of(13), new ArrayList<>(al.queue(2)));
+    }
+
+    @Test
+    void aSingleSourceFreesWhatItPlayed() {
+        FakeSources al = new FakeSources();
+        int[] sources = {1};
+        SharedBufferQueue.queue(al, sources, 10);
+        SharedBufferQueue.queue(al, sources, 11);
+        al.played.put(1, 2);
+
+        List<Integer> freed = new ArrayList<>();
+        assertEquals(2, SharedBufferQueue.unqueuePlayed(al, sources, freed::add));
+        assertEquals(List.of(10, 11), freed);
+    }
+
+    @Test
+    void loopingStreamPlaysEverySampleOnceAcrossLoopBoundariesAndDrains() throws Exception {
+        int passSamples = 1000;
+        byte[] pass = new byte[passSamples * 2];
+        for (int i = 0; i < passSamples; i++) {
+            pass[i * 2] = (byte) i;
+            pass[i * 2 + 1] = (byte) (i >> 8);
+        }
+        File wav = tempDir.resolve("ramp.wav").toFile();
+        AudioFormat format = new AudioFormat(8000f, 16, 1, true, false);
+        try (AudioInputStream in = new AudioInputStream(new ByteArrayInputStream(pass), format, passSamples)) {
+            AudioSystem.write(in, AudioFileFormat.Type.WAVE, wav);
+        }
+
+        FakeSources al = new FakeSources();
+        int[] sources = {1, 2};
+        // 384 bytes per buffer, so loop points fall inside buffers rather than between them.
+        Map<Integer, byte[]> bufferData = new HashMap<>();
+        ArrayDeque<Integer> freeBuffers = new ArrayDeque<>(List.of(10, 11, 12));
+        ByteArrayOutputStream heard = new ByteArrayOutputStream();
+        AtomicBoolean looping = new AtomicBoolean(true);
+
+        try (LoopingPcmStream stream = LoopingPcmStream.open(wav, looping::get)) {
+            boolean endOfStream = false;
+            int queued = 0;
+            long decoded = 0;
+            while (!endOfStream || queued > 0) {
+                while (!endOfStream && !freeBuffers.isEmpty()) {
+                    byte[] data = stream.readNBytes(384);
+                    if (data.length == 0) {
+                        endOfStream = true;
+                        break;
+                    }
+                    decoded += data.length;
+                    if (decoded > pass.length * 5L / 2) {
+                        // Turned off mid-pass: the stream finishes the third pass and ends.
+                        looping.set(false);
+                    }
+                    int buffer = freeBuffers.poll();
+                    bufferData.put(buffer, data);
+                    SharedBufferQueue.queue(al, sources, buffer);
+                    queued++;
+                }
+                for (int source : sources) {
+                    al.played.merge(source, 1, Integer::sum);
+                }
+                queued -= SharedBufferQueue.unqueuePlayed(al, sources, buffer -> {
+                    heard.writeBytes(bufferData.get(buffer));
+                    freeBuffers.add(buffer);
+                });
+            }
+        }
+
+        byte[] expected = new byte[pass.length * 3];
+        for (int k = 0; k < 3; k++) {
+            System.arraycopy(pass, 0, expected, k * pass.length, pass.length);
+        }
+        assertArrayEquals(expected, heard.toByteArray());
+        for (int source : sources) {
+            assertEquals(0, al.queue(source).size());
+        }
+        assertEquals(3, freeBuffers.size());
+    }
+}
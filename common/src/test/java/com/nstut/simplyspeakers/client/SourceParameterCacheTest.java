@@ -0,0 +1,160 @@
+package com.nstut.simplyspeakers.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceParameterCacheTest {
+
+    @Test
+    void firstPassAfterBindingPushesEverything() {
+        SourceParameterCache cache = new SourceParameterCache();
+        cache.bind(1);
+
+        assertTrue(cache.positionChanged(0.5f, 64.5f, 0.5f));
+        assertTrue(cache.gainChanged(0.0f));
+    }
+
+    @Test
+    void changesBelowTheThresholdAreSkipped() {
+        SourceParameterCache cache = new SourceParameterCache();
+        cache.bind(1);
+        cache.positionChanged(10.0f, 64.0f, 10.0f);
+        cache.gainChanged(0.5f);
+
+        assertFalse(cache.positionChanged(10.005f, 64.0f, 10.0f));
+        assertFalse(cache.gainChanged(0.503f));
+        assertTrue(cache.positionChanged(10.05f, 64.0f, 10.0f));
+        assertTrue(cache.gainChanged(0.52f));
+    }
+
+    @Test
+    void slowDriftIsPushedOnceItAddsUp() {
+        SourceParameterCache cache = new SourceParameterCache();
+        cache.bind(1);
+        cache.gainChanged(0.5f);
+
+        int pushes = 0;
+        float gain = 0.5f;
+        for (int i = 0; i < 100; i++) {
+            gain -= 0.001f;
+            if (cache.gainChanged(gain)) {
+                pushes++;
+            }
+        }
+        assertTrue(pushes > 0 && pushes < 100, "pushes: " + pushes);
+        assertFalse(cache.gainChanged(gain));
+    }
+
+    @Test
+    void silencingAndUnsilencingAlwaysPush() {
+        SourceParameterCache cache = new SourceParameterCache();
+        cache.bind(1);
+        cache.gainChanged(0.004f);
+
+        assertTrue(cache.gainChanged(0.0f));
+        assertFalse(cache.gainChanged(0.0f));
+        assertTrue(cache.gainChanged(0.001f));
+    }
+
+    @Test
+    void aNewLeaseForgetsWhatWasPushed() {
+        SourceParameterCache cache = new SourceParameterCache();
+        cache.bind(1);
+        cache.positionChanged(1.0f, 2.0f, 3.0f);
+        cache.gainChanged(0.7f);
+
+        cache.bind(1);
+        assertFalse(cache.gainChanged(0.7f));
+
+        cache.bind(2);
+        assertTrue(cache.positionChanged(1.0f, 2.0f, 3.0f));
+        assertTrue(cache.gainChanged(0.7f));
+    }
+
+    @Test
+    void pushOnlyCallsOpenAlForAudibleChanges() {
+        RecordingSources al = new RecordingSources();
+        SourceParameterCache cache = new SourceParameterCache();
+
+        cache.push(al, 5, 1, true, 1.0f, 2.0f, 3.0f, 0.7f);
+        assertEquals(List.of("valid 5", "position 5", "gain 5 0.7"), al.calls);
+
+        al.calls.clear();
+        cache.push(al, 5, 1, true, 1.001f, 2.0f, 3.0f, 0.701f);
+        assertTrue(al.calls.isEmpty());
+
+        cache.push(al, 5, 1, false, 9.0f, 9.0f, 9.0f, 0.2f);
+        assertEquals(List.of("valid 5", "gain 5 0.2"), al.calls);
+    }
+
+    @Test
+    void aReleasedAndLeasedAgainSourceIsPushedInFull() {
+        RecordingSources al = new RecordingSources();
+        SourceParameterCache cache = new SourceParameterCache();
+        cache.push(al, 5, 1, true, 1.0f, 2.0f, 3.0f, 0.7f);
+        al.calls.clear();
+
+        // same name and values, but the source was reset when it was leased again
+        cache.push(al, 5, 2, true, 1.0f, 2.0f, 3.0f, 0.7f);
+
+        assertEquals(List.of("valid 5", "position 5", "gain 5 0.7"), al.calls);
+    }
+
+    @Test
+    void deletedSourcesAreLeftAlone() {
+        RecordingSources al = new RecordingSources();
+        al.deleted.add(5);
+        SourceParameterCache cache = new SourceParameterCache();
+
+        cache.push(al, 5, 1, true, 1.0f, 2.0f, 3.0f, 0.7f);
+
+        assertEquals(List.of("valid 5"), al.calls);
+    }
+
+    @Test
+    void countsSavedCallsPerFrame() {
+        SourceParameterCache cache = new SourceParameterCache();
+        cache.bind(1);
+        cache.positionChanged(1.0f, 2.0f, 3.0f);
+        cache.gainChanged(0.7f);
+        SourceParameterCache.endFrame();
+        long saved = SourceParameterCache.savedCalls();
+
+        assertFalse(cache.positionChanged(1.0f, 2.0f, 3.0f));
+        assertFalse(cache.gainChanged(0.7f));
+        SourceParameterCache.skippedValidation();
+        SourceParameterCache.endFrame();
+
+        assertEquals(3, SourceParameterCache.savedLastFrame());
+        assertEquals(saved + 3, SourceParameterCache.savedCalls());
+    }
+
+    private static final class RecordingSources implements SourceParameterCache.SourceCalls {
+        final List<String> calls = new ArrayList<>();
+        final Set<Integer> deleted = new HashSet<>();
+
+        @Override
+        public boolean isSource(int source) {
+            calls.add("valid " + source);
+            return !deleted.contains(source);
+        }
+
+        @Override
+        public void position(int source, float x, float y, float z) {
+            calls.add("position " + source);
+        }
+
+        @Override
+        public void gain(int source, float gain) {
+            calls.add("gain " + source + " " + gain);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.nstut.simplyspeakers.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticClipCacheTest {
+
+    private final List<Integer> deleted = new ArrayList<>();
+    private long context = 1;
+
+    @Test
+    void onlyTracksOfKnownShortLengthAreStatic() {
+        assertTrue(StaticClipCache.isShortClip(4.5f, 10));
+        assertTrue(StaticClipCache.isShortClip(10f, 10));
+        assertFalse(StaticClipCache.isShortClip(10.5f, 10));
+        assertFalse(StaticClipCache.isShortClip(0f, 10));
+        assertFalse(StaticClipCache.isShortClip(4.5f, 0));
+    }
+
+    @Test
+    void residentClipsAreSharedUntilEvicted() {
+        StaticClipCache cache = new StaticClipCache(() -> 1000, deleted::add, () -> context);
+
+        assertEquals(0, cache.acquire("a"));
+        assertEquals(7, cache.put("a", 7, 400));
+        assertEquals(7, cache.acquire("a"));
+        cache.release("a");
+        cache.release("a");
+
+        assertEquals(400, cache.residentBytes());
+        assertTrue(deleted.isEmpty());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedUnreferencedClipsOverBudget() {
+        StaticClipCache cache = new StaticClipCache(() -> 1000, deleted::add, () -> context);
+        cache.put("a", 1, 400);
+        cache.put("b", 2, 400);
+        cache.release("a");
+        cache.release("b");
+        cache.acquire("a");
+        cache.release("a");
+
+        cache.put("c", 3, 400);
+
+        assertEquals(List.of(2), deleted);
+        assertEquals(800, cache.residentBytes());
+        assertEquals(1, cache.acquire("a"));
+    }
+
+    @Test
+    void clipsInUseOutliveTheBudget() {
+        StaticClipCache cache = new StaticClipCache(() -> 100, deleted::add, () -> context);
+        cache.put("a", 1, 400);
+        assertTrue(deleted.isEmpty());
+
+        cache.release("a");
+        assertEquals(List.of(1), deleted);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void losingAnInsertRaceKeepsTheResidentBuffer() {
+        StaticClipCache cache = new StaticClipCache(() -> 1000, deleted::add, () -> context);
+        cache.put("a", 1, 400);
+
+        assertEquals(1, cache.put("a", 2, 400));
+        assertEquals(List.of(2), deleted);
+        assertEquals(400, cache.residentBytes());
+    }
+
+    @Test
+    void aNewContextForgetsEveryClipWithoutDeletingIt() {
+        StaticClipCache cache = new StaticClipCache(() -> 1000, deleted::add, () -> context);
+        cache.put("a", 1, 400);
+        cache.release("a");
+
+        context = 2;
+
+        assertEquals(0, cache.acquire("a"));
+        assertEquals(0, cache.residentBytes());
+        cache.clear();
+        assertTrue(deleted.isEmpty());
+    }
+}
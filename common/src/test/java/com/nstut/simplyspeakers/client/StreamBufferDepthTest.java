@@ -0,0 +1,68 @@
+package com.nstut.simplyspeakers.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamBufferDepthTest {
+
+    @Test
+    void fixedProfilesKeepTheirDepthThroughUnderruns() {
+        StreamBufferDepth depth = new StreamBufferDepth(StreamingLatency.DEFAULT);
+        assertEquals(3, depth.depth());
+
+        assertFalse(depth.recordService(3, 3));
+        assertEquals(3, depth.depth());
+        assertEquals(1, depth.underruns());
+    }
+
+    @Test
+    void adaptiveGrowsWhenTheSourceRunsDryUpToItsMaximum() {
+        StreamBufferDepth depth = new StreamBufferDepth(StreamingLatency.ADAPTIVE);
+        assertEquals(4, depth.depth());
+
+        assertTrue(depth.recordService(4, 4));
+        assertEquals(6, depth.depth());
+        for (int i = 0; i < 10; i++) {
+            depth.recordService(depth.depth(), depth.depth());
+        }
+        assertEquals(StreamingLatency.ADAPTIVE.maxBuffers(), depth.depth());
+    }
+
+    @Test
+    void adaptiveShrinksOnlyAfterARunOfEarlyRefills() {
+        StreamBufferDepth depth = new StreamBufferDepth(StreamingLatency.ADAPTIVE);
+        depth.recordService(4, 4);
+        assertEquals(6, depth.depth());
+
+        for (int i = 1; i < StreamBufferDepth.SHRINK_AFTER_EARLY_REFILLS; i++) {
+            assertFalse(depth.recordService(6, 1));
+        }
+        // A refill that found only the playing buffer left breaks the run.
+        assertFalse(depth.recordService(6, 5));
+        for (int i = 1; i < StreamBufferDepth.SHRINK_AFTER_EARLY_REFILLS; i++) {
+            assertFalse(depth.recordService(6, 1));
+        }
+        assertTrue(depth.recordService(6, 1));
+        assertEquals(5, depth.depth());
+
+        for (int i = 0; i < StreamBufferDepth.SHRINK_AFTER_EARLY_REFILLS * 10; i++) {
+            depth.recordService(depth.depth(), 1);
+        }
+        assertEquals(StreamingLatency.ADAPTIVE.minBuffers(), depth.depth());
+    }
+
+    @Test
+    void profilesParseCaseInsensitivelyAndSizeWholeFrames() {
+        assertEquals(StreamingLatency.LOW, StreamingLatency.parse(" low "));
+        assertEquals(StreamingLatency.ADAPTIVE, StreamingLatency.parse("Adaptive"));
+        assertNull(StreamingLatency.parse("fast"));
+
+        assertEquals(9600, StreamingLatency.LOW.bufferBytes(48000f, 2));
+        assertEquals(88200, StreamingLatency.DEFAULT.bufferBytes(44100f, 2));
+        assertEquals(0, StreamingLatency.ADAPTIVE.bufferBytes(22050f, 2) % 2);
+    }
+}
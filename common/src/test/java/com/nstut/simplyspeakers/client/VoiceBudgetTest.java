@@ -0,0 +1,89 @@
+package com.nstut.simplyspeakers.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VoiceBudgetTest {
+
+    @Test
+    void voicesTheLoudestNetworksWithinTheBudget() {
+        VoiceBudget budget = new VoiceBudget();
+        Map<String, Float> gains = gains("a", 0.2f, "b", 0.9f, "c", 0.5f);
+
+        VoiceBudget.Plan plan = budget.plan(gains, Set.of(), 2, 0);
+
+        assertEquals(List.of("b", "c"), plan.promote());
+        assertTrue(plan.demote().isEmpty());
+    }
+
+    @Test
+    void demotesAQuietVoiceOnlyForAClearlyLouderNetwork() {
+        VoiceBudget budget = new VoiceBudget();
+
+        VoiceBudget.Plan close = budget.plan(gains("a", 0.5f, "b", 0.6f), Set.of("a"), 1, 0);
+        assertTrue(close.isEmpty());
+
+        VoiceBudget.Plan louder = budget.plan(gains("a", 0.5f, "b", 0.9f), Set.of("a"), 1, 0);
+        assertEquals(List.of("b"), louder.promote());
+        assertEquals(List.of("a"), louder.demote());
+    }
+
+    @Test
+    void silentVoicesKeepTheirSourceForTheGracePeriod() {
+        VoiceBudget budget = new VoiceBudget();
+        Map<String, Float> silent = gains("a", 0f);
+
+        assertTrue(budget.plan(silent, Set.of("a"), 0, 0).isEmpty());
+        assertTrue(budget.plan(silent, Set.of("a"), 0, VoiceBudget.SILENT_GRACE_NANOS - 1).isEmpty());
+        assertEquals(List.of("a"), budget.plan(silent, Set.of("a"), 0, VoiceBudget.SILENT_GRACE_NANOS).demote());
+    }
+
+    @Test
+    void becomingAudibleAgainRestartsTheGracePeriod() {
+        VoiceBudget budget = new VoiceBudget();
+        budget.plan(gains("a", 0f), Set.of("a"), 0, 0);
+        budget.plan(gains("a", 0.3f), Set.of("a"), 0, VoiceBudget.SILENT_GRACE_NANOS / 2);
+
+        VoiceBudget.Plan plan = budget.plan(gains("a", 0f), Set.of("a"), 0, VoiceBudget.SILENT_GRACE_NANOS);
+        assertTrue(plan.isEmpty());
+    }
+
+    @Test
+    void inaudibleVirtualNetworksAreNotPromoted() {
+        VoiceBudget budget = new VoiceBudget();
+        VoiceBudget.Plan plan = budget.plan(gains("a", 0f, "b", 0.1f), Set.of(), 0, 0);
+
+        assertEquals(List.of("b"), plan.promote());
+    }
+
+    @Test
+    void freeVoiceCheckTreatsZeroAsUnlimited() {
+        assertTrue(VoiceBudget.hasFreeVoice(1000, 0));
+        assertTrue(VoiceBudget.hasFreeVoice(3, 4));
+        assertFalse(VoiceBudget.hasFreeVoice(4, 4));
+    }
+
+    @Test
+    void networkLimitSharesTheSourceBudgetOut() {
+        assertEquals(24, VoiceBudget.networkLimit(24, 1));
+        assertEquals(8, VoiceBudget.networkLimit(24, 3));
+        assertEquals(1, VoiceBudget.networkLimit(2, 4));
+        assertEquals(0, VoiceBudget.networkLimit(0, 4));
+    }
+
+    private static Map<String, Float> gains(Object... keysAndGains) {
+        Map<String, Float> gains = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndGains.length; i += 2) {
+            gains.put((String) keysAndGains[i], (Float) keysAndGains[i + 1]);
+        }
+        return gains;
+    }
+}
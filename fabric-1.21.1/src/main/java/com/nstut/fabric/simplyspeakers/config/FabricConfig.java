@@ -2,6 +2,7 @@ package com.nstut.fabric.simplyspeakers.config;
 
 import com.nstut.simplyspeakers.Config;
 import com.nstut.simplyspeakers.SimplySpeakers;
+import com.nstut.simplyspeakers.client.StreamingLatency;
 import net.fabricmc.loader.api.FabricLoader;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.config.Configurator;
@@ -54,6 +55,48 @@ public class FabricConfig {
             }
 
             Config.setLocalConfig(range, disableUpload, size);
+
+            // Read engine sample rate
+            try {
+                Config.setEngineSampleRate(Integer.parseInt(props.getProperty("engineSampleRate", String.valueOf(Config.engineSampleRate))));
+            } catch (NumberFormatException e) {
+                SimplySpeakers.LOGGER.error("Failed to parse engine sample rate from config", e);
+            }
+
+            // Read decoded PCM cache budget
+            try {
+                Config.setDecodedPcmCacheMegabytes(Integer.parseInt(props.getProperty("decodedPcmCacheMegabytes", String.valueOf(Config.decodedPcmCacheMegabytes))));
+            } catch (NumberFormatException e) {
+                SimplySpeakers.LOGGER.error("Failed to parse decoded PCM cache size from config", e);
+            }
+
+            // Read streaming latency profile
+            String latency = props.getProperty("streamingLatency", Config.streamingLatency.name());
+            StreamingLatency profile = StreamingLatency.parse(latency);
+            if (profile == null) {
+                SimplySpeakers.LOGGER.error("Unknown streaming latency '{}' in config, using DEFAULT", latency);
+            }
+            Config.setStreamingLatency(profile);
+
+            // Read voice budget
+            try {
+                Config.setMaxVoices(Integer.parseInt(props.getProperty("maxVoices", String.valueOf(Config.maxVoices))));
+            } catch (NumberFormatException e) {
+                SimplySpeakers.LOGGER.error("Failed to parse max voices from config", e);
+            }
+            try {
+                Config.setEmitterSources(Integer.parseInt(props.getProperty("emitterSources", String.valueOf(Config.emitterSources))));
+            } catch (NumberFormatException e) {
+                SimplySpeakers.LOGGER.error("Failed to parse emitter sources from config", e);
+            }
+
+            // Read static clip settings
+            try {
+                Config.setStaticClipSeconds(Integer.parseInt(props.getProperty("staticClipSeconds", String.valueOf(Config.staticClipSeconds))));
+                Config.setStaticClipCacheMegabytes(Integer.parseInt(props.getProperty("staticClipCacheMegabytes", String.valueOf(Config.staticClipCacheMegabytes))));
+            } catch (NumberFormatException e) {
+                SimplySpeakers.LOGGER.error("Failed to parse static clip settings from config", e);
+            }
             
             // Read debug logging
             Config.debugLogging = Boolean.parseBoolean(props.getProperty("debugLogging", String.valueOf(Config.debugLogging)));
@@ -77,6 +120,13 @@ public class FabricConfig {
             props.setProperty("speakerRange", "64");
             props.setProperty("disableUpload", String.valueOf(Config.disableUpload));
             props.setProperty("maxUploadSize", String.valueOf(Config.maxUploadSize));
+            props.setProperty("engineSampleRate", String.valueOf(Config.engineSampleRate));
+            props.setProperty("decodedPcmCacheMegabytes", String.valueOf(Config.decodedPcmCacheMegabytes));
+            props.setProperty("streamingLatency", Config.streamingLatency.name());
+            props.setProperty("maxVoices", String.valueOf(Config.maxVoices));
+            props.setProperty("emitterSources", String.valueOf(Config.emitterSources));
+            props.setProperty("staticClipSeconds", String.valueOf(Config.staticClipSeconds));
+            props.setProperty("staticClipCacheMegabytes", String.valueOf(Config.staticClipCacheMegabytes));
             props.setProperty("debugLogging", String.valueOf(Config.debugLogging));
             
             props.store(writer, "Simply Speakers Configuration");
@@ -2,6 +2,7 @@ package com.nstut.simplyspeakers.forge.config;
 
 import com.nstut.simplyspeakers.Config;
 import com.nstut.simplyspeakers.SimplySpeakers;
+import com.nstut.simplyspeakers.client.StreamingLatency;
 import net.minecraftforge.common.ForgeConfigSpec;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
@@ -32,6 +33,34 @@ public class ForgeConfig {
             .comment("Enable debug logging for troubleshooting audio/settings issues")
             .define("debugLogging", Config.debugLogging);
 
+    public static final ForgeConfigSpec.IntValue ENGINE_SAMPLE_RATE = BUILDER
+            .comment("Client-side sample rate all speaker audio is resampled to before playback (0 = play each file at its own rate)")
+            .defineInRange("engineSampleRate", Config.engineSampleRate, 0, Config.MAX_ENGINE_SAMPLE_RATE);
+
+    public static final ForgeConfigSpec.IntValue DECODED_PCM_CACHE_MEGABYTES = BUILDER
+            .comment("Client-side disk budget in MB for decoded copies of frequently played tracks, which then play without decoding (0 = disabled)")
+            .defineInRange("decodedPcmCacheMegabytes", Config.decodedPcmCacheMegabytes, 0, Config.MAX_DECODED_PCM_CACHE_MEGABYTES);
+
+    public static final ForgeConfigSpec.EnumValue<StreamingLatency> STREAMING_LATENCY = BUILDER
+            .comment("Client-side streaming buffer profile: LOW (~0.4 s queued, quickest seeks), DEFAULT (3 s), RESILIENT (6 s, rides out slow disks) or ADAPTIVE (grows after underruns, shrinks while refills are early)")
+            .defineEnum("streamingLatency", Config.streamingLatency);
+
+    public static final ForgeConfigSpec.IntValue MAX_VOICES = BUILDER
+            .comment("Client-side limit on speaker networks playing through a real sound source at once; the least audible beyond it are paused and resume in sync when they get louder (0 = no limit)")
+            .defineInRange("maxVoices", Config.maxVoices, 0, Config.MAX_VOICES);
+
+    public static final ForgeConfigSpec.IntValue EMITTER_SOURCES = BUILDER
+            .comment("Client-side sound sources per playing network: 1 plays from the blend of its speakers, more play from each of that many loudest speakers for truer direction (maxVoices is then shared out by sources)")
+            .defineInRange("emitterSources", Config.emitterSources, 1, Config.MAX_EMITTER_SOURCES);
+
+    public static final ForgeConfigSpec.IntValue STATIC_CLIP_SECONDS = BUILDER
+            .comment("Client-side: tracks up to this many seconds long are decoded once into memory and start instantly instead of streaming (0 = always stream)")
+            .defineInRange("staticClipSeconds", Config.staticClipSeconds, 0, Config.MAX_STATIC_CLIP_SECONDS);
+
+    public static final ForgeConfigSpec.IntValue STATIC_CLIP_CACHE_MEGABYTES = BUILDER
+            .comment("Client-side memory budget in megabytes for decoded short clips; least recently played clips are dropped first")
+            .defineInRange("staticClipCacheMegabytes", Config.staticClipCacheMegabytes, 0, Config.MAX_STATIC_CLIP_CACHE_MEGABYTES);
+
     public static final ForgeConfigSpec SPEC = BUILDER.build();
 
     /**
@@ -43,6 +72,13 @@ public class ForgeConfig {
         if (event.getConfig().getSpec() == SPEC) {
             Config.setLocalConfig(SPEAKER_RANGE.get(), DISABLE_UPLOAD.get(), MAX_UPLOAD_SIZE.get());
             Config.debugLogging = DEBUG_LOGGING.get();
+            Config.setEngineSampleRate(ENGINE_SAMPLE_RATE.get());
+            Config.setDecodedPcmCacheMegabytes(DECODED_PCM_CACHE_MEGABYTES.get());
+            Config.setStreamingLatency(STREAMING_LATENCY.get());
+            Config.setMaxVoices(MAX_VOICES.get());
+            Config.setEmitterSources(EMITTER_SOURCES.get());
+            Config.setStaticClipSeconds(STATIC_CLIP_SECONDS.get());
+            Config.setStaticClipCacheMegabytes(STATIC_CLIP_CACHE_MEGABYTES.get());
             
             // Set logger level based on debug config
             // The logger name is the MOD_ID ("simplyspeakers")
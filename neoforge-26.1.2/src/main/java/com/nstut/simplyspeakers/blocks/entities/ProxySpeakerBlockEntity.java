@@ -7,6 +7,7 @@ import com.nstut.simplyspeakers.SpeakerSettings;
 import com.nstut.simplyspeakers.SpeakerState;
 import com.nstut.simplyspeakers.audio.AudioFileMetadata;
 import com.nstut.simplyspeakers.audio.AudioFileManager;
+import com.nstut.simplyspeakers.client.ClientAudioPlayer;
 import com.nstut.simplyspeakers.client.ClientSpeakerRegistry;
 import com.nstut.simplyspeakers.network.PlayAudioPacketS2C;
 import com.nstut.simplyspeakers.network.StopAudioPacketS2C;
@@ -82,6 +83,7 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
     public void setMaxVolumeClient(float maxVolume) {
         if (this.level != null && this.level.isClientSide()) {
             this.maxVolume = Math.max(0.0f, Math.min(1.0f, maxVolume));
+            pushClientEmitter();
         }
     }
 
@@ -99,6 +101,7 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
     public void setMaxRangeClient(int maxRange) {
         if (this.level != null && this.level.isClientSide()) {
             this.maxRange = Math.max(1, Math.min(Config.speakerRange, maxRange));
+            pushClientEmitter();
         }
     }
 
@@ -116,6 +119,7 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
     public void setAudioDropoffClient(float audioDropoff) {
         if (this.level != null && this.level.isClientSide()) {
             this.audioDropoff = Math.max(0.0f, Math.min(1.0f, audioDropoff));
+            pushClientEmitter();
         }
     }
 
@@ -192,6 +196,16 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
     @Override
     public void setRemoved() {
         super.setRemoved();
+        if (level != null && level.isClientSide()) {
+            ClientAudioPlayer.removeEmitter(worldPosition);
+        }
+    }
+
+    /** Hands this proxy's current settings to the client's emitter table. */
+    private void pushClientEmitter() {
+        if (level != null && level.isClientSide()) {
+            ClientAudioPlayer.updateEmitter(worldPosition, null, getMaxRange(), getMaxVolume(), getAudioDropoff());
+        }
     }
 
     @Override
@@ -299,8 +313,8 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
                 AudioFileManager audioFileManager = SimplySpeakers.getAudioFileManager();
                 if (audioFileManager != null) {
                     AudioFileMetadata meta = audioFileManager.getManifest().get(state.getAudioId());
-                    if (meta != null && meta.getDurationSeconds() > 0.0f && state.isLooping()) {
-                        playbackPositionSeconds = elapsedSeconds % meta.getDurationSeconds();
+                    if (meta != null && state.isLooping()) {
+                        playbackPositionSeconds = meta.loopPositionSeconds(elapsedSeconds);
                     }
                 }
 
@@ -353,6 +367,7 @@ public class ProxySpeakerBlockEntity extends BlockEntity {
         if (level != null && !level.isClientSide()) {
             ensureServerRegistration();
         }
+        pushClientEmitter();
     }
 
     @Override
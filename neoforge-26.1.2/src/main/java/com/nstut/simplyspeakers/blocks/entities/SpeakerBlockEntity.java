@@ -9,6 +9,7 @@ import com.nstut.simplyspeakers.SpeakerState;
 import com.nstut.simplyspeakers.audio.AudioFileMetadata;
 import com.nstut.simplyspeakers.audio.AudioFileManager;
 import com.nstut.simplyspeakers.blocks.SpeakerBlock;
+import com.nstut.simplyspeakers.client.ClientAudioPlayer;
 import com.nstut.simplyspeakers.client.ClientSpeakerRegistry;
 import com.nstut.simplyspeakers.network.PlayAudioPacketS2C;
 import com.nstut.simplyspeakers.network.SpeakerStateUpdatePacketS2C;
@@ -324,7 +325,7 @@ public class SpeakerBlockEntity extends BlockEntity {
             AudioFileManager audioFileManager = SimplySpeakers.getAudioFileManager();
             if (audioFileManager != null) {
                 AudioFileMetadata meta = audioFileManager.getManifest().get(state.getAudioId());
-                if (meta != null && meta.getDurationSeconds() > 0.0f && elapsedSeconds >= meta.getDurationSeconds()) {
+                if (meta != null && meta.isFinishedAt(elapsedSeconds)) {
                     stopAudio();
                     return;
                 }
@@ -360,8 +361,8 @@ public class SpeakerBlockEntity extends BlockEntity {
                 AudioFileManager audioFileManager = SimplySpeakers.getAudioFileManager();
                 if (audioFileManager != null) {
                     AudioFileMetadata meta = audioFileManager.getManifest().get(state.getAudioId());
-                    if (meta != null && meta.getDurationSeconds() > 0.0f && state.isLooping()) {
-                        playbackPositionSeconds = elapsedSeconds % meta.getDurationSeconds();
+                    if (meta != null && state.isLooping()) {
+                        playbackPositionSeconds = meta.loopPositionSeconds(elapsedSeconds);
                     }
                 }
 
@@ -416,6 +417,16 @@ public class SpeakerBlockEntity extends BlockEntity {
     @Override
     public void setRemoved() {
         super.setRemoved();
+        if (level != null && level.isClientSide()) {
+            ClientAudioPlayer.removeEmitter(worldPosition);
+        }
+    }
+
+    /** Hands this speaker's current settings to the client's emitter table. */
+    private void pushClientEmitter() {
+        if (level != null && level.isClientSide()) {
+            ClientAudioPlayer.updateEmitter(worldPosition, getStateKey(), getMaxRange(), getMaxVolume(), getAudioDropoff());
+        }
     }
 
     @Override
@@ -471,6 +482,7 @@ public class SpeakerBlockEntity extends BlockEntity {
         }
 
         listeningPlayers.clear();
+        pushClientEmitter();
     }
 
     @Override
@@ -575,6 +587,7 @@ public class SpeakerBlockEntity extends BlockEntity {
             if (state != null) {
                 state.setMaxVolume(Math.max(0.0f, Math.min(1.0f, maxVolume)));
             }
+            pushClientEmitter();
         }
     }
 
@@ -584,6 +597,7 @@ public class SpeakerBlockEntity extends BlockEntity {
             if (state != null) {
                 state.setMaxRange(Math.max(1, Math.min(Config.speakerRange, maxRange)));
             }
+            pushClientEmitter();
         }
     }
 
@@ -593,6 +607,7 @@ public class SpeakerBlockEntity extends BlockEntity {
             if (state != null) {
                 state.setAudioDropoff(Math.max(0.0f, Math.min(1.0f, audioDropoff)));
             }
+            pushClientEmitter();
         }
     }
 
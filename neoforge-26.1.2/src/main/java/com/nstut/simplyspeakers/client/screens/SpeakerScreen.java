@@ -4,6 +4,7 @@ package com.nstut.simplyspeakers.client.screens;
 import com.nstut.simplyspeakers.SimplySpeakers;
 
 import com.nstut.simplyspeakers.Config;
+import com.nstut.simplyspeakers.audio.AudioDecoders;
 import com.nstut.simplyspeakers.blocks.entities.SpeakerBlockEntity;
 import com.nstut.simplyspeakers.client.ClientAudioPlayer;
 import com.nstut.simplyspeakers.client.SpeakerGuiConstants;
@@ -130,12 +131,12 @@ public class SpeakerScreen extends Screen {
 
         this.audioTabContent.uploadButton = Button.builder(Component.translatable("gui.simplyspeakers.upload"), button -> {
                     SimplySpeakers.LOGGER.info("Upload button clicked");
-                    Services.CLIENT.openFileDialog("mp3,wav", (file) -> {
+                    Services.CLIENT.openFileDialog(String.join(",", AudioDecoders.supportedExtensions()), (file) -> {
                         if (file != null) {
                             SimplySpeakers.LOGGER.info("File selected: " + file.getName());
                             // Validate file extension before starting upload
                             String fileName = file.getName().toLowerCase();
-                            if (!fileName.endsWith(".mp3") && !fileName.endsWith(".wav")) {
+                            if (!AudioDecoders.isSupportedFilename(fileName)) {
                                 SimplySpeakers.LOGGER.warn("Invalid file type selected: " + file.getName());
                                 setStatusMessage(Component.translatable("gui.simplyspeakers.upload.invalid_type"));
                                 return;